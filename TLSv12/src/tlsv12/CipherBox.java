@@ -25,17 +25,22 @@
 package tlsv12;
 
 import tlsv12.CipherSuite.BulkCipher;
+import tlsv12.crypto.engines.ChaCha20Poly1305;
 
+import javax.crypto.AEADBadTagException;
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
 import javax.crypto.ShortBufferException;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Hashtable;
@@ -68,6 +73,24 @@ import java.util.Hashtable;
  *
  * CBC Encryption CBC Decryption
  *
+ * With AEAD ciphers (RFC 5288), the record carries no MAC and no padding. Each
+ * record is encrypted under its own nonce, made of an implicit part derived
+ * with the keys and an explicit part sent before the ciphertext, for which we
+ * use the sequence number. The cipher authenticates the sequence number and
+ * record header as additional data, and appends its tag to the ciphertext.
+ * The cipher must be initialized for every record, by createExplicitNonce()
+ * before encryption and by applyExplicitNonce() before decryption.
+ *
+ * With encrypt-then-MAC (RFC 7366), the MAC of a CBC record is computed over
+ * the padded ciphertext rather than the plaintext, and is checked before the
+ * record is decrypted. A record which has been tampered with is then never
+ * decrypted, and there is no padding oracle to hide.
+ *
+ * ChaCha20-Poly1305 (RFC 7905) is implemented by the library rather than by a
+ * JCE provider. Its nonce is wholly implicit: the sequence number is XORed
+ * with the IV derived with the keys, and nothing is sent before the
+ * ciphertext.
+ *
  * NOTE that any ciphering involved in key exchange (e.g. with RSA) is handled
  * separately.
  *
@@ -88,6 +111,9 @@ final class CipherBox {
     // cipher object
     private final Cipher cipher;
 
+    // the library's ChaCha20-Poly1305, used instead of a cipher object
+    private final ChaCha20Poly1305 chacha;
+
     /**
      * Cipher blocksize, 0 for stream ciphers
      */
@@ -103,6 +129,37 @@ final class CipherBox {
      */
     private final boolean isCBCMode;
 
+    /**
+     * Is the cipher an AEAD cipher?
+     */
+    private final boolean isAEADMode;
+
+    /**
+     * The mode, key, implicit nonce, explicit nonce size and tag size of an
+     * AEAD cipher, which is initialized for each record.
+     */
+    private int mode;
+
+    private SecretKey key;
+
+    private byte[] fixedIv;
+
+    private int recordIvSize;
+
+    private int tagSize;
+
+    /**
+     * Is the MAC computed over the ciphertext (RFC 7366)? Only for CBC mode.
+     */
+    private boolean isEncryptThenMac;
+
+    /**
+     * The nonce and additional data of the next ChaCha20-Poly1305 record.
+     */
+    private byte[] aeadNonce;
+
+    private byte[] aeadData;
+
     /**
      * Fixed masks of various block size, as the initial decryption IVs for TLS
      * 1.1 or later.
@@ -120,7 +177,9 @@ final class CipherBox {
     private CipherBox() {
         this.protocolVersion = ProtocolVersion.DEFAULT;
         this.cipher = null;
+        this.chacha = null;
         this.isCBCMode = false;
+        this.isAEADMode = false;
     }
 
 
@@ -136,7 +195,13 @@ final class CipherBox {
             boolean encrypt) throws NoSuchAlgorithmException {
         try {
             this.protocolVersion = protocolVersion;
-            this.cipher = Cipher.getInstance(bulkCipher.transformation);
+            if( bulkCipher == CipherSuite.B_CHACHA20_POLY1305 ) {
+                this.cipher = null;
+                this.chacha = new ChaCha20Poly1305(key.getEncoded());
+            } else {
+                this.cipher = Cipher.getInstance(bulkCipher.transformation);
+                this.chacha = null;
+            }
             int mode = encrypt ? Cipher.ENCRYPT_MODE : Cipher.DECRYPT_MODE;
 
             if( random == null ) {
@@ -144,6 +209,27 @@ final class CipherBox {
             }
             this.random = random;
             this.isCBCMode = bulkCipher.isCBCMode;
+            this.isAEADMode = bulkCipher.isAEADMode;
+
+            if( isAEADMode ) {
+                if( iv == null || iv.getIV().length != bulkCipher.fixedIvSize ) {
+                    throw new RuntimeException("Improper fixed IV for AEAD");
+                }
+                this.mode = mode;
+                this.key = key;
+                this.fixedIv = iv.getIV();
+                this.recordIvSize = bulkCipher.ivSize - bulkCipher.fixedIvSize;
+                this.tagSize = bulkCipher.tagSize;
+
+                // The nonce must not be repeated for encryption, so only check
+                // the key here, with a decryption which is never used. The
+                // cipher is initialized again for every record.
+                if( cipher != null ) {
+                    cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(
+                            tagSize << 3, new byte[bulkCipher.ivSize]), random);
+                }
+                return;
+            }
 
             /*
              * RFC 4346 recommends two algorithms used to generated the
@@ -218,10 +304,23 @@ final class CipherBox {
      * Encrypts a block of data, returning the size of the resulting block.
      */
     int encrypt(byte[] buf, int offset, int len) {
-        if( cipher == null ) {
+        if( isNullCipher() ) {
             return len;
         }
 
+        if( isAEADMode ) {
+            if( chacha != null ) {
+                return chacha.encrypt(aeadNonce, aeadData, buf, offset, len,
+                        buf, offset);
+            }
+            try {
+                // initialized by createExplicitNonce(), appends the tag
+                return cipher.doFinal(buf, offset, len, buf, offset);
+            } catch (GeneralSecurityException e) {
+                throw new RuntimeException("AEAD encryption failed", e);
+            }
+        }
+
         try {
             if( blockSize != 0 ) {
                 // TLSv1.1 needs a IV block
@@ -278,11 +377,27 @@ final class CipherBox {
 
         int len = bb.remaining();
 
-        if( cipher == null ) {
+        if( isNullCipher() ) {
             bb.position(bb.limit());
             return len;
         }
 
+        if( isAEADMode ) {
+            try {
+                if( chacha != null ) {
+                    return chachaFinal(bb, true);
+                }
+                // initialized by createExplicitNonce(), appends the tag
+                ByteBuffer dup = bb.duplicate();
+                bb.limit(bb.position() + len + tagSize);
+                int newLen = cipher.doFinal(dup, bb);
+                bb.limit(bb.position());
+                return newLen;
+            } catch (GeneralSecurityException e) {
+                throw new RuntimeException("AEAD encryption failed", e);
+            }
+        }
+
         try {
             int pos = bb.position();
 
@@ -376,10 +491,29 @@ final class CipherBox {
      * use the bad_record_mac alert to hide the specific type of the error.
      */
     int decrypt(byte[] buf, int offset, int len, int tagLen) throws BadPaddingException {
-        if( cipher == null ) {
+        if( isNullCipher() ) {
             return len;
         }
 
+        if( isAEADMode ) {
+            if( chacha != null ) {
+                // the tag is checked before anything is written
+                return chacha.decrypt(aeadNonce, aeadData, buf, offset, len,
+                        buf, offset);
+            }
+            try {
+                // initialized by applyExplicitNonce(), the plaintext is moved
+                // over the explicit nonce
+                return cipher.doFinal(buf, offset + recordIvSize, len
+                        - recordIvSize, buf, offset);
+            } catch (BadPaddingException e) {
+                // the tag did not match
+                throw e;
+            } catch (GeneralSecurityException e) {
+                throw new RuntimeException("AEAD decryption failed", e);
+            }
+        }
+
         try {
             int newLen = cipher.update(buf, offset, len, buf, offset);
             if( newLen != len ) {
@@ -400,7 +534,7 @@ final class CipherBox {
 
             if( blockSize != 0 ) {
                 newLen = removePadding(buf, offset, newLen, tagLen, blockSize,
-                        protocolVersion);
+                        protocolVersion, !isEncryptThenMac);
 
                 if( protocolVersion.v >= ProtocolVersion.TLS11.v ) {
                     if( newLen < blockSize ) {
@@ -433,11 +567,31 @@ final class CipherBox {
 
         int len = bb.remaining();
 
-        if( cipher == null ) {
+        if( isNullCipher() ) {
             bb.position(bb.limit());
             return len;
         }
 
+        if( isAEADMode ) {
+            try {
+                if( chacha != null ) {
+                    return chachaFinal(bb, false);
+                }
+                // initialized by applyExplicitNonce(), the plaintext is moved
+                // over the explicit nonce
+                ByteBuffer dup = bb.duplicate();
+                dup.position(bb.position() + recordIvSize);
+                int newLen = cipher.doFinal(dup, bb);
+                bb.limit(bb.position());
+                return newLen;
+            } catch (BadPaddingException e) {
+                // the tag did not match
+                throw e;
+            } catch (GeneralSecurityException e) {
+                throw new RuntimeException("AEAD decryption failed", e);
+            }
+        }
+
         try {
             /*
              * Decrypt "in-place".
@@ -468,7 +622,8 @@ final class CipherBox {
              */
             if( blockSize != 0 ) {
                 bb.position(pos);
-                newLen = removePadding(bb, tagLen, blockSize, protocolVersion);
+                newLen = removePadding(bb, tagLen, blockSize, protocolVersion,
+                        !isEncryptThenMac);
 
                 if( protocolVersion.v >= ProtocolVersion.TLS11.v ) {
                     if( newLen < blockSize ) {
@@ -577,8 +732,12 @@ final class CipherBox {
      * NOTE that we are checking both the padding and the padLen bytes here.
      * 
      * The caller MUST ensure that the len parameter is a positive number.
+     * 
+     * If constantTime is false, as when the MAC was checked before decryption,
+     * only the padding bytes are checked.
      */
-    private static int[] checkPadding(byte[] buf, int offset, int len, byte pad) {
+    private static int[] checkPadding(byte[] buf, int offset, int len,
+            byte pad, boolean constantTime) {
 
         if( len <= 0 ) {
             throw new RuntimeException("padding len must be positive");
@@ -587,8 +746,9 @@ final class CipherBox {
         // An array of hits is used to prevent Hotspot optimization for
         // the purpose of a constant-time check.
         int[] results = { 0, 0 }; // {missed #, matched #}
-        for(int i = 0;i <= 256;) {
-            for(int j = 0;j < len && i <= 256;j++,i++) { // j <= i
+        int last = constantTime ? 256 : len - 1;
+        for(int i = 0;i <= last;) {
+            for(int j = 0;j < len && i <= last;j++,i++) { // j <= i
                 if( buf[offset + j] != pad ) {
                     results[0]++; // mismatched padding data
                 } else {
@@ -608,7 +768,8 @@ final class CipherBox {
      * 
      * The caller MUST ensure that the bb parameter has remaining.
      */
-    private static int[] checkPadding(ByteBuffer bb, byte pad) {
+    private static int[] checkPadding(ByteBuffer bb, byte pad,
+            boolean constantTime) {
 
         if( !bb.hasRemaining() ) {
             throw new RuntimeException("hasRemaining() must be positive");
@@ -617,9 +778,10 @@ final class CipherBox {
         // An array of hits is used to prevent Hotspot optimization for
         // the purpose of a constant-time check.
         int[] results = { 0, 0 }; // {missed #, matched #}
+        int last = constantTime ? 256 : bb.remaining() - 1;
         bb.mark();
-        for(int i = 0;i <= 256;bb.reset()) {
-            for(;bb.hasRemaining() && i <= 256;i++) {
+        for(int i = 0;i <= last;bb.reset()) {
+            for(;bb.hasRemaining() && i <= last;i++) {
                 if( bb.get() != pad ) {
                     results[0]++; // mismatched padding data
                 } else {
@@ -637,9 +799,13 @@ final class CipherBox {
      * xx xx xx xx xx 00 xx xx xx xx xx xx 01 01 ... xx 06 06 06 06 06 06 06 07
      * 07 07 07 07 07 07 07 TLS also allows any amount of padding from 1 and 256
      * bytes as long as it makes the data a multiple of the block size
+     *
+     * The padding is checked in constant time unless the record was
+     * authenticated before decryption, with encrypt-then-MAC.
      */
     private static int removePadding(byte[] buf, int offset, int len,
-            int tagLen, int blockSize, ProtocolVersion protocolVersion) throws BadPaddingException {
+            int tagLen, int blockSize, ProtocolVersion protocolVersion,
+            boolean constantTime) throws BadPaddingException {
 
         // last byte is length byte (i.e. actual padding length - 1)
         int padOffset = offset + len - 1;
@@ -652,14 +818,15 @@ final class CipherBox {
             //
             // Note that it is a dummy check, so we won't care about what is
             // the actual padding data.
-            checkPadding(buf, offset, len, (byte) (padLen & 0xFF));
+            checkPadding(buf, offset, len, (byte) (padLen & 0xFF),
+                    constantTime);
 
             throw new BadPaddingException("Invalid Padding length: " + padLen);
         }
 
         // The padding data should be filled with the padding length value.
         int[] results = checkPadding(buf, offset + newLen, padLen + 1,
-                (byte) (padLen & 0xFF));
+                (byte) (padLen & 0xFF), constantTime);
         if( protocolVersion.v >= ProtocolVersion.TLS10.v ) {
             if( results[0] != 0 ) { // padding data has invalid bytes
                 throw new BadPaddingException("Invalid TLS padding data");
@@ -681,7 +848,7 @@ final class CipherBox {
      * Position/limit is equal the removed padding.
      */
     private static int removePadding(ByteBuffer bb, int tagLen, int blockSize,
-            ProtocolVersion protocolVersion) throws BadPaddingException {
+            ProtocolVersion protocolVersion, boolean constantTime) throws BadPaddingException {
 
         int len = bb.remaining();
         int offset = bb.position();
@@ -697,7 +864,7 @@ final class CipherBox {
             //
             // Note that it is a dummy check, so we won't care about what is
             // the actual padding data.
-            checkPadding(bb.duplicate(), (byte) (padLen & 0xFF));
+            checkPadding(bb.duplicate(), (byte) (padLen & 0xFF), constantTime);
 
             throw new BadPaddingException("Invalid Padding length: " + padLen);
         }
@@ -705,7 +872,7 @@ final class CipherBox {
         // The padding data should be filled with the padding length value.
         int[] results = checkPadding(
                 (ByteBuffer) bb.duplicate().position(offset + newLen),
-                (byte) (padLen & 0xFF));
+                (byte) (padLen & 0xFF), constantTime);
         if( protocolVersion.v >= ProtocolVersion.TLS10.v ) {
             if( results[0] != 0 ) { // padding data has invalid bytes
                 throw new BadPaddingException("Invalid TLS padding data");
@@ -730,6 +897,41 @@ final class CipherBox {
     }
 
 
+    /*
+     * Encrypt or decrypt the record between the position and limit of a
+     * ByteBuffer in place with ChaCha20-Poly1305, returning the new length.
+     * The position and limit are set to the end of the result. A buffer
+     * without an accessible array is processed through a copy.
+     */
+    private int chachaFinal(ByteBuffer bb, boolean encrypt) throws AEADBadTagException {
+        int pos = bb.position();
+        int len = bb.remaining();
+        boolean direct = !bb.hasArray();
+        byte[] buf;
+        int offset;
+        if( direct ) {
+            buf = new byte[len + tagSize];
+            bb.duplicate().get(buf, 0, len);
+            offset = 0;
+        } else {
+            buf = bb.array();
+            offset = bb.arrayOffset() + pos;
+        }
+
+        int newLen = encrypt ? chacha.encrypt(aeadNonce, aeadData, buf,
+                offset, len, buf, offset) : chacha.decrypt(aeadNonce,
+                aeadData, buf, offset, len, buf, offset);
+
+        bb.limit(pos + newLen);
+        if( direct ) {
+            bb.put(buf, 0, newLen);
+        } else {
+            bb.position(pos + newLen);
+        }
+        return newLen;
+    }
+
+
     /*
      * Dispose of any intermediate state in the underlying cipher. For PKCS11
      * ciphers, this will release any attached sessions, and thus make
@@ -737,7 +939,9 @@ final class CipherBox {
      */
     void dispose() {
         try {
-            if( cipher != null ) {
+            // an AEAD cipher completes every record, and may not be finished
+            // again without being initialized
+            if( cipher != null && !isAEADMode ) {
                 // ignore return value.
                 cipher.doFinal();
             }
@@ -757,13 +961,162 @@ final class CipherBox {
     }
 
 
+    /*
+     * Use encrypt-then-MAC (RFC 7366), as negotiated by the handshake. The
+     * records' MAC is then computed over the ciphertext and checked before
+     * decryption, so the padding needs no constant-time check. Must be called
+     * before the cipher is used.
+     */
+    void setEncryptThenMac() {
+        if( !isCBCMode ) {
+            throw new IllegalStateException(
+                    "Encrypt-then-MAC applies only to CBC mode ciphers");
+        }
+        isEncryptThenMac = true;
+    }
+
+
+    /*
+     * Is the MAC computed over the ciphertext?
+     * 
+     * @return true if encrypt-then-MAC is used, false otherwise.
+     */
+    boolean isEncryptThenMac() {
+        return isEncryptThenMac;
+    }
+
+
+    /*
+     * Is the cipher an AEAD cipher?
+     * 
+     * @return true if the cipher is an AEAD cipher, false otherwise.
+     */
+    boolean isAEADMode() {
+        return isAEADMode;
+    }
+
+
+    /*
+     * Get the size of the explicit nonce which an AEAD cipher sends before the
+     * ciphertext of each record.
+     * 
+     * @return the size, or 0 if the cipher is not an AEAD cipher
+     */
+    int getExplicitNonceSize() {
+        return isAEADMode ? recordIvSize : 0;
+    }
+
+
+    /*
+     * Initialize an AEAD cipher to encrypt the next record, and return the
+     * explicit nonce, which the caller must send before the ciphertext.
+     * 
+     * The explicit nonce is the sequence number, so it is never repeated with
+     * the same key. It is empty if the nonce is implicit. The sequence number
+     * is incremented.
+     * 
+     * @param signer the MAC which holds the sequence number
+     * @param contentType the record type
+     * @param fragmentLength the length of the plaintext
+     */
+    byte[] createExplicitNonce(MAC signer, byte contentType, int fragmentLength) {
+        byte[] nonce = signer.sequenceNumber();
+        initAEAD(nonce, signer.acquireAuthenticationBytes(contentType,
+                fragmentLength));
+        return (recordIvSize == 0) ? new byte[0] : nonce;
+    }
+
+
+    /*
+     * Initialize an AEAD cipher to decrypt a record, with the explicit nonce at
+     * the start of the fragment. The sequence number is incremented.
+     * 
+     * The caller must have checked the fragment length with sanityCheck().
+     * 
+     * @param signer the MAC which holds the sequence number
+     * @param contentType the record type
+     * @param buf the fragment's buffer
+     * @param offset the start of the fragment
+     * @param cipheredLength the length of the fragment
+     */
+    void applyExplicitNonce(MAC signer, byte contentType, byte[] buf,
+            int offset, int cipheredLength) {
+        byte[] nonce;
+        if( recordIvSize == 0 ) {
+            nonce = signer.sequenceNumber();
+        } else {
+            nonce = new byte[recordIvSize];
+            System.arraycopy(buf, offset, nonce, 0, recordIvSize);
+        }
+        initAEAD(nonce, signer.acquireAuthenticationBytes(contentType,
+                cipheredLength - recordIvSize - tagSize));
+    }
+
+
+    /*
+     * Initialize an AEAD cipher to decrypt the fragment between the position
+     * and limit of a ByteBuffer, whose content is not changed.
+     * 
+     * @see applyExplicitNonce(MAC, byte, byte[], int, int)
+     */
+    void applyExplicitNonce(MAC signer, byte contentType, ByteBuffer bb) {
+        byte[] nonce;
+        int cipheredLength = bb.remaining();
+        if( recordIvSize == 0 ) {
+            nonce = signer.sequenceNumber();
+        } else {
+            nonce = new byte[recordIvSize];
+            bb.duplicate().get(nonce);
+        }
+        initAEAD(nonce, signer.acquireAuthenticationBytes(contentType,
+                cipheredLength - recordIvSize - tagSize));
+    }
+
+
+    /*
+     * Initialize an AEAD cipher with the explicit nonce, or with the sequence
+     * number if the nonce is implicit.
+     */
+    private void initAEAD(byte[] nonce, byte[] additionalData) {
+        byte[] iv;
+        if( recordIvSize == 0 ) {
+            // the sequence number, padded on the left, XOR the fixed IV
+            iv = fixedIv.clone();
+            int start = iv.length - nonce.length;
+            for(int i = 0;i < nonce.length;++i) {
+                iv[start + i] ^= nonce[i];
+            }
+        } else {
+            iv = new byte[fixedIv.length + nonce.length];
+            System.arraycopy(fixedIv, 0, iv, 0, fixedIv.length);
+            System.arraycopy(nonce, 0, iv, fixedIv.length, nonce.length);
+        }
+
+        if( chacha != null ) {
+            aeadNonce = iv;
+            aeadData = additionalData;
+            return;
+        }
+        try {
+            cipher.init(mode, key, new GCMParameterSpec(tagSize << 3, iv),
+                    random);
+        } catch (InvalidKeyException e) {
+            // the key was accepted when the cipher was created
+            throw new RuntimeException("Could not initialize AEAD cipher", e);
+        } catch (InvalidAlgorithmParameterException e) {
+            throw new RuntimeException("Could not initialize AEAD cipher", e);
+        }
+        cipher.updateAAD(additionalData);
+    }
+
+
     /**
      * Is the cipher null?
      *
      * @return true if the cipher is null, false otherwise.
      */
     boolean isNullCipher() {
-        return cipher == null;
+        return cipher == null && chacha == null;
     }
 
 
@@ -775,12 +1128,19 @@ final class CipherBox {
      * smallest size of padding in CBC mode) bigger than the tag size of the MAC
      * algorithm except the explicit IV size for TLS 1.1 or later.
      *
-     * In non-CBC mode, check that the fragment length is not less than the tag
+     * In AEAD mode, check that the fragment holds at least the explicit nonce
+     * and the authentication tag.
+     *
+     * In other modes, check that the fragment length is not less than the tag
      * size of the MAC algorithm.
      *
      * @return true if the length of a fragment matches above requirements
      */
     boolean sanityCheck(int tagLen, int fragmentLen) {
+        if( isAEADMode ) {
+            return fragmentLen >= recordIvSize + tagSize;
+        }
+
         if( !isCBCMode ) {
             return fragmentLen >= tagLen;
         }
@@ -29,10 +29,13 @@ import static tlsv12.CipherSuite.PRF.P_NONE;
 import static tlsv12.CipherSuite.PRF.P_SHA256;
 import static tlsv12.CipherSuite.PRF.P_SHA384;
 
+import com.sun.management.HotSpotDiagnosticMXBean;
+
 import javax.crypto.SecretKey;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 
+import java.lang.management.ManagementFactory;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
@@ -135,7 +138,11 @@ final class CipherSuite implements Comparable<CipherSuite> {
         this.keyExchange = keyExchange;
         this.cipher = cipher;
         this.exportable = cipher.exportable;
-        if( name.endsWith("_SHA256") ) {
+        if( cipher.isAEADMode ) {
+            // AEAD ciphers authenticate the records themselves, the hash in
+            // the name is only that of the PRF
+            macAlg = M_NULL;
+        } else if( name.endsWith("_SHA256") ) {
             macAlg = M_SHA256;
         } else if( name.endsWith("_SHA384") ) {
             macAlg = M_SHA384;
@@ -377,26 +384,53 @@ final class CipherSuite implements Comparable<CipherSuite> {
         // for non-exportable ciphers, this is the same as keySize
         final int expandedKeySize;
 
-        // size of the IV (also block size)
+        // size of the IV (also block size), or of the whole nonce for AEAD
+        // ciphers
         final int ivSize;
 
+        // size of the part of an AEAD cipher's nonce which is derived with
+        // the keys, the rest being sent with each record
+        final int fixedIvSize;
+
+        // size of an AEAD cipher's authentication tag
+        final int tagSize;
+
         // exportable under 512/40 bit rules
         final boolean exportable;
 
         // Is the cipher algorithm of Cipher Block Chaining (CBC) mode?
         final boolean isCBCMode;
 
+        // Is the cipher an authenticated cipher (AEAD), such as GCM?
+        final boolean isAEADMode;
+
 
         BulkCipher(String transformation, int keySize, int ivSize,
                 boolean allowed) {
+            this(transformation, keySize, ivSize, ivSize, 0, allowed);
+        }
+
+
+        /**
+         * Constructor for AEAD ciphers, whose nonce of ivSize bytes is made of
+         * fixedIvSize bytes derived with the keys and the explicit nonce sent
+         * with each record.
+         */
+        BulkCipher(String transformation, int keySize, int fixedIvSize,
+                int ivSize, int tagSize, boolean allowed) {
             this.transformation = transformation;
             String[] splits = transformation.split("/");
             this.algorithm = splits[0];
             this.isCBCMode = splits.length <= 1 ? false
                     : "CBC".equalsIgnoreCase(splits[1]);
-            this.description = this.algorithm + "/" + (keySize << 3);
+            this.isAEADMode = tagSize != 0;
+            this.description = this.algorithm + "/"
+                    + (isAEADMode && splits.length > 1 ? splits[1] + "/" : "")
+                    + (keySize << 3);
             this.keySize = keySize;
             this.ivSize = ivSize;
+            this.fixedIvSize = fixedIvSize;
+            this.tagSize = tagSize;
             this.allowed = allowed;
 
             this.expandedKeySize = keySize;
@@ -425,13 +459,14 @@ final class CipherSuite implements Comparable<CipherSuite> {
          * the JSSE internal implementations. We also assume AES/128 is always
          * available since it is shipped with the SunJCE provider. However,
          * AES/256 is unavailable when the default JCE policy jurisdiction files
-         * are installed because of key length restrictions.
+         * are installed because of key length restrictions, and GCM is only
+         * available from providers which implement it.
          */
         boolean isAvailable() {
             if( allowed == false ) {
                 return false;
             }
-            if( this == B_AES_256 ) {
+            if( this == B_AES_256 || isAEADMode ) {
                 return isAvailable(this);
             }
 
@@ -455,7 +490,7 @@ final class CipherSuite implements Comparable<CipherSuite> {
                     SecretKey key = new SecretKeySpec(
                             new byte[cipher.expandedKeySize], cipher.algorithm);
                     IvParameterSpec iv = new IvParameterSpec(
-                            new byte[cipher.ivSize]);
+                            new byte[cipher.fixedIvSize]);
                     cipher.newCipher(ProtocolVersion.DEFAULT, key, iv, null,
                             true);
                     b = Boolean.TRUE;
@@ -527,6 +562,28 @@ final class CipherSuite implements Comparable<CipherSuite> {
     final static BulkCipher B_AES_256 = new BulkCipher("AES/CBC/NoPadding", 32,
             16, true);
 
+    // AEAD ciphers (RFC 5288)
+    final static BulkCipher B_AES_128_GCM = new BulkCipher(
+            "AES/GCM/NoPadding", 16, 4, 12, 16, true);
+
+    final static BulkCipher B_AES_256_GCM = new BulkCipher(
+            "AES/GCM/NoPadding", 32, 4, 12, 16, true);
+
+    // AEAD cipher (RFC 7905), implemented by the library itself. The whole
+    // nonce is derived with the keys and the sequence number.
+    final static BulkCipher B_CHACHA20_POLY1305 = new BulkCipher(
+            "ChaCha20-Poly1305", 32, 12, 12, 16, true);
+
+    /**
+     * Whether servers should choose ChaCha20-Poly1305 over AES when the client
+     * offers both, because the JVM does not use AES instructions on this
+     * machine. Without them, the pure Java ChaCha20-Poly1305 is much faster
+     * than AES, in either mode. The system property
+     * <code>tlsv12.preferChaCha20</code> may be set to true or false to
+     * override the detection.
+     */
+    final static boolean PREFER_CHACHA20 = preferChaCha20();
+
     // MACs
     final static MacAlg M_NULL = new MacAlg("NULL", 0, 0, 0);
 
@@ -534,6 +591,35 @@ final class CipherSuite implements Comparable<CipherSuite> {
 
     final static MacAlg M_SHA384 = new MacAlg("SHA384", 48, 128, 17);
 
+
+    private static boolean preferChaCha20() {
+        String s = java.security.AccessController.doPrivileged(new java.security.PrivilegedAction<String>() {
+            public String run() {
+                return System.getProperty("tlsv12.preferChaCha20");
+            }
+        });
+        if( s != null ) {
+            return Boolean.parseBoolean(s.trim());
+        }
+
+        // HotSpot turns its AES intrinsics on only if the CPU has AES
+        // instructions. On other JVMs, assume that AES is accelerated.
+        try {
+            HotSpotDiagnosticMXBean hotspot = ManagementFactory
+                    .getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            if( hotspot != null ) {
+                return !Boolean.parseBoolean(hotspot.getVMOption(
+                        "UseAESIntrinsics").getValue());
+            }
+        } catch (Exception e) {
+            // not HotSpot
+        } catch (LinkageError e) {
+            // not HotSpot
+        }
+        return false;
+    }
+
+
     /**
      * PRFs (PseudoRandom Function) from TLS specifications.
      *
@@ -808,9 +894,11 @@ final class CipherSuite implements Comparable<CipherSuite> {
         /*
          * Definition of the CipherSuites that are enabled by default. They are
          * listed in preference order, most preferred first, using the following
-         * criteria: 1. Prefer the stronger bulk cipher, in the order of
-         * AES_256, AES_128, 3DES-EDE. 2. Prefer the stronger MAC algorithm, in
-         * the order of SHA384, SHA256, SHA, MD5. 3. Prefer the better
+         * criteria: 1. Prefer AEAD ciphers, which need neither a separate MAC
+         * nor CBC padding, with AES-GCM before ChaCha20-Poly1305 (servers
+         * reverse these where AES is not accelerated, see PREFER_CHACHA20). 2. Prefer the stronger bulk cipher, in the order of
+         * AES_256, AES_128, 3DES-EDE. 3. Prefer the stronger MAC algorithm, in
+         * the order of SHA384, SHA256, SHA, MD5. 4. Prefer the better
          * performance of key exchange and digital signature algorithm, in the
          * order of ECDHE-ECDSA, ECDHE-RSA, RSA, ECDH-ECDSA, ECDH-RSA, DHE-RSA,
          * DHE-DSS.
@@ -823,6 +911,19 @@ final class CipherSuite implements Comparable<CipherSuite> {
 
         // ID Key Exchange Cipher A obs suprt PRF
         // ====== ============ ========= = === ===== ========
+        add("TLS_ECDHE_ECDSA_WITH_AES_256_GCM_SHA384", 0xc02c, --p,
+                K_ECDHE_ECDSA, B_AES_256_GCM, T, max, tls12, P_SHA384);
+        add("TLS_ECDHE_RSA_WITH_AES_256_GCM_SHA384", 0xc030, --p, K_ECDHE_RSA,
+                B_AES_256_GCM, T, max, tls12, P_SHA384);
+        add("TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256", 0xc02b, --p,
+                K_ECDHE_ECDSA, B_AES_128_GCM, T, max, tls12, P_SHA256);
+        add("TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256", 0xc02f, --p, K_ECDHE_RSA,
+                B_AES_128_GCM, T, max, tls12, P_SHA256);
+        add("TLS_ECDHE_ECDSA_WITH_CHACHA20_POLY1305_SHA256", 0xcca9, --p,
+                K_ECDHE_ECDSA, B_CHACHA20_POLY1305, T, max, tls12, P_SHA256);
+        add("TLS_ECDHE_RSA_WITH_CHACHA20_POLY1305_SHA256", 0xcca8, --p,
+                K_ECDHE_RSA, B_CHACHA20_POLY1305, T, max, tls12, P_SHA256);
+
         add("TLS_ECDHE_ECDSA_WITH_AES_256_CBC_SHA384", 0xc024, --p,
                 K_ECDHE_ECDSA, B_AES_256, T, max, tls12, P_SHA384);
         add("TLS_ECDHE_RSA_WITH_AES_256_CBC_SHA384", 0xc028, --p, K_ECDHE_RSA,
@@ -1107,12 +1208,8 @@ final class CipherSuite implements Comparable<CipherSuite> {
         add("TLS_SRP_SHA_DSS_WITH_AES_256_CBC_SHA", 0xc022);
 
         // Unsupported cipher suites from RFC 5289
-        add("TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256", 0xc02b);
-        add("TLS_ECDHE_ECDSA_WITH_AES_256_GCM_SHA384", 0xc02c);
         add("TLS_ECDH_ECDSA_WITH_AES_128_GCM_SHA256", 0xc02d);
         add("TLS_ECDH_ECDSA_WITH_AES_256_GCM_SHA384", 0xc02e);
-        add("TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256", 0xc02f);
-        add("TLS_ECDHE_RSA_WITH_AES_256_GCM_SHA384", 0xc030);
         add("TLS_ECDH_RSA_WITH_AES_128_GCM_SHA256", 0xc031);
         add("TLS_ECDH_RSA_WITH_AES_256_GCM_SHA384", 0xc032);
 
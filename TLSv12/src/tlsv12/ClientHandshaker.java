@@ -80,6 +80,11 @@ final class ClientHandshaker extends Handshaker {
     // for ECDHE/ECDH_anon and RSA_EXPORT.
     private PublicKey ephemeralServerKey;
 
+    // the server's X25519 public value, which has no key object
+    private byte[] ephemeralServerPoint;
+
+    private SupportedEllipticPointFormatsExtension serverPointFormats;
+
     // server's ephemeral public value for DHE/DH_anon key exchanges
     private BigInteger serverDH;
 
@@ -494,6 +499,21 @@ final class ClientHandshaker extends Handshaker {
             handshakeHash.setFinishedAlg(cipherSuite.prfAlg.getPRFHashAlg());
         }
 
+        // check the "encrypt_then_mac" extension, which we only offer for CBC
+        // suites, and which must not be dropped by a renegotiation
+        encryptThenMac = (mesg.extensions.get(ExtensionType.EXT_ENCRYPT_THEN_MAC) != null);
+        if( encryptThenMac
+                && (!enableEncryptThenMac || !cipherSuite.cipher.isCBCMode
+                        || protocolVersion.v < ProtocolVersion.TLS10.v) ) {
+            fatalSE(Alerts.alert_unsupported_extension,
+                    "Server sent an unexpected encrypt_then_mac extension");
+        }
+        if( !encryptThenMac && !isInitialHandshake && isEncryptThenMacSE()
+                && cipherSuite.cipher.isCBCMode ) {
+            fatalSE(Alerts.alert_handshake_failure,
+                    "Server did not renegotiate encrypt_then_mac");
+        }
+
         if( mesg.compression_method != 0 ) {
             fatalSE(Alerts.alert_illegal_parameter,
                     "compression type not supported, "
@@ -561,11 +581,13 @@ final class ClientHandshaker extends Handshaker {
             if( (type != ExtensionType.EXT_ELLIPTIC_CURVES)
                     && (type != ExtensionType.EXT_EC_POINT_FORMATS)
                     && (type != ExtensionType.EXT_SERVER_NAME)
-                    && (type != ExtensionType.EXT_RENEGOTIATION_INFO) ) {
+                    && (type != ExtensionType.EXT_RENEGOTIATION_INFO)
+                    && (type != ExtensionType.EXT_ENCRYPT_THEN_MAC) ) {
                 fatalSE(Alerts.alert_unsupported_extension,
                         "Server sent an unsupported extension: " + type);
             }
         }
+        serverPointFormats = (SupportedEllipticPointFormatsExtension) mesg.extensions.get(ExtensionType.EXT_EC_POINT_FORMATS);
 
         // Create a new session, we need to do the full handshake
         session = new SSLSessionImpl(protocolVersion, cipherSuite,
@@ -588,6 +610,7 @@ final class ClientHandshaker extends Handshaker {
         if( debug != null && Debug.isOn("handshake") ) {
             mesg.print(System.out);
         }
+        DHCrypt.checkParameters(mesg.getModulus(), mesg.getBase());
         dh = new DHCrypt(mesg.getModulus(), mesg.getBase(),
                 sslContext.getSecureRandom());
         serverDH = mesg.getServerPublicKey();
@@ -599,8 +622,15 @@ final class ClientHandshaker extends Handshaker {
             mesg.print(System.out);
         }
         ECPublicKey key = mesg.getPublicKey();
-        ecdh = new ECDHCrypt(key.getParams(), sslContext.getSecureRandom());
-        ephemeralServerKey = key;
+        if( key == null ) {
+            // X25519
+            String oid = SupportedEllipticCurvesExtension.getCurveOid(mesg.getCurveId());
+            ecdh = new ECDHCrypt(oid, sslContext.getSecureRandom());
+            ephemeralServerPoint = mesg.getEncodedPoint();
+        } else {
+            ecdh = new ECDHCrypt(key.getParams(), sslContext.getSecureRandom());
+            ephemeralServerKey = key;
+        }
     }
 
 
@@ -763,7 +793,8 @@ final class ClientHandshaker extends Handshaker {
                 throw new SSLProtocolException(
                         "Server did not send a ECDH Server Key Exchange message");
             }
-            m2 = new ECDHClientKeyExchange(ecdh.getPublicKey());
+            m2 = new ECDHClientKeyExchange(ecdh,
+                    ecdh.useCompressed(serverPointFormats));
             break;
         case K_ECDH_RSA:
         case K_ECDH_ECDSA:
@@ -777,7 +808,8 @@ final class ClientHandshaker extends Handshaker {
             }
             ECParameterSpec params = ((ECPublicKey) serverKey).getParams();
             ecdh = new ECDHCrypt(params, sslContext.getSecureRandom());
-            m2 = new ECDHClientKeyExchange(ecdh.getPublicKey());
+            m2 = new ECDHClientKeyExchange(ecdh,
+                    ecdh.useCompressed(serverPointFormats));
             break;
         default:
             // somethings very wrong
@@ -818,11 +850,16 @@ final class ClientHandshaker extends Handshaker {
         case K_ECDHE_RSA:
         case K_ECDHE_ECDSA:
         case K_ECDH_ANON:
-            preMasterSecret = ecdh.getAgreedSecret(ephemeralServerKey);
+            if( ephemeralServerPoint != null ) {
+                preMasterSecret = ecdh.getAgreedSecret(ephemeralServerPoint);
+            } else {
+                preMasterSecret = ecdh.getAgreedSecret(ephemeralServerKey,
+                        false);
+            }
             break;
         case K_ECDH_RSA:
         case K_ECDH_ECDSA:
-            preMasterSecret = ecdh.getAgreedSecret(serverKey);
+            preMasterSecret = ecdh.getAgreedSecret(serverKey, true);
             break;
         default:
             throw new IOException("Internal error: unknown key exchange "
@@ -1144,6 +1181,17 @@ final class ClientHandshaker extends Handshaker {
             clientHelloMessage.addSignatureAlgorithmsExtension(localSignAlgs);
         }
 
+        // add encrypt_then_mac extension, if a CBC suite may be chosen
+        if( enableEncryptThenMac
+                && maxProtocolVersion.v >= ProtocolVersion.TLS10.v ) {
+            for(CipherSuite suite:cipherSuites.collection()) {
+                if( suite.cipher.isCBCMode && isNegotiable(suite) ) {
+                    clientHelloMessage.addEncryptThenMacExtension();
+                    break;
+                }
+            }
+        }
+
         // add server_name extension
         if( enableSNIExtension ) {
             // We cannot use the hostname resolved from name services. For
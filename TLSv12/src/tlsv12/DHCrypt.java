@@ -29,6 +29,7 @@ import javax.crypto.SecretKey;
 import javax.crypto.interfaces.DHPublicKey;
 import javax.crypto.spec.DHParameterSpec;
 import javax.crypto.spec.DHPublicKeySpec;
+import javax.crypto.spec.SecretKeySpec;
 import javax.net.ssl.SSLHandshakeException;
 
 import java.math.BigInteger;
@@ -39,6 +40,8 @@ import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import tlsv12.util.BigIntegers;
+
 /**
  * This class implements the Diffie-Hellman key exchange algorithm. D-H means
  * combining your private key with your partners public key to generate a
@@ -65,6 +68,10 @@ import java.util.regex.Pattern;
  * In TLS the server chooses the parameter values itself, the client must use
  * those sent to it by the server.
  *
+ * Keys in the RFC 7919 groups (ffdhe2048, ffdhe3072 and ffdhe4096) are
+ * generated and used here rather than through JCE, with short private
+ * exponents and a precomputed table for the generator; see FFDHEGroup.
+ *
  * The use of ephemeral keys as described above also achieves what is called
  * "forward secrecy". This means that even if the authentication keys are broken
  * at a later date, the shared secret remains secure. The session is compromised
@@ -81,9 +88,15 @@ final class DHCrypt {
 
     private BigInteger base; // G (aka alpha)
 
-    // our private key (including private component x)
+    // our private key (including private component x), from JCE
     private PrivateKey privateKey;
 
+    // our RFC 7919 group, or null if the key came from JCE
+    private FFDHEGroup group;
+
+    // our private exponent x, in an RFC 7919 group
+    private BigInteger privateValue;
+
     // public component of our key, X = (g ^ x) mod p
     private BigInteger publicValue; // X (aka y)
 
@@ -95,9 +108,7 @@ final class DHCrypt {
      * Generate a Diffie-Hellman keypair of the specified size.
      */
     DHCrypt(int keyLength, SecureRandom random) {
-        this(keyLength,
-                ParametersHolder.definedParams.get(Integer.valueOf(keyLength)),
-                random);
+        this(keyLength, getParameters(keyLength), random);
     }
 
 
@@ -114,25 +125,98 @@ final class DHCrypt {
     }
 
 
+    /**
+     * Get the group to use for a modulus size: the group configured by the
+     * security property once it has been validated, or else the built-in
+     * group. Handshakes do not wait for a configured group to be validated.
+     *
+     * @return the group, or null if there is no group of that size
+     */
+    private static DHParameterSpec getParameters(int keyLength) {
+        Integer key = Integer.valueOf(keyLength);
+        DHParameterSpec spec = ParametersHolder.configuredParams.get(key);
+        if( spec != null ) {
+            Boolean valid = DHParameterCache.getResult(spec.getP(), spec.getG());
+            if( valid == null ) {
+                // normally started when the context was initialized
+                DHParameterCache.validateInBackground(Collections.singleton(spec));
+            } else if( valid.booleanValue() ) {
+                return spec;
+            }
+        }
+        return ParametersHolder.definedParams.get(key);
+    }
+
+
+    /**
+     * Start validating the groups configured by the security property
+     * jdk.tls.server.defaultDHEParameters, in the background.
+     *
+     * @return the number of groups to be validated
+     */
+    static int validateConfiguredParameters() {
+        return DHParameterCache.validateInBackground(ParametersHolder.configuredParams.values());
+    }
+
+
+    /**
+     * Check a group received from a server. The built-in groups are known to
+     * be valid, and other groups are only validated the first time they are
+     * seen.
+     *
+     * @throws SSLHandshakeException
+     *             if the group is not valid
+     */
+    static void checkParameters(BigInteger modulus, BigInteger base) throws SSLHandshakeException {
+        if( !ParametersHolder.isDefined(modulus, base)
+                && !DHParameterCache.validate(modulus, base) ) {
+            throw new SSLHandshakeException("Invalid Diffie-Hellman parameters");
+        }
+    }
+
+
     /**
      * Generate a Diffie-Hellman keypair using the specified size and
      * parameters.
      */
-    private DHCrypt(int keyLength, DHParameterSpec params, SecureRandom random) {
+    private DHCrypt(int keyLength, DHParameterSpec params,
+            SecureRandom random) {
+        group = (params == null) ? null : FFDHEGroup.getInstance(params);
+        if( group != null ) {
+            modulus = group.p;
+            base = group.g;
+            try {
+                generateKeyPair(group, random);
+            } catch (InvalidKeyException e) {
+                throw new RuntimeException("Could not generate DH keypair", e);
+            }
+            return;
+        }
+
+        EphemeralKeyPool.Generator generator = new PoolKeyGenerator(keyLength,
+                params);
 
         try {
-            KeyPairGenerator kpg = KeyPairGenerator.getInstance("DiffieHellman");
-            if( params != null ) {
-                kpg.initialize(params, random);
-            } else {
-                kpg.initialize(keyLength, random);
+            // only the well known groups are pooled, not those chosen by a
+            // peer. The RFC 7919 groups have returned already: the pool holds
+            // JCE key pairs, and their keys take one short exponentiation.
+            KeyPair kp = null;
+            Integer key = Integer.valueOf(keyLength);
+            if( params == null ) {
+                // not pooled
+            } else if( params == ParametersHolder.definedParams.get(key) ) {
+                kp = EphemeralKeyPool.take("DH:" + keyLength, generator,
+                        random);
+            } else if( params == ParametersHolder.configuredParams.get(key) ) {
+                kp = EphemeralKeyPool.take("DH:" + keyLength + ":configured",
+                        generator, random);
             }
-
-            DHPublicKeySpec spec = generateDHPublicKeySpec(kpg);
-            if( spec == null ) {
-                throw new RuntimeException("Could not generate DH keypair");
+            if( kp == null ) {
+                kp = generator.generate(random);
             }
 
+            privateKey = kp.getPrivate();
+            DHPublicKeySpec spec = getDHPublicKeySpec(kp.getPublic());
             publicValue = spec.getY();
             modulus = spec.getP();
             base = spec.getG();
@@ -197,6 +281,23 @@ final class DHCrypt {
      *         as the Diffie-Hellman modulus.
      */
     SecretKey getAgreedSecret(BigInteger peerPublicValue, boolean keyIsValidated) throws SSLHandshakeException {
+        if( group != null ) {
+            if( !keyIsValidated ) {
+                try {
+                    KeyUtil.validateDHPublicKey(modulus, base, peerPublicValue);
+                } catch (InvalidKeyException ike) {
+                    // prefer handshake_failure alert to internal_error alert
+                    throw new SSLHandshakeException(ike.getMessage());
+                }
+            }
+
+            // leading zero bytes are removed, as by JCE for TLS (RFC 5246
+            // section 8.1.2)
+            BigInteger secret = peerPublicValue.modPow(privateValue, modulus);
+            return new SecretKeySpec(BigIntegers.asUnsignedByteArray(
+                    (secret.bitLength() + 7) / 8, secret), "TlsPremasterSecret");
+        }
+
         try {
             KeyFactory kf = KeyFactory.getInstance("DiffieHellman");
             DHPublicKeySpec spec = new DHPublicKeySpec(peerPublicValue,
@@ -224,13 +325,12 @@ final class DHCrypt {
     }
 
 
-    // Generate and validate DHPublicKeySpec
-    private DHPublicKeySpec generateDHPublicKeySpec(KeyPairGenerator kpg) throws GeneralSecurityException {
+    // Generate and validate a key pair
+    private static KeyPair generateKeyPair(KeyPairGenerator kpg) throws GeneralSecurityException {
 
         boolean doExtraValiadtion = true;
         for(int i = 0;i <= MAX_FAILOVER_TIMES;i++) {
             KeyPair kp = kpg.generateKeyPair();
-            privateKey = kp.getPrivate();
             DHPublicKeySpec spec = getDHPublicKeySpec(kp.getPublic());
 
             // validate the Diffie-Hellman public key
@@ -246,12 +346,306 @@ final class DHCrypt {
                 }
             }
 
-            return spec;
+            return kp;
         }
 
         return null;
     }
 
+
+    // Generate and validate a key pair in an RFC 7919 group
+    private void generateKeyPair(FFDHEGroup group, SecureRandom random) throws InvalidKeyException {
+        for(int i = 0;i <= MAX_FAILOVER_TIMES;i++) {
+            BigInteger x = group.generatePrivateValue(random);
+            BigInteger y = group.powerOfGenerator(x);
+            try {
+                KeyUtil.validateDHPublicKey(group.p, group.g, y);
+            } catch (InvalidKeyException ivke) {
+                if( i == MAX_FAILOVER_TIMES ) {
+                    throw ivke;
+                }
+                // otherwise, ignore the exception and try the next one
+                continue;
+            }
+
+            privateValue = x;
+            publicValue = y;
+            return;
+        }
+    }
+
+
+    /**
+     * Generates key pairs for the ephemeral key pool. It is static, as the
+     * pool keeps it, and it must not keep an instance's keys.
+     */
+    private static final class PoolKeyGenerator implements EphemeralKeyPool.Generator {
+
+        private final int keyLength;
+
+        // the parameters, or null to use keyLength
+        private final DHParameterSpec params;
+
+
+        PoolKeyGenerator(int keyLength, DHParameterSpec params) {
+            this.keyLength = keyLength;
+            this.params = params;
+        }
+
+
+        public KeyPair generate(SecureRandom random) throws GeneralSecurityException {
+            KeyPairGenerator kpg = KeyPairGenerator.getInstance("DiffieHellman");
+            if( params != null ) {
+                kpg.initialize(params, random);
+            } else {
+                kpg.initialize(keyLength, random);
+            }
+
+            KeyPair kp = generateKeyPair(kpg);
+            if( kp == null ) {
+                throw new GeneralSecurityException(
+                        "Could not generate DH keypair");
+            }
+            return kp;
+        }
+    }
+
+
+    /**
+     * One of the RFC 7919 groups, whose generator is 2 and whose modulus is a
+     * safe prime, so that short private exponents are safe. Exponents are
+     * twice as long as the group's security level, the sizes the RFC gives
+     * in its appendix, so ffdhe2048 uses 225 bits rather than 2047.
+     * <p>
+     * Powers of the generator use a fixed-base comb (Lim and Lee), built on
+     * first use: the exponent's bits are arranged in COMB_ROWS rows, and
+     * each table holds the products of every combination of the rows' powers
+     * of the generator, so one multiplication takes a column of bits. Two
+     * tables each take half the columns, halving the squarings. Products are
+     * reduced with Barrett's method. Powers of the peer's value are not fixed,
+     * and use BigInteger.modPow.
+     * <p>
+     * Table entries are held as fixed-length word arrays, and each lookup
+     * reads every entry of the table and keeps the wanted one by masking, so
+     * neither the memory accessed nor the branches taken depend on the
+     * exponent's bits. The arithmetic is done with BigInteger, which is not
+     * constant time, so this is not a side-channel hardened implementation;
+     * it avoids the table lookup leaks only.
+     */
+    private static final class FFDHEGroup {
+
+        // the number of rows of exponent bits
+        private static final int COMB_ROWS = 8;
+
+        // the number of comb tables
+        private static final int COMB_TABLES = 2;
+
+        private static final Map<BigInteger, FFDHEGroup> groups = new HashMap<BigInteger, FFDHEGroup>();
+
+        static {
+            add(ParametersHolder.p2048, 225);
+            add(ParametersHolder.p3072, 275);
+            add(ParametersHolder.p4096, 325);
+        }
+
+        final BigInteger p;
+
+        final BigInteger g = ParametersHolder.g2;
+
+        // the length of a private exponent, in bits
+        private final int exponentBits;
+
+        // the length of p, in bits
+        private final int k;
+
+        // floor(2^2k / p), for Barrett reduction
+        private final BigInteger mu;
+
+        // the number of columns, and the number in each table
+        private final int columns, tableColumns;
+
+        // the length of a value less than p, in 32-bit words
+        private final int words;
+
+        // the comb tables, built on first use, with each entry as words
+        private volatile int[][][] tables;
+
+
+        private FFDHEGroup(BigInteger p, int exponentBits) {
+            this.p = p;
+            this.exponentBits = exponentBits;
+            this.k = p.bitLength();
+            this.mu = BigInteger.ONE.shiftLeft(2 * k).divide(p);
+            this.columns = (exponentBits + COMB_ROWS - 1) / COMB_ROWS;
+            this.tableColumns = (columns + COMB_TABLES - 1) / COMB_TABLES;
+            this.words = (k + 31) >>> 5;
+        }
+
+
+        private static void add(BigInteger p, int exponentBits) {
+            groups.put(p, new FFDHEGroup(p, exponentBits));
+        }
+
+
+        /**
+         * Get the group with the given parameters.
+         *
+         * @return the group, or null if the parameters are not an RFC 7919
+         *         group
+         */
+        static FFDHEGroup getInstance(DHParameterSpec params) {
+            if( !ParametersHolder.g2.equals(params.getG()) ) {
+                return null;
+            }
+            return groups.get(params.getP());
+        }
+
+
+        /**
+         * Choose a private exponent, with its top bit set.
+         */
+        BigInteger generatePrivateValue(SecureRandom random) {
+            return new BigInteger(exponentBits - 1, random).setBit(exponentBits - 1);
+        }
+
+
+        /**
+         * Calculate g^x mod p, for a private exponent.
+         */
+        BigInteger powerOfGenerator(BigInteger x) {
+            int[][][] t = getTables();
+            int[] e = toWords(x);
+
+            BigInteger r = null;
+            for(int col = tableColumns - 1;col >= 0;--col) {
+                if( r != null ) {
+                    r = multiply(r, r);
+                }
+                for(int s = COMB_TABLES - 1;s >= 0;--s) {
+                    int c = s * tableColumns + col;
+                    if( c >= columns ) {
+                        continue;
+                    }
+
+                    int index = 0;
+                    for(int row = 0;row < COMB_ROWS;++row) {
+                        int bit = row * columns + c;
+                        index |= ((e[words - 1 - (bit >>> 5)] >>> (bit & 31)) & 1) << row;
+                    }
+                    BigInteger v = select(t[s], index);
+                    r = (r == null) ? v : multiply(r, v);
+                }
+            }
+            return (r == null) ? BigInteger.ONE : r;
+        }
+
+
+        /**
+         * Read every entry of a table, keeping the one at index.
+         */
+        private BigInteger select(int[][] table, int index) {
+            int[] v = new int[words];
+            for(int j = 0;j < table.length;++j) {
+                // all ones if j == index, else zero
+                int d = j ^ index;
+                int mask = ((d - 1) & ~d) >> 31;
+
+                int[] entry = table[j];
+                for(int i = 0;i < words;++i) {
+                    v[i] |= entry[i] & mask;
+                }
+            }
+
+            byte[] b = new byte[words << 2];
+            for(int i = 0;i < words;++i) {
+                b[i << 2] = (byte) (v[i] >>> 24);
+                b[(i << 2) + 1] = (byte) (v[i] >>> 16);
+                b[(i << 2) + 2] = (byte) (v[i] >>> 8);
+                b[(i << 2) + 3] = (byte) v[i];
+            }
+            return new BigInteger(1, b);
+        }
+
+
+        /**
+         * Convert a value less than p to words, most significant first.
+         */
+        private int[] toWords(BigInteger a) {
+            byte[] b = a.toByteArray();
+            int[] v = new int[words];
+            int n = Math.min(b.length, words << 2);
+            for(int i = 0;i < n;++i) {
+                v[words - 1 - (i >>> 2)] |= (b[b.length - 1 - i] & 0xff) << ((i & 3) << 3);
+            }
+            return v;
+        }
+
+
+        private int[][][] getTables() {
+            int[][][] t = tables;
+            if( t == null ) {
+                // the tables are the same whichever thread builds them
+                t = buildTables();
+                tables = t;
+            }
+            return t;
+        }
+
+
+        private int[][][] buildTables() {
+            // g^(2^(row * columns)) for each row
+            BigInteger[] rows = new BigInteger[COMB_ROWS];
+            rows[0] = g;
+            for(int i = 1;i < COMB_ROWS;++i) {
+                rows[i] = square(rows[i - 1], columns);
+            }
+
+            int size = 1 << COMB_ROWS;
+            int[][][] t = new int[COMB_TABLES][size][];
+            BigInteger[] products = new BigInteger[size];
+            for(int s = 0;s < COMB_TABLES;++s) {
+                // each table's columns are tableColumns further along
+                if( s > 0 ) {
+                    for(int i = 0;i < COMB_ROWS;++i) {
+                        rows[i] = square(rows[i], tableColumns);
+                    }
+                }
+                products[0] = BigInteger.ONE;
+                for(int j = 1;j < size;++j) {
+                    int low = Integer.numberOfTrailingZeros(j);
+                    products[j] = (j == (1 << low)) ? rows[low] : multiply(
+                            products[j & (j - 1)], rows[low]);
+                }
+                for(int j = 0;j < size;++j) {
+                    t[s][j] = toWords(products[j]);
+                }
+            }
+            return t;
+        }
+
+
+        private BigInteger square(BigInteger a, int times) {
+            for(int i = 0;i < times;++i) {
+                a = multiply(a, a);
+            }
+            return a;
+        }
+
+
+        /**
+         * Multiply two values less than p, reducing the product modulo p.
+         */
+        private BigInteger multiply(BigInteger a, BigInteger b) {
+            BigInteger t = a.multiply(b);
+            BigInteger q = t.shiftRight(k - 1).multiply(mu).shiftRight(k + 1);
+            BigInteger r = t.subtract(q.multiply(p));
+            while( r.compareTo(p) >= 0 ) {
+                r = r.subtract(p);
+            }
+            return r;
+        }
+    }
+
     // lazy initialization holder class idiom for static default parameters
     //
     // See Effective Java Second Edition: Item 71.
@@ -298,13 +692,50 @@ final class DHCrypt {
                         + "3BB5FCBC2EC22005C58EF1837D1683B2C6F34A26C1B2EFFA"
                         + "886B423861285C97FFFFFFFFFFFFFFFF", 16);
 
-        private static final BigInteger[] supportedPrimes = { p512, p768,
-                p1024, p2048 };
+        private static final BigInteger p3072 = new BigInteger( // RFC 7919
+                "FFFFFFFFFFFFFFFFADF85458A2BB4A9AAFDC5620273D3CF1"
+                        + "D8B9C583CE2D3695A9E13641146433FBCC939DCE249B3EF9"
+                        + "7D2FE363630C75D8F681B202AEC4617AD3DF1ED5D5FD6561"
+                        + "2433F51F5F066ED0856365553DED1AF3B557135E7F57C935"
+                        + "984F0C70E0E68B77E2A689DAF3EFE8721DF158A136ADE735"
+                        + "30ACCA4F483A797ABC0AB182B324FB61D108A94BB2C8E3FB"
+                        + "B96ADAB760D7F4681D4F42A3DE394DF4AE56EDE76372BB19"
+                        + "0B07A7C8EE0A6D709E02FCE1CDF7E2ECC03404CD28342F61"
+                        + "9172FE9CE98583FF8E4F1232EEF28183C3FE3B1B4C6FAD73"
+                        + "3BB5FCBC2EC22005C58EF1837D1683B2C6F34A26C1B2EFFA"
+                        + "886B4238611FCFDCDE355B3B6519035BBC34F4DEF99C0238"
+                        + "61B46FC9D6E6C9077AD91D2691F7F7EE598CB0FAC186D91C"
+                        + "AEFE130985139270B4130C93BC437944F4FD4452E2D74DD3"
+                        + "64F2E21E71F54BFF5CAE82AB9C9DF69EE86D2BC522363A0D"
+                        + "ABC521979B0DEADA1DBF9A42D5C4484E0ABCD06BFA53DDEF"
+                        + "3C1B20EE3FD59D7C25E41D2B66C62E37FFFFFFFFFFFFFFFF", 16);
+
+        private static final BigInteger p4096 = new BigInteger( // RFC 7919
+                "FFFFFFFFFFFFFFFFADF85458A2BB4A9AAFDC5620273D3CF1"
+                        + "D8B9C583CE2D3695A9E13641146433FBCC939DCE249B3EF9"
+                        + "7D2FE363630C75D8F681B202AEC4617AD3DF1ED5D5FD6561"
+                        + "2433F51F5F066ED0856365553DED1AF3B557135E7F57C935"
+                        + "984F0C70E0E68B77E2A689DAF3EFE8721DF158A136ADE735"
+                        + "30ACCA4F483A797ABC0AB182B324FB61D108A94BB2C8E3FB"
+                        + "B96ADAB760D7F4681D4F42A3DE394DF4AE56EDE76372BB19"
+                        + "0B07A7C8EE0A6D709E02FCE1CDF7E2ECC03404CD28342F61"
+                        + "9172FE9CE98583FF8E4F1232EEF28183C3FE3B1B4C6FAD73"
+                        + "3BB5FCBC2EC22005C58EF1837D1683B2C6F34A26C1B2EFFA"
+                        + "886B4238611FCFDCDE355B3B6519035BBC34F4DEF99C0238"
+                        + "61B46FC9D6E6C9077AD91D2691F7F7EE598CB0FAC186D91C"
+                        + "AEFE130985139270B4130C93BC437944F4FD4452E2D74DD3"
+                        + "64F2E21E71F54BFF5CAE82AB9C9DF69EE86D2BC522363A0D"
+                        + "ABC521979B0DEADA1DBF9A42D5C4484E0ABCD06BFA53DDEF"
+                        + "3C1B20EE3FD59D7C25E41D2B669E1EF16E6F52C3164DF4FB"
+                        + "7930E9E4E58857B6AC7D5F42D69F6D187763CF1D55034004"
+                        + "87F55BA57E31CC7A7135C886EFB4318AED6A1E012D9E6832"
+                        + "A907600A918130C46DC778F971AD0038092999A333CB8B7A"
+                        + "1A1DB93D7140003C2A4ECEA9F98D0ACC0A8291CDCEC97DCF"
+                        + "8EC9B55A7F88A46B4DB5A851F44182E1C68A007E5E655F6A"
+                        + "FFFFFFFFFFFFFFFF", 16);
 
-        // a measure of the uncertainty that prime modulus p is not a prime
-        //
-        // see BigInteger.isProbablePrime(int certainty)
-        private final static int PRIME_CERTAINTY = 120;
+        private static final BigInteger[] supportedPrimes = { p512, p768,
+                p1024, p2048, p3072, p4096 };
 
         // the known security property, jdk.tls.server.defaultDHEParameters
         private final static String PROPERTY_NAME = "jdk.tls.server.defaultDHEParameters";
@@ -319,6 +750,10 @@ final class DHCrypt {
         // cache of predefined default DH ephemeral parameters
         final static Map<Integer, DHParameterSpec> definedParams;
 
+        // DH ephemeral parameters from the security property, which are
+        // validated by DHParameterCache before they are used
+        final static Map<Integer, DHParameterSpec> configuredParams;
+
         static {
             String property = AccessController.doPrivileged(new PrivilegedAction<String>() {
                 public String run() {
@@ -346,7 +781,7 @@ final class DHCrypt {
                 }
             }
 
-            Map<Integer, DHParameterSpec> defaultParams = new HashMap<Integer, DHParameterSpec>();
+            Map<Integer, DHParameterSpec> propertyParams = new HashMap<Integer, DHParameterSpec>();
             if( property != null && !property.isEmpty() ) {
                 Matcher syntaxMatcher = syntaxPattern.matcher(property);
                 if( syntaxMatcher.matches() ) {
@@ -354,23 +789,13 @@ final class DHCrypt {
                     while( paramsFinder.find() ) {
                         String primeModulus = paramsFinder.group(1);
                         BigInteger p = new BigInteger(primeModulus, 16);
-                        if( !p.isProbablePrime(PRIME_CERTAINTY) ) {
-                            if( debugIsOn ) {
-                                System.out.println("Prime modulus p in Security Property, "
-                                        + PROPERTY_NAME
-                                        + ", is not a prime: "
-                                        + primeModulus);
-                            }
-
-                            continue;
-                        }
 
                         String baseGenerator = paramsFinder.group(2);
                         BigInteger g = new BigInteger(baseGenerator, 16);
 
                         DHParameterSpec spec = new DHParameterSpec(p, g);
                         int primeLen = p.bitLength();
-                        defaultParams.put(Integer.valueOf(primeLen), spec);
+                        propertyParams.put(Integer.valueOf(primeLen), spec);
                     }
                 } else if( debugIsOn ) {
                     System.out.println("Invalid Security Property, "
@@ -378,16 +803,31 @@ final class DHCrypt {
                 }
             }
 
+            Map<Integer, DHParameterSpec> defaultParams = new HashMap<Integer, DHParameterSpec>();
             for(BigInteger p:supportedPrimes) {
                 int primeLen = p.bitLength();
-                DHParameterSpec value = defaultParams.get(Integer.valueOf(primeLen));
-                if( value == null ) {
-                    defaultParams.put(Integer.valueOf(primeLen),
-                            new DHParameterSpec(p, g2));
-                }
+                defaultParams.put(Integer.valueOf(primeLen),
+                        new DHParameterSpec(p, g2));
             }
 
             definedParams = Collections.<Integer, DHParameterSpec> unmodifiableMap(defaultParams);
+            configuredParams = Collections.<Integer, DHParameterSpec> unmodifiableMap(propertyParams);
+        }
+
+
+        /**
+         * Is a group one of the built-in groups?
+         */
+        static boolean isDefined(BigInteger p, BigInteger g) {
+            if( !g2.equals(g) ) {
+                return false;
+            }
+            for(BigInteger prime:supportedPrimes) {
+                if( prime.equals(p) ) {
+                    return true;
+                }
+            }
+            return false;
         }
     }
 }
@@ -0,0 +1,298 @@
+package tlsv12;
+
+import javax.crypto.spec.DHParameterSpec;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The results of validating Diffie-Hellman groups, so that each group is only
+ * validated once. A group is valid if its modulus is a probable prime of
+ * 1024 to 8192 bits and its generator lies in [2, p-2]. The size is checked
+ * before anything else, and the number of Miller-Rabin rounds falls as the
+ * modulus grows, so that a peer cannot make us spend unbounded time on a
+ * group. Groups are keyed by a SHA-256 digest of the modulus and generator,
+ * so no large numbers are held.
+ * <p>
+ * The server's configured groups are validated by background threads, in
+ * parallel, and are not used until they have passed. Their results are held
+ * until the JVM exits. Groups received from servers are validated by the
+ * handshake which first receives them, and held in a bounded, least recently
+ * used map. The size of that map is set by the system property
+ * <code>tlsv12.dhParameterCacheSize</code>, and a size of zero turns caching
+ * of received groups off.
+ */
+final class DHParameterCache {
+
+    /**
+     * The digest of a group's parameters.
+     */
+    private static class Key {
+        final byte[] digest;
+
+
+        Key(BigInteger p, BigInteger g) {
+            MessageDigest md;
+            try {
+                md = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+            update(md, p);
+            update(md, g);
+            digest = md.digest();
+        }
+
+
+        private static void update(MessageDigest md, BigInteger value) {
+            byte[] b = value.toByteArray();
+            md.update((byte) (b.length >> 8));
+            md.update((byte) b.length);
+            md.update(b);
+        }
+
+
+        public boolean equals(Object o) {
+            return (o instanceof Key) && Arrays.equals(digest, ((Key) o).digest);
+        }
+
+
+        public int hashCode() {
+            return Arrays.hashCode(digest);
+        }
+    }
+
+    private final static Debug debug = Debug.getInstance("ssl");
+
+    // the supported sizes of the modulus p, in bits
+    private final static int MIN_MODULUS_SIZE = 1024;
+
+    private final static int MAX_MODULUS_SIZE = 8192;
+
+    // the source of the Miller-Rabin bases
+    private final static SecureRandom random = new SecureRandom();
+
+    // the most received groups held
+    private final static int CACHE_SIZE = getDefaultCacheSize();
+
+    // the results for our own groups
+    private final static Map<Key, Boolean> ownGroups = new HashMap<Key, Boolean>();
+
+    // our own groups being validated in the background
+    private final static Set<Key> pending = new HashSet<Key>();
+
+    // the results for received groups, least recently used first
+    private final static Map<Key, Boolean> receivedGroups = new LinkedHashMap<Key, Boolean>(
+            16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+
+        protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+
+    private DHParameterCache() {
+        // no instantiation of this class
+    }
+
+
+    private static int getDefaultCacheSize() {
+        int size = 64;
+        try {
+            String s = java.security.AccessController.doPrivileged(new java.security.PrivilegedAction<String>() {
+                public String run() {
+                    return System.getProperty("tlsv12.dhParameterCacheSize");
+                }
+            });
+            if( s != null ) {
+                size = Integer.parseInt(s.trim());
+            }
+        } catch (Exception e) {}
+
+        return (size > 0) ? size : 0;
+    }
+
+
+    /**
+     * Get the result of validating one of our own groups, without waiting
+     * for it.
+     *
+     * @return the result, or null if the group has not been validated
+     */
+    static Boolean getResult(BigInteger p, BigInteger g) {
+        Key key = new Key(p, g);
+        synchronized (ownGroups) {
+            return ownGroups.get(key);
+        }
+    }
+
+
+    /**
+     * Validate our own groups in the background, in parallel, unless they
+     * are validated already or being validated.
+     *
+     * @return the number of groups to be validated
+     */
+    static int validateInBackground(Collection<DHParameterSpec> groups) {
+        final Map<Key, DHParameterSpec> todo = new HashMap<Key, DHParameterSpec>();
+        synchronized (ownGroups) {
+            for(DHParameterSpec spec:groups) {
+                Key key = new Key(spec.getP(), spec.getG());
+                if( !ownGroups.containsKey(key) && pending.add(key) ) {
+                    todo.put(key, spec);
+                }
+            }
+        }
+        if( todo.isEmpty() ) {
+            return 0;
+        }
+
+        int threads = Math.min(todo.size(),
+                Runtime.getRuntime().availableProcessors());
+        ExecutorService validators = Executors.newFixedThreadPool(threads,
+                new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "tlsv12-DHParameterCache");
+                        t.setDaemon(true);
+                        t.setPriority(Thread.MIN_PRIORITY);
+                        return t;
+                    }
+                });
+        for(final Map.Entry<Key, DHParameterSpec> e:todo.entrySet()) {
+            validators.execute(new Runnable() {
+                public void run() {
+                    DHParameterSpec spec = e.getValue();
+                    boolean valid = isValid(spec.getP(), spec.getG());
+                    if( !valid && debug != null && Debug.isOn("sslctx") ) {
+                        System.out.println("Invalid Diffie-Hellman group, not used: "
+                                + spec.getP().toString(16));
+                    }
+                    synchronized (ownGroups) {
+                        ownGroups.put(e.getKey(), Boolean.valueOf(valid));
+                        pending.remove(e.getKey());
+                    }
+                }
+            });
+        }
+
+        // the threads end once the groups are done
+        validators.shutdown();
+        return todo.size();
+    }
+
+
+    /**
+     * Validate a group received from a peer, unless it has been validated
+     * already.
+     *
+     * @return whether the group is valid
+     */
+    static boolean validate(BigInteger p, BigInteger g) {
+        if( !isSupportedSize(p) ) {
+            return false;
+        }
+
+        Key key = new Key(p, g);
+        Boolean result;
+        synchronized (ownGroups) {
+            result = ownGroups.get(key);
+        }
+        if( result == null ) {
+            synchronized (receivedGroups) {
+                result = receivedGroups.get(key);
+            }
+        }
+        if( result != null ) {
+            return result.booleanValue();
+        }
+
+        boolean valid = isValid(p, g);
+        if( CACHE_SIZE > 0 ) {
+            synchronized (receivedGroups) {
+                receivedGroups.put(key, Boolean.valueOf(valid));
+            }
+        }
+        return valid;
+    }
+
+
+    private static boolean isSupportedSize(BigInteger p) {
+        int bits = p.bitLength();
+        return (bits >= MIN_MODULUS_SIZE) && (bits <= MAX_MODULUS_SIZE);
+    }
+
+
+    private static boolean isValid(BigInteger p, BigInteger g) {
+        if( !isSupportedSize(p) || !p.testBit(0) ) {
+            return false;
+        }
+        if( g.compareTo(BigInteger.ONE) <= 0
+                || g.compareTo(p.subtract(BigInteger.ONE)) >= 0 ) {
+            return false;
+        }
+        return isProbablePrime(p, getRounds(p.bitLength()));
+    }
+
+
+    /**
+     * Get the number of Miller-Rabin rounds for a modulus size. Each round
+     * costs about one exponentiation, so larger moduli get fewer rounds; a
+     * round of 8192 bits costs as much as a hundred of 1024 bits.
+     */
+    private static int getRounds(int bits) {
+        if( bits <= 1024 ) {
+            return 8;
+        } else if( bits <= 2048 ) {
+            return 4;
+        } else if( bits <= 4096 ) {
+            return 2;
+        }
+        return 1;
+    }
+
+
+    /**
+     * Miller-Rabin test of an odd number greater than three, with random
+     * bases.
+     */
+    private static boolean isProbablePrime(BigInteger p, int rounds) {
+        BigInteger pMinusOne = p.subtract(BigInteger.ONE);
+        int s = pMinusOne.getLowestSetBit();
+        BigInteger d = pMinusOne.shiftRight(s);
+
+        for(int i = 0;i < rounds;i++) {
+            BigInteger a;
+            do {
+                a = new BigInteger(p.bitLength(), random);
+            } while( a.compareTo(BigInteger.ONE) <= 0
+                    || a.compareTo(pMinusOne) >= 0 );
+
+            BigInteger y = a.modPow(d, p);
+            int j = 0;
+            while( !y.equals(BigInteger.ONE) && !y.equals(pMinusOne) ) {
+                if( ++j == s ) {
+                    return false;
+                }
+                y = y.multiply(y).mod(p);
+                if( y.equals(BigInteger.ONE) ) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -24,13 +24,8 @@
 
 package tlsv12;
 
-import tlsv12.ec.ECUtils;
-
 import java.io.IOException;
 import java.io.PrintStream;
-import java.security.interfaces.ECPublicKey;
-import java.security.spec.ECParameterSpec;
-import java.security.spec.ECPoint;
 
 /**
  * ClientKeyExchange message for all ECDH based key exchange methods. It
@@ -53,12 +48,10 @@ final class ECDHClientKeyExchange extends HandshakeMessage {
     }
 
 
-    // Called by the client with its ephemeral public key.
-    ECDHClientKeyExchange(ECPublicKey publicKey) {
-        ECPublicKey ecKey = publicKey;
-        ECPoint point = ecKey.getW();
-        ECParameterSpec params = ecKey.getParams();
-        encodedPoint = ECUtils.encodePoint(point, params.getCurve());
+    // Called by the client with its ephemeral key, and whether to compress
+    // its point.
+    ECDHClientKeyExchange(ECDHCrypt ecdh, boolean compressed) {
+        encodedPoint = ecdh.getEncodedPoint(compressed);
     }
 
 
@@ -28,8 +28,10 @@ import tlsv12.ec.ECDHKeyAgreement;
 import tlsv12.ec.ECKeyFactory;
 import tlsv12.ec.ECKeyPairGenerator;
 import tlsv12.ec.ECUtils;
+import tlsv12.math.ec.rfc7748.X25519;
 
 import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
 import javax.net.ssl.SSLHandshakeException;
 
 import java.security.GeneralSecurityException;
@@ -45,16 +47,29 @@ import java.security.spec.ECPublicKeySpec;
 /**
  * Helper class for the ECDH key exchange. It generates the appropriate
  * ephemeral keys as necessary and performs the actual shared secret derivation.
+ * <p>
+ * X25519 (RFC 7748) is used through the same class, though it has no key
+ * objects: its keys are held as the raw 32 byte scalar and u-coordinate,
+ * and are never pooled, as generating one costs a single ladder.
  *
  */
 final class ECDHCrypt {
 
+    // the OID of X25519, from RFC 8410
+    static final String X25519_OID = "1.3.101.110";
+
     // our private key
     private ECPrivateKey privateKey;
 
     // our public key
     private ECPublicKey publicKey;
 
+    // our X25519 private scalar, or null for the other curves
+    private byte[] x25519Private;
+
+    // our X25519 public value, or null for the other curves
+    private byte[] x25519Public;
+
 
     // Called by ServerHandshaker for static ECDH
     ECDHCrypt(ECPrivateKey privateKey, ECPublicKey publicKey) {
@@ -63,13 +78,25 @@ final class ECDHCrypt {
     }
 
 
-    // Called by ServerHandshaker for ephemeral ECDH
+    // Called by ServerHandshaker for ephemeral ECDH, and by ClientHandshaker
+    // for X25519
     ECDHCrypt(String oid, SecureRandom random) {
+        if( X25519_OID.equals(oid) ) {
+            x25519Private = new byte[X25519.SCALAR_SIZE];
+            x25519Public = new byte[X25519.POINT_SIZE];
+            X25519.generatePrivateKey(random, x25519Private);
+            X25519.generatePublicKey(x25519Private, 0, x25519Public, 0);
+            return;
+        }
+
+        EphemeralKeyPool.Generator generator = new PoolKeyGenerator(oid);
+
         try {
-            ECKeyPairGenerator kpg = new ECKeyPairGenerator();
-            ECParameterSpec params = ECUtils.getECParameterSpec(oid);
-            kpg.initialize(params, random);
-            KeyPair kp = kpg.generateKeyPair();
+            KeyPair kp = EphemeralKeyPool.take("EC:" + oid, generator,
+                    random);
+            if( kp == null ) {
+                kp = generator.generate(random);
+            }
             privateKey = (ECPrivateKey) kp.getPrivate();
             publicKey = (ECPublicKey) kp.getPublic();
         } catch (GeneralSecurityException e) {
@@ -93,20 +120,66 @@ final class ECDHCrypt {
 
 
     /**
-     * Gets the public key of this end of the key exchange.
+     * Gets the public key of this end of the key exchange, which is null for
+     * X25519.
      */
     ECPublicKey getPublicKey() {
         return publicKey;
     }
 
 
+    /**
+     * Gets the public value of this end of the key exchange, as sent in the
+     * key exchange messages. X25519 values have only one form.
+     *
+     * @param compressed
+     *            whether to send an EC point compressed
+     */
+    byte[] getEncodedPoint(boolean compressed) {
+        if( x25519Public != null ) {
+            return x25519Public.clone();
+        }
+        return ECUtils.encodePoint(publicKey.getW(),
+                publicKey.getParams().getCurve(), compressed);
+    }
+
+
+    /**
+     * Should our public value be compressed for a peer?
+     *
+     * @param peerFormats
+     *            the point formats the peer sent, or null if it sent none
+     */
+    boolean useCompressed(SupportedEllipticPointFormatsExtension peerFormats) {
+        return peerFormats != null && publicKey != null
+                && peerFormats.allowsCompressed(publicKey.getParams().getCurve());
+    }
+
+
+    /**
+     * Gets the TLS named curve identifier of the key exchange.
+     */
+    int getCurveId() {
+        if( x25519Public != null ) {
+            return SupportedEllipticCurvesExtension.X25519;
+        }
+        return SupportedEllipticCurvesExtension.getCurveIndex(publicKey.getParams());
+    }
+
+
     // called by ClientHandshaker with either the server's static or
-    // ephemeral public key
-    SecretKey getAgreedSecret(PublicKey peerPublicKey) throws SSLHandshakeException {
+    // ephemeral public key; only the static keys of ECDH_ECDSA and ECDH_RSA
+    // certificates are seen again, so only those are cached
+    SecretKey getAgreedSecret(PublicKey peerPublicKey, boolean staticKey)
+            throws SSLHandshakeException {
 
         try {
             ECDHKeyAgreement ka = new ECDHKeyAgreement(privateKey);
-            ka.doPhase((ECPublicKey) peerPublicKey);
+            if( staticKey ) {
+                ka.doPhaseWithKnownKey((ECPublicKey) peerPublicKey);
+            } else {
+                ka.doPhase((ECPublicKey) peerPublicKey);
+            }
             return ka.generateSecret("TlsPremasterSecret");
         } catch (GeneralSecurityException e) {
             throw (SSLHandshakeException) new SSLHandshakeException(
@@ -115,8 +188,11 @@ final class ECDHCrypt {
     }
 
 
-    // called by ServerHandshaker
+    // called by ServerHandshaker, and by ClientHandshaker for X25519
     SecretKey getAgreedSecret(byte[] encodedPoint) throws SSLHandshakeException {
+        if( x25519Private != null ) {
+            return getX25519Secret(encodedPoint);
+        }
 
         try {
             ECParameterSpec params = publicKey.getParams();
@@ -124,7 +200,8 @@ final class ECDHCrypt {
             ECKeyFactory kf = new ECKeyFactory();
             ECPublicKeySpec spec = new ECPublicKeySpec(point, params);
             PublicKey peerPublicKey = kf.generatePublic(spec);
-            return getAgreedSecret(peerPublicKey);
+            // client keys are ephemeral, so are not cached
+            return getAgreedSecret(peerPublicKey, false);
         } catch (GeneralSecurityException e) {
             throw (SSLHandshakeException) new SSLHandshakeException(
                     "Could not generate secret").initCause(e);
@@ -134,4 +211,44 @@ final class ECDHCrypt {
         }
     }
 
+
+    private SecretKey getX25519Secret(byte[] encodedPoint)
+            throws SSLHandshakeException {
+        if( encodedPoint.length != X25519.POINT_SIZE ) {
+            throw new SSLHandshakeException("Invalid X25519 public value");
+        }
+
+        // RFC 8422 requires an all zero secret, from a point of small order,
+        // to be rejected
+        byte[] secret = new byte[X25519.POINT_SIZE];
+        if( !X25519.calculateAgreement(x25519Private, 0, encodedPoint, 0,
+                secret, 0) ) {
+            throw new SSLHandshakeException("Could not generate secret");
+        }
+        return new SecretKeySpec(secret, "TlsPremasterSecret");
+    }
+
+
+    /**
+     * Generates key pairs on a named curve for the ephemeral key pool. It is
+     * static, as the pool keeps it, and it must not keep an instance's keys.
+     */
+    private static final class PoolKeyGenerator implements EphemeralKeyPool.Generator {
+
+        private final String oid;
+
+
+        PoolKeyGenerator(String oid) {
+            this.oid = oid;
+        }
+
+
+        public KeyPair generate(SecureRandom random) throws GeneralSecurityException {
+            ECKeyPairGenerator kpg = new ECKeyPairGenerator();
+            ECParameterSpec params = ECUtils.getECParameterSpec(oid);
+            kpg.initialize(params, random);
+            return kpg.generateKeyPair();
+        }
+    }
+
 }
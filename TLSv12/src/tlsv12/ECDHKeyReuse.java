@@ -0,0 +1,168 @@
+package tlsv12;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Policy for a server to use one ephemeral ECDH key pair for several
+ * connections, to reduce the cost of each handshake when under heavy load.
+ * A key is used for at most a set number of connections and for at most a set
+ * time, after which a new key is generated. Connections which have already
+ * taken a key carry on using it.
+ * <p>
+ * Each curve has its own locks. Taking the current key is a short critical
+ * section, and a replacement key is generated outside it, so a rotation on
+ * one curve never holds up handshakes on another, nor handshakes which can
+ * still use the current key.
+ * <p>
+ * This weakens forward secrecy, as one key protects every connection made in
+ * its window, so it is only used when enabled on the context.
+ */
+final class ECDHKeyReuse {
+
+    /**
+     * The key currently in use for a curve.
+     */
+    private static class Entry {
+        final ECDHCrypt crypt;
+
+        final long created;
+
+        int uses = 0;
+
+
+        Entry(ECDHCrypt crypt, long created) {
+            this.crypt = crypt;
+            this.created = created;
+        }
+    }
+
+    // the longest a key may be used for, in milliseconds
+    private final long maxAge;
+
+    // the most connections a key may be used for
+    private final int maxUses;
+
+    /**
+     * The key in use for a curve, and the lock held while replacing it.
+     */
+    private static class Holder {
+        // the current key, guarded by this
+        Entry entry;
+
+        // held while a replacement key is generated, so that a burst of
+        // handshakes creates one key rather than one each
+        final Object rotateLock = new Object();
+    }
+
+    // the holder for each curve, by OID
+    private final ConcurrentMap<String, Holder> holders = new ConcurrentHashMap<String, Holder>();
+
+    private final AtomicLong rotations = new AtomicLong();
+
+    private final AtomicLong reuses = new AtomicLong();
+
+
+    ECDHKeyReuse(long maxAge, int maxUses) {
+        this.maxAge = maxAge;
+        this.maxUses = maxUses;
+    }
+
+
+    long getMaxAge() {
+        return maxAge;
+    }
+
+
+    int getMaxUses() {
+        return maxUses;
+    }
+
+
+    /**
+     * Get the key to use for a connection on a curve, generating a new one if
+     * the current key has reached either limit.
+     *
+     * @param oid
+     *            the curve's OID
+     * @param random
+     *            source of randomness for a new key
+     * @return the key
+     */
+    ECDHCrypt get(String oid, SecureRandom random) {
+        Holder holder = holders.get(oid);
+        if( holder == null ) {
+            Holder h = new Holder();
+            holder = holders.putIfAbsent(oid, h);
+            if( holder == null ) {
+                holder = h;
+            }
+        }
+
+        ECDHCrypt crypt = use(holder);
+        if( crypt != null ) {
+            return crypt;
+        }
+
+        synchronized (holder.rotateLock) {
+            // another handshake may have replaced the key while we waited
+            crypt = use(holder);
+            if( crypt != null ) {
+                return crypt;
+            }
+
+            crypt = new ECDHCrypt(oid, random);
+            Entry entry = new Entry(crypt, System.currentTimeMillis());
+            entry.uses = 1;
+            synchronized (holder) {
+                holder.entry = entry;
+            }
+            rotations.incrementAndGet();
+        }
+        return crypt;
+    }
+
+
+    /**
+     * Take the current key of a curve for one more connection, if it has not
+     * reached either limit.
+     *
+     * @return the key, or null if it must be replaced
+     */
+    private ECDHCrypt use(Holder holder) {
+        synchronized (holder) {
+            Entry entry = holder.entry;
+            long now = System.currentTimeMillis();
+            if( entry != null && entry.uses < maxUses
+                    && now - entry.created < maxAge && now >= entry.created ) {
+                entry.uses++;
+                reuses.incrementAndGet();
+                return entry.crypt;
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Get the number of keys generated.
+     *
+     * @return the number of keys
+     */
+    long getRotations() {
+        return rotations.get();
+    }
+
+
+    /**
+     * Get the number of connections which used a key created for an earlier
+     * connection.
+     *
+     * @return the number of reuses
+     */
+    long getReuses() {
+        return reuses.get();
+    }
+}
@@ -178,6 +178,7 @@ class EngineArgs {
             int amount = Math.min(appData[i].remaining(), amountLeft);
             readyData.limit(readyData.position() + amount);
             appData[i].put(readyData);
+            appRemaining -= amount;
             amountLeft -= amount;
         }
         assert (readyData.remaining() == 0);
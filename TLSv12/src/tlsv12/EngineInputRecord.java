@@ -190,12 +190,40 @@ final class EngineInputRecord extends InputRecord {
         int tagLen = signer.MAClen();
         int cipheredLength = bb.remaining();
 
+        // With encrypt-then-MAC the MAC covers the ciphertext, and a record
+        // is only decrypted once it has been authenticated, so none of the
+        // countermeasures against padding oracles below are needed.
+        if( box.isEncryptThenMac() ) {
+            if( cipheredLength < tagLen
+                    || !box.sanityCheck(0, cipheredLength - tagLen) ) {
+                throw new BadPaddingException("ciphertext sanity check failed");
+            }
+
+            // leaves the limit before the MAC
+            if( checkMacTags(contentType(), bb, signer, false) ) {
+                throw new BadPaddingException("bad record MAC");
+            }
+
+            try {
+                box.decrypt(bb, 0);
+            } finally {
+                bb.rewind();
+            }
+            return bb.slice();
+        }
+
         if( !box.isNullCipher() ) {
             // sanity check length of the ciphertext
             if( !box.sanityCheck(tagLen, cipheredLength) ) {
                 throw new BadPaddingException("ciphertext sanity check failed");
             }
 
+            // an AEAD cipher is initialized with each record's nonce and
+            // additional data, and authenticates the record itself
+            if( box.isAEADMode() ) {
+                box.applyExplicitNonce(signer, contentType(), bb);
+            }
+
             try {
                 // Note that the CipherBox.decrypt() does not change
                 // the capacity of the buffer.
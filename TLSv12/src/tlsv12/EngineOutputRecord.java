@@ -112,10 +112,12 @@ final class EngineOutputRecord extends OutputRecord {
      * we'll indirectly throw a BufferOverFlowException runtime exception.
      *
      * position should equal limit, and points to the next free spot.
+     *
+     * With encrypt-then-MAC, the MAC is added by encrypt() instead.
      */
-    private void addMAC(MAC signer, ByteBuffer bb) {
+    private void addMAC(MAC signer, CipherBox box, ByteBuffer bb) {
 
-        if( signer.MAClen() != 0 ) {
+        if( signer.MAClen() != 0 && !box.isEncryptThenMac() ) {
             byte[] hash = signer.compute(contentType(), bb, false);
 
             /*
@@ -126,6 +128,9 @@ final class EngineOutputRecord extends OutputRecord {
              */
             bb.limit(bb.limit() + hash.length);
             bb.put(hash);
+        } else {
+            // no MAC, as with AEAD ciphers, or not yet
+            bb.position(bb.limit());
         }
     }
 
@@ -137,10 +142,30 @@ final class EngineOutputRecord extends OutputRecord {
      * encryption (plus padding), otherwise we'll indirectly throw a
      * BufferOverFlowException runtime exception.
      * 
+     * An AEAD cipher's explicit nonce is written just before the position,
+     * where the caller has left room for it. With encrypt-then-MAC, the MAC
+     * of the ciphertext is appended.
+     * 
      * position and limit will be the same, and points to the next free spot.
      */
-    static void encrypt(CipherBox box, ByteBuffer bb) {
+    private void encrypt(MAC signer, CipherBox box, ByteBuffer bb) {
+        if( box.isAEADMode() ) {
+            byte[] nonce = box.createExplicitNonce(signer, contentType(),
+                    bb.remaining());
+            int noncePos = bb.position() - nonce.length;
+            for(int i = 0;i < nonce.length;i++) {
+                bb.put(noncePos + i, nonce[i]);
+            }
+        }
+        int pos = bb.position();
         box.encrypt(bb);
+        if( box.isEncryptThenMac() ) {
+            int lim = bb.limit();
+            bb.position(pos);
+            byte[] hash = signer.compute(contentType(), bb, false);
+            bb.limit(lim + hash.length);
+            bb.put(hash);
+        }
     }
 
 
@@ -190,8 +215,8 @@ final class EngineOutputRecord extends OutputRecord {
          */
         if( !isEmpty() ) {
             // compress(); // eventually
-            addMAC(writeMAC);
-            encrypt(writeCipher);
+            addMAC(writeMAC, writeCipher);
+            encrypt(writeMAC, writeCipher);
             write((OutputStream) null, false, // send down for processing
                     (ByteArrayOutputStream) null);
         }
@@ -275,13 +300,16 @@ final class EngineOutputRecord extends OutputRecord {
         int dstLim = dstBB.limit();
 
         /*
-         * Where to put the data. Jump over the header.
+         * Where to put the data. Jump over the header, and the explicit nonce
+         * of an AEAD cipher, so that the data need not be moved to make room
+         * for it.
          * 
          * Don't need to worry about SSLv2 rewrites, if we're here, that's long
          * since done.
          */
         int dstData = dstPos + headerSize;
-        dstBB.position(dstData);
+        int dstPlaintext = dstData + writeCipher.getExplicitNonceSize();
+        dstBB.position(dstPlaintext);
 
         ea.gather(length);
 
@@ -290,15 +318,15 @@ final class EngineOutputRecord extends OutputRecord {
          * expand the limit to reflect the new data.
          */
         dstBB.limit(dstBB.position());
-        dstBB.position(dstData);
-        addMAC(writeMAC, dstBB);
+        dstBB.position(dstPlaintext);
+        addMAC(writeMAC, writeCipher, dstBB);
 
         /*
          * Encrypt may pad, so again the limit may have changed.
          */
         dstBB.limit(dstBB.position());
-        dstBB.position(dstData);
-        encrypt(writeCipher, dstBB);
+        dstBB.position(dstPlaintext);
+        encrypt(writeMAC, writeCipher, dstBB);
 
         if( debug != null && (Debug.isOn("record") || Debug.isOn("handshake")) ) {
             if( (debug != null && Debug.isOn("record"))
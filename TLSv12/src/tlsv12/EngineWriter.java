@@ -120,15 +120,14 @@ final class EngineWriter {
     /*
      * Output the packet info.
      */
-    private static void dumpPacket(EngineArgs ea, boolean hsData) {
+    private static void dumpPacket(EngineArgs ea, int start, boolean hsData) {
         try {
             HexDumpEncoder hd = new HexDumpEncoder();
 
             ByteBuffer bb = ea.netData.duplicate();
 
-            int pos = bb.position();
-            bb.position(pos - ea.deltaNet());
-            bb.limit(pos);
+            bb.limit(bb.position());
+            bb.position(start);
 
             System.out.println("[Raw write" + (hsData ? "" : " (bb)")
                     + "]: length = " + bb.remaining());
@@ -153,6 +152,8 @@ final class EngineWriter {
          * If we have data ready to go, output this first before trying to
          * consume app data.
          */
+        int start = ea.netData.position();
+
         if( hasOutboundDataInternal() ) {
             HandshakeStatus hss = getOutboundData(ea.netData);
 
@@ -162,7 +163,7 @@ final class EngineWriter {
                  * OutputRecord.write(OutputStream), but let's actually output
                  * when it's actually output by the SSLEngine.
                  */
-                dumpPacket(ea, true);
+                dumpPacket(ea, start, true);
             }
 
             return hss;
@@ -179,7 +180,7 @@ final class EngineWriter {
         outputRecord.write(ea, writeMAC, writeCipher);
 
         if( debug != null && Debug.isOn("packet") ) {
-            dumpPacket(ea, false);
+            dumpPacket(ea, start, false);
         }
 
         /*
@@ -0,0 +1,315 @@
+package tlsv12;
+
+import java.lang.ref.WeakReference;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pools of pre-generated ephemeral key pairs, one for each named curve
+ * and Diffie-Hellman group in use, so that a handshake can find a key ready
+ * rather than generating one itself. Each key is removed from its pool when
+ * taken, so it is only ever used for one connection.
+ * <p>
+ * A low priority background thread refills a pool once no key has been taken
+ * from it for a short while, and stops again as soon as keys are being taken,
+ * so key generation uses idle time rather than competing with handshakes.
+ * <p>
+ * Each <code>SecureRandom</code>, which is normally that of an SSL context,
+ * has its own pools, and their keys are generated with it. A pool goes away
+ * with its <code>SecureRandom</code>.
+ * <p>
+ * The number of keys held for each curve or group is set by the system
+ * property <code>tlsv12.ephemeralKeyPoolSize</code>, and a size of zero turns
+ * pooling off.
+ */
+public final class EphemeralKeyPool {
+
+    /**
+     * Generates key pairs for a pool.
+     */
+    interface Generator {
+        KeyPair generate(SecureRandom random) throws GeneralSecurityException;
+    }
+
+    private final static Debug debug = Debug.getInstance("ssl");
+
+    // the number of keys held in each pool
+    private final static int POOL_SIZE = getDefaultPoolSize();
+
+    // how long a pool must go without a key being taken before it is refilled
+    private final static long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    // all pools, by source of randomness and then by name
+    private final static Map<SecureRandom, Map<String, EphemeralKeyPool>> pools = new WeakHashMap<SecureRandom, Map<String, EphemeralKeyPool>>();
+
+    // the background thread which refills the pools
+    private final static ScheduledExecutorService refiller = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "tlsv12-EphemeralKeyPool");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        }
+    });
+
+    private final String name;
+
+    private final Generator generator;
+
+    // not held strongly, so that the pools can go once it is unused
+    private final WeakReference<SecureRandom> random;
+
+    private final BlockingQueue<KeyPair> keys;
+
+    // set while a refill is scheduled or running
+    private final AtomicBoolean refilling = new AtomicBoolean();
+
+    // when a key was last taken, by System.nanoTime()
+    private volatile long lastTaken;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+
+    private EphemeralKeyPool(String name, Generator generator,
+            SecureRandom random) {
+        this.name = name;
+        this.generator = generator;
+        this.random = new WeakReference<SecureRandom>(random);
+        this.keys = new ArrayBlockingQueue<KeyPair>(POOL_SIZE);
+    }
+
+
+    private static int getDefaultPoolSize() {
+        int size = 4;
+        try {
+            String s = java.security.AccessController.doPrivileged(new java.security.PrivilegedAction<String>() {
+                public String run() {
+                    return System.getProperty("tlsv12.ephemeralKeyPoolSize");
+                }
+            });
+            if( s != null ) {
+                size = Integer.parseInt(s.trim());
+            }
+        } catch (Exception e) {}
+
+        return (size > 0) ? size : 0;
+    }
+
+
+    /**
+     * Take a key pair from the named pool of a source of randomness, and
+     * schedule the pool to be refilled once it is idle.
+     *
+     * @param name
+     *            the pool's name
+     * @param generator
+     *            generator for the pool, used if the pool does not yet exist
+     * @param random
+     *            the source of randomness, which the pool's keys are
+     *            generated with
+     * @return a key pair, or null if the pool is empty or pooling is off
+     */
+    static KeyPair take(String name, Generator generator, SecureRandom random) {
+        if( POOL_SIZE == 0 ) {
+            return null;
+        }
+
+        EphemeralKeyPool pool;
+        synchronized (pools) {
+            Map<String, EphemeralKeyPool> named = pools.get(random);
+            if( named == null ) {
+                named = new HashMap<String, EphemeralKeyPool>();
+                pools.put(random, named);
+            }
+            pool = named.get(name);
+            if( pool == null ) {
+                pool = new EphemeralKeyPool(name, generator, random);
+                named.put(name, pool);
+            }
+        }
+
+        pool.lastTaken = System.nanoTime();
+        KeyPair kp = pool.keys.poll();
+        if( kp != null ) {
+            pool.hits.incrementAndGet();
+        } else {
+            pool.misses.incrementAndGet();
+        }
+        pool.scheduleRefill(IDLE_NANOS);
+        return kp;
+    }
+
+
+    /**
+     * Schedule a refill of the pool, unless it is full or a refill is
+     * already scheduled.
+     */
+    private void scheduleRefill(long delay) {
+        if( keys.remainingCapacity() == 0 || !refilling.compareAndSet(false, true) ) {
+            return;
+        }
+
+        refiller.schedule(new Runnable() {
+            public void run() {
+                refill();
+            }
+        }, delay, TimeUnit.NANOSECONDS);
+    }
+
+
+    /**
+     * Generate keys until the pool is full, while no keys are being taken
+     * from it. Runs on the refiller thread.
+     */
+    private void refill() {
+        boolean full = false;
+        boolean rescheduled = false;
+        try {
+            while( keys.remainingCapacity() > 0 ) {
+                long idle = System.nanoTime() - lastTaken;
+                if( idle < IDLE_NANOS ) {
+                    // busy again, so wait for the next quiet spell
+                    refiller.schedule(new Runnable() {
+                        public void run() {
+                            refill();
+                        }
+                    }, IDLE_NANOS - idle, TimeUnit.NANOSECONDS);
+                    rescheduled = true;
+                    return;
+                }
+
+                SecureRandom r = random.get();
+                if( r == null ) {
+                    // the pool is no longer used
+                    break;
+                }
+                keys.offer(generator.generate(r));
+            }
+            full = (random.get() != null);
+        } catch (GeneralSecurityException e) {
+            logFailure(e);
+        } catch (RuntimeException e) {
+            // a provider may fail this way too, and the executor would
+            // otherwise swallow it
+            logFailure(e);
+        } finally {
+            // the next take schedules another refill, unless one is pending
+            if( !rescheduled ) {
+                refilling.set(false);
+            }
+        }
+
+        // a key may have been taken after the pool was seen as full
+        if( full ) {
+            scheduleRefill(IDLE_NANOS);
+        }
+    }
+
+
+    private void logFailure(Exception e) {
+        if( debug != null && Debug.isOn("sslctx") ) {
+            System.out.println("Ephemeral key pool " + name
+                    + " could not generate a key: " + e);
+        }
+    }
+
+
+    /**
+     * Get all the pools with a name, one for each source of randomness.
+     */
+    private static List<EphemeralKeyPool> getPools(String name) {
+        List<EphemeralKeyPool> list = new ArrayList<EphemeralKeyPool>();
+        synchronized (pools) {
+            for(Map<String, EphemeralKeyPool> named:pools.values()) {
+                EphemeralKeyPool pool = named.get(name);
+                if( pool != null ) {
+                    list.add(pool);
+                }
+            }
+        }
+        return list;
+    }
+
+
+    /**
+     * Get the names of all the pools in use. EC pools are named "EC:" and the
+     * curve OID, and Diffie-Hellman pools "DH:" and the modulus size.
+     *
+     * @return the pool names
+     */
+    public static String[] getPoolNames() {
+        TreeSet<String> names = new TreeSet<String>();
+        synchronized (pools) {
+            for(Map<String, EphemeralKeyPool> named:pools.values()) {
+                names.addAll(named.keySet());
+            }
+        }
+        return names.toArray(new String[names.size()]);
+    }
+
+
+    /**
+     * Get the number of keys currently in the pools with a name.
+     *
+     * @param name
+     *            the pools' name
+     * @return the number of keys ready
+     */
+    public static int getDepth(String name) {
+        int depth = 0;
+        for(EphemeralKeyPool pool:getPools(name)) {
+            depth += pool.keys.size();
+        }
+        return depth;
+    }
+
+
+    /**
+     * Get the number of times a key was taken from the pools with a name.
+     *
+     * @param name
+     *            the pools' name
+     * @return the number of keys taken from the pools
+     */
+    public static long getHits(String name) {
+        long hits = 0;
+        for(EphemeralKeyPool pool:getPools(name)) {
+            hits += pool.hits.get();
+        }
+        return hits;
+    }
+
+
+    /**
+     * Get the number of times a pool with a name was empty, and a key had to
+     * be generated during the handshake.
+     *
+     * @param name
+     *            the pools' name
+     * @return the number of times the pools were empty
+     */
+    public static long getMisses(String name) {
+        long misses = 0;
+        for(EphemeralKeyPool pool:getPools(name)) {
+            misses += pool.misses.get();
+        }
+        return misses;
+    }
+}
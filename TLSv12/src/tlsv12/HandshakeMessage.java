@@ -122,6 +122,21 @@ public abstract class HandshakeMessage {
         return b;
     }
 
+
+    /**
+     * Get a Signature for an algorithm and key. ECDSA with EC keys uses this
+     * library's own implementation, and everything else the installed
+     * providers.
+     */
+    static Signature getSignature(String algorithm, Key key)
+            throws NoSuchAlgorithmException {
+        if( key instanceof java.security.interfaces.ECKey
+                && algorithm.endsWith("withECDSA") ) {
+            return Signature.getInstance(algorithm, Tls12Provider.INSTANCE);
+        }
+        return Signature.getInstance(algorithm);
+    }
+
     /*
      * SSL 3.0 MAC padding constants. Also used by CertificateVerify and
      * Finished during the handshake.
@@ -307,6 +322,12 @@ public abstract class HandshakeMessage {
         }
 
 
+        // add encrypt_then_mac extension
+        void addEncryptThenMacExtension() {
+            extensions.add(EncryptThenMacExtension.DEFAULT);
+        }
+
+
         // add signature_algorithm extension
         void addSignatureAlgorithmsExtension(
                 Collection<SignatureAndHashAlgorithm> algorithms) {
@@ -885,7 +906,8 @@ public abstract class HandshakeMessage {
         // signature bytes (or null if anonymous)
         private byte[] signatureBytes;
 
-        // public key object encapsulated in this message
+        // public key object encapsulated in this message, or null for
+        // X25519
         private ECPublicKey publicKey;
 
         // protocol version being established using this ServerKeyExchange
@@ -897,19 +919,17 @@ public abstract class HandshakeMessage {
         private SignatureAndHashAlgorithm preferableSignatureAlgorithm;
 
 
-        ECDH_ServerKeyExchange(ECDHCrypt obj, PrivateKey privateKey,
-                byte[] clntNonce, byte[] svrNonce, SecureRandom sr,
-                SignatureAndHashAlgorithm signAlgorithm,
+        ECDH_ServerKeyExchange(ECDHCrypt obj, boolean compressed,
+                PrivateKey privateKey, byte[] clntNonce, byte[] svrNonce,
+                SecureRandom sr, SignatureAndHashAlgorithm signAlgorithm,
                 ProtocolVersion protocolVersion)
                 throws GeneralSecurityException {
 
             this.protocolVersion = protocolVersion;
 
-            publicKey = (ECPublicKey) obj.getPublicKey();
-            ECParameterSpec params = publicKey.getParams();
-            ECPoint point = publicKey.getW();
-            pointBytes = ECUtils.encodePoint(point, params.getCurve());
-            curveId = SupportedEllipticCurvesExtension.getCurveIndex(params);
+            publicKey = obj.getPublicKey();
+            pointBytes = obj.getEncodedPoint(compressed);
+            curveId = obj.getCurveId();
 
             if( privateKey == null ) {
                 // ECDH_anon
@@ -917,7 +937,8 @@ public abstract class HandshakeMessage {
             }
 
             this.preferableSignatureAlgorithm = signAlgorithm;
-            Signature sig = Signature.getInstance(signAlgorithm.getAlgorithmName());
+            Signature sig = getSignature(signAlgorithm.getAlgorithmName(),
+                    privateKey);
             sig.initSign(privateKey); // where is the SecureRandom?
 
             updateSignature(sig, clntNonce, svrNonce);
@@ -938,7 +959,7 @@ public abstract class HandshakeMessage {
 
             // read params: ServerECDHParams
             int curveType = input.getInt8();
-            ECParameterSpec parameters;
+            ECParameterSpec parameters = null;
             // These parsing errors should never occur as we negotiated
             // the supported curves during the exchange of the Hello messages.
             if( curveType == CURVE_NAMED_CURVE ) {
@@ -952,10 +973,13 @@ public abstract class HandshakeMessage {
                     throw new SSLHandshakeException("Unknown named curve: "
                             + curveId);
                 }
-                parameters = ECUtils.getECParameterSpec(curveOid);
-                if( parameters == null ) {
-                    throw new SSLHandshakeException("Unsupported curve: "
-                            + curveOid);
+                // X25519 has no parameters, only its raw public value
+                if( curveId != SupportedEllipticCurvesExtension.X25519 ) {
+                    parameters = ECUtils.getECParameterSpec(curveOid);
+                    if( parameters == null ) {
+                        throw new SSLHandshakeException("Unsupported curve: "
+                                + curveOid);
+                    }
                 }
             } else {
                 throw new SSLHandshakeException("Unsupported ECCurveType: "
@@ -963,11 +987,13 @@ public abstract class HandshakeMessage {
             }
             pointBytes = input.getBytes8();
 
-            ECPoint point = ECUtils.decodePoint(pointBytes,
-                    parameters.getCurve());
-            ECKeyFactory factory = new ECKeyFactory();
-            publicKey = (ECPublicKey) factory.generatePublic(new ECPublicKeySpec(
-                    point, parameters));
+            if( parameters != null ) {
+                ECPoint point = ECUtils.decodePoint(pointBytes,
+                        parameters.getCurve());
+                ECKeyFactory factory = new ECKeyFactory();
+                publicKey = (ECPublicKey) factory.generatePublic(new ECPublicKeySpec(
+                        point, parameters));
+            }
 
             if( signingKey == null ) {
                 // ECDH_anon
@@ -994,7 +1020,8 @@ public abstract class HandshakeMessage {
             signatureBytes = input.getBytes16();
 
             // verify the signature
-            Signature sig = Signature.getInstance(preferableSignatureAlgorithm.getAlgorithmName());
+            Signature sig = getSignature(
+                    preferableSignatureAlgorithm.getAlgorithmName(), signingKey);
             sig.initVerify(signingKey);
 
             updateSignature(sig, clntNonce, svrNonce);
@@ -1007,13 +1034,30 @@ public abstract class HandshakeMessage {
 
 
         /*
-         * Get the ephemeral EC public key encapsulated in this message.
+         * Get the ephemeral EC public key encapsulated in this message, or
+         * null for X25519.
          */
         ECPublicKey getPublicKey() {
             return publicKey;
         }
 
 
+        /*
+         * Get the named curve of the key exchange.
+         */
+        int getCurveId() {
+            return curveId;
+        }
+
+
+        /*
+         * Get the server's public value as it was sent.
+         */
+        byte[] getEncodedPoint() {
+            return pointBytes;
+        }
+
+
         private void updateSignature(Signature sig, byte clntNonce[],
                 byte svrNonce[]) throws SignatureException {
             sig.update(clntNonce);
@@ -1069,7 +1113,11 @@ public abstract class HandshakeMessage {
                     }
                 }
 
-                s.println("Server key: " + publicKey);
+                if( publicKey != null ) {
+                    s.println("Server key: " + publicKey);
+                } else {
+                    Debug.println(s, "Server x25519 value", pointBytes);
+                }
             }
         }
     }
@@ -1473,7 +1521,8 @@ public abstract class HandshakeMessage {
 
             String algorithm = privateKey.getAlgorithm();
             this.preferableSignatureAlgorithm = signAlgorithm;
-            Signature sig = Signature.getInstance(signAlgorithm.getAlgorithmName());
+            Signature sig = getSignature(signAlgorithm.getAlgorithmName(),
+                    privateKey);
             sig.initSign(privateKey, sr);
             updateSignature(sig, protocolVersion, handshakeHash, algorithm,
                     masterSecret);
@@ -1527,7 +1576,8 @@ public abstract class HandshakeMessage {
                 HandshakeHash handshakeHash, PublicKey publicKey,
                 SecretKey masterSecret) throws GeneralSecurityException {
             String algorithm = publicKey.getAlgorithm();
-            Signature sig = Signature.getInstance(preferableSignatureAlgorithm.getAlgorithmName());
+            Signature sig = getSignature(
+                    preferableSignatureAlgorithm.getAlgorithmName(), publicKey);
             sig.initVerify(publicKey);
             updateSignature(sig, protocolVersion, handshakeHash, algorithm,
                     masterSecret);
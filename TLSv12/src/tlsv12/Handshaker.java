@@ -177,6 +177,13 @@ abstract class Handshaker {
     static final boolean allowLegacyHelloMessages = Debug.getBooleanProperty(
             "sun.security.ssl.allowLegacyHelloMessages", true);
 
+    // Offer and accept encrypt-then-MAC (RFC 7366) for CBC cipher suites
+    static final boolean enableEncryptThenMac = Debug.getBooleanProperty(
+            "tlsv12.enableEncryptThenMac", true);
+
+    // True if encrypt-then-MAC was negotiated by this handshake
+    boolean encryptThenMac;
+
     // need to dispose the object when it is invalidated
     boolean invalidated;
 
@@ -331,6 +338,14 @@ abstract class Handshaker {
     }
 
 
+    boolean isEncryptThenMacSE() {
+        if( conn != null ) {
+            return conn.isEncryptThenMac();
+        }
+        return engine.isEncryptThenMac();
+    }
+
+
     final boolean receivedChangeCipherSpec() {
         if( conn != null ) {
             return conn.receivedChangeCipherSpec();
@@ -647,6 +662,9 @@ abstract class Handshaker {
             clntWriteKey = null;
             clntWriteIV = null;
         }
+        if( encryptThenMac ) {
+            box.setEncryptThenMac();
+        }
         return box;
     }
 
@@ -668,6 +686,9 @@ abstract class Handshaker {
             svrWriteKey = null;
             svrWriteIV = null;
         }
+        if( encryptThenMac ) {
+            box.setEncryptThenMac();
+        }
         return box;
     }
 
@@ -1077,6 +1098,16 @@ abstract class Handshaker {
         BulkCipher cipher = cipherSuite.cipher;
         int expandedKeySize = is_exportable ? cipher.expandedKeySize : 0;
 
+        // TLS 1.1 or later uses explicit IVs to protect against the CBC
+        // attacks, and AEAD ciphers only derive the implicit part of their
+        // nonces.
+        int ivSize = cipher.ivSize;
+        if( cipher.isAEADMode ) {
+            ivSize = cipher.fixedIvSize;
+        } else if( protocolVersion.v >= ProtocolVersion.TLS11.v ) {
+            ivSize = 0;
+        }
+
         // Which algs/params do we need to use?
         PRF prf = cipherSuite.prfAlg;
 
@@ -1088,7 +1119,7 @@ abstract class Handshaker {
                 protocolVersion.major, protocolVersion.minor,
                 clnt_random.random_bytes, svr_random.random_bytes,
                 cipher.algorithm, cipher.keySize, expandedKeySize,
-                cipher.ivSize, hashSize, prfHashAlg, prfHashLength,
+                ivSize, hashSize, prfHashAlg, prfHashLength,
                 prfBlockSize);
 
         try {
@@ -1130,10 +1161,14 @@ abstract class Handshaker {
                 printHex(dump, masterKey.getEncoded());
 
                 // Outputs:
-                System.out.println("Client MAC write Secret:");
-                printHex(dump, clntMacSecret.getEncoded());
-                System.out.println("Server MAC write Secret:");
-                printHex(dump, svrMacSecret.getEncoded());
+                if( clntMacSecret != null ) {
+                    System.out.println("Client MAC write Secret:");
+                    printHex(dump, clntMacSecret.getEncoded());
+                    System.out.println("Server MAC write Secret:");
+                    printHex(dump, svrMacSecret.getEncoded());
+                } else {
+                    System.out.println("... no MAC keys used for this cipher");
+                }
 
                 if( clntWriteKey != null ) {
                     System.out.println("Client write key:");
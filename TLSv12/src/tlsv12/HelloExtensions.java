@@ -30,7 +30,9 @@ import javax.net.ssl.SSLProtocolException;
 
 import java.io.IOException;
 import java.io.PrintStream;
+import java.security.spec.ECFieldFp;
 import java.security.spec.ECParameterSpec;
+import java.security.spec.EllipticCurve;
 import java.util.*;
 
 /**
@@ -87,6 +89,8 @@ final class HelloExtensions {
                 extension = new SupportedEllipticPointFormatsExtension(s);
             } else if( extType == ExtensionType.EXT_RENEGOTIATION_INFO ) {
                 extension = new RenegotiationInfoExtension(s, extlen);
+            } else if( extType == ExtensionType.EXT_ENCRYPT_THEN_MAC ) {
+                extension = new EncryptThenMacExtension(extlen);
             } else {
                 extension = new UnknownExtension(s, extlen, extType);
             }
@@ -219,6 +223,10 @@ final class ExtensionType {
     // extensions defined in RFC 5746
     final static ExtensionType EXT_RENEGOTIATION_INFO = e(0xff01,
             "renegotiation_info"); // IANA registry value: 65281
+
+    // extensions defined in RFC 7366
+    final static ExtensionType EXT_ENCRYPT_THEN_MAC = e(0x0016,
+            "encrypt_then_mac"); // IANA registry value: 22
 }
 
 
@@ -445,14 +453,17 @@ final class ServerNameExtension extends HelloExtension {
 
 final class SupportedEllipticCurvesExtension extends HelloExtension {
 
+    // the named group of X25519, from RFC 8422
+    final static int X25519 = 29;
+
     // the extension value to send in the ClientHello message
     static final SupportedEllipticCurvesExtension DEFAULT;
 
     static {
         int[] ids;
         ids = new int[] {
-                // allow only NIST curves
-                23, 1, 3, 19, 21, 6, 7, 9, 10, 24, 11, 12, 25, 13, 14, };
+                // allow only X25519 and the NIST curves
+                X25519, 23, 1, 3, 19, 21, 6, 7, 9, 10, 24, 11, 12, 25, 13, 14, };
         DEFAULT = new SupportedEllipticCurvesExtension(ids);
     }
 
@@ -524,7 +535,9 @@ final class SupportedEllipticCurvesExtension extends HelloExtension {
             }
             // first check if it is a known named curve, then try other cases.
             String oid = getCurveOid(curveId);
-            if( oid != null ) {
+            if( curveId == X25519 ) {
+                sb.append("x25519");
+            } else if( oid != null ) {
                 ECParameterSpec spec = ECUtils.getECParameterSpec(oid);
                 // this toString() output will look nice for the current
                 // implementation of the ECParameterSpec class in the Sun
@@ -573,6 +586,20 @@ final class SupportedEllipticCurvesExtension extends HelloExtension {
         return null;
     }
 
+
+    // The OIDs of the Weierstrass curves in the default list, which are the
+    // ones scalar multiplications are done on.
+    static List<String> getDefaultCurveOids() {
+        List<String> oids = new ArrayList<String>();
+        for(int curveId:DEFAULT.curveIds) {
+            String oid = getCurveOid(curveId);
+            if( curveId != X25519 && oid != null ) {
+                oids.add(oid);
+            }
+        }
+        return oids;
+    }
+
     private final static int ARBITRARY_PRIME = 0xff01;
 
     private final static int ARBITRARY_CHAR2 = 0xff02;
@@ -605,6 +632,10 @@ final class SupportedEllipticCurvesExtension extends HelloExtension {
             "1.2.840.10045.3.1.7", // (23) secp256r1, NIST P-256
             "1.3.132.0.34", // (24) secp384r1, NIST P-384
             "1.3.132.0.35", // (25) secp521r1, NIST P-521
+            null, // (26) brainpoolP256r1, unsupported
+            null, // (27) brainpoolP384r1, unsupported
+            null, // (28) brainpoolP512r1, unsupported
+            ECDHCrypt.X25519_OID, // (29) x25519
     };
 
     private final static Map<String, Integer> curveIndices;
@@ -612,7 +643,9 @@ final class SupportedEllipticCurvesExtension extends HelloExtension {
     static {
         curveIndices = new HashMap<String, Integer>();
         for(int i = 1;i < NAMED_CURVE_OID_TABLE.length;i++) {
-            curveIndices.put(NAMED_CURVE_OID_TABLE[i], Integer.valueOf(i));
+            if( NAMED_CURVE_OID_TABLE[i] != null ) {
+                curveIndices.put(NAMED_CURVE_OID_TABLE[i], Integer.valueOf(i));
+            }
         }
     }
 
@@ -629,8 +662,10 @@ final class SupportedEllipticPointFormatsExtension extends HelloExtension {
 
     final static int FMT_ANSIX962_COMPRESSED_CHAR2 = 2;
 
+    // the extension value to send in the ClientHello and ServerHello messages
     static final HelloExtension DEFAULT = new SupportedEllipticPointFormatsExtension(
-            new byte[] { FMT_UNCOMPRESSED });
+            new byte[] { FMT_UNCOMPRESSED, FMT_ANSIX962_COMPRESSED_PRIME,
+                    FMT_ANSIX962_COMPRESSED_CHAR2 });
 
     private final byte[] formats;
 
@@ -661,6 +696,26 @@ final class SupportedEllipticPointFormatsExtension extends HelloExtension {
     }
 
 
+    /**
+     * Does the peer which sent this extension accept compressed points on a
+     * curve?
+     *
+     * @param curve
+     *            the curve
+     * @return true if points may be sent compressed
+     */
+    boolean allowsCompressed(EllipticCurve curve) {
+        int format = (curve.getField() instanceof ECFieldFp) ? FMT_ANSIX962_COMPRESSED_PRIME
+                : FMT_ANSIX962_COMPRESSED_CHAR2;
+        for(byte f:formats) {
+            if( f == format ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
     int length() {
         return 5 + formats.length;
     }
@@ -789,6 +844,51 @@ final class RenegotiationInfoExtension extends HelloExtension {
 
 
 
+/*
+ * [RFC7366] The client offers to compute the MAC of CBC records over the
+ * ciphertext instead of the plaintext with the "encrypt_then_mac" extension,
+ * and the server accepts by echoing it. The "extension_data" field is empty.
+ * The server must not echo it for a stream or AEAD cipher suite.
+ */
+final class EncryptThenMacExtension extends HelloExtension {
+
+    final static EncryptThenMacExtension DEFAULT = new EncryptThenMacExtension();
+
+
+    private EncryptThenMacExtension() {
+        super(ExtensionType.EXT_ENCRYPT_THEN_MAC);
+    }
+
+
+    EncryptThenMacExtension(int len) throws IOException {
+        super(ExtensionType.EXT_ENCRYPT_THEN_MAC);
+
+        if( len != 0 ) {
+            throw new SSLProtocolException("Invalid " + type + " extension");
+        }
+    }
+
+
+    // Length of the encoded extension, including the type and length fields
+    int length() {
+        return 4;
+    }
+
+
+    void send(HandshakeOutStream s) throws IOException {
+        s.putInt16(type.id);
+        s.putInt16(0);
+    }
+
+
+    public String toString() {
+        return "Extension " + type;
+    }
+}
+
+
+
+
 /*
  * [RFC5246] The client uses the "signature_algorithms" extension to indicate to
  * the server which signature/hash algorithm pairs may be used in digital
@@ -147,12 +147,38 @@ class InputRecord extends ByteArrayInputStream implements Record {
         int tagLen = signer.MAClen();
         int cipheredLength = count - headerSize;
 
+        // With encrypt-then-MAC the MAC covers the ciphertext, and a record
+        // is only decrypted once it has been authenticated, so none of the
+        // countermeasures against padding oracles below are needed.
+        if( box.isEncryptThenMac() ) {
+            int contentLen = cipheredLength - tagLen;
+            if( contentLen < 0 || !box.sanityCheck(0, contentLen) ) {
+                throw new BadPaddingException("ciphertext sanity check failed");
+            }
+
+            count -= tagLen;
+            if( checkMacTags(contentType(), buf, headerSize, contentLen,
+                    signer, false) ) {
+                throw new BadPaddingException("bad record MAC");
+            }
+
+            count = headerSize + box.decrypt(buf, headerSize, contentLen, 0);
+            return;
+        }
+
         if( !box.isNullCipher() ) {
             // sanity check length of the ciphertext
             if( !box.sanityCheck(tagLen, cipheredLength) ) {
                 throw new BadPaddingException("ciphertext sanity check failed");
             }
 
+            // an AEAD cipher is initialized with each record's nonce and
+            // additional data, and authenticates the record itself
+            if( box.isAEADMode() ) {
+                box.applyExplicitNonce(signer, contentType(), buf, headerSize,
+                        cipheredLength);
+            }
+
             try {
                 // Note that the CipherBox.decrypt() does not change
                 // the capacity of the buffer.
@@ -102,7 +102,13 @@ public final class KeyUtil {
     }
 
 
-    private static void validateDHPublicKey(BigInteger p, BigInteger g,
+    /**
+     * Checks a Diffie-Hellman public value, without creating a key spec.
+     *
+     * @throws InvalidKeyException
+     *             if {@code y} is invalid
+     */
+    static void validateDHPublicKey(BigInteger p, BigInteger g,
             BigInteger y) throws InvalidKeyException {
 
         // For better interoperability, the interval is limited to [2, p-2].
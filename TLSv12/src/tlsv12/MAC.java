@@ -45,8 +45,10 @@ import java.security.NoSuchAlgorithmException;
  * v3.0 uses one construct, TLS uses another.)
  * <P>
  * NOTE: MAC computation is the only place in the SSL protocol that the sequence
- * number is used. It's also reset to zero with each change of a cipher spec, so
- * this is the only place this state is needed.
+ * number is used, apart from the additional data and explicit nonce of AEAD
+ * ciphers. It's also reset to zero with each change of a cipher spec, so this
+ * is the only place this state is needed. AEAD cipher suites use a MAC of the
+ * NULL algorithm, which computes nothing but still keeps the sequence number.
  *
  * @author David Brownell
  * @author Andreas Sterbenz
@@ -97,6 +99,16 @@ final class MAC {
         this.macAlg = macAlg;
         this.macSize = macAlg.size;
 
+        block = new byte[BLOCK_SIZE_TLS];
+        block[BLOCK_OFFSET_VERSION] = protocolVersion.major;
+        block[BLOCK_OFFSET_VERSION + 1] = protocolVersion.minor;
+
+        if( macAlg == M_NULL ) {
+            // the sequence number for an AEAD cipher
+            mac = null;
+            return;
+        }
+
         String algorithm;
         if( macAlg == M_SHA256 ) {
             algorithm = "HmacSHA256"; // TLS 1.2+
@@ -108,10 +120,6 @@ final class MAC {
 
         mac = Mac.getInstance(algorithm);
         mac.init(key);
-
-        block = new byte[BLOCK_SIZE_TLS];
-        block[BLOCK_OFFSET_VERSION] = protocolVersion.major;
-        block[BLOCK_OFFSET_VERSION + 1] = protocolVersion.minor;
     }
 
 
@@ -189,7 +197,7 @@ final class MAC {
          * Conservatively, we don't allow more records to be generated when
          * there are only 2^8 sequence numbers left.
          */
-        return (block != null && mac != null && block[0] == (byte) 0xFF
+        return (block != null && block[0] == (byte) 0xFF
                 && block[1] == (byte) 0xFF && block[2] == (byte) 0xFF
                 && block[3] == (byte) 0xFF && block[4] == (byte) 0xFF
                 && block[5] == (byte) 0xFF && block[6] == (byte) 0xFF);
@@ -208,7 +216,39 @@ final class MAC {
          * Conservatively, we should ask for renegotiation when there are only
          * 2^48 sequence numbers left.
          */
-        return (block != null && mac != null && block[0] == (byte) 0xFF && block[1] == (byte) 0xFF);
+        return (block != null && block[0] == (byte) 0xFF && block[1] == (byte) 0xFF);
+    }
+
+
+    /**
+     * Returns the sequence number of the next record, which AEAD ciphers send
+     * as the explicit nonce.
+     */
+    final byte[] sequenceNumber() {
+        byte[] seqNum = new byte[8];
+        System.arraycopy(block, 0, seqNum, 0, 8);
+        return seqNum;
+    }
+
+
+    /**
+     * Returns the additional authenticated data of an AEAD cipher for the next
+     * record, and increments the sequence number. This is the block which a
+     * MAC would be computed over before the record's content.
+     *
+     * @param type
+     *            record type
+     * @param len
+     *            the length of the record's plaintext
+     */
+    final byte[] acquireAuthenticationBytes(byte type, int len) {
+        block[BLOCK_OFFSET_TYPE] = type;
+        block[block.length - 2] = (byte) (len >> 8);
+        block[block.length - 1] = (byte) (len);
+
+        byte[] ad = block.clone();
+        incrementSequenceNumber();
+        return ad;
     }
 
 
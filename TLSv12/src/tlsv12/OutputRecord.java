@@ -203,9 +203,10 @@ class OutputRecord extends ByteArrayOutputStream implements Record {
     /*
      * Compute the MAC and append it to this record. In case we are
      * automatically flushing a handshake stream, make sure we have hashed the
-     * message first.
+     * message first. With encrypt-then-MAC, the MAC is added by encrypt()
+     * instead.
      */
-    void addMAC(MAC signer) throws IOException {
+    void addMAC(MAC signer, CipherBox box) throws IOException {
         //
         // when we support compression, hashing can't go here
         // since it'll need to be done on the uncompressed data,
@@ -214,7 +215,7 @@ class OutputRecord extends ByteArrayOutputStream implements Record {
         if( contentType == ct_handshake ) {
             doHashes();
         }
-        if( signer.MAClen() != 0 ) {
+        if( signer.MAClen() != 0 && !box.isEncryptThenMac() ) {
             byte[] hash = signer.compute(contentType, buf, headerSize, count
                     - headerSize, false);
             write(hash);
@@ -223,11 +224,29 @@ class OutputRecord extends ByteArrayOutputStream implements Record {
 
 
     /*
-     * Encrypt ... length may grow due to block cipher padding
+     * Encrypt ... length may grow due to block cipher padding, or the
+     * explicit nonce and tag of an AEAD cipher. An AEAD cipher takes its
+     * sequence number and additional data from the signer. With
+     * encrypt-then-MAC, the MAC of the ciphertext is appended.
      */
-    void encrypt(CipherBox box) {
+    void encrypt(MAC signer, CipherBox box) {
         int len = count - headerSize;
+        if( box.isAEADMode() ) {
+            byte[] nonce = box.createExplicitNonce(signer, contentType, len);
+            int dataOffset = headerSize + nonce.length;
+            if( nonce.length != 0 ) {
+                System.arraycopy(buf, headerSize, buf, dataOffset, len);
+                System.arraycopy(nonce, 0, buf, headerSize, nonce.length);
+            }
+            count = dataOffset + box.encrypt(buf, dataOffset, len);
+            return;
+        }
         count = headerSize + box.encrypt(buf, headerSize, len);
+        if( box.isEncryptThenMac() ) {
+            byte[] hash = signer.compute(contentType, buf, headerSize, count
+                    - headerSize, false);
+            write(hash, 0, hash.length);
+        }
     }
 
 
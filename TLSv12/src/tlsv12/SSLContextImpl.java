@@ -24,6 +24,8 @@
 
 package tlsv12;
 
+import tlsv12.ec.ECCalibration;
+
 import javax.net.ssl.*;
 
 import java.io.FileInputStream;
@@ -63,6 +65,9 @@ public abstract class SSLContextImpl extends SSLContextSpi {
 
     private CipherSuiteList supportedCipherSuiteList;
 
+    // ECDHE key reuse policy, or null to use a fresh key for each handshake
+    private volatile ECDHKeyReuse ecdhKeyReuse = null;
+
 
     SSLContextImpl() {
         clientCache = new SSLSessionContextImpl();
@@ -105,6 +110,17 @@ public abstract class SSLContextImpl extends SSLContextSpi {
         if( debug != null && Debug.isOn("sslctx") ) {
             System.out.println("done seeding SecureRandom");
         }
+
+        // make the per-curve choices before the curves are first used
+        int validating = DHCrypt.validateConfiguredParameters();
+        if( validating > 0 && debug != null && Debug.isOn("sslctx") ) {
+            System.out.println("validating " + validating
+                    + " Diffie-Hellman groups in the background");
+        }
+        int calibrated = ECCalibration.init(SupportedEllipticCurvesExtension.getDefaultCurveOids());
+        if( calibrated > 0 && debug != null && Debug.isOn("sslctx") ) {
+            System.out.println("calibrated " + calibrated + " elliptic curves");
+        }
         isInitialized = true;
     }
 
@@ -191,6 +207,57 @@ public abstract class SSLContextImpl extends SSLContextSpi {
     }
 
 
+    /**
+     * Get the ephemeral ECDH key for a server handshake on a curve. This is a
+     * new key unless key reuse has been enabled.
+     *
+     * @param oid
+     *            the curve's OID
+     * @return the key
+     */
+    ECDHCrypt getEphemeralECDHCrypt(String oid) {
+        ECDHKeyReuse reuse = ecdhKeyReuse;
+        if( reuse == null ) {
+            return new ECDHCrypt(oid, secureRandom);
+        }
+        return reuse.get(oid, secureRandom);
+    }
+
+
+    /**
+     * Set the ephemeral ECDHE key reuse policy.
+     *
+     * @see Tls12Context#setEphemeralKeyReuse(long, int)
+     */
+    void setEphemeralKeyReuse(long maxAgeMillis, int maxConnections) {
+        if( maxAgeMillis <= 0 || maxConnections <= 1 ) {
+            ecdhKeyReuse = null;
+        } else {
+            ecdhKeyReuse = new ECDHKeyReuse(maxAgeMillis, maxConnections);
+        }
+    }
+
+
+    // see Tls12Context#isEphemeralKeyReuseEnabled()
+    boolean isEphemeralKeyReuseEnabled() {
+        return ecdhKeyReuse != null;
+    }
+
+
+    // see Tls12Context#getEphemeralKeyRotations()
+    long getEphemeralKeyRotations() {
+        ECDHKeyReuse reuse = ecdhKeyReuse;
+        return (reuse != null) ? reuse.getRotations() : 0;
+    }
+
+
+    // see Tls12Context#getEphemeralKeyReuses()
+    long getEphemeralKeyReuses() {
+        ECDHKeyReuse reuse = ecdhKeyReuse;
+        return (reuse != null) ? reuse.getReuses() : 0;
+    }
+
+
     X509ExtendedKeyManager getX509KeyManager() {
         return keyManager;
     }
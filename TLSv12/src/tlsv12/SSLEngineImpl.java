@@ -313,6 +313,27 @@ final public class SSLEngineImpl extends SSLEngine {
      */
     private boolean isFirstAppOutputRecord = true;
 
+    /*
+     * Should a wrap() fill netData with as many application data records as
+     * fit, rather than returning after the first one? SSLEngine callers may
+     * rely on getting at most one packet per wrap(), so this is opt-in, either
+     * per engine or for all engines with the tlsv12.multiRecordWrap property.
+     */
+    private volatile boolean multiRecordWrap = defaultMultiRecordWrap;
+
+    private static final boolean defaultMultiRecordWrap = Debug
+            .getBooleanProperty("tlsv12.multiRecordWrap", false);
+
+    /*
+     * Likewise, should an unwrap() keep reading application data records from
+     * netData until it hits a record of another type, an incomplete record, or
+     * runs out of room? Set per engine or with tlsv12.multiRecordUnwrap.
+     */
+    private volatile boolean multiRecordUnwrap = defaultMultiRecordUnwrap;
+
+    private static final boolean defaultMultiRecordUnwrap = Debug
+            .getBooleanProperty("tlsv12.multiRecordUnwrap", false);
+
     /*
      * Class and subclass dynamic debugging support
      */
@@ -866,6 +887,11 @@ final public class SSLEngineImpl extends SSLEngine {
          */
         try {
             hsStatus = readRecord(ea);
+
+            while( multiRecordUnwrap && (hsStatus == null)
+                    && hasNextAppRecord(ea) ) {
+                hsStatus = readRecord(ea);
+            }
         } catch (SSLException e) {
             throw e;
         } catch (IOException e) {
@@ -892,6 +918,31 @@ final public class SSLEngineImpl extends SSLEngine {
     }
 
 
+    /*
+     * In multi-record mode, checks whether the record just read and the next
+     * one in netData are both application data, and whether the next one is
+     * complete and fits in the remaining application buffer space. Anything
+     * else is left for the following unwrap() to report.
+     */
+    private boolean hasNextAppRecord(EngineArgs ea) throws IOException {
+        if( (inputRecord.contentType() != Record.ct_application_data)
+                || isInboundDone() || (getConnectionState() != cs_DATA) ) {
+            return false;
+        }
+
+        ByteBuffer netData = ea.netData;
+        if( (netData.remaining() < Record.headerSize)
+                || (netData.get(netData.position()) != Record.ct_application_data) ) {
+            return false;
+        }
+
+        int packetLen = inputRecord.bytesInCompletePacket(netData);
+        return (packetLen <= netData.remaining())
+                && (packetLen <= sess.getPacketBufferSize())
+                && ((packetLen - Record.headerSize) <= ea.getAppRemaining());
+    }
+
+
     /*
      * Actually do the read record processing.
      * 
@@ -1243,6 +1294,34 @@ final public class SSLEngineImpl extends SSLEngine {
      */
     private HandshakeStatus writeRecord(EngineOutputRecord eor, EngineArgs ea) throws IOException {
 
+        HandshakeStatus hsStatus;
+        int appRemaining;
+
+        /*
+         * In multi-record mode, keep going while there's application data
+         * left, room for another full record, and nothing else to report or
+         * to send first.
+         */
+        do {
+            appRemaining = ea.getAppRemaining();
+            hsStatus = writeRecordOnce(eor, ea);
+            ea.resetLim(); // gather() narrows the application data limits
+        } while( multiRecordWrap && (hsStatus == null)
+                && (ea.getAppRemaining() != 0)
+                && (ea.getAppRemaining() != appRemaining)
+                && (ea.netData.remaining() >= Record.maxRecordSize)
+                && !writer.hasOutboundData() && !isOutboundDone() );
+
+        return hsStatus;
+    }
+
+
+    /*
+     * Write a single record.
+     */
+    private HandshakeStatus writeRecordOnce(EngineOutputRecord eor,
+            EngineArgs ea) throws IOException {
+
         // eventually compress as well.
         HandshakeStatus hsStatus = writer.writeRecord(eor, ea, writeMAC,
                 writeCipher);
@@ -2029,6 +2108,59 @@ final public class SSLEngineImpl extends SSLEngine {
     }
 
 
+    /*
+     * Returns a boolean indicating whether the records being read are
+     * protected with encrypt-then-MAC.
+     */
+    boolean isEncryptThenMac() {
+        return readCipher.isEncryptThenMac();
+    }
+
+
+    /**
+     * Controls whether a single wrap() may produce more than one application
+     * data record. When enabled, wrap() keeps packing records into the
+     * destination buffer for as long as there is application data and room
+     * for another full record, so bytesProduced() may exceed the session's
+     * packet buffer size. Handshake data is still returned one record at a
+     * time.
+     */
+    public void setMultiRecordWrap(boolean flag) {
+        multiRecordWrap = flag;
+    }
+
+
+    /**
+     * Returns true if a single wrap() may produce more than one application
+     * data record.
+     */
+    public boolean getMultiRecordWrap() {
+        return multiRecordWrap;
+    }
+
+
+    /**
+     * Controls whether a single unwrap() may consume more than one application
+     * data record. When enabled, unwrap() keeps decrypting complete
+     * application data records from the source buffer into the destination
+     * buffers, stopping before any other record type, an incomplete record,
+     * or a record that might not fit. The result reports the totals for all
+     * records read.
+     */
+    public void setMultiRecordUnwrap(boolean flag) {
+        multiRecordUnwrap = flag;
+    }
+
+
+    /**
+     * Returns true if a single unwrap() may consume more than one application
+     * data record.
+     */
+    public boolean getMultiRecordUnwrap() {
+        return multiRecordUnwrap;
+    }
+
+
     /**
      * Returns a printable representation of this end of the connection.
      */
@@ -806,8 +806,8 @@ final public class SSLSocketImpl extends BaseSSLSocketImpl {
 
     private void writeRecordInternal(OutputRecord r, boolean holdRecord) throws IOException {
         // r.compress(c);
-        r.addMAC(writeMAC);
-        r.encrypt(writeCipher);
+        r.addMAC(writeMAC, writeCipher);
+        r.encrypt(writeMAC, writeCipher);
 
         if( holdRecord ) {
             // If we were requested to delay the record due to possibility
@@ -2484,6 +2484,15 @@ final public class SSLSocketImpl extends BaseSSLSocketImpl {
         return receivedCCS;
     }
 
+
+    /*
+     * Returns a boolean indicating whether the records being read are
+     * protected with encrypt-then-MAC.
+     */
+    boolean isEncryptThenMac() {
+        return readCipher.isEncryptThenMac();
+    }
+
     //
     // We allocate a separate thread to deliver handshake completion
     // events. This ensures that the notifications don't block the
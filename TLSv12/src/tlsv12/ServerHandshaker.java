@@ -97,6 +97,9 @@ final class ServerHandshaker extends Handshaker {
 
     private SupportedEllipticCurvesExtension supportedCurves;
 
+    // the point formats the client accepts, or null if it sent none
+    private SupportedEllipticPointFormatsExtension pointFormats;
+
     // the preferable signature algorithm used by ServerKeyExchange message
     SignatureAndHashAlgorithm preferableSignatureAlgorithm;
 
@@ -509,6 +512,7 @@ final class ServerHandshaker extends Handshaker {
             }
 
             supportedCurves = (SupportedEllipticCurvesExtension) mesg.extensions.get(ExtensionType.EXT_ELLIPTIC_CURVES);
+            pointFormats = (SupportedEllipticPointFormatsExtension) mesg.extensions.get(ExtensionType.EXT_EC_POINT_FORMATS);
 
             // We only need to handle the "signature_algorithm" extension
             // for full handshakes and TLS 1.2 or later.
@@ -559,6 +563,20 @@ final class ServerHandshaker extends Handshaker {
         }
 
         m1.cipherSuite = cipherSuite;
+
+        // accept encrypt-then-MAC for a CBC suite if the client offers it,
+        // and do not let a renegotiation drop it
+        if( enableEncryptThenMac && cipherSuite.cipher.isCBCMode
+                && protocolVersion.v >= ProtocolVersion.TLS10.v
+                && mesg.extensions.get(ExtensionType.EXT_ENCRYPT_THEN_MAC) != null ) {
+            encryptThenMac = true;
+            m1.extensions.add(EncryptThenMacExtension.DEFAULT);
+        } else if( !isInitialHandshake && isEncryptThenMacSE()
+                && cipherSuite.cipher.isCBCMode ) {
+            fatalSE(Alerts.alert_handshake_failure,
+                    "Client did not renegotiate encrypt_then_mac");
+        }
+
         m1.sessionId = session.getSessionId();
         m1.compression_method = session.getCompression();
 
@@ -577,6 +595,13 @@ final class ServerHandshaker extends Handshaker {
             m1.extensions.add(serverHelloRI);
         }
 
+        // tell the client which point formats we accept, so that it may
+        // compress its point
+        if( pointFormats != null
+                && cipherSuite.keyExchange.name.startsWith("EC") ) {
+            m1.extensions.add(SupportedEllipticPointFormatsExtension.DEFAULT);
+        }
+
         if( debug != null && Debug.isOn("handshake") ) {
             m1.print(System.out);
             System.out.println("Cipher suite:  " + session.getSuite());
@@ -659,7 +684,8 @@ final class ServerHandshaker extends Handshaker {
         case K_ECDHE_ECDSA:
         case K_ECDH_ANON:
             try {
-                m3 = new ECDH_ServerKeyExchange(ecdh, privateKey,
+                m3 = new ECDH_ServerKeyExchange(ecdh,
+                        ecdh.useCompressed(pointFormats), privateKey,
                         clnt_random.random_bytes, svr_random.random_bytes,
                         sslContext.getSecureRandom(),
                         preferableSignatureAlgorithm, protocolVersion);
@@ -759,28 +785,49 @@ final class ServerHandshaker extends Handshaker {
      * cipherSuite and keyExchange variables.
      */
     private void chooseCipherSuite(ClientHello mesg) throws IOException {
-        for(CipherSuite suite:mesg.getCipherSuites().collection()) {
-            if( isNegotiable(suite) == false ) {
-                continue;
-            }
-
-            if( doClientAuth == SSLEngineImpl.clauth_required ) {
-                if( (suite.keyExchange == K_DH_ANON)
-                        || (suite.keyExchange == K_ECDH_ANON) ) {
-                    continue;
+        Collection<CipherSuite> suites = mesg.getCipherSuites().collection();
+
+        // Where AES is not accelerated, ChaCha20-Poly1305 is much cheaper for
+        // both sides, so take it first if the client offers it.
+        if( CipherSuite.PREFER_CHACHA20 ) {
+            for(CipherSuite suite:suites) {
+                if( suite.cipher == CipherSuite.B_CHACHA20_POLY1305
+                        && chooseCipherSuite(suite) ) {
+                    return;
                 }
             }
+        }
 
-            if( trySetCipherSuite(suite) == false ) {
-                continue;
+        for(CipherSuite suite:suites) {
+            if( chooseCipherSuite(suite) ) {
+                return;
             }
-            return;
         }
 
         fatalSE(Alerts.alert_handshake_failure, "no cipher suites in common");
     }
 
 
+    /**
+     * Choose the given CipherSuite if it is negotiable and acceptable for this
+     * connection, and it can be set.
+     */
+    private boolean chooseCipherSuite(CipherSuite suite) {
+        if( isNegotiable(suite) == false ) {
+            return false;
+        }
+
+        if( doClientAuth == SSLEngineImpl.clauth_required ) {
+            if( (suite.keyExchange == K_DH_ANON)
+                    || (suite.keyExchange == K_ECDH_ANON) ) {
+                return false;
+            }
+        }
+
+        return trySetCipherSuite(suite);
+    }
+
+
     /**
      * Set the given CipherSuite, if possible. Return the result. The call
      * succeeds if the CipherSuite is available and we have the necessary
@@ -996,13 +1043,12 @@ final class ServerHandshaker extends Handshaker {
      */
     private void setupEphemeralDHKeys(boolean export) {
         /*
-         * Diffie-Hellman keys ... we use 768 bit private keys due to the
-         * "use twice as many key bits as bits you want secret" rule of thumb,
-         * assuming we want the same size premaster secret with Diffie-Hellman
-         * and RSA key exchanges. Except that exportable ciphers max out at 512
-         * bits modulus values.
+         * Diffie-Hellman keys ... we use the 2048 bit RFC 7919 group, as 768
+         * bit groups are within reach of precomputation attacks. DHCrypt
+         * handles it itself, with short exponents. Except that exportable
+         * ciphers max out at 512 bits modulus values.
          */
-        dh = new DHCrypt((export ? 512 : 768), sslContext.getSecureRandom());
+        dh = new DHCrypt((export ? 512 : 2048), sslContext.getSecureRandom());
     }
 
 
@@ -1025,11 +1071,17 @@ final class ServerHandshaker extends Handshaker {
                 return false;
             }
         } else {
-            // pick our preference
-            index = SupportedEllipticCurvesExtension.DEFAULT.curveIds()[0];
+            // pick our preference, though not X25519, which a client that
+            // does not send the extension may well predate
+            for(int curveId:SupportedEllipticCurvesExtension.DEFAULT.curveIds()) {
+                if( curveId != SupportedEllipticCurvesExtension.X25519 ) {
+                    index = curveId;
+                    break;
+                }
+            }
         }
         String oid = SupportedEllipticCurvesExtension.getCurveOid(index);
-        ecdh = new ECDHCrypt(oid, sslContext.getSecureRandom());
+        ecdh = sslContext.getEphemeralECDHCrypt(oid);
         return true;
     }
 
@@ -58,7 +58,78 @@ public class Tls12Context extends SSLContext {
     }
 
 
+    /** The implementation of this context */
+    private final SSLContextImpl impl;
+
+
     public Tls12Context() {
-        super(new SSLContextImpl.TLS12Context(), new Tls12Provider(), "TLSv1.2");
+        this(new SSLContextImpl.TLS12Context());
+    }
+
+
+    private Tls12Context(SSLContextImpl impl) {
+        super(impl, new Tls12Provider(), "TLSv1.2");
+        this.impl = impl;
+    }
+
+
+    /**
+     * Get the implementation of this context.
+     *
+     * @return the implementation
+     */
+    SSLContextImpl getImpl() {
+        return impl;
+    }
+
+
+    /**
+     * Allow servers created by this context to use one ephemeral ECDHE key
+     * for several connections on the same curve. A key is replaced once it is
+     * older than the maximum age, or has been used for the maximum number of
+     * connections. This reduces the cost of a handshake at the expense of
+     * forward secrecy, and is intended only for periods of overload. Setting
+     * the maximum age to zero or less, or the maximum connections to one or
+     * less, restores a fresh key for each handshake, which is the default.
+     *
+     * @param maxAgeMillis
+     *            the longest a key may be used for, in milliseconds
+     * @param maxConnections
+     *            the most connections a key may be used for
+     */
+    public void setEphemeralKeyReuse(long maxAgeMillis, int maxConnections) {
+        impl.setEphemeralKeyReuse(maxAgeMillis, maxConnections);
+    }
+
+
+    /**
+     * Is ephemeral ECDHE key reuse enabled?
+     *
+     * @return true if keys may be reused
+     */
+    public boolean isEphemeralKeyReuseEnabled() {
+        return impl.isEphemeralKeyReuseEnabled();
+    }
+
+
+    /**
+     * Get the number of ephemeral ECDHE keys generated under the current
+     * reuse policy.
+     *
+     * @return the number of keys, or zero if reuse is not enabled
+     */
+    public long getEphemeralKeyRotations() {
+        return impl.getEphemeralKeyRotations();
+    }
+
+
+    /**
+     * Get the number of connections which used an ephemeral ECDHE key
+     * already used by an earlier connection, under the current reuse policy.
+     *
+     * @return the number of reuses, or zero if reuse is not enabled
+     */
+    public long getEphemeralKeyReuses() {
+        return impl.getEphemeralKeyReuses();
     }
 }
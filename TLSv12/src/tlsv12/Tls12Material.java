@@ -31,11 +31,9 @@ public final class Tls12Material {
          * null, null, null, null)</code>.
          *
          * @param clientMacKey
-         *            the client MAC key
+         *            the client MAC key (or null)
          * @param serverMacKey
-         *            the server MAC key
-         * @throws NullPointerException
-         *             if clientMacKey or serverMacKey is null
+         *            the server MAC key (or null)
          */
         public KeyMaterial(SecretKey clientMacKey, SecretKey serverMacKey) {
             this(clientMacKey, serverMacKey, null, null, null, null);
@@ -48,9 +46,9 @@ public final class Tls12Material {
          * initialization vectors.
          *
          * @param clientMacKey
-         *            the client MAC key
+         *            the client MAC key (or null, for AEAD ciphers)
          * @param serverMacKey
-         *            the server MAC key
+         *            the server MAC key (or null, for AEAD ciphers)
          * @param clientCipherKey
          *            the client cipher key (or null)
          * @param clientIv
@@ -59,16 +57,10 @@ public final class Tls12Material {
          *            the server cipher key (or null)
          * @param serverIv
          *            the server initialization vector (or null)
-         *
-         * @throws NullPointerException
-         *             if clientMacKey or serverMacKey is null
          */
         public KeyMaterial(SecretKey clientMacKey, SecretKey serverMacKey,
                 SecretKey clientCipherKey, IvParameterSpec clientIv,
                 SecretKey serverCipherKey, IvParameterSpec serverIv) {
-            if( (clientMacKey == null) || (serverMacKey == null) ) {
-                throw new NullPointerException("MAC keys must not be null");
-            }
             this.clientMacKey = clientMacKey;
             this.serverMacKey = serverMacKey;
             this.clientCipherKey = clientCipherKey;
@@ -111,7 +103,7 @@ public final class Tls12Material {
         /**
          * Returns the client MAC key.
          *
-         * @return the client MAC key.
+         * @return the client MAC key, or null if the cipher uses none.
          */
         public SecretKey getClientMacKey() {
             return clientMacKey;
@@ -121,7 +113,7 @@ public final class Tls12Material {
         /**
          * Return the server MAC key.
          *
-         * @return the server MAC key.
+         * @return the server MAC key, or null if the cipher uses none.
          */
         public SecretKey getServerMacKey() {
             return serverMacKey;
@@ -363,18 +355,13 @@ public final class Tls12Material {
         /**
          * Returns the length in bytes of the initialization vector to be
          * generated. Returns zero if the initialization vector is not supposed
-         * to be generated.
+         * to be generated, as for CBC ciphers in TLS v1.1 or later, which use
+         * explicit IVs.
          *
          * @return the length in bytes of the initialization vector to be
          *         generated.
          */
         public int getIvLength() {
-            // TLS v1.1 or later uses an explicit IV to protect against
-            // the CBC attacks.
-            if( majorVersion >= 0x03 && minorVersion >= 0x02 ) {
-                return 0;
-            }
-
             return ivLength;
         }
 
@@ -496,14 +483,16 @@ public final class Tls12Material {
         int ofs = 0;
         byte[] tmp = new byte[macLength];
 
-        // mac keys
-        System.arraycopy(keyBlock, ofs, tmp, 0, macLength);
-        ofs += macLength;
-        clientMacKey = new SecretKeySpec(tmp, "Mac");
+        // mac keys, which AEAD ciphers do not use
+        if( macLength != 0 ) {
+            System.arraycopy(keyBlock, ofs, tmp, 0, macLength);
+            ofs += macLength;
+            clientMacKey = new SecretKeySpec(tmp, "Mac");
 
-        System.arraycopy(keyBlock, ofs, tmp, 0, macLength);
-        ofs += macLength;
-        serverMacKey = new SecretKeySpec(tmp, "Mac");
+            System.arraycopy(keyBlock, ofs, tmp, 0, macLength);
+            ofs += macLength;
+            serverMacKey = new SecretKeySpec(tmp, "Mac");
+        }
 
         if( keyLength == 0 ) { // SSL_RSA_WITH_NULL_* ciphersuites
             return new KeyMaterial(clientMacKey, serverMacKey);
@@ -56,6 +56,9 @@ public class Tls12Provider extends java.security.Provider {
 
     private static final long serialVersionUID = 3231825739635378733L;
 
+    /** A shared instance, for the algorithms used by the handshake */
+    static final Tls12Provider INSTANCE = new Tls12Provider();
+
 
     // standard constructor
     public Tls12Provider() {
@@ -77,5 +80,12 @@ public class Tls12Provider extends java.security.Provider {
     void doRegister() {
         put("Alg.Alias.SSLContext.TLS", "TLSv1.2");
         put("SSLContext.TLSv1.2", "tls12.SSLContextImpl$TLS12Context");
+
+        put("Signature.SHA1withECDSA", "tlsv12.ec.SignatureSpi$ecDSA");
+        put("Signature.SHA224withECDSA", "tlsv12.ec.SignatureSpi$ecDSA224");
+        put("Signature.SHA256withECDSA", "tlsv12.ec.SignatureSpi$ecDSA256");
+        put("Signature.SHA384withECDSA", "tlsv12.ec.SignatureSpi$ecDSA384");
+        put("Signature.SHA512withECDSA", "tlsv12.ec.SignatureSpi$ecDSA512");
+        put("Alg.Alias.Signature.ECDSA", "SHA1withECDSA");
     }
 }
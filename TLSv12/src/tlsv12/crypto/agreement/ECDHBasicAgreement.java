@@ -2,9 +2,15 @@ package tlsv12.crypto.agreement;
 
 import tlsv12.crypto.params.ECPrivateKeyParameters;
 import tlsv12.crypto.params.ECPublicKeyParameters;
+import tlsv12.math.ec.ECAlgorithms;
+import tlsv12.math.ec.ECMultiplier;
 import tlsv12.math.ec.ECPoint;
+import tlsv12.math.ec.MontgomeryLadderMultiplier;
+import tlsv12.math.ec.WNafUtil;
 
 import java.math.BigInteger;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 
 /**
  * P1363 7.2.1 ECSVDP-DH
@@ -20,9 +26,35 @@ import java.math.BigInteger;
  * 7.2.2).
  */
 public class ECDHBasicAgreement {
+    /**
+     * Multiplier for the peer's point on Fp curves if the system property
+     * <code>tlsv12.ecdhLadder</code> is <code>true</code>, or else null to use
+     * the curve's own multiplier. The ladder is slower than the default wNAF
+     * multiplier and is not constant time, see
+     * {@link MontgomeryLadderMultiplier}. A point which already has a wNAF
+     * table, such as a cached static key, always uses the curve's multiplier
+     * so that the table is not wasted.
+     */
+    private static final ECMultiplier LADDER = getLadder();
+
     private ECPrivateKeyParameters key;
 
 
+    private static ECMultiplier getLadder() {
+        String s = null;
+        try {
+            s = AccessController.doPrivileged(new PrivilegedAction<String>() {
+                public String run() {
+                    return System.getProperty("tlsv12.ecdhLadder");
+                }
+            });
+        } catch (SecurityException e) {}
+
+        return "true".equalsIgnoreCase(s) ? new MontgomeryLadderMultiplier()
+                : null;
+    }
+
+
     public void init(ECPrivateKeyParameters key) {
         this.key = (ECPrivateKeyParameters) key;
     }
@@ -35,7 +67,14 @@ public class ECDHBasicAgreement {
 
     public BigInteger calculateAgreement(ECPublicKeyParameters pubKey) {
         ECPublicKeyParameters pub = (ECPublicKeyParameters) pubKey;
-        ECPoint P = pub.getQ().multiply(key.getD()).normalize();
+        ECPoint Q = pub.getQ();
+        ECPoint P;
+        if( LADDER != null && ECAlgorithms.isFpCurve(Q.getCurve())
+                && WNafUtil.getWNafPreCompInfo(Q).getPreComp() == null ) {
+            P = LADDER.multiply(Q, key.getD()).normalize();
+        } else {
+            P = Q.multiply(key.getD()).normalize();
+        }
 
         if( P.isInfinity() ) {
             throw new IllegalStateException(
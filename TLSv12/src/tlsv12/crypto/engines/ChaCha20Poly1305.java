@@ -0,0 +1,417 @@
+package tlsv12.crypto.engines;
+
+import javax.crypto.AEADBadTagException;
+
+/**
+ * The ChaCha20-Poly1305 AEAD construction of RFC 7539, with a 256 bit key, a 96
+ * bit nonce and a 128 bit tag.
+ * <p>
+ * Each call encrypts or decrypts one whole message under a fresh nonce, which
+ * suits TLS records. The cipher state is held in int arrays and the keystream
+ * is applied a 64 byte block at a time, and Poly1305 uses 26 bit limbs, so no
+ * objects are allocated while processing. Encryption and decryption may work
+ * in place. An instance is not safe for use by several threads.
+ */
+public class ChaCha20Poly1305 {
+    public static final int KEY_SIZE = 32;
+
+    public static final int NONCE_SIZE = 12;
+
+    public static final int TAG_SIZE = 16;
+
+    // "expand 32-byte k"
+    private static final int[] SIGMA = { 0x61707865, 0x3320646e, 0x79622d32,
+            0x6b206574 };
+
+    private static final int M26 = 0x3ffffff;
+
+    // the constants, key, block counter and nonce
+    private final int[] state = new int[16];
+
+    // the current keystream block
+    private final int[] x = new int[16];
+
+    // the clamped Poly1305 key r, and multiples of it by 5
+    private int r0, r1, r2, r3, r4;
+
+    private int s1, s2, s3, s4;
+
+    // the Poly1305 key s
+    private int k0, k1, k2, k3;
+
+    // the Poly1305 accumulator
+    private int h0, h1, h2, h3, h4;
+
+
+    public ChaCha20Poly1305(byte[] key) {
+        if( key.length != KEY_SIZE ) {
+            throw new IllegalArgumentException(
+                    "ChaCha20-Poly1305 requires a 256 bit key");
+        }
+        System.arraycopy(SIGMA, 0, state, 0, 4);
+        for(int i = 0;i < 8;++i) {
+            state[4 + i] = littleEndianToInt(key, i * 4);
+        }
+    }
+
+
+    /**
+     * Encrypt a message and append the tag.
+     *
+     * @param nonce the nonce, which must not be repeated for a key
+     * @param aad the additional data to authenticate
+     * @param in the plaintext's buffer
+     * @param inOff the start of the plaintext
+     * @param len the length of the plaintext
+     * @param out the buffer for the ciphertext and tag, which may be in
+     * @param outOff the start of the ciphertext, not after inOff if out is in
+     * @return the length of the ciphertext and tag
+     */
+    public int encrypt(byte[] nonce, byte[] aad, byte[] in, int inOff,
+            int len, byte[] out, int outOff) {
+        init(nonce);
+        crypt(in, inOff, len, out, outOff);
+        authenticate(aad, out, outOff, len);
+        finish(out, outOff + len);
+        return len + TAG_SIZE;
+    }
+
+
+    /**
+     * Check the tag of a message and decrypt it. Nothing is written if the
+     * tag does not match.
+     *
+     * @param nonce the nonce
+     * @param aad the additional data to authenticate
+     * @param in the buffer of the ciphertext and tag
+     * @param inOff the start of the ciphertext
+     * @param len the length of the ciphertext and tag
+     * @param out the buffer for the plaintext, which may be in
+     * @param outOff the start of the plaintext, not after inOff if out is in
+     * @return the length of the plaintext
+     * @exception AEADBadTagException if the message is too short, or the tag
+     *                does not match
+     */
+    public int decrypt(byte[] nonce, byte[] aad, byte[] in, int inOff,
+            int len, byte[] out, int outOff) throws AEADBadTagException {
+        int textLen = len - TAG_SIZE;
+        if( textLen < 0 ) {
+            throw new AEADBadTagException("ChaCha20-Poly1305 message too short");
+        }
+        init(nonce);
+        authenticate(aad, in, inOff, textLen);
+        if( !verify(in, inOff + textLen) ) {
+            throw new AEADBadTagException("ChaCha20-Poly1305 tag mismatch");
+        }
+        crypt(in, inOff, textLen, out, outOff);
+        return textLen;
+    }
+
+
+    /**
+     * Set the nonce, and derive the Poly1305 key from the first keystream
+     * block.
+     */
+    private void init(byte[] nonce) {
+        if( nonce.length != NONCE_SIZE ) {
+            throw new IllegalArgumentException(
+                    "ChaCha20-Poly1305 requires a 96 bit nonce");
+        }
+        state[12] = 0;
+        state[13] = littleEndianToInt(nonce, 0);
+        state[14] = littleEndianToInt(nonce, 4);
+        state[15] = littleEndianToInt(nonce, 8);
+        block();
+
+        int t0 = x[0], t1 = x[1], t2 = x[2], t3 = x[3];
+        r0 = t0 & 0x3ffffff;
+        r1 = ((t0 >>> 26) | (t1 << 6)) & 0x3ffff03;
+        r2 = ((t1 >>> 20) | (t2 << 12)) & 0x3ffc0ff;
+        r3 = ((t2 >>> 14) | (t3 << 18)) & 0x3f03fff;
+        r4 = (t3 >>> 8) & 0x00fffff;
+        s1 = r1 * 5;
+        s2 = r2 * 5;
+        s3 = r3 * 5;
+        s4 = r4 * 5;
+        k0 = x[4];
+        k1 = x[5];
+        k2 = x[6];
+        k3 = x[7];
+        h0 = h1 = h2 = h3 = h4 = 0;
+    }
+
+
+    /**
+     * XOR the keystream, from block counter 1, onto a message.
+     */
+    private void crypt(byte[] in, int inOff, int len, byte[] out, int outOff) {
+        int counter = 1;
+        while( len > 0 ) {
+            state[12] = counter++;
+            block();
+            if( len >= 64 ) {
+                for(int i = 0;i < 16;++i) {
+                    intToLittleEndian(littleEndianToInt(in, inOff) ^ x[i],
+                            out, outOff);
+                    inOff += 4;
+                    outOff += 4;
+                }
+                len -= 64;
+            } else {
+                for(int i = 0;i < len;++i) {
+                    int k = x[i >>> 2] >>> ((i & 3) << 3);
+                    out[outOff + i] = (byte) (in[inOff + i] ^ k);
+                }
+                len = 0;
+            }
+        }
+    }
+
+
+    /**
+     * Compute the next keystream block from the state.
+     */
+    private void block() {
+        int x0 = state[0], x1 = state[1], x2 = state[2], x3 = state[3];
+        int x4 = state[4], x5 = state[5], x6 = state[6], x7 = state[7];
+        int x8 = state[8], x9 = state[9], x10 = state[10], x11 = state[11];
+        int x12 = state[12], x13 = state[13], x14 = state[14], x15 = state[15];
+
+        for(int i = 0;i < 10;++i) {
+            // columns
+            x0 += x4; x12 = Integer.rotateLeft(x12 ^ x0, 16);
+            x8 += x12; x4 = Integer.rotateLeft(x4 ^ x8, 12);
+            x0 += x4; x12 = Integer.rotateLeft(x12 ^ x0, 8);
+            x8 += x12; x4 = Integer.rotateLeft(x4 ^ x8, 7);
+            x1 += x5; x13 = Integer.rotateLeft(x13 ^ x1, 16);
+            x9 += x13; x5 = Integer.rotateLeft(x5 ^ x9, 12);
+            x1 += x5; x13 = Integer.rotateLeft(x13 ^ x1, 8);
+            x9 += x13; x5 = Integer.rotateLeft(x5 ^ x9, 7);
+            x2 += x6; x14 = Integer.rotateLeft(x14 ^ x2, 16);
+            x10 += x14; x6 = Integer.rotateLeft(x6 ^ x10, 12);
+            x2 += x6; x14 = Integer.rotateLeft(x14 ^ x2, 8);
+            x10 += x14; x6 = Integer.rotateLeft(x6 ^ x10, 7);
+            x3 += x7; x15 = Integer.rotateLeft(x15 ^ x3, 16);
+            x11 += x15; x7 = Integer.rotateLeft(x7 ^ x11, 12);
+            x3 += x7; x15 = Integer.rotateLeft(x15 ^ x3, 8);
+            x11 += x15; x7 = Integer.rotateLeft(x7 ^ x11, 7);
+
+            // diagonals
+            x0 += x5; x15 = Integer.rotateLeft(x15 ^ x0, 16);
+            x10 += x15; x5 = Integer.rotateLeft(x5 ^ x10, 12);
+            x0 += x5; x15 = Integer.rotateLeft(x15 ^ x0, 8);
+            x10 += x15; x5 = Integer.rotateLeft(x5 ^ x10, 7);
+            x1 += x6; x12 = Integer.rotateLeft(x12 ^ x1, 16);
+            x11 += x12; x6 = Integer.rotateLeft(x6 ^ x11, 12);
+            x1 += x6; x12 = Integer.rotateLeft(x12 ^ x1, 8);
+            x11 += x12; x6 = Integer.rotateLeft(x6 ^ x11, 7);
+            x2 += x7; x13 = Integer.rotateLeft(x13 ^ x2, 16);
+            x8 += x13; x7 = Integer.rotateLeft(x7 ^ x8, 12);
+            x2 += x7; x13 = Integer.rotateLeft(x13 ^ x2, 8);
+            x8 += x13; x7 = Integer.rotateLeft(x7 ^ x8, 7);
+            x3 += x4; x14 = Integer.rotateLeft(x14 ^ x3, 16);
+            x9 += x14; x4 = Integer.rotateLeft(x4 ^ x9, 12);
+            x3 += x4; x14 = Integer.rotateLeft(x14 ^ x3, 8);
+            x9 += x14; x4 = Integer.rotateLeft(x4 ^ x9, 7);
+        }
+
+        x[0] = x0 + state[0];
+        x[1] = x1 + state[1];
+        x[2] = x2 + state[2];
+        x[3] = x3 + state[3];
+        x[4] = x4 + state[4];
+        x[5] = x5 + state[5];
+        x[6] = x6 + state[6];
+        x[7] = x7 + state[7];
+        x[8] = x8 + state[8];
+        x[9] = x9 + state[9];
+        x[10] = x10 + state[10];
+        x[11] = x11 + state[11];
+        x[12] = x12 + state[12];
+        x[13] = x13 + state[13];
+        x[14] = x14 + state[14];
+        x[15] = x15 + state[15];
+    }
+
+
+    /**
+     * Feed the additional data and ciphertext to Poly1305, each padded to 16
+     * bytes, followed by their lengths.
+     */
+    private void authenticate(byte[] aad, byte[] text, int textOff, int textLen) {
+        polyUpdate(aad, 0, aad.length);
+        polyUpdate(text, textOff, textLen);
+        polyBlock(aad.length, 0, textLen, 0);
+    }
+
+
+    private void polyUpdate(byte[] buf, int off, int len) {
+        while( len >= 16 ) {
+            polyBlock(littleEndianToInt(buf, off),
+                    littleEndianToInt(buf, off + 4),
+                    littleEndianToInt(buf, off + 8),
+                    littleEndianToInt(buf, off + 12));
+            off += 16;
+            len -= 16;
+        }
+        if( len > 0 ) {
+            // the last partial block is padded with zeros
+            int t0 = 0, t1 = 0, t2 = 0, t3 = 0;
+            for(int i = 0;i < len;++i) {
+                int b = (buf[off + i] & 0xff) << ((i & 3) << 3);
+                switch (i >>> 2) {
+                case 0:
+                    t0 |= b;
+                    break;
+                case 1:
+                    t1 |= b;
+                    break;
+                case 2:
+                    t2 |= b;
+                    break;
+                default:
+                    t3 |= b;
+                }
+            }
+            polyBlock(t0, t1, t2, t3);
+        }
+    }
+
+
+    /**
+     * Add a full 16 byte block to the accumulator, and multiply it by r.
+     */
+    private void polyBlock(int t0, int t1, int t2, int t3) {
+        h0 += t0 & M26;
+        h1 += ((t0 >>> 26) | (t1 << 6)) & M26;
+        h2 += ((t1 >>> 20) | (t2 << 12)) & M26;
+        h3 += ((t2 >>> 14) | (t3 << 18)) & M26;
+        h4 += (t3 >>> 8) | (1 << 24);
+
+        long d0 = mul(h0, r0) + mul(h1, s4) + mul(h2, s3) + mul(h3, s2)
+                + mul(h4, s1);
+        long d1 = mul(h0, r1) + mul(h1, r0) + mul(h2, s4) + mul(h3, s3)
+                + mul(h4, s2);
+        long d2 = mul(h0, r2) + mul(h1, r1) + mul(h2, r0) + mul(h3, s4)
+                + mul(h4, s3);
+        long d3 = mul(h0, r3) + mul(h1, r2) + mul(h2, r1) + mul(h3, r0)
+                + mul(h4, s4);
+        long d4 = mul(h0, r4) + mul(h1, r3) + mul(h2, r2) + mul(h3, r1)
+                + mul(h4, r0);
+
+        h0 = (int) d0 & M26;
+        d1 += d0 >>> 26;
+        h1 = (int) d1 & M26;
+        d2 += d1 >>> 26;
+        h2 = (int) d2 & M26;
+        d3 += d2 >>> 26;
+        h3 = (int) d3 & M26;
+        d4 += d3 >>> 26;
+        h4 = (int) d4 & M26;
+        d0 = (d4 >>> 26) * 5 + h0;
+        h0 = (int) d0 & M26;
+        h1 += (int) (d0 >>> 26);
+    }
+
+
+    private static long mul(int a, int b) {
+        return (a & 0xffffffffL) * b;
+    }
+
+
+    /**
+     * Write the tag.
+     */
+    private void finish(byte[] out, int outOff) {
+        polyFinish();
+        intToLittleEndian(h0, out, outOff);
+        intToLittleEndian(h1, out, outOff + 4);
+        intToLittleEndian(h2, out, outOff + 8);
+        intToLittleEndian(h3, out, outOff + 12);
+    }
+
+
+    /**
+     * Compare the tag with a received one, in constant time.
+     */
+    private boolean verify(byte[] buf, int off) {
+        polyFinish();
+        int diff = h0 ^ littleEndianToInt(buf, off);
+        diff |= h1 ^ littleEndianToInt(buf, off + 4);
+        diff |= h2 ^ littleEndianToInt(buf, off + 8);
+        diff |= h3 ^ littleEndianToInt(buf, off + 12);
+        return diff == 0;
+    }
+
+
+    /**
+     * Fully reduce the accumulator modulo 2^130 - 5 and add s, leaving the
+     * tag in h0 to h3.
+     */
+    private void polyFinish() {
+        int c = h1 >>> 26;
+        h1 &= M26;
+        h2 += c;
+        c = h2 >>> 26;
+        h2 &= M26;
+        h3 += c;
+        c = h3 >>> 26;
+        h3 &= M26;
+        h4 += c;
+        c = h4 >>> 26;
+        h4 &= M26;
+        h0 += c * 5;
+        c = h0 >>> 26;
+        h0 &= M26;
+        h1 += c;
+
+        // compute h - p, and keep it if it is not negative
+        int g0 = h0 + 5;
+        c = g0 >>> 26;
+        g0 &= M26;
+        int g1 = h1 + c;
+        c = g1 >>> 26;
+        g1 &= M26;
+        int g2 = h2 + c;
+        c = g2 >>> 26;
+        g2 &= M26;
+        int g3 = h3 + c;
+        c = g3 >>> 26;
+        g3 &= M26;
+        int g4 = h4 + c - (1 << 26);
+
+        int mask = (g4 >>> 31) - 1;
+        h0 = (h0 & ~mask) | (g0 & mask);
+        h1 = (h1 & ~mask) | (g1 & mask);
+        h2 = (h2 & ~mask) | (g2 & mask);
+        h3 = (h3 & ~mask) | (g3 & mask);
+        h4 = (h4 & ~mask) | (g4 & mask);
+
+        // h mod 2^128, plus s
+        long f = ((h0 | (h1 << 26)) & 0xffffffffL) + (k0 & 0xffffffffL);
+        h0 = (int) f;
+        f = (((h1 >>> 6) | (h2 << 20)) & 0xffffffffL) + (k1 & 0xffffffffL)
+                + (f >>> 32);
+        h1 = (int) f;
+        f = (((h2 >>> 12) | (h3 << 14)) & 0xffffffffL) + (k2 & 0xffffffffL)
+                + (f >>> 32);
+        h2 = (int) f;
+        f = (((h3 >>> 18) | (h4 << 8)) & 0xffffffffL) + (k3 & 0xffffffffL)
+                + (f >>> 32);
+        h3 = (int) f;
+    }
+
+
+    private static int littleEndianToInt(byte[] bs, int off) {
+        return (bs[off] & 0xff) | ((bs[off + 1] & 0xff) << 8)
+                | ((bs[off + 2] & 0xff) << 16) | (bs[off + 3] << 24);
+    }
+
+
+    private static void intToLittleEndian(int n, byte[] bs, int off) {
+        bs[off] = (byte) n;
+        bs[off + 1] = (byte) (n >>> 8);
+        bs[off + 2] = (byte) (n >>> 16);
+        bs[off + 3] = (byte) (n >>> 24);
+    }
+}
@@ -0,0 +1,152 @@
+package tlsv12.crypto.signers;
+
+import tlsv12.crypto.params.ECDomainParameters;
+import tlsv12.crypto.params.ECKeyParameters;
+import tlsv12.crypto.params.ECPrivateKeyParameters;
+import tlsv12.crypto.params.ECPublicKeyParameters;
+import tlsv12.math.ec.ECAlgorithms;
+import tlsv12.math.ec.ECConstants;
+import tlsv12.math.ec.ECMultiplier;
+import tlsv12.math.ec.ECPoint;
+import tlsv12.math.ec.FixedPointCombMultiplier;
+
+import java.math.BigInteger;
+
+/**
+ * EC-DSA as described in X9.62. Signing multiplies the curve's generator,
+ * which uses its fixed-point comb table. Verification computes both products
+ * together with Shamir's trick.
+ */
+public class ECDSASigner implements ECConstants {
+    private final HMacDSAKCalculator kCalculator;
+
+    private ECKeyParameters key;
+
+
+    /**
+     * Configuration with a deterministic K calculator.
+     *
+     * @param kCalculator
+     *            the calculator of nonces for signing
+     */
+    public ECDSASigner(HMacDSAKCalculator kCalculator) {
+        this.kCalculator = kCalculator;
+    }
+
+
+    public void init(boolean forSigning, ECKeyParameters key) {
+        if( forSigning ) {
+            this.key = (ECPrivateKeyParameters) key;
+        } else {
+            this.key = (ECPublicKeyParameters) key;
+        }
+    }
+
+
+    /**
+     * Generate a signature for the given message using the key we were
+     * initialised with. For conventional DSA the message should be a hash of
+     * the message of interest.
+     *
+     * @param message
+     *            the message that will be verified later.
+     * @return the r and s values of the signature
+     */
+    public BigInteger[] generateSignature(byte[] message) {
+        ECDomainParameters ec = key.getParameters();
+        BigInteger n = ec.getN();
+        BigInteger e = calculateE(n, message);
+        BigInteger d = ((ECPrivateKeyParameters) key).getD();
+
+        kCalculator.init(n, d, message);
+
+        BigInteger r, s;
+
+        ECMultiplier basePointMultiplier = createBasePointMultiplier();
+
+        // 5.3.2
+        do // generate s
+        {
+            BigInteger k;
+            do // generate r
+            {
+                k = kCalculator.nextK();
+
+                ECPoint p = basePointMultiplier.multiply(ec.getG(), k).normalize();
+
+                // 5.3.3
+                r = p.getAffineXCoord().toBigInteger().mod(n);
+            } while( r.equals(ZERO) );
+
+            s = k.modInverse(n).multiply(e.add(d.multiply(r))).mod(n);
+        } while( s.equals(ZERO) );
+
+        return new BigInteger[] { r, s };
+    }
+
+
+    /**
+     * Return true if the value r and s represent a DSA signature for the
+     * passed in message (for standard DSA the message should be a SHA-1 hash
+     * of the real message to be verified).
+     *
+     * @param message
+     *            the hash of the message
+     * @param r
+     *            the r value of the signature
+     * @param s
+     *            the s value of the signature
+     * @return true if the signature is valid
+     */
+    public boolean verifySignature(byte[] message, BigInteger r, BigInteger s) {
+        ECDomainParameters ec = key.getParameters();
+        BigInteger n = ec.getN();
+        BigInteger e = calculateE(n, message);
+
+        // r in the range [1,n-1]
+        if( r.compareTo(ONE) < 0 || r.compareTo(n) >= 0 ) {
+            return false;
+        }
+
+        // s in the range [1,n-1]
+        if( s.compareTo(ONE) < 0 || s.compareTo(n) >= 0 ) {
+            return false;
+        }
+
+        BigInteger c = s.modInverse(n);
+
+        BigInteger u1 = e.multiply(c).mod(n);
+        BigInteger u2 = r.multiply(c).mod(n);
+
+        ECPoint G = ec.getG();
+        ECPoint Q = ((ECPublicKeyParameters) key).getQ();
+
+        ECPoint point = ECAlgorithms.sumOfTwoMultiplies(G, u1, Q, u2).normalize();
+
+        // components must be bogus.
+        if( point.isInfinity() ) {
+            return false;
+        }
+
+        BigInteger v = point.getAffineXCoord().toBigInteger().mod(n);
+
+        return v.equals(r);
+    }
+
+
+    protected BigInteger calculateE(BigInteger n, byte[] message) {
+        int log2n = n.bitLength();
+        int messageBitLength = message.length * 8;
+
+        BigInteger e = new BigInteger(1, message);
+        if( log2n < messageBitLength ) {
+            e = e.shiftRight(messageBitLength - log2n);
+        }
+        return e;
+    }
+
+
+    protected ECMultiplier createBasePointMultiplier() {
+        return new FixedPointCombMultiplier();
+    }
+}
@@ -0,0 +1,151 @@
+package tlsv12.crypto.signers;
+
+import tlsv12.util.BigIntegers;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+/**
+ * A deterministic K calculator based on the algorithm in section 3.2 of RFC
+ * 6979. The nonce depends only on the private key and the message hash, so a
+ * weak random number generator cannot reveal the key.
+ */
+public class HMacDSAKCalculator {
+    private static final BigInteger ZERO = BigInteger.valueOf(0);
+
+    private final Mac hMac;
+
+    private final String algorithm;
+
+    private final byte[] K;
+
+    private final byte[] V;
+
+    private BigInteger n;
+
+
+    /**
+     * Base constructor.
+     *
+     * @param algorithm
+     *            the HMAC algorithm, such as "HmacSHA256", which should use
+     *            the same digest as the message hash
+     * @throws GeneralSecurityException
+     *             if the HMAC algorithm is not available
+     */
+    public HMacDSAKCalculator(String algorithm) throws GeneralSecurityException {
+        this.hMac = Mac.getInstance(algorithm);
+        this.algorithm = algorithm;
+        this.V = new byte[hMac.getMacLength()];
+        this.K = new byte[hMac.getMacLength()];
+    }
+
+
+    public void init(BigInteger n, BigInteger d, byte[] message) {
+        this.n = n;
+
+        Arrays.fill(V, (byte) 0x01);
+        Arrays.fill(K, (byte) 0);
+
+        int size = (n.bitLength() + 7) / 8;
+        byte[] x = BigIntegers.asUnsignedByteArray(size, d);
+
+        BigInteger mInt = bitsToInt(message);
+
+        if( mInt.compareTo(n) >= 0 ) {
+            mInt = mInt.subtract(n);
+        }
+
+        byte[] m = BigIntegers.asUnsignedByteArray(size, mInt);
+
+        setKey(K);
+
+        hMac.update(V);
+        hMac.update((byte) 0x00);
+        hMac.update(x);
+        hMac.update(m);
+
+        mac(K);
+        setKey(K);
+
+        hMac.update(V);
+        mac(V);
+
+        hMac.update(V);
+        hMac.update((byte) 0x01);
+        hMac.update(x);
+        hMac.update(m);
+
+        mac(K);
+        setKey(K);
+
+        hMac.update(V);
+        mac(V);
+    }
+
+
+    public BigInteger nextK() {
+        byte[] t = new byte[((n.bitLength() + 7) / 8)];
+
+        for(;;) {
+            int tOff = 0;
+
+            while( tOff < t.length ) {
+                hMac.update(V);
+                mac(V);
+
+                int len = Math.min(t.length - tOff, V.length);
+                System.arraycopy(V, 0, t, tOff, len);
+                tOff += len;
+            }
+
+            BigInteger k = bitsToInt(t);
+
+            if( k.compareTo(ZERO) > 0 && k.compareTo(n) < 0 ) {
+                return k;
+            }
+
+            hMac.update(V);
+            hMac.update((byte) 0x00);
+
+            mac(K);
+            setKey(K);
+
+            hMac.update(V);
+            mac(V);
+        }
+    }
+
+
+    private void setKey(byte[] key) {
+        try {
+            hMac.init(new SecretKeySpec(key, algorithm));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot key " + algorithm, e);
+        }
+    }
+
+
+    private void mac(byte[] out) {
+        try {
+            hMac.doFinal(out, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot compute " + algorithm, e);
+        }
+    }
+
+
+    private BigInteger bitsToInt(byte[] t) {
+        BigInteger v = new BigInteger(1, t);
+
+        if( t.length * 8 > n.bitLength() ) {
+            v = v.shiftRight(t.length * 8 - n.bitLength());
+        }
+
+        return v;
+    }
+}
@@ -41,10 +41,31 @@ public class EC5Util {
 
 
     public static ECCurve convertCurve(EllipticCurve ec) {
+        ECCurve named = ECNamedCurveRegistry.getCurve(ec);
+        if( named != null ) {
+            return named;
+        }
+        return createCurve(ec);
+    }
+
+
+    /**
+     * Create a new curve instance, bypassing the named curve registry.
+     *
+     * @param ec
+     *            the JCA curve
+     * @return a new curve
+     */
+    static ECCurve createCurve(EllipticCurve ec) {
         ECField field = ec.getField();
         BigInteger a = ec.getA();
         BigInteger b = ec.getB();
 
+        ECCurve custom = ECUtils.getCustomCurve(ec);
+        if( custom != null ) {
+            return custom;
+        }
+
         if( field instanceof ECFieldFp ) {
             ECCurve.Fp curve = new ECCurve.Fp(((ECFieldFp) field).getP(), a, b);
             return curve;
@@ -59,6 +80,11 @@ public class EC5Util {
 
     public static tlsv12.ec.ECParameterSpec convertSpec(
             java.security.spec.ECParameterSpec ecSpec) {
+        tlsv12.ec.ECParameterSpec named = ECNamedCurveRegistry.getParameterSpec(ecSpec);
+        if( named != null ) {
+            return named;
+        }
+
         ECCurve curve = convertCurve(ecSpec.getCurve());
 
         return new tlsv12.ec.ECParameterSpec(curve, convertPoint(curve,
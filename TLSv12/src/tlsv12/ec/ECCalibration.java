@@ -0,0 +1,483 @@
+package tlsv12.ec;
+
+import tlsv12.math.ec.ECCurve;
+import tlsv12.math.ec.ECMultiplier;
+import tlsv12.math.ec.ECPoint;
+import tlsv12.math.ec.FixedPointCombMultiplier;
+import tlsv12.math.ec.FixedPointUtil;
+import tlsv12.math.ec.MontgomeryLadderMultiplier;
+import tlsv12.math.ec.WNafL2RMultiplier;
+import tlsv12.math.ec.WTauNafMultiplier;
+import tlsv12.math.ec.endo.GLVEndomorphism;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Per-curve choice of the coordinate system, the multiplier for arbitrary
+ * points and the comb width for the generator, made by timing the candidates
+ * on this machine. The best choice depends on the processor, so no fixed
+ * choice suits every machine.
+ * <p>
+ * Calibration is off unless the system property
+ * <code>tlsv12.ecCalibrate</code> is <code>true</code>, in which case the
+ * enabled curves are timed when the first SSL context is initialized. In a
+ * cold JVM that takes around a second per curve, and more for the largest
+ * binary curves. The property
+ * <code>tlsv12.ecProfile</code> names a file of stored choices: curves it
+ * lists are not timed, and the choices for curves which were timed are
+ * written back to it, so later starts need not time them again.
+ * <p>
+ * A choice applies to a curve when the {@link ECNamedCurveRegistry} first
+ * creates it, by {@link ECCurve#configure()}. A curve the registry has already
+ * created is left alone, as its points may be in use.
+ */
+public class ECCalibration {
+    /** The coordinate systems which may be chosen, in order of preference */
+    private static final int[] COORDS = new int[] {
+            ECCurve.COORD_JACOBIAN_MODIFIED, ECCurve.COORD_JACOBIAN,
+            ECCurve.COORD_LAMBDA_PROJECTIVE, ECCurve.COORD_HOMOGENEOUS };
+
+    /** The names of the coordinate systems, by their constants */
+    private static final String[] COORD_NAMES = new String[] { "affine",
+            "homogeneous", "jacobian", "jacobian-chudnovsky",
+            "jacobian-modified", "lambda-affine", "lambda-projective" };
+
+    // the number of multiplications timed in each round
+    private static final int SAMPLES = 3;
+
+    // the number of timed rounds, of which the fastest counts
+    private static final int ROUNDS = 5;
+
+    // how much faster, in percent, a candidate must be to be chosen
+    private static final int MARGIN = 3;
+
+    /** The choices made or loaded, by curve OID */
+    private static final Map<String, Profile> profiles = new ConcurrentHashMap<String, Profile>();
+
+    private static final AtomicBoolean initialized = new AtomicBoolean();
+
+
+    private ECCalibration() {
+        // no instantiation of this class
+    }
+
+
+    /**
+     * The choices for one curve.
+     */
+    public static final class Profile {
+        private final int coord;
+
+        // "wnaf", "wnaf-<width>", "glv", "wtnaf" or "ladder"
+        private final String multiplier;
+
+        // zero to leave the comb width alone
+        private final int combWidth;
+
+
+        Profile(int coord, String multiplier, int combWidth) {
+            this.coord = coord;
+            this.multiplier = multiplier;
+            this.combWidth = combWidth;
+        }
+
+
+        /**
+         * Create an instance of a curve with these choices.
+         *
+         * @param curve
+         *            the curve
+         * @return the configured curve, or the curve itself if it does not
+         *         support the choices
+         */
+        public ECCurve configure(ECCurve curve) {
+            try {
+                return curve.configure().setCoordinateSystem(coord).setMultiplier(
+                        createMultiplier(curve, multiplier)).create();
+            } catch (IllegalArgumentException e) {
+                return curve;
+            } catch (IllegalStateException e) {
+                return curve;
+            }
+        }
+
+
+        /**
+         * Compute the comb table of a curve's generator at the chosen width.
+         *
+         * @param g
+         *            the generator
+         */
+        public void precompute(ECPoint g) {
+            int size = FixedPointUtil.getCombSize(g.getCurve());
+            if( combWidth > 0 && !FixedPointCombMultiplier.isWidthConfigured(size) ) {
+                FixedPointUtil.precompute(g, combWidth);
+            }
+        }
+
+
+        public String toString() {
+            return COORD_NAMES[coord] + "," + multiplier + "," + combWidth;
+        }
+
+
+        static Profile parse(String s) {
+            String[] parts = s.trim().split(",");
+            if( parts.length != 3 ) {
+                return null;
+            }
+            for(int coord = 0;coord < COORD_NAMES.length;++coord) {
+                if( COORD_NAMES[coord].equals(parts[0].trim()) ) {
+                    try {
+                        return new Profile(coord, parts[1].trim(),
+                                Integer.parseInt(parts[2].trim()));
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+
+    /**
+     * Get the choices for a curve.
+     *
+     * @param oid
+     *            the curve's OID
+     * @return the choices, or null if the curve has none
+     */
+    public static Profile getProfile(String oid) {
+        return profiles.get(oid);
+    }
+
+
+    /**
+     * Load the stored choices and calibrate the curves which have none, as the
+     * system properties ask. Only the first call does anything.
+     *
+     * @param oids
+     *            the OIDs of the enabled curves
+     * @return the number of curves timed
+     */
+    public static int init(Collection<String> oids) {
+        if( !initialized.compareAndSet(false, true) ) {
+            return 0;
+        }
+
+        String[] props = java.security.AccessController.doPrivileged(new java.security.PrivilegedAction<String[]>() {
+            public String[] run() {
+                return new String[] { System.getProperty("tlsv12.ecCalibrate"),
+                        System.getProperty("tlsv12.ecProfile") };
+            }
+        });
+        final String file = props[1];
+        if( file != null ) {
+            java.security.AccessController.doPrivileged(new java.security.PrivilegedAction<Void>() {
+                public Void run() {
+                    load(file);
+                    return null;
+                }
+            });
+        }
+        if( !"true".equalsIgnoreCase(props[0]) ) {
+            return 0;
+        }
+
+        int timed = 0;
+        for(String oid:oids) {
+            if( profiles.containsKey(oid) || ECNamedCurveRegistry.isCreated(oid) ) {
+                continue;
+            }
+            Profile p = calibrate(oid);
+            if( p != null ) {
+                profiles.put(oid, p);
+                ++timed;
+            }
+        }
+
+        if( file != null && timed > 0 ) {
+            java.security.AccessController.doPrivileged(new java.security.PrivilegedAction<Void>() {
+                public Void run() {
+                    store(file);
+                    return null;
+                }
+            });
+        }
+        return timed;
+    }
+
+
+    /**
+     * Time the candidates for a curve. The coordinate system is chosen first,
+     * with the curve's default multiplier, then the multiplier and the comb
+     * width in that system, each by {@link #fastest(List)}.
+     *
+     * @param oid
+     *            the curve's OID
+     * @return the fastest choices, or null if the curve is not known
+     */
+    public static Profile calibrate(String oid) {
+        java.security.spec.ECParameterSpec params = ECUtils.getECParameterSpec(oid);
+        if( params == null ) {
+            return null;
+        }
+
+        // a fresh instance, so nothing is attached to the registry's points
+        ECCurve base = EC5Util.createCurve(params.getCurve());
+        BigInteger n = params.getOrder();
+        ECPoint g = EC5Util.convertPoint(base, params.getGenerator());
+
+        // a fixed workload, as the scalars need not be secret
+        Random random = new Random(n.longValue());
+        BigInteger[] scalars = new BigInteger[SAMPLES];
+        BigInteger[][] points = new BigInteger[SAMPLES][];
+        for(int i = 0;i < SAMPLES;++i) {
+            scalars[i] = new BigInteger(n.bitLength(), random).mod(n);
+            ECPoint p = g.multiply(new BigInteger(n.bitLength(), random).mod(n)).normalize();
+            points[i] = new BigInteger[] { p.getAffineXCoord().toBigInteger(),
+                    p.getAffineYCoord().toBigInteger() };
+        }
+
+        List<ECCurve> curves = new ArrayList<ECCurve>();
+        curves.add(base.configure().create());
+        for(int coord:COORDS) {
+            if( coord != base.getCoordinateSystem()
+                    && base.supportsCoordinateSystem(coord) ) {
+                curves.add(base.configure().setCoordinateSystem(coord).create());
+            }
+        }
+        List<Trial> trials = new ArrayList<Trial>();
+        for(ECCurve c:curves) {
+            trials.add(new MultiplyTrial(c, points, scalars));
+        }
+        ECCurve best = curves.get(fastest(trials));
+
+        List<String> names = getMultiplierNames(best);
+        trials.clear();
+        for(String name:names) {
+            ECCurve c = best.configure().setMultiplier(
+                    createMultiplier(best, name)).create();
+            trials.add(new MultiplyTrial(c, points, scalars));
+        }
+        String bestMultiplier = names.get(fastest(trials));
+
+        int bestWidth = 0;
+        int size = FixedPointUtil.getCombSize(best);
+        if( !FixedPointCombMultiplier.isWidthConfigured(size) ) {
+            int width = FixedPointCombMultiplier.getDefaultWidth(size);
+            int[] widths = new int[] { width, width - 1, width + 1 };
+            trials.clear();
+            for(int w:widths) {
+                trials.add(new CombTrial(best, g, w, scalars));
+            }
+            bestWidth = widths[fastest(trials)];
+        }
+
+        return new Profile(best.getCoordinateSystem(), bestMultiplier,
+                bestWidth);
+    }
+
+
+    /**
+     * Get the names of the candidate multipliers for a curve, starting with
+     * the one it uses by default.
+     */
+    private static List<String> getMultiplierNames(ECCurve c) {
+        List<String> names = new ArrayList<String>();
+        if( c.getEndomorphism() instanceof GLVEndomorphism && c.getOrder() != null ) {
+            names.add("glv");
+        }
+        if( c instanceof ECCurve.F2m && ((ECCurve.F2m) c).isKoblitz() ) {
+            names.add("wtnaf");
+        }
+        names.add("wnaf");
+        for(int width = 3;width <= 6;++width) {
+            names.add("wnaf-" + width);
+        }
+        names.add("ladder");
+        return names;
+    }
+
+
+    static ECMultiplier createMultiplier(ECCurve c, String name) {
+        if( name.equals("wnaf") ) {
+            return new WNafL2RMultiplier();
+        }
+        if( name.startsWith("wnaf-") ) {
+            return new WNafL2RMultiplier(Integer.parseInt(name.substring(5)));
+        }
+        if( name.equals("glv") && c.getEndomorphism() instanceof GLVEndomorphism ) {
+            // the default of a curve with the endomorphism
+            return null;
+        }
+        if( name.equals("wtnaf") && c instanceof ECCurve.F2m
+                && ((ECCurve.F2m) c).isKoblitz() ) {
+            return new WTauNafMultiplier();
+        }
+        if( name.equals("ladder") ) {
+            return new MontgomeryLadderMultiplier();
+        }
+        throw new IllegalArgumentException("Unknown multiplier " + name);
+    }
+
+
+    /**
+     * A candidate to time.
+     */
+    private static abstract class Trial {
+        abstract void run();
+    }
+
+
+    /**
+     * Multiplications of arbitrary points. Each is of a new instance of the
+     * point, so no pre-computation carries over between them.
+     */
+    private static final class MultiplyTrial extends Trial {
+        private final ECCurve c;
+
+        private final BigInteger[][] points;
+
+        private final BigInteger[] scalars;
+
+
+        MultiplyTrial(ECCurve c, BigInteger[][] points, BigInteger[] scalars) {
+            this.c = c;
+            this.points = points;
+            this.scalars = scalars;
+        }
+
+
+        void run() {
+            for(int i = 0;i < scalars.length;++i) {
+                ECPoint p = c.createPoint(points[i][0], points[i][1]);
+                p.multiply(scalars[i]).normalize();
+            }
+        }
+    }
+
+
+    /**
+     * Multiplications of the generator with a comb of one width, which is
+     * computed before the timing starts.
+     */
+    private static final class CombTrial extends Trial {
+        private final ECPoint p;
+
+        private final BigInteger[] scalars;
+
+        private final ECMultiplier comb = new FixedPointCombMultiplier();
+
+
+        CombTrial(ECCurve c, ECPoint g, int width, BigInteger[] scalars) {
+            ECPoint q = g.normalize();
+            this.p = c.createPoint(q.getAffineXCoord().toBigInteger(),
+                    q.getAffineYCoord().toBigInteger());
+            this.scalars = scalars;
+            FixedPointUtil.precompute(p, width);
+        }
+
+
+        void run() {
+            for(int i = 0;i < scalars.length;++i) {
+                comb.multiply(p, scalars[i]).normalize();
+            }
+        }
+    }
+
+
+    /**
+     * Find the fastest of some candidates. The rounds of the candidates are
+     * interleaved, after one round of each which is not counted, so that the
+     * compiler's warming up and other drift fall on all of them alike. The
+     * first candidate is the default, and a later one must beat the best so
+     * far by {@value #MARGIN} percent to replace it.
+     *
+     * @return the index of the fastest
+     */
+    private static int fastest(List<Trial> trials) {
+        long[] times = new long[trials.size()];
+        java.util.Arrays.fill(times, Long.MAX_VALUE);
+        for(int round = -1;round < ROUNDS;++round) {
+            for(int i = 0;i < times.length;++i) {
+                long start = System.nanoTime();
+                trials.get(i).run();
+                long t = System.nanoTime() - start;
+                if( round >= 0 && t < times[i] ) {
+                    times[i] = t;
+                }
+            }
+        }
+
+        int best = 0;
+        for(int i = 1;i < times.length;++i) {
+            if( times[i] * 100 < times[best] * (100 - MARGIN) ) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+
+    private static void load(String file) {
+        Properties props = new Properties();
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            props.load(in);
+        } catch (IOException e) {
+            // no stored choices yet
+            return;
+        } finally {
+            if( in != null ) {
+                try {
+                    in.close();
+                } catch (IOException e) {}
+            }
+        }
+
+        for(String oid:props.stringPropertyNames()) {
+            Profile p = Profile.parse(props.getProperty(oid));
+            if( p != null ) {
+                profiles.put(oid, p);
+            }
+        }
+    }
+
+
+    private static void store(String file) {
+        Properties props = new Properties();
+        for(Map.Entry<String, Profile> e:profiles.entrySet()) {
+            props.setProperty(e.getKey(), e.getValue().toString());
+        }
+
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(file);
+            props.store(out, "EC calibration: coordinates,multiplier,comb width");
+        } catch (IOException e) {
+            // the choices still apply to this JVM
+        } finally {
+            if( out != null ) {
+                try {
+                    out.close();
+                } catch (IOException e) {}
+            }
+        }
+    }
+}
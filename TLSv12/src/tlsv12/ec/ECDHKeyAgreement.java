@@ -20,6 +20,19 @@ public class ECDHKeyAgreement extends KeyAgreementSpi {
     }
 
 
+    /**
+     * Supply the peer's key, which is likely to be seen again, such as the
+     * static ECDH key of a certificate. Its point is taken from the
+     * {@link ECPointCache}.
+     *
+     * @param peerPublicKey
+     *            the peer's key
+     */
+    public void doPhaseWithKnownKey(ECPublicKey peerPublicKey) throws GeneralSecurityException {
+        engineDoPhase(peerPublicKey, true, true);
+    }
+
+
     public SecretKey generateSecret(String string) throws NoSuchAlgorithmException {
         return engineGenerateSecret(string);
     }
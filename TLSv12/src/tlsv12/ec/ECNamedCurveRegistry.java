@@ -0,0 +1,107 @@
+package tlsv12.ec;
+
+import tlsv12.math.ec.ECCurve;
+import tlsv12.math.ec.ECPoint;
+
+import java.math.BigInteger;
+import java.security.spec.EllipticCurve;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The canonical curve and generator for each named curve. Pre-computations
+ * such as the fixed-point comb table are attached to the generator point, so
+ * every key pair generation and key agreement on a named curve must use the
+ * same point instance for the table to be computed only once per JVM.
+ */
+public class ECNamedCurveRegistry {
+
+    /** Canonical domain parameters by named curve OID */
+    private static final Map<String, ECParameterSpec> domains = new HashMap<String, ECParameterSpec>();
+
+
+    private ECNamedCurveRegistry() {
+        // no instantiation of this class
+    }
+
+
+    /**
+     * Get the canonical parameters of a named curve.
+     *
+     * @param oid
+     *            the named curve's OID
+     * @return the parameters, or null if the curve is not known
+     */
+    public static ECParameterSpec getParameterSpec(String oid) {
+        if( oid == null ) {
+            return null;
+        }
+
+        synchronized (domains) {
+            ECParameterSpec spec = domains.get(oid);
+            if( spec == null ) {
+                java.security.spec.ECParameterSpec params = ECUtils.getECParameterSpec(oid);
+                if( params == null ) {
+                    return null;
+                }
+
+                ECCurve curve = EC5Util.createCurve(params.getCurve());
+                ECCalibration.Profile profile = ECCalibration.getProfile(oid);
+                if( profile != null ) {
+                    curve = profile.configure(curve);
+                }
+                ECPoint g = EC5Util.convertPoint(curve, params.getGenerator());
+                if( profile != null ) {
+                    profile.precompute(g);
+                }
+                spec = new ECParameterSpec(curve, g, params.getOrder(),
+                        BigInteger.valueOf(params.getCofactor()),
+                        params.getCurve().getSeed());
+                domains.put(oid, spec);
+            }
+            return spec;
+        }
+    }
+
+
+    /**
+     * Has the canonical curve of a named curve been created? Its points may
+     * then be in use.
+     *
+     * @param oid
+     *            the named curve's OID
+     * @return true if the curve has been created
+     */
+    static boolean isCreated(String oid) {
+        synchronized (domains) {
+            return domains.containsKey(oid);
+        }
+    }
+
+
+    /**
+     * Get the canonical parameters for JCA parameters, if they describe a
+     * named curve.
+     *
+     * @param params
+     *            the JCA parameters
+     * @return the parameters, or null if they are not a named curve
+     */
+    public static ECParameterSpec getParameterSpec(
+            java.security.spec.ECParameterSpec params) {
+        return getParameterSpec(ECUtils.getNamedCurveOid(params));
+    }
+
+
+    /**
+     * Get the canonical curve for a JCA curve, if a named curve uses it.
+     *
+     * @param curve
+     *            the JCA curve
+     * @return the curve, or null if no named curve uses it
+     */
+    public static ECCurve getCurve(EllipticCurve curve) {
+        ECParameterSpec spec = getParameterSpec(ECUtils.getNamedCurveOid(curve));
+        return (spec != null) ? spec.getCurve() : null;
+    }
+}
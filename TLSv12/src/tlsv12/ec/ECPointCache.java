@@ -0,0 +1,222 @@
+package tlsv12.ec;
+
+import tlsv12.math.ec.ECCurve;
+import tlsv12.math.ec.ECPoint;
+import tlsv12.math.ec.WNafUtil;
+
+import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, least recently used cache of peer public key points, such as
+ * static ECDH server keys and ECDSA certificate keys. Each key seen gets one
+ * canonical point instance, so the wNAF pre-computation attached to it by a
+ * multiplication is kept for the next handshake using the same key.
+ * <p>
+ * A point's table is built when it is seen for the second time, wide enough
+ * for any scalar below the curve's order. Building it in full before the
+ * point is shared means later multiplications only read it. Points seen once
+ * cost no pre-computation. Ephemeral keys are never looked up, so they cannot
+ * push the static keys out.
+ * <p>
+ * The number of points held is set by the system property
+ * <code>tlsv12.ecPointCacheSize</code>, and a size of zero turns caching off.
+ */
+public final class ECPointCache {
+
+    /**
+     * A point's curve and co-ordinates. Curves are compared by identity, as a
+     * cached point is only useful on the curve instance it was created on.
+     */
+    private static class Key {
+        final ECCurve curve;
+
+        final BigInteger x;
+
+        final BigInteger y;
+
+
+        Key(ECCurve curve, java.security.spec.ECPoint w) {
+            this.curve = curve;
+            this.x = w.getAffineX();
+            this.y = w.getAffineY();
+        }
+
+
+        public boolean equals(Object o) {
+            if( !(o instanceof Key) ) {
+                return false;
+            }
+            Key k = (Key) o;
+            return curve == k.curve && x.equals(k.x) && y.equals(k.y);
+        }
+
+
+        public int hashCode() {
+            return System.identityHashCode(curve) ^ x.hashCode()
+                    ^ (31 * y.hashCode());
+        }
+    }
+
+
+    /**
+     * A cached point.
+     */
+    private static class CachedPoint {
+        final ECPoint point;
+
+        volatile boolean prepared = false;
+
+
+        CachedPoint(ECPoint point) {
+            this.point = point;
+        }
+    }
+
+    // the most points held
+    private static final int CACHE_SIZE = getDefaultCacheSize();
+
+    // the points, least recently used first
+    private static final Map<Key, CachedPoint> cache = new LinkedHashMap<Key, CachedPoint>(
+            16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+
+        protected boolean removeEldestEntry(Map.Entry<Key, CachedPoint> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private static final AtomicLong hits = new AtomicLong();
+
+    private static final AtomicLong misses = new AtomicLong();
+
+
+    private ECPointCache() {
+        // no instantiation of this class
+    }
+
+
+    private static int getDefaultCacheSize() {
+        int size = 64;
+        try {
+            String s = java.security.AccessController.doPrivileged(new java.security.PrivilegedAction<String>() {
+                public String run() {
+                    return System.getProperty("tlsv12.ecPointCacheSize");
+                }
+            });
+            if( s != null ) {
+                size = Integer.parseInt(s.trim());
+            }
+        } catch (Exception e) {}
+
+        return (size > 0) ? size : 0;
+    }
+
+
+    /**
+     * Get the canonical point for a peer's public key.
+     *
+     * @param curve
+     *            the curve of the key
+     * @param w
+     *            the key's point
+     * @return the point on the curve
+     */
+    public static ECPoint getPoint(ECCurve curve, java.security.spec.ECPoint w) {
+        if( CACHE_SIZE == 0 ) {
+            return EC5Util.convertPoint(curve, w);
+        }
+
+        Key key = new Key(curve, w);
+        CachedPoint entry;
+        synchronized (cache) {
+            entry = cache.get(key);
+        }
+
+        if( entry == null ) {
+            misses.incrementAndGet();
+            entry = new CachedPoint(EC5Util.convertPoint(curve, w));
+            synchronized (cache) {
+                CachedPoint other = cache.get(key);
+                if( other != null ) {
+                    return other.point;
+                }
+                cache.put(key, entry);
+            }
+            return entry.point;
+        }
+
+        hits.incrementAndGet();
+        if( !entry.prepared ) {
+            prepare(entry);
+        }
+        return entry.point;
+    }
+
+
+    /**
+     * Build the point's wNAF table, wide enough for any scalar smaller than
+     * the curve's order.
+     */
+    private static void prepare(CachedPoint entry) {
+        synchronized (entry) {
+            if( entry.prepared ) {
+                return;
+            }
+
+            ECPoint p = entry.point;
+            BigInteger n = p.getCurve().getOrder();
+            int bits = (n != null) ? n.bitLength() : p.getCurve().getFieldSize();
+            int width = Math.max(2, Math.min(16, WNafUtil.getWindowSize(bits)));
+            WNafUtil.precompute(p, width, true);
+            entry.prepared = true;
+        }
+    }
+
+
+    /**
+     * Get the number of points found in the cache.
+     *
+     * @return the number of hits
+     */
+    public static long getHits() {
+        return hits.get();
+    }
+
+
+    /**
+     * Get the number of points not found in the cache.
+     *
+     * @return the number of misses
+     */
+    public static long getMisses() {
+        return misses.get();
+    }
+
+
+    /**
+     * Get the proportion of look-ups found in the cache.
+     *
+     * @return the hit rate, between zero and one
+     */
+    public static double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return (total == 0) ? 0 : (double) h / total;
+    }
+
+
+    /**
+     * Get the number of points held.
+     *
+     * @return the number of points
+     */
+    public static int getSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+}
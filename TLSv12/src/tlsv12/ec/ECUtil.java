@@ -3,6 +3,7 @@ package tlsv12.ec;
 import tlsv12.crypto.params.ECDomainParameters;
 import tlsv12.crypto.params.ECPrivateKeyParameters;
 import tlsv12.crypto.params.ECPublicKeyParameters;
+import tlsv12.math.ec.ECPoint;
 
 import java.math.BigInteger;
 
@@ -67,10 +68,29 @@ public class ECUtil {
 
     public static ECPublicKeyParameters generatePublicKeyParameter(
             java.security.interfaces.ECPublicKey pubKey) {
+        return generatePublicKeyParameter(pubKey, false);
+    }
+
+
+    /**
+     * Convert a public key, optionally taking its point from the
+     * {@link ECPointCache}. The cache should be used for keys which are likely
+     * to be seen again, such as certificate keys, so that the point's
+     * pre-computation is kept between uses.
+     *
+     * @param pubKey
+     *            the public key
+     * @param cached
+     *            true to use the cache
+     * @return the key parameters
+     */
+    public static ECPublicKeyParameters generatePublicKeyParameter(
+            java.security.interfaces.ECPublicKey pubKey, boolean cached) {
 
         ECParameterSpec s = EC5Util.convertSpec(pubKey.getParams());
-        return new ECPublicKeyParameters(EC5Util.convertPoint(
-                pubKey.getParams(), pubKey.getW()), new ECDomainParameters(
+        ECPoint q = cached ? ECPointCache.getPoint(s.getCurve(), pubKey.getW())
+                : EC5Util.convertPoint(s.getCurve(), pubKey.getW());
+        return new ECPublicKeyParameters(q, new ECDomainParameters(
                 s.getCurve(), s.getG(), s.getN(), s.getH(), s.getSeed()));
     }
 
@@ -24,6 +24,14 @@
 
 package tlsv12.ec;
 
+import tlsv12.math.ec.ECCurve;
+import tlsv12.math.ec.custom.sec.SecP256K1Curve;
+import tlsv12.math.ec.custom.sec.SecP256R1Curve;
+import tlsv12.math.ec.custom.sec.SecP384R1Curve;
+import tlsv12.math.ec.custom.sec.SecP521R1Curve;
+import tlsv12.math.ec.custom.sec.SecTCurve;
+import tlsv12.math.ec.custom.sec.SecTField;
+
 import java.io.IOException;
 import java.math.BigInteger;
 import java.security.spec.*;
@@ -42,6 +50,8 @@ public class ECUtils {
 
     private static Map<String, java.security.spec.ECParameterSpec> oidToEC = new HashMap<String, java.security.spec.ECParameterSpec>();
 
+    private static Map<EllipticCurve, String> curveToOID = new HashMap<EllipticCurve, String>();
+
     static {
         NamedCurve[] curves = new NamedCurve[] {
                 new NamedCurve("secp112r1", "1.3.132.0.6", 1,
@@ -513,6 +523,9 @@ public class ECUtils {
             java.security.spec.ECParameterSpec spec = c.getSpec();
             ecToOID.put(spec, oid);
             oidToEC.put(oid, c.getSpec());
+            if( !curveToOID.containsKey(spec.getCurve()) ) {
+                curveToOID.put(spec.getCurve(), oid);
+            }
         }
     }
 
@@ -528,15 +541,101 @@ public class ECUtils {
     }
 
 
+    /**
+     * Get the OID of the named curve that the parameters describe. Parameters
+     * which are not one of the instances held by this class are matched by
+     * value, so keys from other providers are recognised too.
+     *
+     * @param params
+     *            the parameters
+     * @return the OID, or null if the parameters are not a named curve
+     */
     public static String getNamedCurveOid(
             java.security.spec.ECParameterSpec params) {
-        return ecToOID.get(params);
+        String oid = ecToOID.get(params);
+        if( oid != null || params == null ) {
+            return oid;
+        }
+
+        oid = curveToOID.get(params.getCurve());
+        if( oid == null ) {
+            return null;
+        }
+        java.security.spec.ECParameterSpec named = oidToEC.get(oid);
+        if( named.getGenerator().equals(params.getGenerator())
+                && named.getOrder().equals(params.getOrder())
+                && named.getCofactor() == params.getCofactor() ) {
+            return oid;
+        }
+        return null;
+    }
+
+
+    /**
+     * Get the OID of a named curve which is defined on the given curve
+     * equation.
+     *
+     * @param curve
+     *            the curve
+     * @return the OID, or null if the curve is not used by a named curve
+     */
+    public static String getNamedCurveOid(EllipticCurve curve) {
+        return curveToOID.get(curve);
+    }
+
+
+    /**
+     * Get an implementation of the given curve with field arithmetic
+     * specialised for its prime or binary field, if one is available.
+     *
+     * @param curve
+     *            the curve
+     * @return the specialised curve, or null if there is none
+     */
+    public static ECCurve getCustomCurve(EllipticCurve curve) {
+        ECField field = curve.getField();
+        if( field instanceof ECFieldF2m ) {
+            ECFieldF2m fieldF2m = (ECFieldF2m) field;
+            int ks[] = ECUtil.convertMidTerms(fieldF2m.getMidTermsOfReductionPolynomial());
+            SecTField f2m = SecTField.get(fieldF2m.getM(), ks[0], ks[1], ks[2]);
+
+            // the point arithmetic is generic, so any co-efficients will do
+            return (f2m == null) ? null : new SecTCurve(f2m, curve.getA(),
+                    curve.getB());
+        }
+        if( !(field instanceof ECFieldFp) ) {
+            return null;
+        }
+
+        BigInteger p = ((ECFieldFp) field).getP();
+        ECCurve custom;
+        if( SecP256R1Curve.q.equals(p) ) {
+            custom = new SecP256R1Curve();
+        } else if( SecP384R1Curve.q.equals(p) ) {
+            custom = new SecP384R1Curve();
+        } else if( SecP521R1Curve.q.equals(p) ) {
+            custom = new SecP521R1Curve();
+        } else if( SecP256K1Curve.q.equals(p) ) {
+            custom = new SecP256K1Curve();
+        } else {
+            return null;
+        }
+
+        // the prime alone does not identify the curve
+        if( custom.getA().toBigInteger().equals(curve.getA())
+                && custom.getB().toBigInteger().equals(curve.getB()) ) {
+            return custom;
+        }
+        return null;
     }
 
 
     public static ECPoint decodePoint(byte[] data, EllipticCurve curve) throws IOException {
+        if( data.length > 0 && (data[0] == 2 || data[0] == 3) ) {
+            return decodeCompressedPoint(data, curve);
+        }
         if( (data.length == 0) || (data[0] != 4) ) {
-            throw new IOException("Only uncompressed point format supported");
+            throw new IOException("Unsupported point format");
         }
         int n = (curve.getField().getFieldSize() + 7) >> 3;
         if( data.length != (n * 2) + 1 ) {
@@ -550,6 +649,23 @@ public class ECUtils {
     }
 
 
+    /**
+     * Decode a compressed point, recovering its y coordinate from the curve
+     * equation.
+     */
+    private static ECPoint decodeCompressedPoint(byte[] data,
+            EllipticCurve curve) throws IOException {
+        tlsv12.math.ec.ECPoint p;
+        try {
+            p = EC5Util.convertCurve(curve).decodePoint(data).normalize();
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid compressed point", e);
+        }
+        return new ECPoint(p.getAffineXCoord().toBigInteger(),
+                p.getAffineYCoord().toBigInteger());
+    }
+
+
     private static byte[] trimZeroes(byte[] b) {
         int i = 0;
         while( (i < b.length - 1) && (b[i] == 0) ) {
@@ -580,6 +696,28 @@ public class ECUtils {
         return b;
     }
 
+
+    /**
+     * Encode a point in the uncompressed form, or the compressed form of the
+     * x coordinate and one bit of y, which is about half the size.
+     *
+     * @param point
+     *            the point
+     * @param curve
+     *            the curve it is on
+     * @param compressed
+     *            whether to compress it
+     * @return the encoded point
+     */
+    public static byte[] encodePoint(ECPoint point, EllipticCurve curve,
+            boolean compressed) {
+        if( !compressed ) {
+            return encodePoint(point, curve);
+        }
+        ECCurve c = EC5Util.convertCurve(curve);
+        return EC5Util.convertPoint(c, point).getEncoded(true);
+    }
+
 }
 
 
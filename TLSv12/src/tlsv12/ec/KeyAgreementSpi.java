@@ -37,6 +37,12 @@ public class KeyAgreementSpi {
 
     protected Key engineDoPhase(java.security.interfaces.ECPublicKey key,
             boolean lastPhase) throws IllegalStateException {
+        return engineDoPhase(key, lastPhase, false);
+    }
+
+
+    protected Key engineDoPhase(java.security.interfaces.ECPublicKey key,
+            boolean lastPhase, boolean cachePoint) throws IllegalStateException {
         if( parameters == null ) {
             throw new IllegalStateException(kaAlgorithm + " not initialised.");
         }
@@ -46,7 +52,8 @@ public class KeyAgreementSpi {
                     + " can only be between two parties.");
         }
 
-        ECPublicKeyParameters pubKey = ECUtil.generatePublicKeyParameter(key);
+        ECPublicKeyParameters pubKey = ECUtil.generatePublicKeyParameter(key,
+                cachePoint);
 
         result = agreement.calculateAgreement(pubKey);
 
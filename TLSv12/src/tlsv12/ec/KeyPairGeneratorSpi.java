@@ -6,11 +6,8 @@ import tlsv12.crypto.params.ECDomainParameters;
 import tlsv12.crypto.params.ECKeyGenerationParameters;
 import tlsv12.crypto.params.ECPrivateKeyParameters;
 import tlsv12.crypto.params.ECPublicKeyParameters;
-import tlsv12.math.ec.ECCurve;
-import tlsv12.math.ec.ECPoint;
 import tlsv12.util.Integers;
 
-import java.math.BigInteger;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidParameterException;
 import java.security.KeyPair;
@@ -120,11 +117,11 @@ public abstract class KeyPairGeneratorSpi {
 
         protected ECKeyGenerationParameters createKeyGenParamsJCE(
                 java.security.spec.ECParameterSpec p, SecureRandom r) {
-            ECCurve curve = EC5Util.convertCurve(p.getCurve());
-            ECPoint g = EC5Util.convertPoint(curve, p.getGenerator());
-            BigInteger n = p.getOrder();
-            BigInteger h = BigInteger.valueOf(p.getCofactor());
-            ECDomainParameters dp = new ECDomainParameters(curve, g, n, h);
+            // named curves share one generator instance, and with it the
+            // fixed point pre-computation
+            tlsv12.ec.ECParameterSpec s = EC5Util.convertSpec(p);
+            ECDomainParameters dp = new ECDomainParameters(s.getCurve(),
+                    s.getG(), s.getN(), s.getH());
             return new ECKeyGenerationParameters(dp, r);
         }
     }
@@ -0,0 +1,191 @@
+package tlsv12.ec;
+
+import tlsv12.asn1.ASN1EncodableVector;
+import tlsv12.asn1.ASN1Integer;
+import tlsv12.asn1.ASN1Primitive;
+import tlsv12.asn1.ASN1Sequence;
+import tlsv12.asn1.DERSequence;
+import tlsv12.crypto.signers.ECDSASigner;
+import tlsv12.crypto.signers.HMacDSAKCalculator;
+import tlsv12.util.Arrays;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.InvalidParameterException;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.ProviderException;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.SignatureException;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+
+/**
+ * ECDSA signatures using the EC arithmetic of this library, with DER encoded
+ * signatures. Nonces are derived from the key and the message as in RFC 6979,
+ * so the random number generator given when signing is not used.
+ */
+public class SignatureSpi extends java.security.SignatureSpi {
+    private final MessageDigest digest;
+
+    private final ECDSASigner signer;
+
+
+    SignatureSpi(String digestAlgorithm, String macAlgorithm) {
+        try {
+            this.digest = MessageDigest.getInstance(digestAlgorithm);
+            this.signer = new ECDSASigner(new HMacDSAKCalculator(macAlgorithm));
+        } catch (GeneralSecurityException e) {
+            throw new ProviderException("ECDSA with " + digestAlgorithm
+                    + " is not available", e);
+        }
+    }
+
+
+    protected void engineInitVerify(PublicKey publicKey) throws InvalidKeyException {
+        if( !(publicKey instanceof ECPublicKey) ) {
+            throw new InvalidKeyException("Not an EC public key: "
+                    + publicKey.getClass().getName());
+        }
+
+        digest.reset();
+        // verification keys come from certificates, so are likely to be seen
+        // again
+        signer.init(false, ECUtil.generatePublicKeyParameter(
+                (ECPublicKey) publicKey, true));
+    }
+
+
+    protected void engineInitSign(PrivateKey privateKey) throws InvalidKeyException {
+        if( !(privateKey instanceof ECPrivateKey) ) {
+            throw new InvalidKeyException("Not an EC private key: "
+                    + privateKey.getClass().getName());
+        }
+
+        digest.reset();
+        signer.init(true,
+                ECUtil.generatePrivateKeyParameter((ECPrivateKey) privateKey));
+    }
+
+
+    protected void engineInitSign(PrivateKey privateKey, SecureRandom random)
+            throws InvalidKeyException {
+        // nonces are deterministic, so the random source is not needed
+        engineInitSign(privateKey);
+    }
+
+
+    protected void engineUpdate(byte b) throws SignatureException {
+        digest.update(b);
+    }
+
+
+    protected void engineUpdate(byte[] b, int off, int len) throws SignatureException {
+        digest.update(b, off, len);
+    }
+
+
+    protected byte[] engineSign() throws SignatureException {
+        byte[] hash = digest.digest();
+
+        try {
+            BigInteger[] sig = signer.generateSignature(hash);
+
+            return derEncode(sig[0], sig[1]);
+        } catch (Exception e) {
+            throw new SignatureException(e.toString());
+        }
+    }
+
+
+    protected boolean engineVerify(byte[] sigBytes) throws SignatureException {
+        byte[] hash = digest.digest();
+
+        BigInteger[] sig;
+        try {
+            sig = derDecode(sigBytes);
+        } catch (Exception e) {
+            throw new SignatureException("error decoding signature bytes.");
+        }
+
+        return signer.verifySignature(hash, sig[0], sig[1]);
+    }
+
+
+    @Deprecated
+    protected void engineSetParameter(String param, Object value) {
+        throw new InvalidParameterException("No parameters are supported");
+    }
+
+
+    @Deprecated
+    protected Object engineGetParameter(String param) {
+        throw new UnsupportedOperationException("engineGetParameter unsupported");
+    }
+
+
+    private static byte[] derEncode(BigInteger r, BigInteger s) throws IOException {
+        ASN1EncodableVector v = new ASN1EncodableVector();
+        v.add(new ASN1Integer(r));
+        v.add(new ASN1Integer(s));
+
+        return new DERSequence(v).getEncodedDER();
+    }
+
+
+    private static BigInteger[] derDecode(byte[] encoding) throws IOException {
+        ASN1Sequence s = (ASN1Sequence) ASN1Primitive.fromByteArray(encoding);
+        if( s.size() != 2 ) {
+            throw new IOException("malformed signature");
+        }
+
+        BigInteger[] sig = new BigInteger[] {
+                ((ASN1Integer) s.getObjectAt(0)).getValue(),
+                ((ASN1Integer) s.getObjectAt(1)).getValue() };
+
+        // only accept the DER encoding
+        if( !Arrays.areEqual(encoding, derEncode(sig[0], sig[1])) ) {
+            throw new IOException("malformed signature");
+        }
+
+        return sig;
+    }
+
+
+    static public class ecDSA extends SignatureSpi {
+        public ecDSA() {
+            super("SHA-1", "HmacSHA1");
+        }
+    }
+
+
+    static public class ecDSA224 extends SignatureSpi {
+        public ecDSA224() {
+            super("SHA-224", "HmacSHA224");
+        }
+    }
+
+
+    static public class ecDSA256 extends SignatureSpi {
+        public ecDSA256() {
+            super("SHA-256", "HmacSHA256");
+        }
+    }
+
+
+    static public class ecDSA384 extends SignatureSpi {
+        public ecDSA384() {
+            super("SHA-384", "HmacSHA384");
+        }
+    }
+
+
+    static public class ecDSA512 extends SignatureSpi {
+        public ecDSA512() {
+            super("SHA-512", "HmacSHA512");
+        }
+    }
+}
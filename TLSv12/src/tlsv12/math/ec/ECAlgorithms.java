@@ -1,5 +1,7 @@
 package tlsv12.math.ec;
 
+import tlsv12.math.ec.endo.ECEndomorphism;
+import tlsv12.math.ec.endo.GLVEndomorphism;
 import tlsv12.math.field.FiniteField;
 import tlsv12.math.field.PolynomialExtensionField;
 
@@ -19,6 +21,47 @@ public class ECAlgorithms {
     }
 
 
+    /**
+     * Compute <code>aP + bQ</code>, as used to verify a signature, with both
+     * multiplications sharing one run of doublings. On a curve with a GLV
+     * endomorphism each multiplier is split in two, which halves the
+     * doublings again.
+     *
+     * @param P
+     *            the first point
+     * @param a
+     *            the multiplier of the first point
+     * @param Q
+     *            the second point
+     * @param b
+     *            the multiplier of the second point
+     * @return the sum of the two products
+     */
+    public static ECPoint sumOfTwoMultiplies(ECPoint P, BigInteger a,
+            ECPoint Q, BigInteger b) {
+        ECCurve cp = P.getCurve();
+        Q = cp.importPoint(Q);
+
+        // Point multiplication for Koblitz curves (using WTNAF) beats Shamir's
+        // trick
+        if( cp instanceof ECCurve.F2m ) {
+            ECCurve.F2m f2mCurve = (ECCurve.F2m) cp;
+            if( f2mCurve.isKoblitz() ) {
+                return P.multiply(a).add(Q.multiply(b));
+            }
+        }
+
+        ECEndomorphism endomorphism = cp.getEndomorphism();
+        if( endomorphism instanceof GLVEndomorphism
+                && cp.getRawFpField() != null ) {
+            return implSumOfMultipliesGLV(P, a, Q, b,
+                    (GLVEndomorphism) endomorphism);
+        }
+
+        return implShamirsTrickWNaf(P, a, Q, b);
+    }
+
+
     public static void montgomeryTrick(ECFieldElement[] zs, int off, int len,
             ECFieldElement scale) {
         /*
@@ -105,8 +148,18 @@ public class ECAlgorithms {
         int widthQ = Math.max(2,
                 Math.min(16, WNafUtil.getWindowSize(l.bitLength())));
 
-        WNafPreCompInfo infoP = WNafUtil.precompute(P, widthP, true);
-        WNafPreCompInfo infoQ = WNafUtil.precompute(Q, widthQ, true);
+        MutableFpPoint R = MutableFpPoint.create(P.getCurve());
+
+        WNafPreCompInfo infoP = WNafUtil.precompute(P, widthP, R == null);
+        WNafPreCompInfo infoQ = WNafUtil.precompute(Q, widthQ, R == null);
+
+        byte[] wnafP = WNafUtil.generateWindowNaf(widthP, k);
+        byte[] wnafQ = WNafUtil.generateWindowNaf(widthQ, l);
+
+        if( R != null ) {
+            return implShamirsTrickWNaf(R, R.getTable(infoP), negK, wnafP,
+                    R.getTable(infoQ), negL, wnafQ);
+        }
 
         ECPoint[] preCompP = negK ? infoP.getPreCompNeg() : infoP.getPreComp();
         ECPoint[] preCompQ = negL ? infoQ.getPreCompNeg() : infoQ.getPreComp();
@@ -115,9 +168,6 @@ public class ECAlgorithms {
         ECPoint[] preCompNegQ = negL ? infoQ.getPreComp()
                 : infoQ.getPreCompNeg();
 
-        byte[] wnafP = WNafUtil.generateWindowNaf(widthP, k);
-        byte[] wnafQ = WNafUtil.generateWindowNaf(widthQ, l);
-
         return implShamirsTrickWNaf(preCompP, preCompNegP, wnafP, preCompQ,
                 preCompNegQ, wnafQ);
     }
@@ -137,10 +187,21 @@ public class ECAlgorithms {
                         WNafUtil.getWindowSize(Math.max(k.bitLength(),
                                 l.bitLength()))));
 
-        ECPoint Q = WNafUtil.mapPointWithPrecomp(P, width, true, pointMapQ);
+        MutableFpPoint R = MutableFpPoint.create(P.getCurve());
+
+        ECPoint Q = WNafUtil.mapPointWithPrecomp(P, width, R == null,
+                pointMapQ);
         WNafPreCompInfo infoP = WNafUtil.getWNafPreCompInfo(P);
         WNafPreCompInfo infoQ = WNafUtil.getWNafPreCompInfo(Q);
 
+        byte[] wnafP = WNafUtil.generateWindowNaf(width, k);
+        byte[] wnafQ = WNafUtil.generateWindowNaf(width, l);
+
+        if( R != null ) {
+            return implShamirsTrickWNaf(R, R.getTable(infoP), negK, wnafP,
+                    R.getTable(infoQ), negL, wnafQ);
+        }
+
         ECPoint[] preCompP = negK ? infoP.getPreCompNeg() : infoP.getPreComp();
         ECPoint[] preCompQ = negL ? infoQ.getPreCompNeg() : infoQ.getPreComp();
         ECPoint[] preCompNegP = negK ? infoP.getPreComp()
@@ -148,9 +209,6 @@ public class ECAlgorithms {
         ECPoint[] preCompNegQ = negL ? infoQ.getPreComp()
                 : infoQ.getPreCompNeg();
 
-        byte[] wnafP = WNafUtil.generateWindowNaf(width, k);
-        byte[] wnafQ = WNafUtil.generateWindowNaf(width, l);
-
         return implShamirsTrickWNaf(preCompP, preCompNegP, wnafP, preCompQ,
                 preCompNegQ, wnafQ);
     }
@@ -202,4 +260,102 @@ public class ECAlgorithms {
 
         return R;
     }
+
+
+    /**
+     * Compute <code>aP + bQ</code> as the sum of four products of about half
+     * the length, of <code>P</code>, <code>Q</code> and their images under the
+     * endomorphism. The curve must have word arithmetic.
+     */
+    static ECPoint implSumOfMultipliesGLV(ECPoint P, BigInteger a, ECPoint Q,
+            BigInteger b, GLVEndomorphism glvEndomorphism) {
+        ECCurve curve = P.getCurve();
+        BigInteger n = curve.getOrder();
+        BigInteger[] ab = glvEndomorphism.decomposeScalar(a.mod(n));
+        BigInteger[] cd = glvEndomorphism.decomposeScalar(b.mod(n));
+        BigInteger[] ks = new BigInteger[] { ab[0], ab[1], cd[0], cd[1] };
+
+        int bits = 0;
+        for(int i = 0;i < ks.length;++i) {
+            bits = Math.max(bits, ks[i].abs().bitLength());
+        }
+        int width = Math.max(2, Math.min(16, WNafUtil.getWindowSize(bits)));
+
+        ECPoint[] points = new ECPoint[] { P, null, Q, null };
+        ECPointMap pointMap = glvEndomorphism.getPointMap();
+        for(int i = 0;i < points.length;i += 2) {
+            if( glvEndomorphism.hasEfficientPointMap() ) {
+                points[i + 1] = WNafUtil.mapPointWithPrecomp(points[i], width,
+                        false, pointMap);
+            } else {
+                points[i + 1] = pointMap.map(points[i]);
+                WNafUtil.precompute(points[i + 1], width, false);
+            }
+        }
+
+        MutableFpPoint R = MutableFpPoint.create(curve);
+        MutableFpPoint.Table[] tables = new MutableFpPoint.Table[points.length];
+        boolean[] negs = new boolean[points.length];
+        byte[][] wnafs = new byte[points.length][];
+        for(int i = 0;i < points.length;++i) {
+            WNafPreCompInfo info = WNafUtil.precompute(points[i], width, false);
+            tables[i] = R.getTable(info);
+            negs[i] = ks[i].signum() < 0;
+            wnafs[i] = WNafUtil.generateWindowNaf(width, ks[i].abs());
+        }
+
+        return implSumOfMultiplies(R, tables, negs, wnafs);
+    }
+
+
+    /**
+     * Interleave any number of wNAF multiplications on a mutable point, as
+     * in {@link #implShamirsTrickWNaf(MutableFpPoint, MutableFpPoint.Table,
+     * boolean, byte[], MutableFpPoint.Table, boolean, byte[])}.
+     */
+    private static ECPoint implSumOfMultiplies(MutableFpPoint R,
+            MutableFpPoint.Table[] tables, boolean[] negs, byte[][] wnafs) {
+        int len = 0;
+        for(int j = 0;j < wnafs.length;++j) {
+            len = Math.max(len, wnafs[j].length);
+        }
+
+        for(int i = len - 1;i >= 0;--i) {
+            R.twice();
+            for(int j = 0;j < wnafs.length;++j) {
+                int wi = i < wnafs[j].length ? wnafs[j][i] : 0;
+                if( wi != 0 ) {
+                    R.add(tables[j], Math.abs(wi) >>> 1, (wi < 0) != negs[j]);
+                }
+            }
+        }
+
+        return R.toECPoint();
+    }
+
+
+    /**
+     * Shamir's trick on a mutable point. Negated multipliers are handled by
+     * adding the negations of the table entries.
+     */
+    private static ECPoint implShamirsTrickWNaf(MutableFpPoint R,
+            MutableFpPoint.Table tableP, boolean negP, byte[] wnafP,
+            MutableFpPoint.Table tableQ, boolean negQ, byte[] wnafQ) {
+        int len = Math.max(wnafP.length, wnafQ.length);
+
+        for(int i = len - 1;i >= 0;--i) {
+            int wiP = i < wnafP.length ? wnafP[i] : 0;
+            int wiQ = i < wnafQ.length ? wnafQ[i] : 0;
+
+            R.twice();
+            if( wiP != 0 ) {
+                R.add(tableP, Math.abs(wiP) >>> 1, (wiP < 0) != negP);
+            }
+            if( wiQ != 0 ) {
+                R.add(tableQ, Math.abs(wiQ) >>> 1, (wiQ < 0) != negQ);
+            }
+        }
+
+        return R.toECPoint();
+    }
 }
@@ -8,7 +8,8 @@ import tlsv12.math.field.PolynomialExtensionField;
 import tlsv12.util.Integers;
 
 import java.math.BigInteger;
-import java.util.Hashtable;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
 
 /**
@@ -39,7 +40,7 @@ public abstract class ECCurve {
 
     protected ECEndomorphism endomorphism = null;
 
-    protected ECMultiplier multiplier = null;
+    protected volatile ECMultiplier multiplier = null;
 
 
     protected ECCurve(FiniteField field) {
@@ -47,6 +48,75 @@ public abstract class ECCurve {
     }
 
 
+    /**
+     * The settings of a curve that may differ between instances of the same
+     * curve, for creating an instance with other settings by
+     * {@link ECCurve#configure()}.
+     */
+    public class Config {
+        protected int coord;
+
+        protected ECEndomorphism endomorphism;
+
+        protected ECMultiplier multiplier;
+
+
+        Config(int coord, ECEndomorphism endomorphism, ECMultiplier multiplier) {
+            this.coord = coord;
+            this.endomorphism = endomorphism;
+            this.multiplier = multiplier;
+        }
+
+
+        public Config setCoordinateSystem(int coord) {
+            this.coord = coord;
+            return this;
+        }
+
+
+        public Config setEndomorphism(ECEndomorphism endomorphism) {
+            this.endomorphism = endomorphism;
+            return this;
+        }
+
+
+        /**
+         * Set the multiplier for the new curve, or null for its default.
+         */
+        public Config setMultiplier(ECMultiplier multiplier) {
+            this.multiplier = multiplier;
+            return this;
+        }
+
+
+        /**
+         * Create a new instance of the curve with these settings. Points and
+         * their pre-computations are not shared with the original.
+         *
+         * @return the new curve
+         * @throws IllegalStateException
+         *             if the curve does not support the coordinate system
+         */
+        public ECCurve create() {
+            if( !supportsCoordinateSystem(coord) ) {
+                throw new IllegalStateException(
+                        "unsupported coordinate system");
+            }
+
+            ECCurve c = cloneCurve();
+            if( c == ECCurve.this ) {
+                throw new IllegalStateException(
+                        "implementation returned current curve");
+            }
+
+            c.coord = coord;
+            c.endomorphism = endomorphism;
+            c.multiplier = multiplier;
+            return c;
+        }
+    }
+
+
     public abstract int getFieldSize();
 
 
@@ -85,6 +155,64 @@ public abstract class ECCurve {
     }
 
 
+    /**
+     * Decode a point in the uncompressed or compressed form of X9.62. A
+     * compressed point's y coordinate is recovered with a square root in the
+     * field, and either form is checked to be on the curve.
+     *
+     * @param encoded
+     *            the encoded point
+     * @return the point
+     * @throws IllegalArgumentException
+     *             if the encoding is malformed or not of a point on the curve
+     */
+    public ECPoint decodePoint(byte[] encoded) {
+        int n = (getFieldSize() + 7) >>> 3;
+        byte type = (encoded.length > 0) ? encoded[0] : -1;
+        ECPoint p;
+        switch (type) {
+        case 0x02:
+        case 0x03: {
+            if( encoded.length != n + 1 ) {
+                throw new IllegalArgumentException(
+                        "Incorrect length for compressed encoding");
+            }
+            BigInteger X = fromUnsignedBytes(encoded, 1, n);
+            p = decompressPoint(type & 1, X);
+            if( !p.satisfiesCofactor() ) {
+                throw new IllegalArgumentException("Invalid point");
+            }
+            break;
+        }
+        case 0x04: {
+            if( encoded.length != 2 * n + 1 ) {
+                throw new IllegalArgumentException(
+                        "Incorrect length for uncompressed encoding");
+            }
+            BigInteger X = fromUnsignedBytes(encoded, 1, n);
+            BigInteger Y = fromUnsignedBytes(encoded, 1 + n, n);
+            p = validatePoint(X, Y, false);
+            break;
+        }
+        default:
+            throw new IllegalArgumentException("Invalid point encoding 0x"
+                    + Integer.toString(type & 0xFF, 16));
+        }
+
+        if( p.isInfinity() ) {
+            throw new IllegalArgumentException("Invalid infinity encoding");
+        }
+        return p;
+    }
+
+
+    private static BigInteger fromUnsignedBytes(byte[] buf, int off, int len) {
+        byte[] mag = new byte[len];
+        System.arraycopy(buf, off, mag, 0, len);
+        return new BigInteger(1, mag);
+    }
+
+
     protected abstract ECCurve cloneCurve();
 
 
@@ -105,6 +233,17 @@ public abstract class ECCurve {
     }
 
 
+    /**
+     * Get the word arithmetic for this curve's field, which lets scalar
+     * multiplications avoid creating points and field elements for each step.
+     *
+     * @return the arithmetic, or null if the field has none
+     */
+    protected RawFpField getRawFpField() {
+        return null;
+    }
+
+
     public boolean supportsCoordinateSystem(int coord) {
         return coord == COORD_AFFINE;
     }
@@ -112,10 +251,8 @@ public abstract class ECCurve {
 
     public PreCompInfo getPreCompInfo(ECPoint point, String name) {
         checkPoint(point);
-        synchronized (point) {
-            Hashtable table = point.preCompTable;
-            return table == null ? null : (PreCompInfo) table.get(name);
-        }
+        Map<String, PreCompInfo> table = point.preCompTable;
+        return table == null ? null : table.get(name);
     }
 
 
@@ -123,6 +260,10 @@ public abstract class ECCurve {
      * Adds <code>PreCompInfo</code> for a point on this curve, under a given
      * name. Used by <code>ECMultiplier</code>s to save the precomputation for
      * this <code>ECPoint</code> for use by subsequent multiplication.
+     * <p>
+     * The point's table is copied and replaced rather than changed, so
+     * readers need no lock. The information stored must not be changed once
+     * stored, as other threads may already be reading it.
      * 
      * @param point
      *            The <code>ECPoint</code> to store precomputations for.
@@ -135,13 +276,13 @@ public abstract class ECCurve {
     public void setPreCompInfo(ECPoint point, String name,
             PreCompInfo preCompInfo) {
         checkPoint(point);
-        synchronized (point) {
-            Hashtable table = point.preCompTable;
-            if( null == table ) {
-                point.preCompTable = table = new Hashtable(4);
-            }
-            table.put(name, preCompInfo);
-        }
+        Map<String, PreCompInfo> table, update;
+        do {
+            table = point.preCompTable;
+            update = (table == null) ? new HashMap<String, PreCompInfo>(4)
+                    : new HashMap<String, PreCompInfo>(table);
+            update.put(name, preCompInfo);
+        } while( !ECPoint.PRECOMP_TABLE.compareAndSet(point, table, update) );
     }
 
 
@@ -276,13 +417,39 @@ public abstract class ECCurve {
 
 
     /**
-     * Sets the default <code>ECMultiplier</code>, unless already set.
+     * Start configuring a new instance of this curve, from this instance's
+     * coordinate system, endomorphism and multiplier.
+     *
+     * @return the configuration, on which {@link Config#create()} makes the
+     *         curve
+     */
+    public Config configure() {
+        return new Config(this.coord, this.endomorphism, this.multiplier);
+    }
+
+
+    /**
+     * Get the endomorphism of this curve that speeds up its multiplications.
+     *
+     * @return the endomorphism, or null if the curve has none
+     */
+    public ECEndomorphism getEndomorphism() {
+        return endomorphism;
+    }
+
+
+    /**
+     * Sets the default <code>ECMultiplier</code>, unless already set. Threads
+     * racing here may each create one, which is harmless as they are
+     * equivalent and only one is kept.
      */
-    public synchronized ECMultiplier getMultiplier() {
-        if( this.multiplier == null ) {
-            this.multiplier = createDefaultMultiplier();
+    public ECMultiplier getMultiplier() {
+        ECMultiplier m = this.multiplier;
+        if( m == null ) {
+            m = createDefaultMultiplier();
+            this.multiplier = m;
         }
-        return this.multiplier;
+        return m;
     }
 
 
@@ -362,13 +529,18 @@ public abstract class ECCurve {
     }
 
     /**
-     * Elliptic curve over Fp
+     * Elliptic curve over Fp. Primes of up to
+     * {@link MontgomeryFpFieldElement#MAX_BITS} bits use Montgomery arithmetic
+     * on fixed width words, and larger ones use BigIntegers.
      */
     public static class Fp extends AbstractFp {
         private static final int FP_DEFAULT_COORDS = COORD_JACOBIAN_MODIFIED;
 
         BigInteger q, r;
 
+        // Montgomery arithmetic for the prime, or null to use BigIntegers
+        MontgomeryFpFieldElement.Field montgomery;
+
         ECPoint.Fp infinity;
 
 
@@ -383,6 +555,7 @@ public abstract class ECCurve {
 
             this.q = q;
             this.r = ECFieldElement.Fp.calculateResidue(q);
+            this.montgomery = MontgomeryFpFieldElement.Field.create(q);
             this.infinity = new ECPoint.Fp(this, null, null);
 
             this.a = fromBigInteger(a);
@@ -399,6 +572,7 @@ public abstract class ECCurve {
 
             this.q = q;
             this.r = r;
+            this.montgomery = MontgomeryFpFieldElement.Field.create(q);
             this.infinity = new ECPoint.Fp(this, null, null);
 
             this.a = a;
@@ -433,6 +607,9 @@ public abstract class ECCurve {
 
 
         public ECFieldElement fromBigInteger(BigInteger x) {
+            if( montgomery != null ) {
+                return new MontgomeryFpFieldElement(montgomery, x);
+            }
             return new ECFieldElement.Fp(this.q, this.r, x);
         }
 
@@ -449,6 +626,11 @@ public abstract class ECCurve {
         }
 
 
+        protected RawFpField getRawFpField() {
+            return montgomery;
+        }
+
+
         public ECPoint importPoint(ECPoint p) {
             if( this != p.getCurve()
                     && this.getCoordinateSystem() == COORD_JACOBIAN
@@ -567,7 +749,7 @@ public abstract class ECCurve {
          * <code>s<sub>1</sub></code> used for partial modular reduction for
          * Koblitz curves.
          */
-        private BigInteger[] si = null;
+        private volatile BigInteger[] si = null;
 
 
         /**
@@ -768,7 +950,8 @@ public abstract class ECCurve {
          * @throws IllegalArgumentException
          *             if the given ECCurve is not a Koblitz curve.
          */
-        synchronized byte getMu() {
+        byte getMu() {
+            // racing threads compute the same value
             if( mu == 0 ) {
                 mu = Tnaf.getMu(this);
             }
@@ -781,11 +964,13 @@ public abstract class ECCurve {
          *         <code>s<sub>1</sub></code> used for partial modular reduction
          *         for Koblitz curves.
          */
-        synchronized BigInteger[] getSi() {
-            if( si == null ) {
-                si = Tnaf.getSi(this);
+        BigInteger[] getSi() {
+            BigInteger[] s = si;
+            if( s == null ) {
+                s = Tnaf.getSi(this);
+                si = s;
             }
-            return si;
+            return s;
         }
 
 
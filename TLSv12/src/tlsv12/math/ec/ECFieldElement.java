@@ -599,6 +599,16 @@ public abstract class ECFieldElement implements ECConstants {
          *             (having the same representation).
          */
         public static void checkFieldElements(ECFieldElement a, ECFieldElement b) {
+            if( !(a instanceof F2m) && !(b instanceof F2m) ) {
+                // elements of a specialised field, such as SecTFieldElement
+                if( a.getClass() != b.getClass()
+                        || a.getFieldSize() != b.getFieldSize() ) {
+                    throw new IllegalArgumentException(
+                            "Field elements are not elements of the same field F2m");
+                }
+                return;
+            }
+
             if( (!(a instanceof F2m)) || (!(b instanceof F2m)) ) {
                 throw new IllegalArgumentException("Field elements are not "
                         + "both instances of ECFieldElement.F2m");
@@ -737,6 +747,21 @@ public abstract class ECFieldElement implements ECConstants {
         }
 
 
+        public boolean equals(Object other) {
+            if( other == this ) {
+                return true;
+            }
+
+            if( !(other instanceof ECFieldElement.F2m) ) {
+                return false;
+            }
+
+            ECFieldElement.F2m o = (ECFieldElement.F2m) other;
+            return m == o.m && representation == o.representation
+                    && Arrays.areEqual(ks, o.ks) && x.equals(o.x);
+        }
+
+
         public int hashCode() {
             return x.hashCode() ^ m ^ Arrays.hashCode(ks);
         }
@@ -1,7 +1,8 @@
 package tlsv12.math.ec;
 
 import java.math.BigInteger;
-import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * base class for points on elliptic curves.
@@ -49,8 +50,12 @@ public abstract class ECPoint {
 
     protected boolean withCompression;
 
-    // Hashtable is (String -> PreCompInfo)
-    protected Hashtable preCompTable = null;
+    // (String -> PreCompInfo), replaced rather than changed once published
+    protected volatile Map<String, PreCompInfo> preCompTable = null;
+
+    @SuppressWarnings("rawtypes")
+    static final AtomicReferenceFieldUpdater<ECPoint, Map> PRECOMP_TABLE = AtomicReferenceFieldUpdater.newUpdater(
+            ECPoint.class, Map.class, "preCompTable");
 
 
     protected ECPoint(ECCurve curve, ECFieldElement x, ECFieldElement y) {
@@ -1,8 +1,66 @@
 package tlsv12.math.ec;
 
 import java.math.BigInteger;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
+/**
+ * Multiplication of a fixed point, such as a curve's generator, with a comb
+ * table kept with the point.
+ * <p>
+ * The comb width is 5, or 6 for curves with orders over 257 bits. A table has
+ * <code>2^width</code> points, so each extra bit of width doubles its memory
+ * while saving about one point addition in <code>width + 1</code>. The system
+ * property <code>tlsv12.combWidth</code> sets the width for every curve, and
+ * <code>tlsv12.combWidth.&lt;bits&gt;</code> the width for curves with an
+ * order of that many bits, for example <code>tlsv12.combWidth.256=7</code>.
+ * Widths from {@value #MIN_WIDTH} to {@value #MAX_WIDTH} are accepted. Without
+ * a configured width, a table already kept with the point is used whatever
+ * its width, so that one installed by calibration is not replaced.
+ */
 public class FixedPointCombMultiplier extends AbstractECMultiplier {
+    /** The narrowest comb which may be configured */
+    public static final int MIN_WIDTH = 2;
+
+    /** The widest comb which may be configured */
+    public static final int MAX_WIDTH = 8;
+
+    // the configured widths by comb size, with the key 0 for all sizes
+    private static final Map<Integer, Integer> CONFIGURED_WIDTHS = getConfiguredWidths();
+
+
+    private static Map<Integer, Integer> getConfiguredWidths() {
+        Map<Integer, Integer> widths = new HashMap<Integer, Integer>();
+        try {
+            java.util.Properties props = java.security.AccessController.doPrivileged(new java.security.PrivilegedAction<java.util.Properties>() {
+                public java.util.Properties run() {
+                    return System.getProperties();
+                }
+            });
+            for(String name:props.stringPropertyNames()) {
+                int size;
+                if( name.equals("tlsv12.combWidth") ) {
+                    size = 0;
+                } else if( name.startsWith("tlsv12.combWidth.") ) {
+                    size = Integer.parseInt(name.substring(17));
+                } else {
+                    continue;
+                }
+
+                try {
+                    int width = Integer.parseInt(props.getProperty(name).trim());
+                    if( width >= MIN_WIDTH && width <= MAX_WIDTH ) {
+                        widths.put(Integer.valueOf(size), Integer.valueOf(width));
+                    }
+                } catch (NumberFormatException e) {}
+            }
+        } catch (Exception e) {}
+
+        return Collections.unmodifiableMap(widths);
+    }
+
+
     protected ECPoint multiplyPositive(ECPoint p, BigInteger k) {
         ECCurve c = p.getCurve();
         int size = FixedPointUtil.getCombSize(c);
@@ -21,13 +79,24 @@ public class FixedPointCombMultiplier extends AbstractECMultiplier {
         }
 
         int minWidth = getWidthForCombSize(size);
+        if( !isWidthConfigured(size) ) {
+            int existing = FixedPointUtil.getFixedPointPreCompInfo(
+                    c.getPreCompInfo(p, FixedPointUtil.PRECOMP_NAME)).getWidth();
+            if( existing > 0 ) {
+                minWidth = existing;
+            }
+        }
 
         FixedPointPreCompInfo info = FixedPointUtil.precompute(p, minWidth);
-        ECPoint[] lookupTable = info.getPreComp();
         int width = info.getWidth();
 
         int d = (size + width - 1) / width;
 
+        // the packed table is read directly where the curve allows
+        MutableFpPoint M = MutableFpPoint.create(c);
+        MutableFpPoint.Table table = (M == null) ? null : M.getTable(info);
+        ECPoint[] lookupTable = (M == null) ? info.getPreComp() : null;
+
         ECPoint R = c.getInfinity();
 
         int top = d * width - 1;
@@ -41,14 +110,52 @@ public class FixedPointCombMultiplier extends AbstractECMultiplier {
                 }
             }
 
-            R = R.twicePlus(lookupTable[index]);
+            if( M != null ) {
+                M.twice();
+                M.add(table, index, false);
+            } else {
+                R = R.twicePlus(lookupTable[index]);
+            }
         }
 
-        return R;
+        return (M != null) ? M.toECPoint() : R;
+    }
+
+
+    /**
+     * Is the comb width for curves of a size set by a system property?
+     *
+     * @param combSize
+     *            the comb size
+     * @return true if a width is configured
+     */
+    public static boolean isWidthConfigured(int combSize) {
+        return CONFIGURED_WIDTHS.containsKey(Integer.valueOf(combSize))
+                || CONFIGURED_WIDTHS.containsKey(Integer.valueOf(0));
     }
 
 
     protected int getWidthForCombSize(int combSize) {
+        Integer width = CONFIGURED_WIDTHS.get(Integer.valueOf(combSize));
+        if( width == null ) {
+            width = CONFIGURED_WIDTHS.get(Integer.valueOf(0));
+        }
+        if( width != null ) {
+            return width.intValue();
+        }
+
+        return getDefaultWidth(combSize);
+    }
+
+
+    /**
+     * Get the comb width used for curves of a size when none is configured.
+     *
+     * @param combSize
+     *            the comb size
+     * @return the width
+     */
+    public static int getDefaultWidth(int combSize) {
         return combSize > 257 ? 6 : 5;
     }
 }
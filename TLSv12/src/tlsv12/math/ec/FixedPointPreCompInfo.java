@@ -1,7 +1,9 @@
 package tlsv12.math.ec;
 
 /**
- * Class holding precomputation data for fixed-point multiplications.
+ * Class holding precomputation data for fixed-point multiplications. On
+ * curves whose fields have word arithmetic only the packed co-ordinates of
+ * the table are kept, rather than a point object for every entry.
  */
 public class FixedPointPreCompInfo implements PreCompInfo {
     /**
@@ -17,8 +19,24 @@ public class FixedPointPreCompInfo implements PreCompInfo {
      */
     protected int width = -1;
 
+    /**
+     * The precomputed points as words, for multiplying on a
+     * {@link MutableFpPoint}.
+     */
+    volatile MutableFpPoint.Table table = null;
+
 
+    /**
+     * Get the precomputed points. If only the packed table is kept, new
+     * points are created from it on each call.
+     *
+     * @return the points
+     */
     public ECPoint[] getPreComp() {
+        MutableFpPoint.Table t = table;
+        if( preComp == null && t != null ) {
+            return t.toPoints();
+        }
         return preComp;
     }
 
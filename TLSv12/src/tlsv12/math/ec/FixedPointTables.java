@@ -0,0 +1,297 @@
+package tlsv12.math.ec;
+
+import tlsv12.util.BigIntegers;
+import tlsv12.util.encoders.Hex;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fixed-point comb tables computed ahead of time, so that the first
+ * multiplication of a well known generator does not have to build them. The
+ * tables are held in the resource {@value #RESOURCE_NAME} beside this class
+ * as the affine co-ordinates of each point, and are only read when a comb
+ * table is first needed.
+ * <p>
+ * A stored table is only used for a point on a curve with the same field, the
+ * same a and b, and the same generator as the one it was computed for.
+ */
+public class FixedPointTables {
+    /** Name of the resource holding the tables */
+    public static final String RESOURCE_NAME = "fixed_point_tables.dat";
+
+    /** Format version of the resource */
+    private static final int VERSION = 2;
+
+    private static final int TYPE_FP = 1;
+
+    private static final int TYPE_F2M = 2;
+
+
+    /**
+     * A table read from the resource, but not yet turned into points.
+     */
+    private static class Entry {
+        /** Length of each encoded co-ordinate */
+        int length;
+
+        /** Width of the comb */
+        int width;
+
+        /** Number of scalar bits the comb covers */
+        int combSize;
+
+        /** The field type */
+        int type;
+
+        /** The prime of an Fp curve */
+        BigInteger q;
+
+        /** The reduction polynomial of an F2m curve */
+        int m, k1, k2, k3;
+
+        /** The curve co-efficients */
+        BigInteger a, b;
+
+        /** Encoded points, excluding the point at infinity */
+        byte[] points;
+
+
+        boolean matches(ECCurve c) {
+            if( type == TYPE_FP ) {
+                if( !(ECAlgorithms.isFpCurve(c) && q.equals(c.getField().getCharacteristic())) ) {
+                    return false;
+                }
+            } else {
+                if( !(c instanceof ECCurve.F2m) ) {
+                    return false;
+                }
+                ECCurve.F2m f = (ECCurve.F2m) c;
+                if( m != f.getM() || k1 != f.getK1() || k2 != f.getK2()
+                        || k3 != f.getK3() ) {
+                    return false;
+                }
+            }
+
+            return a.equals(c.getA().toBigInteger())
+                    && b.equals(c.getB().toBigInteger());
+        }
+    }
+
+    /** Tables by encoded generator, or null if not yet read */
+    private static Map<String, Entry> tables = null;
+
+
+    private FixedPointTables() {
+        // no instantiation of this class
+    }
+
+
+    /**
+     * Get the key for a generator point.
+     *
+     * @param p
+     *            the normalized point
+     * @param length
+     *            the length of each co-ordinate
+     * @return the key
+     */
+    private static String getKey(ECPoint p, int length) {
+        byte[] enc = new byte[2 * length];
+        encode(p, length, enc, 0);
+        return new String(Hex.encode(enc));
+    }
+
+
+    private static void encode(ECPoint p, int length, byte[] buf, int off) {
+        byte[] x = BigIntegers.asUnsignedByteArray(length,
+                p.getAffineXCoord().toBigInteger());
+        byte[] y = BigIntegers.asUnsignedByteArray(length,
+                p.getAffineYCoord().toBigInteger());
+        System.arraycopy(x, 0, buf, off, length);
+        System.arraycopy(y, 0, buf, off + length, length);
+    }
+
+
+    private static BigInteger readBigInteger(DataInputStream in, int length)
+            throws IOException {
+        byte[] buf = new byte[length];
+        in.readFully(buf);
+        return new BigInteger(1, buf);
+    }
+
+
+    private static void writeBigInteger(DataOutputStream out, int length,
+            BigInteger value) throws IOException {
+        out.write(BigIntegers.asUnsignedByteArray(length, value));
+    }
+
+
+    /**
+     * Read the tables resource. If it is missing or cannot be read no tables
+     * are available, and the comb tables will be computed as needed.
+     *
+     * @return the tables by generator
+     */
+    private static synchronized Map<String, Entry> getTables() {
+        if( tables != null ) {
+            return tables;
+        }
+
+        Map<String, Entry> map = new HashMap<String, Entry>();
+        InputStream stream = FixedPointTables.class.getResourceAsStream(RESOURCE_NAME);
+        if( stream != null ) {
+            try {
+                DataInputStream in = new DataInputStream(stream);
+                if( in.readInt() == VERSION ) {
+                    int count = in.readInt();
+                    for(int i = 0;i < count;i++) {
+                        Entry e = new Entry();
+                        e.length = in.readInt();
+                        e.width = in.readInt();
+                        e.combSize = in.readInt();
+                        e.type = in.readInt();
+                        if( e.type == TYPE_FP ) {
+                            e.q = readBigInteger(in, e.length);
+                        } else {
+                            e.m = in.readInt();
+                            e.k1 = in.readInt();
+                            e.k2 = in.readInt();
+                            e.k3 = in.readInt();
+                        }
+                        e.a = readBigInteger(in, e.length);
+                        e.b = readBigInteger(in, e.length);
+
+                        byte[] g = new byte[2 * e.length];
+                        in.readFully(g);
+                        e.points = new byte[((1 << e.width) - 1) * 2 * e.length];
+                        in.readFully(e.points);
+
+                        map.put(new String(Hex.encode(g)), e);
+                    }
+                }
+            } catch (IOException ioe) {
+                // treat a damaged resource as though it is missing
+                map.clear();
+            } finally {
+                try {
+                    stream.close();
+                } catch (IOException ioe) {
+                    // ignored
+                }
+            }
+        }
+
+        tables = map;
+        return map;
+    }
+
+
+    /**
+     * Load the stored comb table for a point, if there is one.
+     *
+     * @param p
+     *            the point, which should be a curve's generator
+     * @param minWidth
+     *            the width of comb required
+     * @return the table, or null if none is stored
+     */
+    public static FixedPointPreCompInfo load(ECPoint p, int minWidth) {
+        Map<String, Entry> map = getTables();
+        if( map.isEmpty() || p.isInfinity() ) {
+            return null;
+        }
+
+        ECCurve c = p.getCurve();
+        int length = (c.getFieldSize() + 7) / 8;
+        Entry e = map.get(getKey(p.normalize(), length));
+        // the comb spacing depends on the comb size, so it must match too, and
+        // a table of another width is not used in case the width was chosen
+        // to save memory
+        if( e == null || e.length != length || e.width != minWidth
+                || e.combSize != FixedPointUtil.getCombSize(c) || !e.matches(c) ) {
+            return null;
+        }
+
+        int n = 1 << e.width;
+        ECPoint[] lookupTable = new ECPoint[n];
+        lookupTable[0] = c.getInfinity();
+        byte[] buf = new byte[length];
+        int off = 0;
+        for(int i = 1;i < n;i++) {
+            System.arraycopy(e.points, off, buf, 0, length);
+            BigInteger x = new BigInteger(1, buf);
+            off += length;
+            System.arraycopy(e.points, off, buf, 0, length);
+            BigInteger y = new BigInteger(1, buf);
+            off += length;
+            lookupTable[i] = c.createPoint(x, y);
+        }
+
+        return FixedPointUtil.createPreCompInfo(c, lookupTable, e.width);
+    }
+
+
+    /**
+     * Compute the comb tables for the given generators, using the width the
+     * comb multiplier would choose, and write them in the resource format.
+     *
+     * @param out
+     *            the stream to write to
+     * @param generators
+     *            the generator points
+     * @throws IOException
+     *             if the stream cannot be written
+     */
+    public static void write(OutputStream out, ECPoint[] generators)
+            throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(VERSION);
+        data.writeInt(generators.length);
+
+        for(ECPoint g:generators) {
+            ECCurve c = g.getCurve();
+
+            // a multiplication makes the comb pick its width and build the
+            // table
+            new FixedPointCombMultiplier().multiply(g, BigInteger.ONE);
+            FixedPointPreCompInfo info = FixedPointUtil.getFixedPointPreCompInfo(c.getPreCompInfo(
+                    g, FixedPointUtil.PRECOMP_NAME));
+            ECPoint[] lookupTable = info.getPreComp();
+
+            int length = (c.getFieldSize() + 7) / 8;
+            data.writeInt(length);
+            data.writeInt(info.getWidth());
+            data.writeInt(FixedPointUtil.getCombSize(c));
+            if( ECAlgorithms.isFpCurve(c) ) {
+                data.writeInt(TYPE_FP);
+                writeBigInteger(data, length, c.getField().getCharacteristic());
+            } else {
+                ECCurve.F2m f = (ECCurve.F2m) c;
+                data.writeInt(TYPE_F2M);
+                data.writeInt(f.getM());
+                data.writeInt(f.getK1());
+                data.writeInt(f.getK2());
+                data.writeInt(f.getK3());
+            }
+            writeBigInteger(data, length, c.getA().toBigInteger());
+            writeBigInteger(data, length, c.getB().toBigInteger());
+
+            byte[] buf = new byte[2 * length];
+            encode(g.normalize(), length, buf, 0);
+            data.write(buf);
+            for(int i = 1;i < lookupTable.length;i++) {
+                encode(lookupTable[i], length, buf, 0);
+                data.write(buf);
+            }
+        }
+
+        data.flush();
+    }
+}
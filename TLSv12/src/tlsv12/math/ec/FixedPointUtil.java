@@ -1,10 +1,26 @@
 package tlsv12.math.ec;
 
 import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class FixedPointUtil {
     public static final String PRECOMP_NAME = "bc_fixed_point";
 
+    /** Number of comb tables which have been computed */
+    private static final AtomicLong PRECOMPUTE_COUNT = new AtomicLong();
+
+
+    /**
+     * Get the number of comb tables computed in this JVM. As the tables are
+     * kept with the point, this should stay close to the number of distinct
+     * curves in use.
+     *
+     * @return the number of tables computed
+     */
+    public static long getPrecomputeCount() {
+        return PRECOMPUTE_COUNT.get();
+    }
+
 
     public static int getCombSize(ECCurve c) {
         BigInteger order = c.getOrder();
@@ -29,9 +45,14 @@ public class FixedPointUtil {
         int n = 1 << minWidth;
         FixedPointPreCompInfo info = getFixedPointPreCompInfo(c.getPreCompInfo(
                 p, PRECOMP_NAME));
-        ECPoint[] lookupTable = info.getPreComp();
 
-        if( lookupTable == null || lookupTable.length < n ) {
+        if( info.getWidth() < minWidth ) {
+            FixedPointPreCompInfo stored = FixedPointTables.load(p, minWidth);
+            if( stored != null ) {
+                c.setPreCompInfo(p, PRECOMP_NAME, stored);
+                return stored;
+            }
+
             int bits = getCombSize(c);
             int d = (bits + minWidth - 1) / minWidth;
 
@@ -43,7 +64,7 @@ public class FixedPointUtil {
 
             c.normalizeAll(pow2Table);
 
-            lookupTable = new ECPoint[n];
+            ECPoint[] lookupTable = new ECPoint[n];
             lookupTable[0] = c.getInfinity();
 
             for(int bit = minWidth - 1;bit >= 0;--bit) {
@@ -56,13 +77,42 @@ public class FixedPointUtil {
             }
 
             c.normalizeAll(lookupTable);
+            PRECOMPUTE_COUNT.incrementAndGet();
 
-            info.setPreComp(lookupTable);
-            info.setWidth(minWidth);
+            // the point may be shared between threads, so publish a new
+            // instance rather than change one which may be in use
+            info = createPreCompInfo(c, lookupTable, minWidth);
 
             c.setPreCompInfo(p, PRECOMP_NAME, info);
         }
 
         return info;
     }
+
+
+    /**
+     * Create the precomputation for a comb table, keeping only the packed
+     * co-ordinates where the curve supports them.
+     *
+     * @param c
+     *            the curve
+     * @param lookupTable
+     *            the normalized points of the table
+     * @param width
+     *            the width of the comb
+     * @return the precomputation
+     */
+    static FixedPointPreCompInfo createPreCompInfo(ECCurve c,
+            ECPoint[] lookupTable, int width) {
+        FixedPointPreCompInfo info = new FixedPointPreCompInfo();
+        info.setWidth(width);
+
+        MutableFpPoint.Table table = MutableFpPoint.createTable(c, lookupTable);
+        if( table != null ) {
+            info.table = table;
+        } else {
+            info.setPreComp(lookupTable);
+        }
+        return info;
+    }
 }
@@ -0,0 +1,401 @@
+package tlsv12.math.ec;
+
+import tlsv12.math.raw.Mod;
+import tlsv12.math.raw.Nat;
+import tlsv12.util.Arrays;
+
+import java.math.BigInteger;
+
+/**
+ * Element of a prime field without a special form, held as fixed width words
+ * in Montgomery form, <code>x * R mod p</code> with <code>R = 2^(32 * len)</code>.
+ * Multiplication is a word multiplication followed by a Montgomery reduction,
+ * which needs no division, so it is much cheaper than reducing a BigInteger
+ * product. Values are only converted back to their ordinary form when read as
+ * a BigInteger.
+ */
+public class MontgomeryFpFieldElement extends ECFieldElement {
+    /** The largest prime handled, in bits */
+    public static final int MAX_BITS = 576;
+
+
+    /**
+     * The constants and word arithmetic for one prime.
+     */
+    public static class Field extends RawFpField {
+        final BigInteger q;
+
+        final int[] p;
+
+        // -p^-1 mod 2^32
+        final int mDash;
+
+        // R mod p, the Montgomery form of one
+        final int[] one;
+
+        // R^2 mod p, for converting into Montgomery form
+        final int[] r2;
+
+        // R^3 mod p, for inversion
+        final int[] r3;
+
+        // the window width for square roots
+        private final int sqrtWindow;
+
+        // the sliding window form of (q + 1) / 4, for square roots when
+        // q == 3 mod 4, or null
+        private final int[] sqrtDigits;
+
+
+        private Field(BigInteger q) {
+            super((q.bitLength() + 31) >> 5);
+            this.q = q;
+            this.p = Nat.fromBigInteger(len << 5, q);
+            this.mDash = -Nat.inverse32(p[0]);
+
+            BigInteger r = ECConstants.ONE.shiftLeft(len << 5).mod(q);
+            this.one = Nat.fromBigInteger(len << 5, r);
+            this.r2 = Nat.fromBigInteger(len << 5, r.multiply(r).mod(q));
+            this.r3 = Nat.fromBigInteger(len << 5,
+                    r.multiply(r).multiply(r).mod(q));
+
+            this.sqrtWindow = (len > 8) ? 5 : 4;
+            this.sqrtDigits = q.testBit(1) ? windowDigits(
+                    q.shiftRight(2).add(ECConstants.ONE), sqrtWindow) : null;
+        }
+
+
+        /**
+         * Write an exponent in left to right sliding window form, as pairs of
+         * the number of squarings and the odd window value to multiply by
+         * after them. The last pair holds the trailing squarings and zero.
+         */
+        private static int[] windowDigits(BigInteger e, int w) {
+            int[] d = new int[2 * e.bitLength() + 2];
+            int n = 0, squarings = 0;
+            int i = e.bitLength() - 1;
+            while( i >= 0 ) {
+                if( !e.testBit(i) ) {
+                    ++squarings;
+                    --i;
+                    continue;
+                }
+
+                int j = Math.max(i - w + 1, 0);
+                while( !e.testBit(j) ) {
+                    ++j;
+                }
+                int v = 0;
+                for(int k = i;k >= j;--k) {
+                    v = (v << 1) | (e.testBit(k) ? 1 : 0);
+                }
+                d[n++] = squarings + i - j + 1;
+                d[n++] = v;
+                squarings = 0;
+                i = j - 1;
+            }
+            d[n++] = squarings;
+            d[n++] = 0;
+
+            int[] z = new int[n];
+            System.arraycopy(d, 0, z, 0, n);
+            return z;
+        }
+
+
+        /**
+         * Get the constants for a prime, if it can be handled.
+         *
+         * @param q
+         *            the prime
+         * @return the constants, or null if the prime is even or too large
+         */
+        public static Field create(BigInteger q) {
+            if( !q.testBit(0) || q.bitLength() > MAX_BITS
+                    || q.compareTo(ECConstants.TWO) <= 0 ) {
+                return null;
+            }
+            return new Field(q);
+        }
+
+
+        void multiply(int[] x, int[] y, int[] z) {
+            multiply(x, y, z, Nat.create(len << 1));
+        }
+
+
+        void square(int[] x, int[] z) {
+            square(x, z, Nat.create(len << 1));
+        }
+
+
+        public void copy(ECFieldElement x, int[] z) {
+            System.arraycopy(((MontgomeryFpFieldElement) x).x, 0, z, 0, len);
+        }
+
+
+        public ECFieldElement createFieldElement(int[] x) {
+            return new MontgomeryFpFieldElement(this, Nat.copy(len, x));
+        }
+
+
+        public void one(int[] z) {
+            System.arraycopy(one, 0, z, 0, len);
+        }
+
+
+        public void add(int[] x, int[] y, int[] z) {
+            int c = Nat.add(len, x, y, z);
+            if( c != 0 || Nat.gte(len, z, p) ) {
+                Nat.subFrom(len, p, z);
+            }
+        }
+
+
+        public void subtract(int[] x, int[] y, int[] z) {
+            int c = Nat.sub(len, x, y, z);
+            if( c != 0 ) {
+                Nat.addTo(len, p, z);
+            }
+        }
+
+
+        public void twice(int[] x, int[] z) {
+            add(x, x, z);
+        }
+
+
+        public void negate(int[] x, int[] z) {
+            if( Nat.isZero(len, x) ) {
+                Nat.zero(len, z);
+            } else {
+                Nat.sub(len, p, x, z);
+            }
+        }
+
+
+        public void multiply(int[] x, int[] y, int[] z, int[] tt) {
+            Nat.mul(len, x, y, tt);
+            Nat.reduceMontgomery(len, p, mDash, tt, z);
+        }
+
+
+        public void square(int[] x, int[] z, int[] tt) {
+            Nat.square(len, x, tt);
+            Nat.reduceMontgomery(len, p, mDash, tt, z);
+        }
+
+
+        /**
+         * Raise an element to the power (q + 1) / 4 by a sliding window over
+         * the odd powers up to the window width, which is a square root of it
+         * if it has one. The prime must be 3 mod 4.
+         */
+        void sqrtPow(int[] x, int[] z) {
+            int[] tt = Nat.create(len << 1);
+            int[][] odd = new int[1 << (sqrtWindow - 1)][];
+            int[] x2 = Nat.create(len);
+            odd[0] = Nat.copy(len, x);
+            square(x, x2, tt);
+            for(int i = 1;i < odd.length;++i) {
+                odd[i] = Nat.create(len);
+                multiply(odd[i - 1], x2, odd[i], tt);
+            }
+
+            // the first window needs no squarings before it
+            int[] d = sqrtDigits;
+            System.arraycopy(odd[d[1] >>> 1], 0, z, 0, len);
+            for(int i = 2;i < d.length;i += 2) {
+                for(int n = d[i];n > 0;--n) {
+                    square(z, z, tt);
+                }
+                if( d[i + 1] != 0 ) {
+                    multiply(z, odd[d[i + 1] >>> 1], z, tt);
+                }
+            }
+        }
+
+
+        /**
+         * Convert out of Montgomery form.
+         */
+        void fromMontgomery(int[] x, int[] z) {
+            int[] tt = Nat.create(len << 1);
+            System.arraycopy(x, 0, tt, 0, len);
+            Nat.reduceMontgomery(len, p, mDash, tt, z);
+        }
+    }
+
+    private final Field field;
+
+    private final int[] x;
+
+
+    public MontgomeryFpFieldElement(Field field, BigInteger x) {
+        if( x == null || x.signum() < 0 || x.compareTo(field.q) >= 0 ) {
+            throw new IllegalArgumentException(
+                    "x value invalid in Fp field element");
+        }
+
+        this.field = field;
+        this.x = Nat.create(field.len);
+        field.multiply(Nat.fromBigInteger(field.len << 5, x), field.r2,
+                this.x);
+    }
+
+
+    private MontgomeryFpFieldElement(Field field, int[] x) {
+        this.field = field;
+        this.x = x;
+    }
+
+
+    public BigInteger toBigInteger() {
+        int[] z = Nat.create(field.len);
+        field.fromMontgomery(x, z);
+        return Nat.toBigInteger(field.len, z);
+    }
+
+
+    public String getFieldName() {
+        return "Fp";
+    }
+
+
+    public int getFieldSize() {
+        return field.q.bitLength();
+    }
+
+
+    public int bitLength() {
+        int[] z = Nat.create(field.len);
+        field.fromMontgomery(x, z);
+        for(int i = field.len - 1;i >= 0;--i) {
+            if( z[i] != 0 ) {
+                return (i << 5) + 32 - Integer.numberOfLeadingZeros(z[i]);
+            }
+        }
+        return 0;
+    }
+
+
+    public boolean isZero() {
+        return Nat.isZero(field.len, x);
+    }
+
+
+    public boolean isOne() {
+        return Nat.eq(field.len, x, field.one);
+    }
+
+
+    public boolean testBitZero() {
+        int[] z = Nat.create(field.len);
+        field.fromMontgomery(x, z);
+        return (z[0] & 1) != 0;
+    }
+
+
+    public ECFieldElement add(ECFieldElement b) {
+        int[] z = Nat.create(field.len);
+        field.add(x, ((MontgomeryFpFieldElement) b).x, z);
+        return new MontgomeryFpFieldElement(field, z);
+    }
+
+
+    public ECFieldElement addOne() {
+        return add(new MontgomeryFpFieldElement(field, field.one));
+    }
+
+
+    public ECFieldElement subtract(ECFieldElement b) {
+        int[] z = Nat.create(field.len);
+        field.subtract(x, ((MontgomeryFpFieldElement) b).x, z);
+        return new MontgomeryFpFieldElement(field, z);
+    }
+
+
+    public ECFieldElement multiply(ECFieldElement b) {
+        int[] z = Nat.create(field.len);
+        field.multiply(x, ((MontgomeryFpFieldElement) b).x, z);
+        return new MontgomeryFpFieldElement(field, z);
+    }
+
+
+    public ECFieldElement divide(ECFieldElement b) {
+        return multiply(b.invert());
+    }
+
+
+    public ECFieldElement negate() {
+        if( isZero() ) {
+            return this;
+        }
+        int[] z = Nat.create(field.len);
+        Nat.sub(field.len, field.p, x, z);
+        return new MontgomeryFpFieldElement(field, z);
+    }
+
+
+    public ECFieldElement square() {
+        int[] z = Nat.create(field.len);
+        field.square(x, z);
+        return new MontgomeryFpFieldElement(field, z);
+    }
+
+
+    public ECFieldElement invert() {
+        // the inverse of xR is x^-1 R^-1, so multiply by R^3 and reduce once
+        int[] z = Nat.create(field.len);
+        Mod.invert(field.p, x, z);
+        field.multiply(z, field.r3, z);
+        return new MontgomeryFpFieldElement(field, z);
+    }
+
+
+    /**
+     * return a sqrt root - the routine verifies that the calculation returns
+     * the right value - if none exists it returns null.
+     */
+    public ECFieldElement sqrt() {
+        if( isZero() || isOne() ) {
+            return this;
+        }
+
+        if( !field.q.testBit(1) ) {
+            // q == 1 mod 4 needs the general algorithm
+            ECFieldElement root = new ECFieldElement.Fp(field.q, null,
+                    toBigInteger()).sqrt();
+            return (root == null) ? null : new MontgomeryFpFieldElement(
+                    field, root.toBigInteger());
+        }
+
+        // q == 4m + 3, so the root is x^(m + 1)
+        int[] z = Nat.create(field.len);
+        field.sqrtPow(x, z);
+
+        int[] check = Nat.create(field.len);
+        field.square(z, check);
+        return Nat.eq(field.len, check, x) ? new MontgomeryFpFieldElement(
+                field, z) : null;
+    }
+
+
+    public boolean equals(Object other) {
+        if( other == this ) {
+            return true;
+        }
+
+        if( !(other instanceof MontgomeryFpFieldElement) ) {
+            return false;
+        }
+
+        MontgomeryFpFieldElement o = (MontgomeryFpFieldElement) other;
+        return field.q.equals(o.field.q) && Nat.eq(field.len, x, o.x);
+    }
+
+
+    public int hashCode() {
+        return field.q.hashCode() ^ Arrays.hashCode(x);
+    }
+}
@@ -0,0 +1,169 @@
+package tlsv12.math.ec;
+
+import java.math.BigInteger;
+
+/**
+ * Class implementing the Montgomery ladder, for multiplying a point which will
+ * only be used once, such as a peer's public key in ECDH. No pre-computation
+ * is done, and every bit of the scalar costs the same sequence of point
+ * operations.
+ * <p>
+ * This is not a constant time implementation and gives no protection against
+ * timing or cache side channels: it branches on the bits of the scalar to pick
+ * the registers, the field elements it creates are ordinary objects, and
+ * degenerate inputs fall back to {@link ECAlgorithms#referenceMultiply}. It is
+ * also slower than the wNAF multipliers on most curves.
+ * <p>
+ * On Fp curves the ladder runs on co-Z Jacobian co-ordinates, where both
+ * points share a Z co-ordinate which is never held. It is recovered with one
+ * inversion at the end, from the difference of the two points being the input
+ * point (Goundar, Joye, Miyaji, Rivain and Venelli, "Scalar multiplication on
+ * Weierstrass elliptic curves from Co-Z arithmetic"). When the curve's order
+ * is known and the cofactor is one, a multiple of the order is added to the
+ * scalar so that every scalar takes the same number of steps. Other curves use
+ * the ladder on whole points.
+ */
+public class MontgomeryLadderMultiplier extends AbstractECMultiplier {
+
+    protected ECPoint multiplyPositive(ECPoint p, BigInteger k) {
+        ECCurve c = p.getCurve();
+        if( !ECAlgorithms.isFpCurve(c) ) {
+            return ladder(p, k);
+        }
+
+        p = p.normalize();
+        ECFieldElement x = p.getAffineXCoord(), y = p.getAffineYCoord();
+        if( y.isZero() ) {
+            // a point of order two, which cannot be doubled in co-Z form
+            return ECAlgorithms.referenceMultiply(p, k);
+        }
+
+        // adding the order leaves the result unchanged only if every point
+        // on the curve is in the subgroup
+        BigInteger n = c.getOrder(), h = c.getCofactor();
+        if( n != null && ECConstants.ONE.equals(h) && k.compareTo(n) < 0 ) {
+            // make the top bit of the scalar the one above the order's
+            k = k.add(n);
+            if( k.bitLength() <= n.bitLength() ) {
+                k = k.add(n);
+            }
+        }
+
+        int t = k.bitLength();
+        if( t < 2 ) {
+            return p;
+        }
+
+        // R0 = P and R1 = 2P, sharing Z = 2y
+        ECFieldElement[] X = new ECFieldElement[2];
+        ECFieldElement[] Y = new ECFieldElement[2];
+        ECFieldElement x2 = x.square();
+        ECFieldElement y2 = y.square();
+        ECFieldElement M = x2.add(x2).add(x2).add(c.getA());
+        ECFieldElement S = x.multiply(y2);
+        S = S.add(S);
+        S = S.add(S);
+        ECFieldElement T = y2.square();
+        T = T.add(T);
+        T = T.add(T);
+        T = T.add(T);
+        X[0] = S;
+        Y[0] = T;
+        X[1] = M.square().subtract(S.add(S));
+        Y[1] = M.multiply(S.subtract(X[1])).subtract(T);
+
+        // invariant: R1 - R0 = P
+        for(int i = t - 2;i > 0;--i) {
+            int b = k.testBit(i) ? 1 : 0;
+            addConjugate(X, Y, b, 1 - b);
+            add(X, Y, 1 - b, b);
+        }
+
+        int b = k.testBit(0) ? 1 : 0;
+        addConjugate(X, Y, b, 1 - b);
+
+        // Rb is now P if b is one and -P if b is zero, so Z = +/- x Yb / y
+        // Xb. The final addition then multiplies Z by Xb - X(1-b).
+        ECFieldElement num = y.multiply(X[b]);
+        ECFieldElement den = x.multiply(Y[b]).multiply(
+                X[b].subtract(X[1 - b]));
+        if( b == 0 ) {
+            den = den.negate();
+        }
+
+        add(X, Y, 1 - b, b);
+
+        if( den.isZero() ) {
+            // Only possible for x = 0, or a scalar so close to a multiple of
+            // the order that the ladder met the point at infinity.
+            return ECAlgorithms.referenceMultiply(p, k);
+        }
+
+        ECFieldElement zInv = num.multiply(den.invert());
+        ECFieldElement zInv2 = zInv.square();
+        return c.createRawPoint(X[0].multiply(zInv2),
+                Y[0].multiply(zInv2.multiply(zInv)), false);
+    }
+
+
+    /**
+     * Co-Z addition with update. Replaces R[j] with R[i] + R[j], and R[i] with
+     * the same point as before on the new Z.
+     */
+    private static void add(ECFieldElement[] X, ECFieldElement[] Y, int i,
+            int j) {
+        ECFieldElement X1 = X[i], Y1 = Y[i], X2 = X[j], Y2 = Y[j];
+
+        ECFieldElement A = X2.subtract(X1).square();
+        ECFieldElement B = X1.multiply(A);
+        ECFieldElement C = X2.multiply(A);
+        ECFieldElement E = Y1.multiply(C.subtract(B));
+        ECFieldElement dY = Y2.subtract(Y1);
+
+        ECFieldElement X3 = dY.square().subtract(B).subtract(C);
+        X[j] = X3;
+        Y[j] = dY.multiply(B.subtract(X3)).subtract(E);
+        X[i] = B;
+        Y[i] = E;
+    }
+
+
+    /**
+     * Conjugate co-Z addition. Replaces R[j] with R[i] + R[j], and R[i] with
+     * R[i] - R[j], sharing a new Z.
+     */
+    private static void addConjugate(ECFieldElement[] X, ECFieldElement[] Y,
+            int i, int j) {
+        ECFieldElement X1 = X[i], Y1 = Y[i], X2 = X[j], Y2 = Y[j];
+
+        ECFieldElement A = X2.subtract(X1).square();
+        ECFieldElement B = X1.multiply(A);
+        ECFieldElement C = X2.multiply(A);
+        ECFieldElement E = Y1.multiply(C.subtract(B));
+        ECFieldElement dY = Y2.subtract(Y1);
+        ECFieldElement sY = Y2.add(Y1);
+
+        ECFieldElement X3 = dY.square().subtract(B).subtract(C);
+        ECFieldElement X4 = sY.square().subtract(B).subtract(C);
+        X[j] = X3;
+        Y[j] = dY.multiply(B.subtract(X3)).subtract(E);
+        X[i] = X4;
+        Y[i] = sY.multiply(X4.subtract(B)).subtract(E);
+    }
+
+
+    /**
+     * The ladder on whole points, for curves without co-Z formulae.
+     */
+    private static ECPoint ladder(ECPoint p, BigInteger k) {
+        ECPoint[] R = new ECPoint[] { p.getCurve().getInfinity(), p };
+
+        for(int i = k.bitLength() - 1;i >= 0;--i) {
+            int b = k.testBit(i) ? 1 : 0;
+            R[1 - b] = R[1 - b].add(R[b]);
+            R[b] = R[b].twice();
+        }
+
+        return R[0];
+    }
+}
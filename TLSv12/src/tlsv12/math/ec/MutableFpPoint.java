@@ -0,0 +1,414 @@
+package tlsv12.math.ec;
+
+/**
+ * A point on a prime curve in Jacobian co-ordinates, held as word arrays and
+ * changed in place. A scalar multiplication creates one, runs all of its
+ * doublings and additions on it, and only creates an {@link ECPoint} for the
+ * result, where the immutable points would create new points and field
+ * elements at every step.
+ * <p>
+ * Points are only added from a {@link Table} of affine points, which is all
+ * the multipliers need, so every addition is a mixed addition.
+ */
+final class MutableFpPoint {
+
+    /**
+     * A table of precomputed affine points, packed into one word array with
+     * each entry's x co-ordinate followed by its y co-ordinate. The y
+     * co-ordinates of the negated entries may be packed into a second array.
+     */
+    static final class Table {
+        final ECCurve curve;
+
+        final RawFpField field;
+
+        final int len;
+
+        final int[] points;
+
+        final int[] negYs;
+
+        final boolean[] infinity;
+
+
+        Table(ECCurve curve, RawFpField field, ECPoint[] source,
+                boolean includeNegated) {
+            int n = source.length;
+
+            this.curve = curve;
+            this.field = field;
+            this.len = field.getLength();
+            this.points = new int[n * 2 * len];
+            this.negYs = includeNegated ? new int[n * len] : null;
+            this.infinity = new boolean[n];
+
+            int[] x = new int[len], y = new int[len];
+            for(int i = 0;i < n;++i) {
+                ECPoint p = source[i];
+                if( p == null || p.isInfinity() ) {
+                    infinity[i] = true;
+                    continue;
+                }
+                if( !p.isNormalized() ) {
+                    p = p.normalize();
+                }
+
+                field.copy(p.getXCoord(), x);
+                field.copy(p.getYCoord(), y);
+                System.arraycopy(x, 0, points, i * 2 * len, len);
+                System.arraycopy(y, 0, points, i * 2 * len + len, len);
+                if( negYs != null ) {
+                    field.negate(y, y);
+                    System.arraycopy(y, 0, negYs, i * len, len);
+                }
+            }
+        }
+
+
+        /**
+         * Get the number of entries.
+         */
+        int size() {
+            return infinity.length;
+        }
+
+
+        /**
+         * Create the table's entries as points, for code which needs the
+         * points rather than the words.
+         *
+         * @return the points
+         */
+        ECPoint[] toPoints() {
+            int n = size();
+            ECPoint[] result = new ECPoint[n];
+            int[] x = new int[len], y = new int[len];
+            for(int i = 0;i < n;++i) {
+                if( infinity[i] ) {
+                    result[i] = curve.getInfinity();
+                    continue;
+                }
+                System.arraycopy(points, i * 2 * len, x, 0, len);
+                System.arraycopy(points, i * 2 * len + len, y, 0, len);
+                result[i] = curve.createRawPoint(field.createFieldElement(x),
+                        field.createFieldElement(y), false);
+            }
+            return result;
+        }
+    }
+
+    // the value of the curve's a co-efficient
+    private static final int A_OTHER = 0, A_ZERO = 1, A_MINUS_3 = 2;
+
+    private final ECCurve curve;
+
+    private final RawFpField field;
+
+    private final int[] x, y, z;
+
+    private boolean infinity = true;
+
+    private final int[] a;
+
+    private final int aType;
+
+    private final int[] one;
+
+    // scratch space, including the double length product
+    private final int[] t1, t2, t3, t4, t5, tt;
+
+    // the table entry being added
+    private final int[] ax, ay;
+
+
+    private MutableFpPoint(ECCurve curve, RawFpField field) {
+        int len = field.getLength();
+
+        this.curve = curve;
+        this.field = field;
+        this.x = new int[len];
+        this.y = new int[len];
+        this.z = new int[len];
+        this.a = new int[len];
+        this.one = new int[len];
+        this.t1 = new int[len];
+        this.t2 = new int[len];
+        this.t3 = new int[len];
+        this.t4 = new int[len];
+        this.t5 = new int[len];
+        this.tt = new int[len << 1];
+        this.ax = new int[len];
+        this.ay = new int[len];
+
+        field.one(one);
+        field.copy(curve.getA(), a);
+
+        field.add(a, one, t1);
+        field.add(t1, one, t1);
+        field.add(t1, one, t1);
+        if( field.isZero(a) ) {
+            aType = A_ZERO;
+        } else if( field.isZero(t1) ) {
+            aType = A_MINUS_3;
+        } else {
+            aType = A_OTHER;
+        }
+    }
+
+
+    /**
+     * Create the point at infinity for a curve, if its field has word
+     * arithmetic.
+     *
+     * @param curve
+     *            the curve
+     * @return the point, or null if the curve's points must be used
+     */
+    static MutableFpPoint create(ECCurve curve) {
+        RawFpField field = curve.getRawFpField();
+        return (field == null) ? null : new MutableFpPoint(curve, field);
+    }
+
+
+    /**
+     * Pack a comb table for a curve, if its field has word arithmetic.
+     *
+     * @param curve
+     *            the curve
+     * @param points
+     *            the table's points
+     * @return the packed table, or null if the curve's points must be used
+     */
+    static Table createTable(ECCurve curve, ECPoint[] points) {
+        RawFpField field = curve.getRawFpField();
+        return (field == null) ? null : new Table(curve, field, points, false);
+    }
+
+
+    /**
+     * Get the words of a wNAF table, building them on first use. Stored
+     * tables are replaced rather than extended, so the words never go stale.
+     */
+    Table getTable(WNafPreCompInfo info) {
+        Table table = info.table;
+        if( table == null ) {
+            table = new Table(curve, field, info.getPreComp(), true);
+            info.table = table;
+        }
+        return table;
+    }
+
+
+    /**
+     * Get the words of a comb table. These are normally built with the table,
+     * but a table published with only points gets them here.
+     */
+    Table getTable(FixedPointPreCompInfo info) {
+        Table table = info.table;
+        if( table == null ) {
+            table = new Table(curve, field, info.getPreComp(), false);
+            info.table = table;
+        }
+        return table;
+    }
+
+
+    void setInfinity() {
+        infinity = true;
+    }
+
+
+    /**
+     * Double this point.
+     */
+    void twice() {
+        if( infinity ) {
+            return;
+        }
+        if( field.isZero(y) ) {
+            infinity = true;
+            return;
+        }
+
+        RawFpField f = field;
+        int[] zz = t1, m = t2, s = t3, yy = t4;
+
+        f.square(z, zz, tt);
+        f.multiply(y, z, z, tt);
+        f.twice(z, z);
+
+        switch (aType) {
+        case A_MINUS_3:
+            // 3(X - Z^2)(X + Z^2)
+            f.subtract(x, zz, m);
+            f.add(x, zz, t5);
+            f.multiply(m, t5, m, tt);
+            triple(m);
+            break;
+        case A_ZERO:
+            f.square(x, m, tt);
+            triple(m);
+            break;
+        default:
+            f.square(x, m, tt);
+            triple(m);
+            f.square(zz, zz, tt);
+            f.multiply(zz, a, zz, tt);
+            f.add(m, zz, m);
+            break;
+        }
+
+        f.square(y, yy, tt);
+        f.multiply(x, yy, s, tt);
+        f.twice(s, s);
+        f.twice(s, s);
+
+        f.square(yy, yy, tt);
+        f.twice(yy, yy);
+        f.twice(yy, yy);
+        f.twice(yy, yy);
+
+        f.square(m, x, tt);
+        f.subtract(x, s, x);
+        f.subtract(x, s, x);
+
+        f.subtract(s, x, s);
+        f.multiply(m, s, s, tt);
+        f.subtract(s, yy, y);
+    }
+
+
+    /**
+     * Double this point a number of times.
+     */
+    void timesPow2(int e) {
+        while( --e >= 0 ) {
+            twice();
+        }
+    }
+
+
+    /**
+     * Add an entry of a table to this point.
+     *
+     * @param table
+     *            the table
+     * @param index
+     *            the index of the entry
+     * @param negate
+     *            whether to add the negation of the entry
+     */
+    void add(Table table, int index, boolean negate) {
+        if( table.infinity[index] ) {
+            return;
+        }
+
+        int len = table.len, off = index * 2 * len;
+        System.arraycopy(table.points, off, ax, 0, len);
+        if( negate ) {
+            System.arraycopy(table.negYs, index * len, ay, 0, len);
+        } else {
+            System.arraycopy(table.points, off + len, ay, 0, len);
+        }
+        add(ax, ay);
+    }
+
+
+    /**
+     * Add an affine point to this point.
+     */
+    private void add(int[] px, int[] py) {
+        RawFpField f = field;
+        int len = f.getLength();
+
+        if( infinity ) {
+            System.arraycopy(px, 0, x, 0, len);
+            System.arraycopy(py, 0, y, 0, len);
+            System.arraycopy(one, 0, z, 0, len);
+            infinity = false;
+            return;
+        }
+
+        int[] h = t2, r = t3;
+
+        f.square(z, t1, tt);
+        f.multiply(px, t1, h, tt);
+        f.multiply(t1, z, t1, tt);
+        f.multiply(py, t1, r, tt);
+        f.subtract(h, x, h);
+        f.subtract(r, y, r);
+
+        if( f.isZero(h) ) {
+            if( f.isZero(r) ) {
+                twice();
+            } else {
+                infinity = true;
+            }
+            return;
+        }
+
+        int[] hh = t1, v = t4;
+
+        f.multiply(z, h, z, tt);
+        f.square(h, hh, tt);
+        f.multiply(h, hh, h, tt);
+        f.multiply(x, hh, v, tt);
+        f.multiply(y, h, y, tt);
+
+        f.square(r, x, tt);
+        f.subtract(x, h, x);
+        f.subtract(x, v, x);
+        f.subtract(x, v, x);
+
+        f.subtract(v, x, v);
+        f.multiply(r, v, v, tt);
+        f.subtract(v, y, y);
+    }
+
+
+    private void triple(int[] m) {
+        field.twice(m, t5);
+        field.add(m, t5, m);
+    }
+
+
+    /**
+     * Create the point equal to this one, in the curve's co-ordinates. Only
+     * curves without Jacobian co-ordinates need an inversion here.
+     *
+     * @return the point
+     */
+    ECPoint toECPoint() {
+        if( infinity ) {
+            return curve.getInfinity();
+        }
+
+        RawFpField f = field;
+        switch (curve.getCoordinateSystem()) {
+        case ECCurve.COORD_JACOBIAN:
+            return curve.createRawPoint(f.createFieldElement(x),
+                    f.createFieldElement(y),
+                    new ECFieldElement[] { f.createFieldElement(z) }, false);
+        case ECCurve.COORD_JACOBIAN_MODIFIED:
+            // W = a * Z^4
+            f.square(z, t1, tt);
+            f.square(t1, t1, tt);
+            f.multiply(a, t1, t1, tt);
+            return curve.createRawPoint(f.createFieldElement(x),
+                    f.createFieldElement(y), new ECFieldElement[] {
+                            f.createFieldElement(z), f.createFieldElement(t1) },
+                    false);
+        default:
+            break;
+        }
+
+        f.copy(f.createFieldElement(z).invert(), t1);
+        f.square(t1, t2, tt);
+        f.multiply(t1, t2, t1, tt);
+        f.multiply(x, t2, t2, tt);
+        f.multiply(y, t1, t1, tt);
+
+        return curve.createRawPoint(f.createFieldElement(t2),
+                f.createFieldElement(t1), false);
+    }
+}
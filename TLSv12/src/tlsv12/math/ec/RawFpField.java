@@ -0,0 +1,89 @@
+package tlsv12.math.ec;
+
+import tlsv12.math.raw.Nat;
+
+/**
+ * Arithmetic on elements of a prime field held as fixed width word arrays,
+ * writing into arrays supplied by the caller. Curves which provide one let
+ * scalar multiplications run on a {@link MutableFpPoint}, which needs no new
+ * objects for each point addition or doubling.
+ * <p>
+ * Results may be written over either operand. Multiplication and squaring
+ * take a scratch array of <code>2 * getLength()</code> words for the
+ * unreduced product.
+ */
+public abstract class RawFpField {
+    /** The number of words in an element */
+    protected final int len;
+
+
+    protected RawFpField(int len) {
+        this.len = len;
+    }
+
+
+    /**
+     * Get the number of words in an element.
+     *
+     * @return the number of words
+     */
+    public int getLength() {
+        return len;
+    }
+
+
+    /**
+     * Copy a field element of this field into an array.
+     *
+     * @param x
+     *            the element
+     * @param z
+     *            the array to write
+     */
+    public abstract void copy(ECFieldElement x, int[] z);
+
+
+    /**
+     * Create a field element holding a copy of an array.
+     *
+     * @param x
+     *            the array
+     * @return the new element
+     */
+    public abstract ECFieldElement createFieldElement(int[] x);
+
+
+    /**
+     * Set an array to the field's one.
+     *
+     * @param z
+     *            the array to write
+     */
+    public void one(int[] z) {
+        Nat.zero(len, z);
+        z[0] = 1;
+    }
+
+
+    public abstract void add(int[] x, int[] y, int[] z);
+
+
+    public abstract void subtract(int[] x, int[] y, int[] z);
+
+
+    public abstract void twice(int[] x, int[] z);
+
+
+    public abstract void negate(int[] x, int[] z);
+
+
+    public abstract void multiply(int[] x, int[] y, int[] z, int[] tt);
+
+
+    public abstract void square(int[] x, int[] z, int[] tt);
+
+
+    public boolean isZero(int[] x) {
+        return Nat.isZero(len, x);
+    }
+}
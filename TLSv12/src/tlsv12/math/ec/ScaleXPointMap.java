@@ -0,0 +1,18 @@
+package tlsv12.math.ec;
+
+/**
+ * Maps a point to the one with its x coordinate multiplied by a constant.
+ */
+public class ScaleXPointMap implements ECPointMap {
+    protected final ECFieldElement scale;
+
+
+    public ScaleXPointMap(ECFieldElement scale) {
+        this.scale = scale;
+    }
+
+
+    public ECPoint map(ECPoint p) {
+        return p.scaleX(scale);
+    }
+}
@@ -7,6 +7,40 @@ import java.math.BigInteger;
  * algorithm.
  */
 public class WNafL2RMultiplier extends AbstractECMultiplier {
+    // the window width, or zero to choose it by the length of the scalar
+    private final int width;
+
+
+    public WNafL2RMultiplier() {
+        this(0);
+    }
+
+
+    /**
+     * Create a multiplier with a fixed window width.
+     *
+     * @param width
+     *            the width, from 2 to 16, or zero to choose it for each
+     *            scalar by its length
+     */
+    public WNafL2RMultiplier(int width) {
+        if( width != 0 && (width < 2 || width > 16) ) {
+            throw new IllegalArgumentException("Invalid window width "
+                    + width);
+        }
+        this.width = width;
+    }
+
+
+    /**
+     * Get the fixed window width.
+     *
+     * @return the width, or zero if it is chosen by the length of the scalar
+     */
+    public int getWidth() {
+        return width;
+    }
+
     /**
      * Multiplies <code>this</code> by an integer <code>k</code> using the
      * Window NAF method.
@@ -20,12 +54,20 @@ public class WNafL2RMultiplier extends AbstractECMultiplier {
         // Clamp the window width in the range [2, 16]
         int width = Math.max(2, Math.min(16, getWindowSize(k.bitLength())));
 
-        WNafPreCompInfo wnafPreCompInfo = WNafUtil.precompute(p, width, true);
-        ECPoint[] preComp = wnafPreCompInfo.getPreComp();
-        ECPoint[] preCompNeg = wnafPreCompInfo.getPreCompNeg();
+        MutableFpPoint M = MutableFpPoint.create(p.getCurve());
 
+        WNafPreCompInfo wnafPreCompInfo = WNafUtil.precompute(p, width,
+                M == null);
         int[] wnaf = WNafUtil.generateCompactWindowNaf(width, k);
 
+        if( M != null ) {
+            return multiplyPositive(M, M.getTable(wnafPreCompInfo), width,
+                    wnaf);
+        }
+
+        ECPoint[] preComp = wnafPreCompInfo.getPreComp();
+        ECPoint[] preCompNeg = wnafPreCompInfo.getPreCompNeg();
+
         ECPoint R = p.getCurve().getInfinity();
 
         int i = wnaf.length;
@@ -82,6 +124,52 @@ public class WNafL2RMultiplier extends AbstractECMultiplier {
     }
 
 
+    /**
+     * The same multiplication on a mutable point, adding the negations of
+     * table entries rather than entries of a second table.
+     */
+    private static ECPoint multiplyPositive(MutableFpPoint R,
+            MutableFpPoint.Table table, int width, int[] wnaf) {
+        int i = wnaf.length;
+
+        if( i > 1 ) {
+            int wi = wnaf[--i];
+            int digit = wi >> 16, zeroes = wi & 0xFFFF;
+
+            int n = Math.abs(digit);
+            boolean negate = digit < 0;
+
+            if( (n << 2) < (1 << width) ) {
+                int highest = LongArray.bitLengths[n];
+                int scale = width - highest;
+                int lowBits = n ^ (1 << (highest - 1));
+
+                int i1 = ((1 << (width - 1)) - 1);
+                int i2 = (lowBits << scale) + 1;
+                R.add(table, i1 >>> 1, negate);
+                R.add(table, i2 >>> 1, negate);
+
+                zeroes -= scale;
+            } else {
+                R.add(table, n >>> 1, negate);
+            }
+
+            R.timesPow2(zeroes);
+        }
+
+        while( i > 0 ) {
+            int wi = wnaf[--i];
+            int digit = wi >> 16, zeroes = wi & 0xFFFF;
+
+            R.twice();
+            R.add(table, Math.abs(digit) >>> 1, digit < 0);
+            R.timesPow2(zeroes);
+        }
+
+        return R.toECPoint();
+    }
+
+
     /**
      * Determine window width to use for a scalar multiplication of the given
      * size.
@@ -91,6 +179,9 @@ public class WNafL2RMultiplier extends AbstractECMultiplier {
      * @return the window size to use
      */
     protected int getWindowSize(int bits) {
+        if( width != 0 ) {
+            return width;
+        }
         return WNafUtil.getWindowSize(bits);
     }
 }
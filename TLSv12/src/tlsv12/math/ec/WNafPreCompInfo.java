@@ -23,6 +23,12 @@ public class WNafPreCompInfo implements PreCompInfo {
      */
     protected ECPoint twice = null;
 
+    /**
+     * The precomputed points as words, for multiplying on a
+     * {@link MutableFpPoint}.
+     */
+    volatile MutableFpPoint.Table table = null;
+
 
     public ECPoint[] getPreComp() {
         return preComp;
@@ -273,8 +273,7 @@ public abstract class WNafUtil {
         WNafPreCompInfo wnafPreCompP = precompute(p, width, includeNegated);
 
         ECPoint q = pointMap.map(p);
-        WNafPreCompInfo wnafPreCompQ = getWNafPreCompInfo(c.getPreCompInfo(q,
-                PRECOMP_NAME));
+        WNafPreCompInfo wnafPreCompQ = new WNafPreCompInfo();
 
         ECPoint twiceP = wnafPreCompP.getTwice();
         if( twiceP != null ) {
@@ -306,11 +305,26 @@ public abstract class WNafUtil {
     public static WNafPreCompInfo precompute(ECPoint p, int width,
             boolean includeNegated) {
         ECCurve c = p.getCurve();
-        WNafPreCompInfo wnafPreCompInfo = getWNafPreCompInfo(c.getPreCompInfo(
-                p, PRECOMP_NAME));
+        WNafPreCompInfo existing = getWNafPreCompInfo(c.getPreCompInfo(p,
+                PRECOMP_NAME));
 
         int iniPreCompLen = 0, reqPreCompLen = 1 << Math.max(0, width - 2);
 
+        if( covers(existing.getPreComp(), reqPreCompLen)
+                && (!includeNegated || covers(existing.getPreCompNeg(),
+                        reqPreCompLen)) ) {
+            return existing;
+        }
+
+        /*
+         * The stored information may be in use by other threads, so extend a
+         * copy and publish that.
+         */
+        WNafPreCompInfo wnafPreCompInfo = new WNafPreCompInfo();
+        wnafPreCompInfo.setPreComp(existing.getPreComp());
+        wnafPreCompInfo.setPreCompNeg(existing.getPreCompNeg());
+        wnafPreCompInfo.setTwice(existing.getTwice());
+
         ECPoint[] preComp = wnafPreCompInfo.getPreComp();
         if( preComp == null ) {
             preComp = EMPTY_POINTS;
@@ -424,6 +438,11 @@ public abstract class WNafUtil {
     }
 
 
+    private static boolean covers(ECPoint[] table, int length) {
+        return table != null && table.length >= length;
+    }
+
+
     private static byte[] trim(byte[] a, int length) {
         byte[] result = new byte[length];
         System.arraycopy(a, 0, result, 0, result.length);
@@ -0,0 +1,53 @@
+package tlsv12.math.ec.custom.sec;
+
+import tlsv12.math.ec.ECConstants;
+import tlsv12.math.ec.ECCurve;
+import tlsv12.math.ec.endo.GLVTypeBEndomorphism;
+import tlsv12.math.ec.endo.GLVTypeBParameters;
+import tlsv12.util.encoders.Hex;
+
+import java.math.BigInteger;
+
+/**
+ * The secp256k1 curve, <code>y^2 = x^3 + 7</code>. Its field arithmetic is the
+ * generic Montgomery arithmetic of {@link ECCurve.Fp}, but it carries the GLV
+ * endomorphism of the curve, so that multiplications of arbitrary points
+ * need half the doublings.
+ */
+public class SecP256K1Curve extends ECCurve.Fp {
+    public static final BigInteger q = new BigInteger(
+            1,
+            Hex.decode("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEFFFFFC2F"));
+
+    private static final BigInteger N = new BigInteger(
+            1,
+            Hex.decode("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEBAAEDCE6AF48A03BBFD25E8CD0364141"));
+
+    private static final GLVTypeBParameters GLV_PARAMETERS = new GLVTypeBParameters(
+            new BigInteger(
+                    "7ae96a2b657c07106e64479eac3434e99cf0497512f58995c1396c28719501ee",
+                    16),
+            new BigInteger(
+                    "5363ad4cc05c30e0a5261c028812645a122e22ea20816678df02967c1b23bd72",
+                    16),
+            new BigInteger[] {
+                    new BigInteger("3086d221a7d46bcde86c90e49284eb15", 16),
+                    new BigInteger("-e4437ed6010e88286f547fa90abfe4c3", 16) },
+            new BigInteger[] {
+                    new BigInteger("114ca50f7a8e2f3f657c1108d9d44cfd8", 16),
+                    new BigInteger("3086d221a7d46bcde86c90e49284eb15", 16) },
+            new BigInteger("3086d221a7d46bcde86c90e49284eb153dab", 16),
+            new BigInteger("e4437ed6010e88286f547fa90abfe4c42212", 16), 272);
+
+
+    public SecP256K1Curve() {
+        super(q, ECConstants.ZERO, BigInteger.valueOf(7), N, ECConstants.ONE);
+
+        this.endomorphism = new GLVTypeBEndomorphism(this, GLV_PARAMETERS);
+    }
+
+
+    protected ECCurve cloneCurve() {
+        return new SecP256K1Curve();
+    }
+}
@@ -0,0 +1,152 @@
+package tlsv12.math.ec.custom.sec;
+
+import tlsv12.math.ec.ECCurve;
+import tlsv12.math.ec.ECFieldElement;
+import tlsv12.math.ec.ECPoint;
+import tlsv12.math.ec.RawFpField;
+import tlsv12.math.raw.Nat256;
+import tlsv12.util.encoders.Hex;
+
+import java.math.BigInteger;
+
+/**
+ * The NIST P-256 curve (secp256r1), with field arithmetic on fixed width word
+ * arrays rather than <code>BigInteger</code>.
+ */
+public class SecP256R1Curve extends ECCurve.AbstractFp {
+    public static final BigInteger q = new BigInteger(
+            1,
+            Hex.decode("FFFFFFFF00000001000000000000000000000000FFFFFFFFFFFFFFFFFFFFFFFF"));
+
+    private static final int SecP256R1_DEFAULT_COORDS = COORD_JACOBIAN;
+
+    private static final RawFpField RAW_FIELD = new RawField();
+
+    protected SecP256R1Point infinity;
+
+
+    public SecP256R1Curve() {
+        super(q);
+
+        this.infinity = new SecP256R1Point(this, null, null, false);
+
+        this.a = fromBigInteger(new BigInteger(
+                1,
+                Hex.decode("FFFFFFFF00000001000000000000000000000000FFFFFFFFFFFFFFFFFFFFFFFC")));
+        this.b = fromBigInteger(new BigInteger(
+                1,
+                Hex.decode("5AC635D8AA3A93E7B3EBBD55769886BC651D06B0CC53B0F63BCE3C3E27D2604B")));
+        this.order = new BigInteger(
+                1,
+                Hex.decode("FFFFFFFF00000000FFFFFFFFFFFFFFFFBCE6FAADA7179E84F3B9CAC2FC632551"));
+        this.cofactor = BigInteger.valueOf(1);
+
+        this.coord = SecP256R1_DEFAULT_COORDS;
+    }
+
+
+    protected ECCurve cloneCurve() {
+        return new SecP256R1Curve();
+    }
+
+
+    public boolean supportsCoordinateSystem(int coord) {
+        switch (coord) {
+        case COORD_JACOBIAN:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+
+    public BigInteger getQ() {
+        return q;
+    }
+
+
+    public int getFieldSize() {
+        return q.bitLength();
+    }
+
+
+    public ECFieldElement fromBigInteger(BigInteger x) {
+        return new SecP256R1FieldElement(x);
+    }
+
+
+    protected ECPoint createRawPoint(ECFieldElement x, ECFieldElement y,
+            boolean withCompression) {
+        return new SecP256R1Point(this, x, y, withCompression);
+    }
+
+
+    protected ECPoint createRawPoint(ECFieldElement x, ECFieldElement y,
+            ECFieldElement[] zs, boolean withCompression) {
+        return new SecP256R1Point(this, x, y, zs, withCompression);
+    }
+
+
+    protected RawFpField getRawFpField() {
+        return RAW_FIELD;
+    }
+
+
+    public ECPoint getInfinity() {
+        return infinity;
+    }
+
+
+    /**
+     * The field arithmetic on word arrays, for scalar multiplication.
+     */
+    private static class RawField extends RawFpField {
+        RawField() {
+            super(8);
+        }
+
+
+        public void copy(ECFieldElement x, int[] z) {
+            System.arraycopy(((SecP256R1FieldElement) x).x, 0, z, 0, 8);
+        }
+
+
+        public ECFieldElement createFieldElement(int[] x) {
+            int[] z = Nat256.create();
+            Nat256.copy(x, z);
+            return new SecP256R1FieldElement(z);
+        }
+
+
+        public void add(int[] x, int[] y, int[] z) {
+            SecP256R1Field.add(x, y, z);
+        }
+
+
+        public void subtract(int[] x, int[] y, int[] z) {
+            SecP256R1Field.subtract(x, y, z);
+        }
+
+
+        public void twice(int[] x, int[] z) {
+            SecP256R1Field.twice(x, z);
+        }
+
+
+        public void negate(int[] x, int[] z) {
+            SecP256R1Field.negate(x, z);
+        }
+
+
+        public void multiply(int[] x, int[] y, int[] z, int[] tt) {
+            Nat256.mul(x, y, tt);
+            SecP256R1Field.reduce(tt, z);
+        }
+
+
+        public void square(int[] x, int[] z, int[] tt) {
+            Nat256.square(x, tt);
+            SecP256R1Field.reduce(tt, z);
+        }
+    }
+}
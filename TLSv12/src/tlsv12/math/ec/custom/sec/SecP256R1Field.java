@@ -0,0 +1,258 @@
+package tlsv12.math.ec.custom.sec;
+
+import tlsv12.math.raw.Nat;
+import tlsv12.math.raw.Nat256;
+
+import java.math.BigInteger;
+
+/**
+ * Arithmetic modulo the NIST P-256 prime, p = 2^256 - 2^224 + 2^192 + 2^96 -
+ * 1, on eight word values. Products are reduced with the fast reduction of
+ * FIPS 186 D.2.3, which replaces division by a handful of word additions.
+ */
+public class SecP256R1Field {
+    private static final long M = 0xFFFFFFFFL;
+
+    // 2^256 - 2^224 + 2^192 + 2^96 - 1
+    static final int[] P = new int[] { 0xFFFFFFFF, 0xFFFFFFFF, 0xFFFFFFFF,
+            0x00000000, 0x00000000, 0x00000000, 0x00000001, 0xFFFFFFFF };
+
+    private static final int P7 = 0xFFFFFFFF;
+
+
+    public static void add(int[] x, int[] y, int[] z) {
+        int c = Nat256.add(x, y, z);
+        if( c != 0 || (z[7] == P7 && Nat256.gte(z, P)) ) {
+            addPInvTo(z);
+        }
+    }
+
+
+    public static void addOne(int[] x, int[] z) {
+        int c = Nat.inc(8, x, z);
+        if( c != 0 || (z[7] == P7 && Nat256.gte(z, P)) ) {
+            addPInvTo(z);
+        }
+    }
+
+
+    public static int[] fromBigInteger(BigInteger x) {
+        int[] z = Nat256.fromBigInteger(x);
+        if( z[7] == P7 && Nat256.gte(z, P) ) {
+            Nat256.subFrom(P, z);
+        }
+        return z;
+    }
+
+
+    public static void half(int[] x, int[] z) {
+        if( (x[0] & 1) == 0 ) {
+            Nat.shiftDownBit(8, x, 0, z);
+        } else {
+            int c = Nat256.add(x, P, z);
+            Nat.shiftDownBit(8, z, c);
+        }
+    }
+
+
+    public static void multiply(int[] x, int[] y, int[] z) {
+        int[] tt = Nat256.createExt();
+        Nat256.mul(x, y, tt);
+        reduce(tt, z);
+    }
+
+
+    public static void negate(int[] x, int[] z) {
+        if( Nat256.isZero(x) ) {
+            Nat256.zero(z);
+        } else {
+            Nat256.sub(P, x, z);
+        }
+    }
+
+
+    /**
+     * Reduce a 512 bit value modulo p. Each output word is the signed sum of
+     * the input words given by the NIST reduction identities; the carry out of
+     * the top word is then folded back in by {@link #reduce32(int, int[])}.
+     */
+    public static void reduce(int[] xx, int[] z) {
+        long c8 = xx[8] & M, c9 = xx[9] & M, c10 = xx[10] & M, c11 = xx[11]
+                & M;
+        long c12 = xx[12] & M, c13 = xx[13] & M, c14 = xx[14] & M, c15 = xx[15]
+                & M;
+
+        long cc = 0;
+        cc += (xx[0] & M) + c8 + c9 - c11 - c12 - c13 - c14;
+        z[0] = (int) cc;
+        cc >>= 32;
+        cc += (xx[1] & M) + c9 + c10 - c12 - c13 - c14 - c15;
+        z[1] = (int) cc;
+        cc >>= 32;
+        cc += (xx[2] & M) + c10 + c11 - c13 - c14 - c15;
+        z[2] = (int) cc;
+        cc >>= 32;
+        cc += (xx[3] & M) + ((c11 + c12) << 1) + c13 - c15 - c8 - c9;
+        z[3] = (int) cc;
+        cc >>= 32;
+        cc += (xx[4] & M) + ((c12 + c13) << 1) + c14 - c9 - c10;
+        z[4] = (int) cc;
+        cc >>= 32;
+        cc += (xx[5] & M) + ((c13 + c14) << 1) + c15 - c10 - c11;
+        z[5] = (int) cc;
+        cc >>= 32;
+        cc += (xx[6] & M) + ((c14 + c15) << 1) + c14 + c13 - c8 - c9;
+        z[6] = (int) cc;
+        cc >>= 32;
+        cc += (xx[7] & M) + (c15 << 1) + c15 + c8 - c10 - c11 - c12 - c13;
+        z[7] = (int) cc;
+        cc >>= 32;
+
+        reduce32((int) cc, z);
+    }
+
+
+    /**
+     * Reduce <code>x * 2^256 + z</code> modulo p, where x is a small signed
+     * value, using 2^256 = 2^224 - 2^192 - 2^96 + 1 (mod p).
+     */
+    public static void reduce32(int x, int[] z) {
+        long cc = 0;
+
+        if( x != 0 ) {
+            long xx08 = x;
+
+            cc += (z[0] & M) + xx08;
+            z[0] = (int) cc;
+            cc >>= 32;
+            cc += (z[1] & M);
+            z[1] = (int) cc;
+            cc >>= 32;
+            cc += (z[2] & M);
+            z[2] = (int) cc;
+            cc >>= 32;
+            cc += (z[3] & M) - xx08;
+            z[3] = (int) cc;
+            cc >>= 32;
+            cc += (z[4] & M);
+            z[4] = (int) cc;
+            cc >>= 32;
+            cc += (z[5] & M);
+            z[5] = (int) cc;
+            cc >>= 32;
+            cc += (z[6] & M) - xx08;
+            z[6] = (int) cc;
+            cc >>= 32;
+            cc += (z[7] & M) + xx08;
+            z[7] = (int) cc;
+            cc >>= 32;
+
+            // assert cc >= -1 && cc <= 1;
+        }
+
+        if( cc > 0 || (cc == 0 && z[7] == P7 && Nat256.gte(z, P)) ) {
+            addPInvTo(z);
+        } else if( cc < 0 ) {
+            subPInvFrom(z);
+        }
+    }
+
+
+    public static void square(int[] x, int[] z) {
+        int[] tt = Nat256.createExt();
+        Nat256.square(x, tt);
+        reduce(tt, z);
+    }
+
+
+    public static void squareN(int[] x, int n, int[] z) {
+        // assert n > 0;
+
+        int[] tt = Nat256.createExt();
+        Nat256.square(x, tt);
+        reduce(tt, z);
+
+        while( --n > 0 ) {
+            Nat256.square(z, tt);
+            reduce(tt, z);
+        }
+    }
+
+
+    public static void subtract(int[] x, int[] y, int[] z) {
+        int c = Nat256.sub(x, y, z);
+        if( c != 0 ) {
+            subPInvFrom(z);
+        }
+    }
+
+
+    public static void twice(int[] x, int[] z) {
+        int c = Nat.shiftUpBit(8, x, 0, z);
+        if( c != 0 || (z[7] == P7 && Nat256.gte(z, P)) ) {
+            addPInvTo(z);
+        }
+    }
+
+
+    /**
+     * Adds 2^256 - p, discarding the carry. This is a subtraction of p from a
+     * value that has overflowed, or is at least p.
+     */
+    private static void addPInvTo(int[] z) {
+        long c = (z[0] & M) + 1;
+        z[0] = (int) c;
+        c >>= 32;
+        c += (z[1] & M);
+        z[1] = (int) c;
+        c >>= 32;
+        c += (z[2] & M);
+        z[2] = (int) c;
+        c >>= 32;
+        c += (z[3] & M) - 1;
+        z[3] = (int) c;
+        c >>= 32;
+        c += (z[4] & M);
+        z[4] = (int) c;
+        c >>= 32;
+        c += (z[5] & M);
+        z[5] = (int) c;
+        c >>= 32;
+        c += (z[6] & M) - 1;
+        z[6] = (int) c;
+        c >>= 32;
+        c += (z[7] & M) + 1;
+        z[7] = (int) c;
+    }
+
+
+    /**
+     * Subtracts 2^256 - p, discarding the borrow. This is an addition of p to
+     * a value that has underflowed.
+     */
+    private static void subPInvFrom(int[] z) {
+        long c = (z[0] & M) - 1;
+        z[0] = (int) c;
+        c >>= 32;
+        c += (z[1] & M);
+        z[1] = (int) c;
+        c >>= 32;
+        c += (z[2] & M);
+        z[2] = (int) c;
+        c >>= 32;
+        c += (z[3] & M) + 1;
+        z[3] = (int) c;
+        c >>= 32;
+        c += (z[4] & M);
+        z[4] = (int) c;
+        c >>= 32;
+        c += (z[5] & M);
+        z[5] = (int) c;
+        c >>= 32;
+        c += (z[6] & M) + 1;
+        z[6] = (int) c;
+        c >>= 32;
+        c += (z[7] & M) - 1;
+        z[7] = (int) c;
+    }
+}
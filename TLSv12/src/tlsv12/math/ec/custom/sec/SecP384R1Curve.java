@@ -0,0 +1,150 @@
+package tlsv12.math.ec.custom.sec;
+
+import tlsv12.math.ec.ECCurve;
+import tlsv12.math.ec.ECFieldElement;
+import tlsv12.math.ec.ECPoint;
+import tlsv12.math.ec.RawFpField;
+import tlsv12.math.raw.Nat;
+import tlsv12.util.encoders.Hex;
+
+import java.math.BigInteger;
+
+/**
+ * The NIST P-384 curve (secp384r1), with field arithmetic on fixed width word
+ * arrays rather than <code>BigInteger</code>.
+ */
+public class SecP384R1Curve extends ECCurve.AbstractFp {
+    public static final BigInteger q = new BigInteger(
+            1,
+            Hex.decode("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEFFFFFFFF0000000000000000FFFFFFFF"));
+
+    private static final int SecP384R1_DEFAULT_COORDS = COORD_JACOBIAN;
+
+    private static final RawFpField RAW_FIELD = new RawField();
+
+    protected SecP384R1Point infinity;
+
+
+    public SecP384R1Curve() {
+        super(q);
+
+        this.infinity = new SecP384R1Point(this, null, null, false);
+
+        this.a = fromBigInteger(new BigInteger(
+                1,
+                Hex.decode("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEFFFFFFFF0000000000000000FFFFFFFC")));
+        this.b = fromBigInteger(new BigInteger(
+                1,
+                Hex.decode("B3312FA7E23EE7E4988E056BE3F82D19181D9C6EFE8141120314088F5013875AC656398D8A2ED19D2A85C8EDD3EC2AEF")));
+        this.order = new BigInteger(
+                1,
+                Hex.decode("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFC7634D81F4372DDF581A0DB248B0A77AECEC196ACCC52973"));
+        this.cofactor = BigInteger.valueOf(1);
+
+        this.coord = SecP384R1_DEFAULT_COORDS;
+    }
+
+
+    protected ECCurve cloneCurve() {
+        return new SecP384R1Curve();
+    }
+
+
+    public boolean supportsCoordinateSystem(int coord) {
+        switch (coord) {
+        case COORD_JACOBIAN:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+
+    public BigInteger getQ() {
+        return q;
+    }
+
+
+    public int getFieldSize() {
+        return q.bitLength();
+    }
+
+
+    public ECFieldElement fromBigInteger(BigInteger x) {
+        return new SecP384R1FieldElement(x);
+    }
+
+
+    protected ECPoint createRawPoint(ECFieldElement x, ECFieldElement y,
+            boolean withCompression) {
+        return new SecP384R1Point(this, x, y, withCompression);
+    }
+
+
+    protected ECPoint createRawPoint(ECFieldElement x, ECFieldElement y,
+            ECFieldElement[] zs, boolean withCompression) {
+        return new SecP384R1Point(this, x, y, zs, withCompression);
+    }
+
+
+    protected RawFpField getRawFpField() {
+        return RAW_FIELD;
+    }
+
+
+    public ECPoint getInfinity() {
+        return infinity;
+    }
+
+
+    /**
+     * The field arithmetic on word arrays, for scalar multiplication.
+     */
+    private static class RawField extends RawFpField {
+        RawField() {
+            super(12);
+        }
+
+
+        public void copy(ECFieldElement x, int[] z) {
+            System.arraycopy(((SecP384R1FieldElement) x).x, 0, z, 0, 12);
+        }
+
+
+        public ECFieldElement createFieldElement(int[] x) {
+            return new SecP384R1FieldElement(Nat.copy(12, x));
+        }
+
+
+        public void add(int[] x, int[] y, int[] z) {
+            SecP384R1Field.add(x, y, z);
+        }
+
+
+        public void subtract(int[] x, int[] y, int[] z) {
+            SecP384R1Field.subtract(x, y, z);
+        }
+
+
+        public void twice(int[] x, int[] z) {
+            SecP384R1Field.twice(x, z);
+        }
+
+
+        public void negate(int[] x, int[] z) {
+            SecP384R1Field.negate(x, z);
+        }
+
+
+        public void multiply(int[] x, int[] y, int[] z, int[] tt) {
+            Nat.mul(12, x, y, tt);
+            SecP384R1Field.reduce(tt, z);
+        }
+
+
+        public void square(int[] x, int[] z, int[] tt) {
+            Nat.square(12, x, tt);
+            SecP384R1Field.reduce(tt, z);
+        }
+    }
+}
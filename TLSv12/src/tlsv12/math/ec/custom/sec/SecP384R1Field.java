@@ -0,0 +1,264 @@
+package tlsv12.math.ec.custom.sec;
+
+import tlsv12.math.raw.Nat;
+
+import java.math.BigInteger;
+
+/**
+ * Arithmetic modulo the NIST P-384 prime, p = 2^384 - 2^128 - 2^96 + 2^32 -
+ * 1, on twelve word values. Products are reduced with the fast reduction of
+ * FIPS 186 D.2.4.
+ */
+public class SecP384R1Field {
+    private static final long M = 0xFFFFFFFFL;
+
+    // 2^384 - 2^128 - 2^96 + 2^32 - 1
+    static final int[] P = new int[] { 0xFFFFFFFF, 0x00000000, 0x00000000,
+            0xFFFFFFFF, 0xFFFFFFFE, 0xFFFFFFFF, 0xFFFFFFFF, 0xFFFFFFFF,
+            0xFFFFFFFF, 0xFFFFFFFF, 0xFFFFFFFF, 0xFFFFFFFF };
+
+    private static final int P11 = 0xFFFFFFFF;
+
+
+    public static void add(int[] x, int[] y, int[] z) {
+        int c = Nat.add(12, x, y, z);
+        if( c != 0 || (z[11] == P11 && Nat.gte(12, z, P)) ) {
+            addPInvTo(z);
+        }
+    }
+
+
+    public static void addOne(int[] x, int[] z) {
+        int c = Nat.inc(12, x, z);
+        if( c != 0 || (z[11] == P11 && Nat.gte(12, z, P)) ) {
+            addPInvTo(z);
+        }
+    }
+
+
+    public static int[] fromBigInteger(BigInteger x) {
+        int[] z = Nat.fromBigInteger(384, x);
+        if( z[11] == P11 && Nat.gte(12, z, P) ) {
+            Nat.subFrom(12, P, z);
+        }
+        return z;
+    }
+
+
+    public static void half(int[] x, int[] z) {
+        if( (x[0] & 1) == 0 ) {
+            Nat.shiftDownBit(12, x, 0, z);
+        } else {
+            int c = Nat.add(12, x, P, z);
+            Nat.shiftDownBit(12, z, c);
+        }
+    }
+
+
+    public static void multiply(int[] x, int[] y, int[] z) {
+        int[] tt = Nat.create(24);
+        Nat.mul(12, x, y, tt);
+        reduce(tt, z);
+    }
+
+
+    public static void negate(int[] x, int[] z) {
+        if( Nat.isZero(12, x) ) {
+            Nat.zero(12, z);
+        } else {
+            Nat.sub(12, P, x, z);
+        }
+    }
+
+
+    /**
+     * Reduce a 768 bit value modulo p. Each output word is the signed sum of
+     * the input words given by the NIST reduction identities; the carry out of
+     * the top word is then folded back in by {@link #reduce32(int, int[])}.
+     */
+    public static void reduce(int[] xx, int[] z) {
+        long c12 = xx[12] & M, c13 = xx[13] & M, c14 = xx[14] & M, c15 = xx[15]
+                & M;
+        long c16 = xx[16] & M, c17 = xx[17] & M, c18 = xx[18] & M, c19 = xx[19]
+                & M;
+        long c20 = xx[20] & M, c21 = xx[21] & M, c22 = xx[22] & M, c23 = xx[23]
+                & M;
+
+        long cc = 0;
+        cc += (xx[0] & M) + c12 + c20 + c21 - c23;
+        z[0] = (int) cc;
+        cc >>= 32;
+        cc += (xx[1] & M) + c13 + c22 + c23 - c12 - c20;
+        z[1] = (int) cc;
+        cc >>= 32;
+        cc += (xx[2] & M) + c14 + c23 - c13 - c21;
+        z[2] = (int) cc;
+        cc >>= 32;
+        cc += (xx[3] & M) + c15 + c12 + c20 + c21 - c14 - c22 - c23;
+        z[3] = (int) cc;
+        cc >>= 32;
+        cc += (xx[4] & M) + (c21 << 1) + c16 + c13 + c12 + c20 + c22 - c15
+                - (c23 << 1);
+        z[4] = (int) cc;
+        cc >>= 32;
+        cc += (xx[5] & M) + (c22 << 1) + c17 + c14 + c13 + c21 + c23 - c16;
+        z[5] = (int) cc;
+        cc >>= 32;
+        cc += (xx[6] & M) + (c23 << 1) + c18 + c15 + c14 + c22 - c17;
+        z[6] = (int) cc;
+        cc >>= 32;
+        cc += (xx[7] & M) + c19 + c16 + c15 + c23 - c18;
+        z[7] = (int) cc;
+        cc >>= 32;
+        cc += (xx[8] & M) + c20 + c17 + c16 - c19;
+        z[8] = (int) cc;
+        cc >>= 32;
+        cc += (xx[9] & M) + c21 + c18 + c17 - c20;
+        z[9] = (int) cc;
+        cc >>= 32;
+        cc += (xx[10] & M) + c22 + c19 + c18 - c21;
+        z[10] = (int) cc;
+        cc >>= 32;
+        cc += (xx[11] & M) + c23 + c20 + c19 - c22;
+        z[11] = (int) cc;
+        cc >>= 32;
+
+        reduce32((int) cc, z);
+    }
+
+
+    /**
+     * Reduce <code>x * 2^384 + z</code> modulo p, where x is a small signed
+     * value, using 2^384 = 2^128 + 2^96 - 2^32 + 1 (mod p).
+     */
+    public static void reduce32(int x, int[] z) {
+        long cc = 0;
+
+        if( x != 0 ) {
+            long xx12 = x;
+
+            cc += (z[0] & M) + xx12;
+            z[0] = (int) cc;
+            cc >>= 32;
+            cc += (z[1] & M) - xx12;
+            z[1] = (int) cc;
+            cc >>= 32;
+            cc += (z[2] & M);
+            z[2] = (int) cc;
+            cc >>= 32;
+            cc += (z[3] & M) + xx12;
+            z[3] = (int) cc;
+            cc >>= 32;
+            cc += (z[4] & M) + xx12;
+            z[4] = (int) cc;
+            cc >>= 32;
+            for(int i = 5;i < 12;++i) {
+                if( cc == 0 ) {
+                    break;
+                }
+                cc += (z[i] & M);
+                z[i] = (int) cc;
+                cc >>= 32;
+            }
+
+            // assert cc >= -1 && cc <= 1;
+        }
+
+        if( cc > 0 || (cc == 0 && z[11] == P11 && Nat.gte(12, z, P)) ) {
+            addPInvTo(z);
+        } else if( cc < 0 ) {
+            subPInvFrom(z);
+        }
+    }
+
+
+    public static void square(int[] x, int[] z) {
+        int[] tt = Nat.create(24);
+        Nat.square(12, x, tt);
+        reduce(tt, z);
+    }
+
+
+    public static void squareN(int[] x, int n, int[] z) {
+        // assert n > 0;
+
+        int[] tt = Nat.create(24);
+        Nat.square(12, x, tt);
+        reduce(tt, z);
+
+        while( --n > 0 ) {
+            Nat.square(12, z, tt);
+            reduce(tt, z);
+        }
+    }
+
+
+    public static void subtract(int[] x, int[] y, int[] z) {
+        int c = Nat.sub(12, x, y, z);
+        if( c != 0 ) {
+            subPInvFrom(z);
+        }
+    }
+
+
+    public static void twice(int[] x, int[] z) {
+        int c = Nat.shiftUpBit(12, x, 0, z);
+        if( c != 0 || (z[11] == P11 && Nat.gte(12, z, P)) ) {
+            addPInvTo(z);
+        }
+    }
+
+
+    /**
+     * Adds 2^384 - p, discarding the carry.
+     */
+    private static void addPInvTo(int[] z) {
+        long c = (z[0] & M) + 1;
+        z[0] = (int) c;
+        c >>= 32;
+        c += (z[1] & M) - 1;
+        z[1] = (int) c;
+        c >>= 32;
+        c += (z[2] & M);
+        z[2] = (int) c;
+        c >>= 32;
+        c += (z[3] & M) + 1;
+        z[3] = (int) c;
+        c >>= 32;
+        c += (z[4] & M) + 1;
+        z[4] = (int) c;
+        c >>= 32;
+        for(int i = 5;i < 12 && c != 0;++i) {
+            c += (z[i] & M);
+            z[i] = (int) c;
+            c >>= 32;
+        }
+    }
+
+
+    /**
+     * Subtracts 2^384 - p, discarding the borrow.
+     */
+    private static void subPInvFrom(int[] z) {
+        long c = (z[0] & M) - 1;
+        z[0] = (int) c;
+        c >>= 32;
+        c += (z[1] & M) + 1;
+        z[1] = (int) c;
+        c >>= 32;
+        c += (z[2] & M);
+        z[2] = (int) c;
+        c >>= 32;
+        c += (z[3] & M) - 1;
+        z[3] = (int) c;
+        c >>= 32;
+        c += (z[4] & M) - 1;
+        z[4] = (int) c;
+        c >>= 32;
+        for(int i = 5;i < 12 && c != 0;++i) {
+            c += (z[i] & M);
+            z[i] = (int) c;
+            c >>= 32;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package tlsv12.math.ec.custom.sec;
+
+import tlsv12.math.ec.ECFieldElement;
+import tlsv12.math.raw.Mod;
+import tlsv12.math.raw.Nat;
+import tlsv12.util.Arrays;
+
+import java.math.BigInteger;
+
+public class SecP384R1FieldElement extends ECFieldElement {
+    public static final BigInteger Q = SecP384R1Curve.q;
+
+    protected int[] x;
+
+
+    public SecP384R1FieldElement(BigInteger x) {
+        if( x == null || x.signum() < 0 || x.compareTo(Q) >= 0 ) {
+            throw new IllegalArgumentException(
+                    "x value invalid for SecP384R1FieldElement");
+        }
+
+        this.x = SecP384R1Field.fromBigInteger(x);
+    }
+
+
+    public SecP384R1FieldElement() {
+        this.x = Nat.create(12);
+    }
+
+
+    protected SecP384R1FieldElement(int[] x) {
+        this.x = x;
+    }
+
+
+    public boolean isZero() {
+        return Nat.isZero(12, x);
+    }
+
+
+    public boolean isOne() {
+        return Nat.isOne(12, x);
+    }
+
+
+    public boolean testBitZero() {
+        return Nat.getBit(x, 0) == 1;
+    }
+
+
+    public BigInteger toBigInteger() {
+        return Nat.toBigInteger(12, x);
+    }
+
+
+    public String getFieldName() {
+        return "SecP384R1Field";
+    }
+
+
+    public int getFieldSize() {
+        return Q.bitLength();
+    }
+
+
+    public ECFieldElement add(ECFieldElement b) {
+        int[] z = Nat.create(12);
+        SecP384R1Field.add(x, ((SecP384R1FieldElement) b).x, z);
+        return new SecP384R1FieldElement(z);
+    }
+
+
+    public ECFieldElement addOne() {
+        int[] z = Nat.create(12);
+        SecP384R1Field.addOne(x, z);
+        return new SecP384R1FieldElement(z);
+    }
+
+
+    public ECFieldElement subtract(ECFieldElement b) {
+        int[] z = Nat.create(12);
+        SecP384R1Field.subtract(x, ((SecP384R1FieldElement) b).x, z);
+        return new SecP384R1FieldElement(z);
+    }
+
+
+    public ECFieldElement multiply(ECFieldElement b) {
+        int[] z = Nat.create(12);
+        SecP384R1Field.multiply(x, ((SecP384R1FieldElement) b).x, z);
+        return new SecP384R1FieldElement(z);
+    }
+
+
+    public ECFieldElement divide(ECFieldElement b) {
+        int[] z = Nat.create(12);
+        Mod.invert(SecP384R1Field.P, ((SecP384R1FieldElement) b).x, z);
+        SecP384R1Field.multiply(z, x, z);
+        return new SecP384R1FieldElement(z);
+    }
+
+
+    public ECFieldElement negate() {
+        int[] z = Nat.create(12);
+        SecP384R1Field.negate(x, z);
+        return new SecP384R1FieldElement(z);
+    }
+
+
+    public ECFieldElement square() {
+        int[] z = Nat.create(12);
+        SecP384R1Field.square(x, z);
+        return new SecP384R1FieldElement(z);
+    }
+
+
+    public ECFieldElement invert() {
+        int[] z = Nat.create(12);
+        Mod.invert(SecP384R1Field.P, x, z);
+        return new SecP384R1FieldElement(z);
+    }
+
+
+    /**
+     * return a sqrt root - the routine verifies that the calculation returns
+     * the right value - if none exists it returns null.
+     */
+    public ECFieldElement sqrt() {
+        // Raise this element to the exponent (p + 1) / 4 = 2^382 - 2^126 -
+        // 2^94 + 2^30, which is 255 ones, a zero, 32 ones, a one at bit 30 and
+        // zeros below. The chain builds x^(2^k - 1) for the runs of ones.
+
+        int[] x1 = this.x;
+        if( Nat.isZero(12, x1) || Nat.isOne(12, x1) ) {
+            return this;
+        }
+
+        int[] x2 = Nat.create(12);
+        SecP384R1Field.square(x1, x2);
+        SecP384R1Field.multiply(x2, x1, x2);
+
+        int[] x3 = Nat.create(12);
+        SecP384R1Field.square(x2, x3);
+        SecP384R1Field.multiply(x3, x1, x3);
+
+        int[] x6 = Nat.create(12);
+        SecP384R1Field.squareN(x3, 3, x6);
+        SecP384R1Field.multiply(x6, x3, x6);
+
+        int[] x7 = x3;
+        SecP384R1Field.square(x6, x7);
+        SecP384R1Field.multiply(x7, x1, x7);
+
+        int[] x12 = Nat.create(12);
+        SecP384R1Field.squareN(x6, 6, x12);
+        SecP384R1Field.multiply(x12, x6, x12);
+
+        int[] t = Nat.create(12);
+        SecP384R1Field.squareN(x12, 12, t);
+        SecP384R1Field.multiply(t, x12, t);
+
+        int[] x30 = x12;
+        SecP384R1Field.squareN(t, 6, x30);
+        SecP384R1Field.multiply(x30, x6, x30);
+
+        int[] x31 = x6;
+        SecP384R1Field.square(x30, x31);
+        SecP384R1Field.multiply(x31, x1, x31);
+
+        int[] x32 = x2;
+        SecP384R1Field.square(x31, x32);
+        SecP384R1Field.multiply(x32, x1, x32);
+
+        SecP384R1Field.squareN(x31, 31, t);
+        SecP384R1Field.multiply(t, x31, t);
+
+        int[] x62 = x30;
+        Nat.copy(12, t, x62);
+        SecP384R1Field.squareN(x62, 62, t);
+        SecP384R1Field.multiply(t, x62, t);
+
+        int[] x124 = x31;
+        Nat.copy(12, t, x124);
+        SecP384R1Field.squareN(x124, 124, t);
+        SecP384R1Field.multiply(t, x124, t);
+
+        SecP384R1Field.squareN(t, 7, t);
+        SecP384R1Field.multiply(t, x7, t);
+
+        SecP384R1Field.squareN(t, 33, t);
+        SecP384R1Field.multiply(t, x32, t);
+
+        SecP384R1Field.squareN(t, 64, t);
+        SecP384R1Field.multiply(t, x1, t);
+
+        SecP384R1Field.squareN(t, 30, t);
+
+        int[] check = x2;
+        SecP384R1Field.square(t, check);
+
+        return Nat.eq(12, x1, check) ? new SecP384R1FieldElement(t) : null;
+    }
+
+
+    public boolean equals(Object other) {
+        if( other == this ) {
+            return true;
+        }
+
+        if( !(other instanceof SecP384R1FieldElement) ) {
+            return false;
+        }
+
+        SecP384R1FieldElement o = (SecP384R1FieldElement) other;
+        return Nat.eq(12, x, o.x);
+    }
+
+
+    public int hashCode() {
+        return Q.hashCode() ^ Arrays.hashCode(x);
+    }
+}
@@ -0,0 +1,150 @@
+package tlsv12.math.ec.custom.sec;
+
+import tlsv12.math.ec.ECCurve;
+import tlsv12.math.ec.ECFieldElement;
+import tlsv12.math.ec.ECPoint;
+import tlsv12.math.ec.RawFpField;
+import tlsv12.math.raw.Nat;
+import tlsv12.util.encoders.Hex;
+
+import java.math.BigInteger;
+
+/**
+ * The NIST P-521 curve (secp521r1), with field arithmetic on fixed width word
+ * arrays rather than <code>BigInteger</code>.
+ */
+public class SecP521R1Curve extends ECCurve.AbstractFp {
+    public static final BigInteger q = new BigInteger(
+            1,
+            Hex.decode("01FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF"));
+
+    private static final int SecP521R1_DEFAULT_COORDS = COORD_JACOBIAN;
+
+    private static final RawFpField RAW_FIELD = new RawField();
+
+    protected SecP521R1Point infinity;
+
+
+    public SecP521R1Curve() {
+        super(q);
+
+        this.infinity = new SecP521R1Point(this, null, null, false);
+
+        this.a = fromBigInteger(new BigInteger(
+                1,
+                Hex.decode("01FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFC")));
+        this.b = fromBigInteger(new BigInteger(
+                1,
+                Hex.decode("0051953EB9618E1C9A1F929A21A0B68540EEA2DA725B99B315F3B8B489918EF109E156193951EC7E937B1652C0BD3BB1BF073573DF883D2C34F1EF451FD46B503F00")));
+        this.order = new BigInteger(
+                1,
+                Hex.decode("01FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFA51868783BF2F966B7FCC0148F709A5D03BB5C9B8899C47AEBB6FB71E91386409"));
+        this.cofactor = BigInteger.valueOf(1);
+
+        this.coord = SecP521R1_DEFAULT_COORDS;
+    }
+
+
+    protected ECCurve cloneCurve() {
+        return new SecP521R1Curve();
+    }
+
+
+    public boolean supportsCoordinateSystem(int coord) {
+        switch (coord) {
+        case COORD_JACOBIAN:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+
+    public BigInteger getQ() {
+        return q;
+    }
+
+
+    public int getFieldSize() {
+        return q.bitLength();
+    }
+
+
+    public ECFieldElement fromBigInteger(BigInteger x) {
+        return new SecP521R1FieldElement(x);
+    }
+
+
+    protected ECPoint createRawPoint(ECFieldElement x, ECFieldElement y,
+            boolean withCompression) {
+        return new SecP521R1Point(this, x, y, withCompression);
+    }
+
+
+    protected ECPoint createRawPoint(ECFieldElement x, ECFieldElement y,
+            ECFieldElement[] zs, boolean withCompression) {
+        return new SecP521R1Point(this, x, y, zs, withCompression);
+    }
+
+
+    protected RawFpField getRawFpField() {
+        return RAW_FIELD;
+    }
+
+
+    public ECPoint getInfinity() {
+        return infinity;
+    }
+
+
+    /**
+     * The field arithmetic on word arrays, for scalar multiplication.
+     */
+    private static class RawField extends RawFpField {
+        RawField() {
+            super(17);
+        }
+
+
+        public void copy(ECFieldElement x, int[] z) {
+            System.arraycopy(((SecP521R1FieldElement) x).x, 0, z, 0, 17);
+        }
+
+
+        public ECFieldElement createFieldElement(int[] x) {
+            return new SecP521R1FieldElement(Nat.copy(17, x));
+        }
+
+
+        public void add(int[] x, int[] y, int[] z) {
+            SecP521R1Field.add(x, y, z);
+        }
+
+
+        public void subtract(int[] x, int[] y, int[] z) {
+            SecP521R1Field.subtract(x, y, z);
+        }
+
+
+        public void twice(int[] x, int[] z) {
+            SecP521R1Field.twice(x, z);
+        }
+
+
+        public void negate(int[] x, int[] z) {
+            SecP521R1Field.negate(x, z);
+        }
+
+
+        public void multiply(int[] x, int[] y, int[] z, int[] tt) {
+            Nat.mul(17, x, y, tt);
+            SecP521R1Field.reduce(tt, z);
+        }
+
+
+        public void square(int[] x, int[] z, int[] tt) {
+            Nat.square(17, x, tt);
+            SecP521R1Field.reduce(tt, z);
+        }
+    }
+}
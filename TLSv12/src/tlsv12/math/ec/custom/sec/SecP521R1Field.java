@@ -0,0 +1,137 @@
+package tlsv12.math.ec.custom.sec;
+
+import tlsv12.math.raw.Nat;
+
+import java.math.BigInteger;
+
+/**
+ * Arithmetic modulo the NIST P-521 prime, the Mersenne prime p = 2^521 - 1, on
+ * seventeen word values. Reduction is a shift and an add, since 2^521 = 1 (mod
+ * p).
+ */
+public class SecP521R1Field {
+    // 2^521 - 1
+    static final int[] P = new int[] { 0xFFFFFFFF, 0xFFFFFFFF, 0xFFFFFFFF,
+            0xFFFFFFFF, 0xFFFFFFFF, 0xFFFFFFFF, 0xFFFFFFFF, 0xFFFFFFFF,
+            0xFFFFFFFF, 0xFFFFFFFF, 0xFFFFFFFF, 0xFFFFFFFF, 0xFFFFFFFF,
+            0xFFFFFFFF, 0xFFFFFFFF, 0xFFFFFFFF, 0x1FF };
+
+    private static final int P16 = 0x1FF;
+
+
+    public static void add(int[] x, int[] y, int[] z) {
+        Nat.add(17, x, y, z);
+        reduce23(z);
+    }
+
+
+    public static void addOne(int[] x, int[] z) {
+        Nat.inc(17, x, z);
+        reduce23(z);
+    }
+
+
+    public static int[] fromBigInteger(BigInteger x) {
+        int[] z = Nat.fromBigInteger(521, x);
+        if( Nat.eq(17, z, P) ) {
+            Nat.zero(17, z);
+        }
+        return z;
+    }
+
+
+    public static void half(int[] x, int[] z) {
+        int x16 = x[16];
+        int c = Nat.shiftDownBit(16, x, x16, z);
+        z[16] = (x16 >>> 1) | (c >>> 23);
+    }
+
+
+    public static void multiply(int[] x, int[] y, int[] z) {
+        int[] tt = Nat.create(34);
+        Nat.mul(17, x, y, tt);
+        reduce(tt, z);
+    }
+
+
+    public static void negate(int[] x, int[] z) {
+        if( Nat.isZero(17, x) ) {
+            Nat.zero(17, z);
+        } else {
+            Nat.sub(17, P, x, z);
+        }
+    }
+
+
+    /**
+     * Reduce a product of two field elements modulo p, by adding the bits
+     * above 2^521 to the bits below it.
+     */
+    public static void reduce(int[] xx, int[] z) {
+        // the product is below 2^1042, so the top word is always zero
+        long c = 0;
+        for(int i = 0;i < 16;++i) {
+            int hi = (xx[16 + i] >>> 9) | (xx[17 + i] << 23);
+            c += (xx[i] & 0xFFFFFFFFL) + (hi & 0xFFFFFFFFL);
+            z[i] = (int) c;
+            c >>>= 32;
+        }
+        c += (xx[16] & P16) + (xx[32] >>> 9);
+        z[16] = (int) c;
+
+        reduce23(z);
+    }
+
+
+    /**
+     * Fold any bits at or above 2^521 back into the value, and map p itself to
+     * zero.
+     */
+    public static void reduce23(int[] z) {
+        int z16 = z[16];
+        int c = Nat.addWordTo(16, z16 >>> 9, z) + (z16 & P16);
+        if( c > P16 || (c == P16 && Nat.eq(16, z, P)) ) {
+            c += Nat.inc(16, z, z);
+            c &= P16;
+        }
+        z[16] = c;
+    }
+
+
+    public static void square(int[] x, int[] z) {
+        int[] tt = Nat.create(34);
+        Nat.square(17, x, tt);
+        reduce(tt, z);
+    }
+
+
+    public static void squareN(int[] x, int n, int[] z) {
+        // assert n > 0;
+
+        int[] tt = Nat.create(34);
+        Nat.square(17, x, tt);
+        reduce(tt, z);
+
+        while( --n > 0 ) {
+            Nat.square(17, z, tt);
+            reduce(tt, z);
+        }
+    }
+
+
+    public static void subtract(int[] x, int[] y, int[] z) {
+        int c = Nat.sub(16, x, y, z) + x[16] - y[16];
+        if( c < 0 ) {
+            c += Nat.dec(16, z, z);
+            c &= P16;
+        }
+        z[16] = c;
+    }
+
+
+    public static void twice(int[] x, int[] z) {
+        int x16 = x[16];
+        int c = Nat.shiftUpBit(16, x, x16 << 23, z) | (x16 << 1);
+        z[16] = c & P16;
+    }
+}
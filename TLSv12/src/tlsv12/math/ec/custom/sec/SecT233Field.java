@@ -0,0 +1,98 @@
+package tlsv12.math.ec.custom.sec;
+
+/**
+ * Arithmetic in F2^233 with the reduction trinomial f = z^233 + z^74 + 1, of
+ * the NIST K-233 and B-233 curves, on four word values.
+ */
+public class SecT233Field extends SecTField {
+    static final SecT233Field INSTANCE = new SecT233Field();
+
+    private static final long M41 = -1L >>> 23;
+
+
+    private SecT233Field() {
+        super(233, 74, 0, 0);
+    }
+
+
+    public void multiplyExt(long[] x, long[] y, long[] zz) {
+        implMultiply(x, y, zz, new long[64]);
+    }
+
+
+    /**
+     * Reduce a 466 bit value. Each word from the top down is folded into the
+     * words below it as z^233 = z^74 + 1, then the top 23 bits of the fourth
+     * word are folded in the same way.
+     */
+    protected void reduce(long[] zz, long[] z) {
+        for(int i = 7;i >= 4;--i) {
+            long x = zz[i];
+            zz[i - 4] ^= x << 23;
+            zz[i - 3] ^= (x >>> 41) ^ (x << 33);
+            zz[i - 2] ^= x >>> 31;
+        }
+
+        long t = zz[3] >>> 41;
+        z[0] = zz[0] ^ t;
+        z[1] = zz[1] ^ (t << 10);
+        z[2] = zz[2];
+        z[3] = zz[3] & M41;
+    }
+
+
+    /**
+     * Multiply two 4 word values by the comb method, four bits of each word
+     * of <code>x</code> at a time from the top, into 8 words.
+     */
+    private static void implMultiply(long[] x, long[] y, long[] zz, long[] t) {
+        tableMultiples(y, 4, t);
+
+        long x0 = x[0], x1 = x[1], x2 = x[2], x3 = x[3];
+        long z0 = 0L, z1 = 0L, z2 = 0L, z3 = 0L, z4 = 0L, z5 = 0L, z6 = 0L,
+                z7 = 0L;
+        for(int k = 60;;k -= 4) {
+            int u;
+            u = ((int) (x0 >>> k) & 15) << 2;
+            z0 ^= t[u];
+            z1 ^= t[u + 1];
+            z2 ^= t[u + 2];
+            z3 ^= t[u + 3];
+            u = ((int) (x1 >>> k) & 15) << 2;
+            z1 ^= t[u];
+            z2 ^= t[u + 1];
+            z3 ^= t[u + 2];
+            z4 ^= t[u + 3];
+            u = ((int) (x2 >>> k) & 15) << 2;
+            z2 ^= t[u];
+            z3 ^= t[u + 1];
+            z4 ^= t[u + 2];
+            z5 ^= t[u + 3];
+            u = ((int) (x3 >>> k) & 15) << 2;
+            z3 ^= t[u];
+            z4 ^= t[u + 1];
+            z5 ^= t[u + 2];
+            z6 ^= t[u + 3];
+            if( k == 0 ) {
+                break;
+            }
+            z7 = (z7 << 4) | (z6 >>> 60);
+            z6 = (z6 << 4) | (z5 >>> 60);
+            z5 = (z5 << 4) | (z4 >>> 60);
+            z4 = (z4 << 4) | (z3 >>> 60);
+            z3 = (z3 << 4) | (z2 >>> 60);
+            z2 = (z2 << 4) | (z1 >>> 60);
+            z1 = (z1 << 4) | (z0 >>> 60);
+            z0 <<= 4;
+        }
+
+        zz[0] = z0;
+        zz[1] = z1;
+        zz[2] = z2;
+        zz[3] = z3;
+        zz[4] = z4;
+        zz[5] = z5;
+        zz[6] = z6;
+        zz[7] = z7;
+    }
+}
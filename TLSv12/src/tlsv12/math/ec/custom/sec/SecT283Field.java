@@ -0,0 +1,112 @@
+package tlsv12.math.ec.custom.sec;
+
+/**
+ * Arithmetic in F2^283 with the reduction pentanomial f = z^283 + z^12 + z^7 +
+ * z^5 + 1, of the NIST K-283 and B-283 curves, on five word values.
+ */
+public class SecT283Field extends SecTField {
+    static final SecT283Field INSTANCE = new SecT283Field();
+
+    private static final long M27 = -1L >>> 37;
+
+
+    private SecT283Field() {
+        super(283, 5, 7, 12);
+    }
+
+
+    public void multiplyExt(long[] x, long[] y, long[] zz) {
+        implMultiply(x, y, zz, new long[80]);
+    }
+
+
+    /**
+     * Reduce a 566 bit value. Each word from the top down is folded into the
+     * two words below it as z^283 = z^12 + z^7 + z^5 + 1, then the top 37 bits
+     * of the fifth word are folded in the same way.
+     */
+    protected void reduce(long[] zz, long[] z) {
+        for(int i = 9;i >= 5;--i) {
+            long x = zz[i];
+            zz[i - 5] ^= (x << 37) ^ (x << 42) ^ (x << 44) ^ (x << 49);
+            zz[i - 4] ^= (x >>> 27) ^ (x >>> 22) ^ (x >>> 20) ^ (x >>> 15);
+        }
+
+        long t = zz[4] >>> 27;
+        z[0] = zz[0] ^ t ^ (t << 5) ^ (t << 7) ^ (t << 12);
+        z[1] = zz[1];
+        z[2] = zz[2];
+        z[3] = zz[3];
+        z[4] = zz[4] & M27;
+    }
+
+
+    /**
+     * Multiply two 5 word values by the comb method, four bits of each word
+     * of <code>x</code> at a time from the top, into 10 words.
+     */
+    private static void implMultiply(long[] x, long[] y, long[] zz, long[] t) {
+        tableMultiples(y, 5, t);
+
+        long x0 = x[0], x1 = x[1], x2 = x[2], x3 = x[3], x4 = x[4];
+        long z0 = 0L, z1 = 0L, z2 = 0L, z3 = 0L, z4 = 0L, z5 = 0L, z6 = 0L,
+                z7 = 0L, z8 = 0L, z9 = 0L;
+        for(int k = 60;;k -= 4) {
+            int u;
+            u = ((int) (x0 >>> k) & 15) * 5;
+            z0 ^= t[u];
+            z1 ^= t[u + 1];
+            z2 ^= t[u + 2];
+            z3 ^= t[u + 3];
+            z4 ^= t[u + 4];
+            u = ((int) (x1 >>> k) & 15) * 5;
+            z1 ^= t[u];
+            z2 ^= t[u + 1];
+            z3 ^= t[u + 2];
+            z4 ^= t[u + 3];
+            z5 ^= t[u + 4];
+            u = ((int) (x2 >>> k) & 15) * 5;
+            z2 ^= t[u];
+            z3 ^= t[u + 1];
+            z4 ^= t[u + 2];
+            z5 ^= t[u + 3];
+            z6 ^= t[u + 4];
+            u = ((int) (x3 >>> k) & 15) * 5;
+            z3 ^= t[u];
+            z4 ^= t[u + 1];
+            z5 ^= t[u + 2];
+            z6 ^= t[u + 3];
+            z7 ^= t[u + 4];
+            u = ((int) (x4 >>> k) & 15) * 5;
+            z4 ^= t[u];
+            z5 ^= t[u + 1];
+            z6 ^= t[u + 2];
+            z7 ^= t[u + 3];
+            z8 ^= t[u + 4];
+            if( k == 0 ) {
+                break;
+            }
+            z9 = (z9 << 4) | (z8 >>> 60);
+            z8 = (z8 << 4) | (z7 >>> 60);
+            z7 = (z7 << 4) | (z6 >>> 60);
+            z6 = (z6 << 4) | (z5 >>> 60);
+            z5 = (z5 << 4) | (z4 >>> 60);
+            z4 = (z4 << 4) | (z3 >>> 60);
+            z3 = (z3 << 4) | (z2 >>> 60);
+            z2 = (z2 << 4) | (z1 >>> 60);
+            z1 = (z1 << 4) | (z0 >>> 60);
+            z0 <<= 4;
+        }
+
+        zz[0] = z0;
+        zz[1] = z1;
+        zz[2] = z2;
+        zz[3] = z3;
+        zz[4] = z4;
+        zz[5] = z5;
+        zz[6] = z6;
+        zz[7] = z7;
+        zz[8] = z8;
+        zz[9] = z9;
+    }
+}
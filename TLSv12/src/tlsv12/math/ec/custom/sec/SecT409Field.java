@@ -0,0 +1,147 @@
+package tlsv12.math.ec.custom.sec;
+
+/**
+ * Arithmetic in F2^409 with the reduction trinomial f = z^409 + z^87 + 1, of
+ * the NIST K-409 and B-409 curves, on seven word values.
+ */
+public class SecT409Field extends SecTField {
+    static final SecT409Field INSTANCE = new SecT409Field();
+
+    private static final long M25 = -1L >>> 39;
+
+
+    private SecT409Field() {
+        super(409, 87, 0, 0);
+    }
+
+
+    public void multiplyExt(long[] x, long[] y, long[] zz) {
+        implMultiply(x, y, zz, new long[112]);
+    }
+
+
+    /**
+     * Reduce an 818 bit value. Each word from the top down is folded into the
+     * words below it as z^409 = z^87 + 1, then the top 39 bits of the seventh
+     * word are folded in the same way.
+     */
+    protected void reduce(long[] zz, long[] z) {
+        for(int i = 13;i >= 7;--i) {
+            long x = zz[i];
+            zz[i - 7] ^= x << 39;
+            zz[i - 6] ^= (x >>> 25) ^ (x << 62);
+            zz[i - 5] ^= x >>> 2;
+        }
+
+        long t = zz[6] >>> 25;
+        z[0] = zz[0] ^ t;
+        z[1] = zz[1] ^ (t << 23);
+        System.arraycopy(zz, 2, z, 2, 4);
+        z[6] = zz[6] & M25;
+    }
+
+
+    /**
+     * Multiply two 7 word values by the comb method, four bits of each word
+     * of <code>x</code> at a time from the top, into 14 words.
+     */
+    private static void implMultiply(long[] x, long[] y, long[] zz, long[] t) {
+        tableMultiples(y, 7, t);
+
+        long x0 = x[0], x1 = x[1], x2 = x[2], x3 = x[3], x4 = x[4], x5 = x[5], x6 = x[6];
+        long z0 = 0L, z1 = 0L, z2 = 0L, z3 = 0L, z4 = 0L, z5 = 0L, z6 = 0L,
+                z7 = 0L, z8 = 0L, z9 = 0L, z10 = 0L, z11 = 0L, z12 = 0L,
+                z13 = 0L;
+        for(int k = 60;;k -= 4) {
+            int u;
+            u = ((int) (x0 >>> k) & 15) * 7;
+            z0 ^= t[u];
+            z1 ^= t[u + 1];
+            z2 ^= t[u + 2];
+            z3 ^= t[u + 3];
+            z4 ^= t[u + 4];
+            z5 ^= t[u + 5];
+            z6 ^= t[u + 6];
+            u = ((int) (x1 >>> k) & 15) * 7;
+            z1 ^= t[u];
+            z2 ^= t[u + 1];
+            z3 ^= t[u + 2];
+            z4 ^= t[u + 3];
+            z5 ^= t[u + 4];
+            z6 ^= t[u + 5];
+            z7 ^= t[u + 6];
+            u = ((int) (x2 >>> k) & 15) * 7;
+            z2 ^= t[u];
+            z3 ^= t[u + 1];
+            z4 ^= t[u + 2];
+            z5 ^= t[u + 3];
+            z6 ^= t[u + 4];
+            z7 ^= t[u + 5];
+            z8 ^= t[u + 6];
+            u = ((int) (x3 >>> k) & 15) * 7;
+            z3 ^= t[u];
+            z4 ^= t[u + 1];
+            z5 ^= t[u + 2];
+            z6 ^= t[u + 3];
+            z7 ^= t[u + 4];
+            z8 ^= t[u + 5];
+            z9 ^= t[u + 6];
+            u = ((int) (x4 >>> k) & 15) * 7;
+            z4 ^= t[u];
+            z5 ^= t[u + 1];
+            z6 ^= t[u + 2];
+            z7 ^= t[u + 3];
+            z8 ^= t[u + 4];
+            z9 ^= t[u + 5];
+            z10 ^= t[u + 6];
+            u = ((int) (x5 >>> k) & 15) * 7;
+            z5 ^= t[u];
+            z6 ^= t[u + 1];
+            z7 ^= t[u + 2];
+            z8 ^= t[u + 3];
+            z9 ^= t[u + 4];
+            z10 ^= t[u + 5];
+            z11 ^= t[u + 6];
+            u = ((int) (x6 >>> k) & 15) * 7;
+            z6 ^= t[u];
+            z7 ^= t[u + 1];
+            z8 ^= t[u + 2];
+            z9 ^= t[u + 3];
+            z10 ^= t[u + 4];
+            z11 ^= t[u + 5];
+            z12 ^= t[u + 6];
+            if( k == 0 ) {
+                break;
+            }
+            z13 = (z13 << 4) | (z12 >>> 60);
+            z12 = (z12 << 4) | (z11 >>> 60);
+            z11 = (z11 << 4) | (z10 >>> 60);
+            z10 = (z10 << 4) | (z9 >>> 60);
+            z9 = (z9 << 4) | (z8 >>> 60);
+            z8 = (z8 << 4) | (z7 >>> 60);
+            z7 = (z7 << 4) | (z6 >>> 60);
+            z6 = (z6 << 4) | (z5 >>> 60);
+            z5 = (z5 << 4) | (z4 >>> 60);
+            z4 = (z4 << 4) | (z3 >>> 60);
+            z3 = (z3 << 4) | (z2 >>> 60);
+            z2 = (z2 << 4) | (z1 >>> 60);
+            z1 = (z1 << 4) | (z0 >>> 60);
+            z0 <<= 4;
+        }
+
+        zz[0] = z0;
+        zz[1] = z1;
+        zz[2] = z2;
+        zz[3] = z3;
+        zz[4] = z4;
+        zz[5] = z5;
+        zz[6] = z6;
+        zz[7] = z7;
+        zz[8] = z8;
+        zz[9] = z9;
+        zz[10] = z10;
+        zz[11] = z11;
+        zz[12] = z12;
+        zz[13] = z13;
+    }
+}
@@ -0,0 +1,187 @@
+package tlsv12.math.ec.custom.sec;
+
+/**
+ * Arithmetic in F2^571 with the reduction pentanomial f = z^571 + z^10 + z^5 +
+ * z^2 + 1, of the NIST K-571 and B-571 curves, on nine word values.
+ */
+public class SecT571Field extends SecTField {
+    static final SecT571Field INSTANCE = new SecT571Field();
+
+    private static final long M59 = -1L >>> 5;
+
+
+    private SecT571Field() {
+        super(571, 2, 5, 10);
+    }
+
+
+    public void multiplyExt(long[] x, long[] y, long[] zz) {
+        implMultiply(x, y, zz, new long[144]);
+    }
+
+
+    /**
+     * Reduce a 1142 bit value. Each word from the top down is folded into the
+     * two words below it as z^571 = z^10 + z^5 + z^2 + 1, then the top 5 bits
+     * of the ninth word are folded in the same way.
+     */
+    protected void reduce(long[] zz, long[] z) {
+        for(int i = 17;i >= 9;--i) {
+            long x = zz[i];
+            zz[i - 9] ^= (x << 5) ^ (x << 7) ^ (x << 10) ^ (x << 15);
+            zz[i - 8] ^= (x >>> 59) ^ (x >>> 57) ^ (x >>> 54) ^ (x >>> 49);
+        }
+
+        long t = zz[8] >>> 59;
+        z[0] = zz[0] ^ t ^ (t << 2) ^ (t << 5) ^ (t << 10);
+        System.arraycopy(zz, 1, z, 1, 7);
+        z[8] = zz[8] & M59;
+    }
+
+
+    /**
+     * Multiply two 9 word values by the comb method, four bits of each word
+     * of <code>x</code> at a time from the top, into 18 words.
+     */
+    private static void implMultiply(long[] x, long[] y, long[] zz, long[] t) {
+        tableMultiples(y, 9, t);
+
+        long x0 = x[0], x1 = x[1], x2 = x[2], x3 = x[3], x4 = x[4], x5 = x[5], x6 = x[6], x7 = x[7], x8 = x[8];
+        long z0 = 0L, z1 = 0L, z2 = 0L, z3 = 0L, z4 = 0L, z5 = 0L, z6 = 0L,
+                z7 = 0L, z8 = 0L, z9 = 0L, z10 = 0L, z11 = 0L, z12 = 0L,
+                z13 = 0L, z14 = 0L, z15 = 0L, z16 = 0L, z17 = 0L;
+        for(int k = 60;;k -= 4) {
+            int u;
+            u = ((int) (x0 >>> k) & 15) * 9;
+            z0 ^= t[u];
+            z1 ^= t[u + 1];
+            z2 ^= t[u + 2];
+            z3 ^= t[u + 3];
+            z4 ^= t[u + 4];
+            z5 ^= t[u + 5];
+            z6 ^= t[u + 6];
+            z7 ^= t[u + 7];
+            z8 ^= t[u + 8];
+            u = ((int) (x1 >>> k) & 15) * 9;
+            z1 ^= t[u];
+            z2 ^= t[u + 1];
+            z3 ^= t[u + 2];
+            z4 ^= t[u + 3];
+            z5 ^= t[u + 4];
+            z6 ^= t[u + 5];
+            z7 ^= t[u + 6];
+            z8 ^= t[u + 7];
+            z9 ^= t[u + 8];
+            u = ((int) (x2 >>> k) & 15) * 9;
+            z2 ^= t[u];
+            z3 ^= t[u + 1];
+            z4 ^= t[u + 2];
+            z5 ^= t[u + 3];
+            z6 ^= t[u + 4];
+            z7 ^= t[u + 5];
+            z8 ^= t[u + 6];
+            z9 ^= t[u + 7];
+            z10 ^= t[u + 8];
+            u = ((int) (x3 >>> k) & 15) * 9;
+            z3 ^= t[u];
+            z4 ^= t[u + 1];
+            z5 ^= t[u + 2];
+            z6 ^= t[u + 3];
+            z7 ^= t[u + 4];
+            z8 ^= t[u + 5];
+            z9 ^= t[u + 6];
+            z10 ^= t[u + 7];
+            z11 ^= t[u + 8];
+            u = ((int) (x4 >>> k) & 15) * 9;
+            z4 ^= t[u];
+            z5 ^= t[u + 1];
+            z6 ^= t[u + 2];
+            z7 ^= t[u + 3];
+            z8 ^= t[u + 4];
+            z9 ^= t[u + 5];
+            z10 ^= t[u + 6];
+            z11 ^= t[u + 7];
+            z12 ^= t[u + 8];
+            u = ((int) (x5 >>> k) & 15) * 9;
+            z5 ^= t[u];
+            z6 ^= t[u + 1];
+            z7 ^= t[u + 2];
+            z8 ^= t[u + 3];
+            z9 ^= t[u + 4];
+            z10 ^= t[u + 5];
+            z11 ^= t[u + 6];
+            z12 ^= t[u + 7];
+            z13 ^= t[u + 8];
+            u = ((int) (x6 >>> k) & 15) * 9;
+            z6 ^= t[u];
+            z7 ^= t[u + 1];
+            z8 ^= t[u + 2];
+            z9 ^= t[u + 3];
+            z10 ^= t[u + 4];
+            z11 ^= t[u + 5];
+            z12 ^= t[u + 6];
+            z13 ^= t[u + 7];
+            z14 ^= t[u + 8];
+            u = ((int) (x7 >>> k) & 15) * 9;
+            z7 ^= t[u];
+            z8 ^= t[u + 1];
+            z9 ^= t[u + 2];
+            z10 ^= t[u + 3];
+            z11 ^= t[u + 4];
+            z12 ^= t[u + 5];
+            z13 ^= t[u + 6];
+            z14 ^= t[u + 7];
+            z15 ^= t[u + 8];
+            u = ((int) (x8 >>> k) & 15) * 9;
+            z8 ^= t[u];
+            z9 ^= t[u + 1];
+            z10 ^= t[u + 2];
+            z11 ^= t[u + 3];
+            z12 ^= t[u + 4];
+            z13 ^= t[u + 5];
+            z14 ^= t[u + 6];
+            z15 ^= t[u + 7];
+            z16 ^= t[u + 8];
+            if( k == 0 ) {
+                break;
+            }
+            z17 = (z17 << 4) | (z16 >>> 60);
+            z16 = (z16 << 4) | (z15 >>> 60);
+            z15 = (z15 << 4) | (z14 >>> 60);
+            z14 = (z14 << 4) | (z13 >>> 60);
+            z13 = (z13 << 4) | (z12 >>> 60);
+            z12 = (z12 << 4) | (z11 >>> 60);
+            z11 = (z11 << 4) | (z10 >>> 60);
+            z10 = (z10 << 4) | (z9 >>> 60);
+            z9 = (z9 << 4) | (z8 >>> 60);
+            z8 = (z8 << 4) | (z7 >>> 60);
+            z7 = (z7 << 4) | (z6 >>> 60);
+            z6 = (z6 << 4) | (z5 >>> 60);
+            z5 = (z5 << 4) | (z4 >>> 60);
+            z4 = (z4 << 4) | (z3 >>> 60);
+            z3 = (z3 << 4) | (z2 >>> 60);
+            z2 = (z2 << 4) | (z1 >>> 60);
+            z1 = (z1 << 4) | (z0 >>> 60);
+            z0 <<= 4;
+        }
+
+        zz[0] = z0;
+        zz[1] = z1;
+        zz[2] = z2;
+        zz[3] = z3;
+        zz[4] = z4;
+        zz[5] = z5;
+        zz[6] = z6;
+        zz[7] = z7;
+        zz[8] = z8;
+        zz[9] = z9;
+        zz[10] = z10;
+        zz[11] = z11;
+        zz[12] = z12;
+        zz[13] = z13;
+        zz[14] = z14;
+        zz[15] = z15;
+        zz[16] = z16;
+        zz[17] = z17;
+    }
+}
@@ -0,0 +1,36 @@
+package tlsv12.math.ec.custom.sec;
+
+import tlsv12.math.ec.ECCurve;
+import tlsv12.math.ec.ECFieldElement;
+
+import java.math.BigInteger;
+
+/**
+ * A curve over one of the NIST binary fields, with field arithmetic on fixed
+ * width word arrays rather than <code>LongArray</code>. The point arithmetic
+ * is that of {@link ECCurve.F2m}, so any co-efficients may be used.
+ */
+public class SecTCurve extends ECCurve.F2m {
+    private final SecTField f2m;
+
+
+    public SecTCurve(SecTField f2m, BigInteger a, BigInteger b) {
+        this(f2m, new SecTFieldElement(f2m, a), new SecTFieldElement(f2m, b));
+    }
+
+
+    protected SecTCurve(SecTField f2m, ECFieldElement a, ECFieldElement b) {
+        super(f2m.m, f2m.k1, f2m.k2, f2m.k3, a, b, null, null);
+        this.f2m = f2m;
+    }
+
+
+    protected ECCurve cloneCurve() {
+        return new SecTCurve(f2m, a, b);
+    }
+
+
+    public ECFieldElement fromBigInteger(BigInteger x) {
+        return new SecTFieldElement(f2m, x);
+    }
+}
@@ -0,0 +1,375 @@
+package tlsv12.math.ec.custom.sec;
+
+import tlsv12.math.raw.Interleave;
+
+import java.math.BigInteger;
+
+/**
+ * Arithmetic in the binary field of one of the NIST binary curves, on
+ * elements held as a fixed number of 64 bit words, least significant first.
+ * Each field multiplies with the comb method of Lopez and Dahab, unrolled for
+ * its number of words so the product is accumulated in local variables, and
+ * reduces with shifts hard-coded for its reduction polynomial, so no step
+ * depends on the size or polynomial at run time.
+ * <p>
+ * Results may be written over either operand.
+ */
+public abstract class SecTField {
+    /** The degree of the field */
+    final int m;
+
+    /** The middle terms of the reduction polynomial, as for ECCurve.F2m */
+    final int k1, k2, k3;
+
+    /** The number of words in an element */
+    final int len;
+
+    // the square root of z, for square roots of other elements
+    private final long[] rootZ;
+
+
+    SecTField(int m, int k1, int k2, int k3) {
+        this.m = m;
+        this.k1 = k1;
+        this.k2 = k2;
+        this.k3 = k3;
+        this.len = (m + 63) >>> 6;
+
+        // sqrt(z) = z^(2^(m-1))
+        long[] z = new long[len];
+        z[0] = 2;
+        squareN(z, m - 1, z);
+        this.rootZ = z;
+    }
+
+
+    /**
+     * Get the arithmetic for a binary field, if it is one of the NIST fields.
+     *
+     * @param m
+     *            the degree of the field
+     * @param k1
+     *            the lowest middle term of the reduction polynomial
+     * @param k2
+     *            the second middle term, or zero for a trinomial
+     * @param k3
+     *            the third middle term, or zero for a trinomial
+     * @return the arithmetic, or null if the field has none
+     */
+    public static SecTField get(int m, int k1, int k2, int k3) {
+        switch (m) {
+        case 233:
+            return (k1 == 74 && k2 == 0 && k3 == 0) ? SecT233Field.INSTANCE
+                    : null;
+        case 283:
+            return (k1 == 5 && k2 == 7 && k3 == 12) ? SecT283Field.INSTANCE
+                    : null;
+        case 409:
+            return (k1 == 87 && k2 == 0 && k3 == 0) ? SecT409Field.INSTANCE
+                    : null;
+        case 571:
+            return (k1 == 2 && k2 == 5 && k3 == 10) ? SecT571Field.INSTANCE
+                    : null;
+        default:
+            return null;
+        }
+    }
+
+
+    /**
+     * Reduce a product of <code>2 * len</code> words modulo the field's
+     * polynomial. The value of <code>zz</code> is destroyed.
+     *
+     * @param zz
+     *            the product
+     * @param z
+     *            the result
+     */
+    protected abstract void reduce(long[] zz, long[] z);
+
+
+    public int getM() {
+        return m;
+    }
+
+
+    public long[] create() {
+        return new long[len];
+    }
+
+
+    public long[] createExt() {
+        return new long[len << 1];
+    }
+
+
+    public long[] fromBigInteger(BigInteger x) {
+        if( x.signum() < 0 || x.bitLength() > m ) {
+            throw new IllegalArgumentException();
+        }
+
+        long[] z = create();
+        int i = 0;
+        while( x.signum() != 0 ) {
+            z[i++] = x.longValue();
+            x = x.shiftRight(64);
+        }
+        return z;
+    }
+
+
+    public BigInteger toBigInteger(long[] x) {
+        byte[] bs = new byte[len << 3];
+        for(int i = 0;i < len;++i) {
+            long x_i = x[i];
+            int off = (len - 1 - i) << 3;
+            for(int j = 7;j >= 0;--j) {
+                bs[off + j] = (byte) x_i;
+                x_i >>>= 8;
+            }
+        }
+        return new BigInteger(1, bs);
+    }
+
+
+    public boolean isZero(long[] x) {
+        for(int i = 0;i < len;++i) {
+            if( x[i] != 0L ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    public boolean isOne(long[] x) {
+        if( x[0] != 1L ) {
+            return false;
+        }
+        for(int i = 1;i < len;++i) {
+            if( x[i] != 0L ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Get the degree of an element plus one, which is zero for zero.
+     */
+    public int bitLength(long[] x) {
+        for(int i = len - 1;i >= 0;--i) {
+            if( x[i] != 0L ) {
+                return (i << 6) + 64 - Long.numberOfLeadingZeros(x[i]);
+            }
+        }
+        return 0;
+    }
+
+
+    public void add(long[] x, long[] y, long[] z) {
+        for(int i = 0;i < len;++i) {
+            z[i] = x[i] ^ y[i];
+        }
+    }
+
+
+    public void addOne(long[] x, long[] z) {
+        z[0] = x[0] ^ 1L;
+        for(int i = 1;i < len;++i) {
+            z[i] = x[i];
+        }
+    }
+
+
+    public void multiply(long[] x, long[] y, long[] z) {
+        long[] tt = createExt();
+        multiplyExt(x, y, tt);
+        reduce(tt, z);
+    }
+
+
+    /**
+     * Multiply without reducing, into <code>2 * len</code> words.
+     */
+    public abstract void multiplyExt(long[] x, long[] y, long[] zz);
+
+
+    /**
+     * Reduce a product of <code>2 * len</code> words, which is destroyed.
+     */
+    public void reduceExt(long[] zz, long[] z) {
+        reduce(zz, z);
+    }
+
+
+    public void square(long[] x, long[] z) {
+        long[] tt = createExt();
+        squareExt(x, tt);
+        reduce(tt, z);
+    }
+
+
+    /**
+     * Square without reducing, into <code>2 * len</code> words.
+     */
+    public void squareExt(long[] x, long[] zz) {
+        for(int i = len - 1;i >= 0;--i) {
+            Interleave.expand64To128(x[i], zz, i << 1);
+        }
+    }
+
+
+    public void squareN(long[] x, int n, long[] z) {
+        long[] tt = createExt();
+        System.arraycopy(x, 0, z, 0, len);
+        while( --n >= 0 ) {
+            squareExt(z, tt);
+            reduce(tt, z);
+        }
+    }
+
+
+    /**
+     * Invert a non-zero element with the extended Euclidean algorithm for
+     * polynomials, keeping <code>x * g1 = u</code> and <code>x * g2 = v</code>
+     * modulo f while the degrees of <code>u</code> and <code>v</code> fall to
+     * one.
+     */
+    public void invert(long[] x, long[] z) {
+        if( isZero(x) ) {
+            throw new IllegalStateException();
+        }
+
+        // the reduction polynomial needs its top bit, which may be a word more
+        int w = (m >>> 6) + 1;
+        long[] u = new long[w], v = new long[w];
+        long[] g1 = new long[w + 1], g2 = new long[w + 1];
+        System.arraycopy(x, 0, u, 0, len);
+        v[m >>> 6] ^= 1L << m;
+        v[0] ^= 1L;
+        v[k1 >>> 6] ^= 1L << k1;
+        if( k2 != 0 ) {
+            v[k2 >>> 6] ^= 1L << k2;
+            v[k3 >>> 6] ^= 1L << k3;
+        }
+        g1[0] = 1L;
+
+        long[][] uv = new long[][] { u, v }, gg = new long[][] { g1, g2 };
+        int[] uvDeg = new int[] { bitLength(u, len << 6), m + 1 };
+        int[] ggDeg = new int[] { 1, 0 };
+
+        // reduce uv[b] by uv[1 - b] until it falls to one
+        int b = 0;
+        int du = uvDeg[0], dg = ggDeg[0];
+        int j = du - uvDeg[1];
+        while( du > 1 ) {
+            if( j < 0 ) {
+                j = -j;
+                uvDeg[b] = du;
+                ggDeg[b] = dg;
+                b = 1 - b;
+                du = uvDeg[b];
+                dg = ggDeg[b];
+            }
+
+            addShiftedUp(uv[b], uv[1 - b], (uvDeg[1 - b] + 63) >>> 6, j);
+            int d = bitLength(uv[b], du);
+
+            int dg2 = ggDeg[1 - b];
+            if( dg2 > 0 ) {
+                addShiftedUp(gg[b], gg[1 - b], (dg2 + 63) >>> 6, j);
+                dg2 += j;
+                if( dg2 > dg ) {
+                    dg = dg2;
+                } else if( dg2 == dg ) {
+                    dg = bitLength(gg[b], dg);
+                }
+            }
+
+            j += d - du;
+            du = d;
+        }
+
+        System.arraycopy(gg[b], 0, z, 0, len);
+    }
+
+
+    /**
+     * Get the square root of an element. Writing <code>x</code> as
+     * <code>e(z^2) + z * o(z^2)</code>, the root is
+     * <code>e(z) + sqrt(z) * o(z)</code>, where <code>e</code> and
+     * <code>o</code> are the even and odd bits of <code>x</code>.
+     */
+    public void sqrt(long[] x, long[] z) {
+        long[] evn = create(), odd = create();
+        for(int i = 0;i < len;++i) {
+            long u = Interleave.unshuffle(x[i]);
+            int shift = (i & 1) << 5;
+            evn[i >>> 1] |= (u & 0xFFFFFFFFL) << shift;
+            odd[i >>> 1] |= (u >>> 32) << shift;
+        }
+
+        multiply(odd, rootZ, z);
+        add(z, evn, z);
+    }
+
+
+    /**
+     * Table the multiples of <code>y</code> by each four bit value, as
+     * <code>len</code> word entries; the fields leave at least three spare
+     * bits in the top word, so no entry overflows.
+     */
+    static void tableMultiples(long[] y, int len, long[] t) {
+        for(int i = 0;i < len;++i) {
+            t[i] = 0L;
+            t[len + i] = y[i];
+        }
+        for(int k = 2;k < 16;k += 2) {
+            int src = (k >>> 1) * len, dst = k * len;
+            long c = 0L;
+            for(int i = 0;i < len;++i) {
+                long v = t[src + i];
+                t[dst + i] = (v << 1) | c;
+                c = v >>> 63;
+                t[dst + len + i] = t[dst + i] ^ y[i];
+            }
+        }
+    }
+
+
+    /**
+     * Add <code>y</code> shifted up <code>bits</code> to <code>x</code>, for
+     * the words of <code>y</code> below <code>yLen</code>.
+     */
+    private static void addShiftedUp(long[] x, long[] y, int yLen, int bits) {
+        int off = bits >>> 6, shift = bits & 63;
+        if( shift == 0 ) {
+            for(int i = 0;i < yLen;++i) {
+                x[off + i] ^= y[i];
+            }
+            return;
+        }
+
+        long c = 0L;
+        for(int i = 0;i < yLen;++i) {
+            long v = y[i];
+            x[off + i] ^= (v << shift) | c;
+            c = v >>> -shift;
+        }
+        if( c != 0L ) {
+            x[off + yLen] ^= c;
+        }
+    }
+
+
+    private static int bitLength(long[] x, int from) {
+        for(int i = (from - 1) >>> 6;i >= 0;--i) {
+            if( x[i] != 0L ) {
+                return (i << 6) + 64 - Long.numberOfLeadingZeros(x[i]);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,198 @@
+package tlsv12.math.ec.custom.sec;
+
+import tlsv12.math.ec.ECFieldElement;
+import tlsv12.util.Arrays;
+
+import java.math.BigInteger;
+
+/**
+ * Element of one of the NIST binary fields, held as fixed width words with
+ * the arithmetic of its {@link SecTField}.
+ */
+public class SecTFieldElement extends ECFieldElement {
+    protected final SecTField field;
+
+    protected final long[] x;
+
+
+    public SecTFieldElement(SecTField field, BigInteger x) {
+        if( x == null || x.signum() < 0 || x.bitLength() > field.m ) {
+            throw new IllegalArgumentException(
+                    "x value invalid for SecTFieldElement");
+        }
+
+        this.field = field;
+        this.x = field.fromBigInteger(x);
+    }
+
+
+    protected SecTFieldElement(SecTField field, long[] x) {
+        this.field = field;
+        this.x = x;
+    }
+
+
+    public int bitLength() {
+        return field.bitLength(x);
+    }
+
+
+    public boolean isOne() {
+        return field.isOne(x);
+    }
+
+
+    public boolean isZero() {
+        return field.isZero(x);
+    }
+
+
+    public boolean testBitZero() {
+        return (x[0] & 1L) != 0L;
+    }
+
+
+    public BigInteger toBigInteger() {
+        return field.toBigInteger(x);
+    }
+
+
+    public String getFieldName() {
+        return "SecT" + field.m + "Field";
+    }
+
+
+    public int getFieldSize() {
+        return field.m;
+    }
+
+
+    public ECFieldElement add(ECFieldElement b) {
+        long[] z = field.create();
+        field.add(x, ((SecTFieldElement) b).x, z);
+        return new SecTFieldElement(field, z);
+    }
+
+
+    public ECFieldElement addOne() {
+        long[] z = field.create();
+        field.addOne(x, z);
+        return new SecTFieldElement(field, z);
+    }
+
+
+    public ECFieldElement subtract(ECFieldElement b) {
+        // Addition and subtraction are the same in F2m
+        return add(b);
+    }
+
+
+    public ECFieldElement multiply(ECFieldElement b) {
+        long[] z = field.create();
+        field.multiply(x, ((SecTFieldElement) b).x, z);
+        return new SecTFieldElement(field, z);
+    }
+
+
+    public ECFieldElement multiplyMinusProduct(ECFieldElement b,
+            ECFieldElement x, ECFieldElement y) {
+        return multiplyPlusProduct(b, x, y);
+    }
+
+
+    public ECFieldElement multiplyPlusProduct(ECFieldElement b,
+            ECFieldElement x, ECFieldElement y) {
+        // reduce the sum of the products once
+        long[] ab = field.createExt(), xy = field.createExt();
+        field.multiplyExt(this.x, ((SecTFieldElement) b).x, ab);
+        field.multiplyExt(((SecTFieldElement) x).x, ((SecTFieldElement) y).x,
+                xy);
+        for(int i = 0;i < ab.length;++i) {
+            ab[i] ^= xy[i];
+        }
+
+        long[] z = field.create();
+        field.reduceExt(ab, z);
+        return new SecTFieldElement(field, z);
+    }
+
+
+    public ECFieldElement divide(ECFieldElement b) {
+        long[] z = field.create();
+        field.invert(((SecTFieldElement) b).x, z);
+        field.multiply(z, x, z);
+        return new SecTFieldElement(field, z);
+    }
+
+
+    public ECFieldElement negate() {
+        // -x == x holds for all x in F2m
+        return this;
+    }
+
+
+    public ECFieldElement square() {
+        long[] z = field.create();
+        field.square(x, z);
+        return new SecTFieldElement(field, z);
+    }
+
+
+    public ECFieldElement squareMinusProduct(ECFieldElement x,
+            ECFieldElement y) {
+        return squarePlusProduct(x, y);
+    }
+
+
+    public ECFieldElement squarePlusProduct(ECFieldElement x,
+            ECFieldElement y) {
+        long[] aa = field.createExt(), xy = field.createExt();
+        field.squareExt(this.x, aa);
+        field.multiplyExt(((SecTFieldElement) x).x, ((SecTFieldElement) y).x,
+                xy);
+        for(int i = 0;i < aa.length;++i) {
+            aa[i] ^= xy[i];
+        }
+
+        long[] z = field.create();
+        field.reduceExt(aa, z);
+        return new SecTFieldElement(field, z);
+    }
+
+
+    public ECFieldElement invert() {
+        long[] z = field.create();
+        field.invert(x, z);
+        return new SecTFieldElement(field, z);
+    }
+
+
+    public ECFieldElement sqrt() {
+        if( isZero() || isOne() ) {
+            return this;
+        }
+
+        long[] z = field.create();
+        field.sqrt(x, z);
+        return new SecTFieldElement(field, z);
+    }
+
+
+    public boolean equals(Object other) {
+        if( other == this ) {
+            return true;
+        }
+
+        if( !(other instanceof SecTFieldElement) ) {
+            return false;
+        }
+
+        SecTFieldElement o = (SecTFieldElement) other;
+        return field == o.field && Arrays.areEqual(x, o.x);
+    }
+
+
+    public int hashCode() {
+        return field.m ^ Arrays.hashCode(x);
+    }
+}
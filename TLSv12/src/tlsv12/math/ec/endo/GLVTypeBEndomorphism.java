@@ -0,0 +1,70 @@
+package tlsv12.math.ec.endo;
+
+import tlsv12.math.ec.ECConstants;
+import tlsv12.math.ec.ECCurve;
+import tlsv12.math.ec.ECPointMap;
+import tlsv12.math.ec.ScaleXPointMap;
+
+import java.math.BigInteger;
+
+/**
+ * The endomorphism <code>(x, y) -> (beta * x, y)</code> of a curve
+ * <code>y^2 = x^3 + b</code> over a prime field with a cube root of unity
+ * <code>beta</code>, which multiplies points by <code>lambda</code>. A scalar
+ * splits into two of about half its length, so a multiplication needs half
+ * the doublings.
+ */
+public class GLVTypeBEndomorphism implements GLVEndomorphism {
+    protected final GLVTypeBParameters parameters;
+
+    protected final ECPointMap pointMap;
+
+
+    public GLVTypeBEndomorphism(ECCurve curve, GLVTypeBParameters parameters) {
+        this.parameters = parameters;
+        this.pointMap = new ScaleXPointMap(curve.fromBigInteger(parameters.getBeta()));
+    }
+
+
+    /**
+     * Split a scalar <code>k</code> into <code>a, b</code> with
+     * <code>k == a + b * lambda</code> modulo the group order, by subtracting
+     * the nearest point of the lattice of the basis.
+     */
+    public BigInteger[] decomposeScalar(BigInteger k) {
+        int bits = parameters.getBits();
+        BigInteger b1 = calculateB(k, parameters.getG1(), bits);
+        BigInteger b2 = calculateB(k, parameters.getG2(), bits);
+
+        BigInteger[] v1 = parameters.getV1(), v2 = parameters.getV2();
+        BigInteger a = k.subtract((b1.multiply(v1[0])).add(b2.multiply(v2[0])));
+        BigInteger b = (b1.multiply(v1[1])).add(b2.multiply(v2[1])).negate();
+
+        return new BigInteger[] { a, b };
+    }
+
+
+    public ECPointMap getPointMap() {
+        return pointMap;
+    }
+
+
+    public boolean hasEfficientPointMap() {
+        return true;
+    }
+
+
+    /**
+     * Round <code>k * g / 2^t</code> to the nearest integer.
+     */
+    protected BigInteger calculateB(BigInteger k, BigInteger g, int t) {
+        boolean negative = (g.signum() < 0);
+        BigInteger b = k.multiply(g.abs());
+        boolean extra = b.testBit(t - 1);
+        b = b.shiftRight(t);
+        if( extra ) {
+            b = b.add(ECConstants.ONE);
+        }
+        return negative ? b.negate() : b;
+    }
+}
@@ -0,0 +1,73 @@
+package tlsv12.math.ec.endo;
+
+import java.math.BigInteger;
+
+/**
+ * The constants of a GLV endomorphism of a curve <code>y^2 = x^3 + b</code>
+ * over a prime field: the cube roots of unity <code>beta</code> in the field
+ * and <code>lambda</code> modulo the group order, with
+ * <code>(beta * x, y) = lambda * (x, y)</code>, and a short basis
+ * <code>v1, v2</code> of the scalars <code>(a, b)</code> with
+ * <code>a + b * lambda == 0</code> modulo the order. <code>g1</code> and
+ * <code>g2</code> are the rows of the inverse basis that round a scalar onto
+ * the lattice, scaled by <code>2^bits</code>.
+ */
+public class GLVTypeBParameters {
+    protected final BigInteger beta;
+
+    protected final BigInteger lambda;
+
+    protected final BigInteger[] v1, v2;
+
+    protected final BigInteger g1, g2;
+
+    protected final int bits;
+
+
+    public GLVTypeBParameters(BigInteger beta, BigInteger lambda,
+            BigInteger[] v1, BigInteger[] v2, BigInteger g1, BigInteger g2,
+            int bits) {
+        this.beta = beta;
+        this.lambda = lambda;
+        this.v1 = v1;
+        this.v2 = v2;
+        this.g1 = g1;
+        this.g2 = g2;
+        this.bits = bits;
+    }
+
+
+    public BigInteger getBeta() {
+        return beta;
+    }
+
+
+    public BigInteger getLambda() {
+        return lambda;
+    }
+
+
+    public BigInteger[] getV1() {
+        return v1;
+    }
+
+
+    public BigInteger[] getV2() {
+        return v2;
+    }
+
+
+    public BigInteger getG1() {
+        return g1;
+    }
+
+
+    public BigInteger getG2() {
+        return g2;
+    }
+
+
+    public int getBits() {
+        return bits;
+    }
+}
@@ -0,0 +1,153 @@
+package tlsv12.math.ec.rfc7748;
+
+import java.security.SecureRandom;
+
+/**
+ * The X25519 function of RFC 7748, Diffie-Hellman on the Montgomery form of
+ * Curve25519 with 32 byte scalars and u-coordinates. The scalar multiplication
+ * is a Montgomery ladder with the same sequence of field operations and
+ * memory accesses for every scalar, so it takes the same time for every key.
+ */
+public abstract class X25519 {
+    /** The size of an encoded u-coordinate, in bytes */
+    public static final int POINT_SIZE = 32;
+
+    /** The size of a scalar, in bytes */
+    public static final int SCALAR_SIZE = 32;
+
+    // (A - 2) / 4 for the curve constant A = 486662
+    private static final int C_A24 = 121665;
+
+    // the u-coordinate of the base point
+    private static final int BASE_U = 9;
+
+
+    /**
+     * Generate a random private scalar. It is clamped when used, so any 32
+     * bytes will do.
+     *
+     * @param random
+     *            the source of randomness
+     * @param k
+     *            the array to write the scalar to
+     */
+    public static void generatePrivateKey(SecureRandom random, byte[] k) {
+        random.nextBytes(k);
+    }
+
+
+    /**
+     * Get the public value for a private scalar, as the scalar multiple of the
+     * base point.
+     *
+     * @param k
+     *            the private scalar
+     * @param kOff
+     *            the offset of the scalar
+     * @param r
+     *            the array to write the public value to
+     * @param rOff
+     *            the offset to write at
+     */
+    public static void generatePublicKey(byte[] k, int kOff, byte[] r,
+            int rOff) {
+        int[] u = X25519Field.create();
+        u[0] = BASE_U;
+        scalarMult(k, kOff, u, r, rOff);
+    }
+
+
+    /**
+     * Calculate the shared secret for a private scalar and the peer's public
+     * value.
+     *
+     * @param k
+     *            the private scalar
+     * @param kOff
+     *            the offset of the scalar
+     * @param u
+     *            the peer's public value
+     * @param uOff
+     *            the offset of the public value
+     * @param r
+     *            the array to write the secret to
+     * @param rOff
+     *            the offset to write at
+     * @return false if the secret is all zero, as it is for a peer value of
+     *         small order, which RFC 7748 allows to be rejected
+     */
+    public static boolean calculateAgreement(byte[] k, int kOff, byte[] u,
+            int uOff, byte[] r, int rOff) {
+        int[] x = X25519Field.create();
+        X25519Field.decode(u, uOff, x);
+        scalarMult(k, kOff, x, r, rOff);
+
+        int d = 0;
+        for(int i = 0;i < POINT_SIZE;++i) {
+            d |= r[rOff + i];
+        }
+        return d != 0;
+    }
+
+
+    /**
+     * Multiply a u-coordinate by a scalar, clamped as RFC 7748 requires, with
+     * the ladder of its section 5.
+     */
+    private static void scalarMult(byte[] k, int kOff, int[] x1, byte[] r,
+            int rOff) {
+        byte[] n = new byte[SCALAR_SIZE];
+        System.arraycopy(k, kOff, n, 0, SCALAR_SIZE);
+        n[0] &= 0xF8;
+        n[31] &= 0x7F;
+        n[31] |= 0x40;
+
+        int[] x2 = X25519Field.create(), z2 = X25519Field.create();
+        int[] x3 = X25519Field.create(), z3 = X25519Field.create();
+        int[] a = X25519Field.create(), aa = X25519Field.create();
+        int[] b = X25519Field.create(), bb = X25519Field.create();
+        int[] c = X25519Field.create(), d = X25519Field.create();
+        int[] e = X25519Field.create();
+        X25519Field.one(x2);
+        X25519Field.copy(x1, x3);
+        X25519Field.one(z3);
+
+        int swap = 0;
+        for(int t = 254;t >= 0;--t) {
+            int kt = (n[t >>> 3] >>> (t & 7)) & 1;
+            swap ^= kt;
+            X25519Field.cswap(swap, x2, x3);
+            X25519Field.cswap(swap, z2, z3);
+            swap = kt;
+
+            X25519Field.add(x2, z2, a);
+            X25519Field.sub(x2, z2, b);
+            X25519Field.add(x3, z3, c);
+            X25519Field.sub(x3, z3, d);
+            X25519Field.mul(d, a, d);
+            X25519Field.mul(c, b, c);
+            X25519Field.sqr(a, aa);
+            X25519Field.sqr(b, bb);
+
+            // x3 = (DA + CB)^2, z3 = x1 * (DA - CB)^2
+            X25519Field.add(d, c, x3);
+            X25519Field.sub(d, c, z3);
+            X25519Field.sqr(x3, x3);
+            X25519Field.sqr(z3, z3);
+            X25519Field.mul(z3, x1, z3);
+
+            // x2 = AA * BB, z2 = E * (AA + a24 * E) for E = AA - BB
+            X25519Field.mul(aa, bb, x2);
+            X25519Field.sub(aa, bb, e);
+            X25519Field.mul(e, C_A24, z2);
+            X25519Field.add(z2, aa, z2);
+            X25519Field.mul(z2, e, z2);
+        }
+        X25519Field.cswap(swap, x2, x3);
+        X25519Field.cswap(swap, z2, z3);
+
+        X25519Field.inv(z2, z2);
+        X25519Field.mul(x2, z2, x2);
+        X25519Field.encode(x2, r, rOff);
+    }
+}
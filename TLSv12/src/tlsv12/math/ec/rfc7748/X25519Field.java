@@ -0,0 +1,340 @@
+package tlsv12.math.ec.rfc7748;
+
+/**
+ * Arithmetic modulo the prime 2^255 - 19 of Curve25519, on elements held as
+ * ten signed 32 bit limbs of alternately 26 and 25 bits, least significant
+ * first, so that the products of two elements fit in 64 bits without
+ * carrying. No operation branches on or indexes by the value of an element.
+ * <p>
+ * Sums and differences are not carried, so each may be used once as an
+ * operand of a product before it must be carried again; products and
+ * {@link #mul(int[], int, int[])} leave their result carried.
+ */
+public abstract class X25519Field {
+    public static final int SIZE = 10;
+
+    private static final int M25 = 0x01FFFFFF;
+
+    private static final int M26 = 0x03FFFFFF;
+
+
+    public static int[] create() {
+        return new int[SIZE];
+    }
+
+
+    public static void add(int[] x, int[] y, int[] z) {
+        for(int i = 0;i < SIZE;++i) {
+            z[i] = x[i] + y[i];
+        }
+    }
+
+
+    public static void sub(int[] x, int[] y, int[] z) {
+        for(int i = 0;i < SIZE;++i) {
+            z[i] = x[i] - y[i];
+        }
+    }
+
+
+    public static void copy(int[] x, int[] z) {
+        System.arraycopy(x, 0, z, 0, SIZE);
+    }
+
+
+    public static void one(int[] z) {
+        z[0] = 1;
+        for(int i = 1;i < SIZE;++i) {
+            z[i] = 0;
+        }
+    }
+
+
+    public static void zero(int[] z) {
+        for(int i = 0;i < SIZE;++i) {
+            z[i] = 0;
+        }
+    }
+
+
+    /**
+     * Swap <code>a</code> and <code>b</code> if <code>swap</code> is one,
+     * without branching on it.
+     *
+     * @param swap
+     *            zero or one
+     */
+    public static void cswap(int swap, int[] a, int[] b) {
+        int mask = -swap;
+        for(int i = 0;i < SIZE;++i) {
+            int t = mask & (a[i] ^ b[i]);
+            a[i] ^= t;
+            b[i] ^= t;
+        }
+    }
+
+
+    /**
+     * Decode a 32 byte little-endian value, ignoring its top bit as RFC 7748
+     * requires. Values from p to 2^255 - 1 are accepted unreduced.
+     */
+    public static void decode(byte[] x, int xOff, int[] z) {
+        long t = 0L;
+        int bits = 0, n = xOff;
+        for(int i = 0;i < SIZE;++i) {
+            int w = 26 - (i & 1);
+            while( bits < w ) {
+                t |= (x[n++] & 0xFFL) << bits;
+                bits += 8;
+            }
+            z[i] = (int) t & ((1 << w) - 1);
+            t >>>= w;
+            bits -= w;
+        }
+    }
+
+
+    /**
+     * Encode an element as 32 little-endian bytes, fully reduced.
+     */
+    public static void encode(int[] x, byte[] z, int zOff) {
+        int[] t = create();
+        copy(x, t);
+        reduce(t);
+
+        long acc = 0L;
+        int bits = 0, n = zOff;
+        for(int i = 0;i < SIZE;++i) {
+            acc |= (t[i] & 0xFFFFFFFFL) << bits;
+            bits += 26 - (i & 1);
+            while( bits >= 8 ) {
+                z[n++] = (byte) acc;
+                acc >>>= 8;
+                bits -= 8;
+            }
+        }
+
+        // the top seven bits
+        z[n] = (byte) acc;
+    }
+
+
+    /**
+     * Invert an element, as <code>x^(p - 2)</code> by the addition chain of
+     * the reference implementation. The inverse of zero is zero.
+     */
+    public static void inv(int[] x, int[] z) {
+        int[] x2 = create(), x9 = create(), x11 = create();
+        int[] x5_0 = create(), x10_0 = create(), x20_0 = create();
+        int[] x50_0 = create(), x100_0 = create(), t = create();
+
+        sqr(x, x2);
+        sqr(x2, 2, t);
+        mul(t, x, x9);
+        mul(x9, x2, x11);
+        sqr(x11, t);
+        mul(t, x9, x5_0);
+        sqr(x5_0, 5, t);
+        mul(t, x5_0, x10_0);
+        sqr(x10_0, 10, t);
+        mul(t, x10_0, x20_0);
+        sqr(x20_0, 20, t);
+        mul(t, x20_0, t);
+        sqr(t, 10, t);
+        mul(t, x10_0, x50_0);
+        sqr(x50_0, 50, t);
+        mul(t, x50_0, x100_0);
+        sqr(x100_0, 100, t);
+        mul(t, x100_0, t);
+        sqr(t, 50, t);
+        mul(t, x50_0, t);
+        sqr(t, 5, t);
+        mul(t, x11, z);
+    }
+
+
+    /**
+     * Is an element zero, reduced? Every element is examined in full.
+     */
+    public static boolean isZero(int[] x) {
+        int[] t = create();
+        copy(x, t);
+        reduce(t);
+
+        int d = 0;
+        for(int i = 0;i < SIZE;++i) {
+            d |= t[i];
+        }
+        return d == 0;
+    }
+
+
+    public static void mul(int[] x, int[] y, int[] z) {
+        long x0 = x[0], x1 = x[1], x2 = x[2], x3 = x[3], x4 = x[4];
+        long x5 = x[5], x6 = x[6], x7 = x[7], x8 = x[8], x9 = x[9];
+        long y0 = y[0], y1 = y[1], y2 = y[2], y3 = y[3], y4 = y[4];
+        long y5 = y[5], y6 = y[6], y7 = y[7], y8 = y[8], y9 = y[9];
+
+        // odd limbs sit half a bit high, so the product of two is doubled,
+        // and 2^255 folds back in as 19
+        long h0 = x0 * y0 + x1 * y9 * 38 + x2 * y8 * 19 + x3 * y7 * 38
+                + x4 * y6 * 19 + x5 * y5 * 38 + x6 * y4 * 19 + x7 * y3 * 38
+                + x8 * y2 * 19 + x9 * y1 * 38;
+        long h1 = x0 * y1 + x1 * y0 + x2 * y9 * 19 + x3 * y8 * 19
+                + x4 * y7 * 19 + x5 * y6 * 19 + x6 * y5 * 19 + x7 * y4 * 19
+                + x8 * y3 * 19 + x9 * y2 * 19;
+        long h2 = x0 * y2 + x1 * y1 * 2 + x2 * y0 + x3 * y9 * 38
+                + x4 * y8 * 19 + x5 * y7 * 38 + x6 * y6 * 19 + x7 * y5 * 38
+                + x8 * y4 * 19 + x9 * y3 * 38;
+        long h3 = x0 * y3 + x1 * y2 + x2 * y1 + x3 * y0 + x4 * y9 * 19
+                + x5 * y8 * 19 + x6 * y7 * 19 + x7 * y6 * 19 + x8 * y5 * 19
+                + x9 * y4 * 19;
+        long h4 = x0 * y4 + x1 * y3 * 2 + x2 * y2 + x3 * y1 * 2
+                + x4 * y0 + x5 * y9 * 38 + x6 * y8 * 19 + x7 * y7 * 38
+                + x8 * y6 * 19 + x9 * y5 * 38;
+        long h5 = x0 * y5 + x1 * y4 + x2 * y3 + x3 * y2 + x4 * y1
+                + x5 * y0 + x6 * y9 * 19 + x7 * y8 * 19 + x8 * y7 * 19
+                + x9 * y6 * 19;
+        long h6 = x0 * y6 + x1 * y5 * 2 + x2 * y4 + x3 * y3 * 2
+                + x4 * y2 + x5 * y1 * 2 + x6 * y0 + x7 * y9 * 38
+                + x8 * y8 * 19 + x9 * y7 * 38;
+        long h7 = x0 * y7 + x1 * y6 + x2 * y5 + x3 * y4 + x4 * y3
+                + x5 * y2 + x6 * y1 + x7 * y0 + x8 * y9 * 19 + x9 * y8 * 19;
+        long h8 = x0 * y8 + x1 * y7 * 2 + x2 * y6 + x3 * y5 * 2
+                + x4 * y4 + x5 * y3 * 2 + x6 * y2 + x7 * y1 * 2 + x8 * y0
+                + x9 * y9 * 38;
+        long h9 = x0 * y9 + x1 * y8 + x2 * y7 + x3 * y6 + x4 * y5
+                + x5 * y4 + x6 * y3 + x7 * y2 + x8 * y1 + x9 * y0;
+
+        carry(h0, h1, h2, h3, h4, h5, h6, h7, h8, h9, z);
+    }
+
+
+    /**
+     * Multiply by a small non-negative value, such as the curve constant
+     * (A - 2) / 4.
+     */
+    public static void mul(int[] x, int y, int[] z) {
+        carry((long) x[0] * y, (long) x[1] * y, (long) x[2] * y,
+                (long) x[3] * y, (long) x[4] * y, (long) x[5] * y,
+                (long) x[6] * y, (long) x[7] * y, (long) x[8] * y,
+                (long) x[9] * y, z);
+    }
+
+
+    public static void sqr(int[] x, int[] z) {
+        long x0 = x[0], x1 = x[1], x2 = x[2], x3 = x[3], x4 = x[4];
+        long x5 = x[5], x6 = x[6], x7 = x[7], x8 = x[8], x9 = x[9];
+
+        long h0 = x0 * x0 + x1 * x9 * 76 + x2 * x8 * 38 + x3 * x7 * 76
+                + x4 * x6 * 38 + x5 * x5 * 38;
+        long h1 = x0 * x1 * 2 + x2 * x9 * 38 + x3 * x8 * 38
+                + x4 * x7 * 38 + x5 * x6 * 38;
+        long h2 = x0 * x2 * 2 + x1 * x1 * 2 + x3 * x9 * 76
+                + x4 * x8 * 38 + x5 * x7 * 76 + x6 * x6 * 19;
+        long h3 = x0 * x3 * 2 + x1 * x2 * 2 + x4 * x9 * 38
+                + x5 * x8 * 38 + x6 * x7 * 38;
+        long h4 = x0 * x4 * 2 + x1 * x3 * 4 + x2 * x2 + x5 * x9 * 76
+                + x6 * x8 * 38 + x7 * x7 * 38;
+        long h5 = x0 * x5 * 2 + x1 * x4 * 2 + x2 * x3 * 2
+                + x6 * x9 * 38 + x7 * x8 * 38;
+        long h6 = x0 * x6 * 2 + x1 * x5 * 4 + x2 * x4 * 2 + x3 * x3 * 2
+                + x7 * x9 * 76 + x8 * x8 * 19;
+        long h7 = x0 * x7 * 2 + x1 * x6 * 2 + x2 * x5 * 2 + x3 * x4 * 2
+                + x8 * x9 * 38;
+        long h8 = x0 * x8 * 2 + x1 * x7 * 4 + x2 * x6 * 2 + x3 * x5 * 4
+                + x4 * x4 + x9 * x9 * 38;
+        long h9 = x0 * x9 * 2 + x1 * x8 * 2 + x2 * x7 * 2 + x3 * x6 * 2
+                + x4 * x5 * 2;
+
+        carry(h0, h1, h2, h3, h4, h5, h6, h7, h8, h9, z);
+    }
+
+
+    public static void sqr(int[] x, int n, int[] z) {
+        sqr(x, z);
+        while( --n > 0 ) {
+            sqr(z, z);
+        }
+    }
+
+
+    /**
+     * Carry the limbs of a product, each into the next, and the top limb's
+     * carry back into the lowest as 19 times its value. The carries are
+     * floored, so every limb is left non-negative.
+     */
+    private static void carry(long h0, long h1, long h2, long h3, long h4,
+            long h5, long h6, long h7, long h8, long h9, int[] z) {
+        h1 += h0 >> 26;
+        h0 &= M26;
+        h2 += h1 >> 25;
+        h1 &= M25;
+        h3 += h2 >> 26;
+        h2 &= M26;
+        h4 += h3 >> 25;
+        h3 &= M25;
+        h5 += h4 >> 26;
+        h4 &= M26;
+        h6 += h5 >> 25;
+        h5 &= M25;
+        h7 += h6 >> 26;
+        h6 &= M26;
+        h8 += h7 >> 25;
+        h7 &= M25;
+        h9 += h8 >> 26;
+        h8 &= M26;
+        h0 += (h9 >> 25) * 19;
+        h9 &= M25;
+        h1 += h0 >> 26;
+        h0 &= M26;
+
+        z[0] = (int) h0;
+        z[1] = (int) h1;
+        z[2] = (int) h2;
+        z[3] = (int) h3;
+        z[4] = (int) h4;
+        z[5] = (int) h5;
+        z[6] = (int) h6;
+        z[7] = (int) h7;
+        z[8] = (int) h8;
+        z[9] = (int) h9;
+    }
+
+
+    /**
+     * Reduce an element fully, to its unique value below p.
+     */
+    private static void reduce(int[] z) {
+        // two passes leave the value from 0 to 2^255 - 1, though the first
+        // limbs may be out of range
+        for(int pass = 0;pass < 2;++pass) {
+            int c = 0;
+            for(int i = 0;i < SIZE;++i) {
+                int w = 26 - (i & 1);
+                int t = z[i] + c;
+                c = t >> w;
+                z[i] = t & ((1 << w) - 1);
+            }
+            int t = z[0] + c * 19;
+            z[0] = t & M26;
+            z[1] += t >> 26;
+        }
+
+        // subtract p if the value is at least p, by adding 19 and dropping
+        // bit 255 when that carries into it
+        int c = 19;
+        for(int i = 0;i < SIZE;++i) {
+            int w = 26 - (i & 1);
+            c = (z[i] + c) >> w;
+        }
+
+        c *= 19;
+        for(int i = 0;i < SIZE;++i) {
+            int w = 26 - (i & 1);
+            int t = z[i] + c;
+            c = t >> w;
+            z[i] = t & ((1 << w) - 1);
+        }
+    }
+}
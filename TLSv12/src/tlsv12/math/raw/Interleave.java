@@ -0,0 +1,67 @@
+package tlsv12.math.raw;
+
+/**
+ * Spreading and gathering of the bits of a word, for squaring and square
+ * roots of binary polynomials. Squaring a polynomial over GF(2) only moves
+ * each coefficient <code>i</code> to <code>2i</code>, so it is a spread of
+ * the bits with zeroes between them.
+ */
+public abstract class Interleave {
+    /**
+     * Spread a 32 bit value over the even bits of a 64 bit value.
+     *
+     * @param x
+     *            the value
+     * @return the spread value
+     */
+    public static long expand32to64(int x) {
+        long t = x & 0xFFFFFFFFL;
+        t = (t | (t << 16)) & 0x0000FFFF0000FFFFL;
+        t = (t | (t << 8)) & 0x00FF00FF00FF00FFL;
+        t = (t | (t << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        t = (t | (t << 2)) & 0x3333333333333333L;
+        t = (t | (t << 1)) & 0x5555555555555555L;
+        return t;
+    }
+
+
+    /**
+     * Spread a 64 bit value over two 64 bit values, which are its square as a
+     * binary polynomial.
+     *
+     * @param x
+     *            the value
+     * @param z
+     *            the array to write
+     * @param zOff
+     *            the offset of the lower word in <code>z</code>
+     */
+    public static void expand64To128(long x, long[] z, int zOff) {
+        z[zOff] = expand32to64((int) x);
+        z[zOff + 1] = expand32to64((int) (x >>> 32));
+    }
+
+
+    /**
+     * Gather the even bits of a value into its lower half, and the odd bits
+     * into its upper half.
+     *
+     * @param x
+     *            the value
+     * @return the gathered value
+     */
+    public static long unshuffle(long x) {
+        long t;
+        t = (x ^ (x >>> 1)) & 0x2222222222222222L;
+        x ^= (t ^ (t << 1));
+        t = (x ^ (x >>> 2)) & 0x0C0C0C0C0C0C0C0CL;
+        x ^= (t ^ (t << 2));
+        t = (x ^ (x >>> 4)) & 0x00F000F000F000F0L;
+        x ^= (t ^ (t << 4));
+        t = (x ^ (x >>> 8)) & 0x0000FF000000FF00L;
+        x ^= (t ^ (t << 8));
+        t = (x ^ (x >>> 16)) & 0x00000000FFFF0000L;
+        x ^= (t ^ (t << 16));
+        return x;
+    }
+}
@@ -28,6 +28,19 @@ public abstract class Nat {
     }
 
 
+    public static int addWordTo(int len, int x, int[] z) {
+        long c = (x & M) + (z[0] & M);
+        z[0] = (int) c;
+        c >>>= 32;
+        for(int i = 1;i < len && c != 0;++i) {
+            c += z[i] & M;
+            z[i] = (int) c;
+            c >>>= 32;
+        }
+        return (int) c;
+    }
+
+
     public static int[] copy(int len, int[] x) {
         int[] z = new int[len];
         System.arraycopy(x, 0, z, 0, len);
@@ -35,6 +48,11 @@ public abstract class Nat {
     }
 
 
+    public static void copy(int len, int[] x, int[] z) {
+        System.arraycopy(x, 0, z, 0, len);
+    }
+
+
     public static int[] create(int len) {
         return new int[len];
     }
@@ -56,6 +74,47 @@ public abstract class Nat {
     }
 
 
+    public static int dec(int len, int[] x, int[] z) {
+        int i = 0;
+        while( i < len ) {
+            int c = x[i] - 1;
+            z[i] = c;
+            ++i;
+            if( c != -1 ) {
+                while( i < len ) {
+                    z[i] = x[i];
+                    ++i;
+                }
+                return 0;
+            }
+        }
+        return -1;
+    }
+
+
+    public static boolean eq(int len, int[] x, int[] y) {
+        for(int i = len - 1;i >= 0;--i) {
+            if( x[i] != y[i] ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    public static int getBit(int[] x, int bit) {
+        if( bit == 0 ) {
+            return x[0] & 1;
+        }
+        int w = bit >> 5;
+        if( w < 0 || w >= x.length ) {
+            return 0;
+        }
+        int b = bit & 31;
+        return (x[w] >>> b) & 1;
+    }
+
+
     public static boolean gte(int len, int[] x, int[] y) {
         for(int i = len - 1;i >= 0;--i) {
             int x_i = x[i] ^ Integer.MIN_VALUE;
@@ -67,6 +126,24 @@ public abstract class Nat {
     }
 
 
+    public static int inc(int len, int[] x, int[] z) {
+        int i = 0;
+        while( i < len ) {
+            int c = x[i] + 1;
+            z[i] = c;
+            ++i;
+            if( c != 0 ) {
+                while( i < len ) {
+                    z[i] = x[i];
+                    ++i;
+                }
+                return 0;
+            }
+        }
+        return 1;
+    }
+
+
     public static boolean isOne(int len, int[] x) {
         if( x[0] != 1 ) {
             return false;
@@ -90,6 +167,106 @@ public abstract class Nat {
     }
 
 
+    /**
+     * Schoolbook multiplication of two <code>len</code> word values into a
+     * <code>2 * len</code> word result. The result array must not overlap
+     * either input.
+     */
+    public static void mul(int len, int[] x, int[] y, int[] zz) {
+        long x_0 = x[0] & M;
+        {
+            long c = 0;
+            for(int j = 0;j < len;++j) {
+                c += x_0 * (y[j] & M);
+                zz[j] = (int) c;
+                c >>>= 32;
+            }
+            zz[len] = (int) c;
+        }
+
+        for(int i = 1;i < len;++i) {
+            long x_i = x[i] & M;
+            long c = 0;
+            for(int j = 0;j < len;++j) {
+                c += x_i * (y[j] & M) + (zz[i + j] & M);
+                zz[i + j] = (int) c;
+                c >>>= 32;
+            }
+            zz[i + len] = (int) c;
+        }
+    }
+
+
+    /**
+     * Montgomery reduction of a <code>2 * len</code> word value
+     * <code>xx</code>, less than <code>p * 2^(32 * len)</code>, to the
+     * <code>len</code> word value <code>xx / 2^(32 * len) mod p</code>. Each
+     * step adds the multiple of <code>p</code> which clears the lowest word,
+     * so the division is a shift. The value of <code>xx</code> is destroyed.
+     *
+     * @param len
+     *            the number of words in the modulus
+     * @param p
+     *            the odd modulus
+     * @param mDash
+     *            <code>-p^-1 mod 2^32</code>, from {@link #inverse32(int)}
+     * @param xx
+     *            the value to reduce
+     * @param z
+     *            the result, which may not overlap <code>xx</code>
+     */
+    public static void reduceMontgomery(int len, int[] p, int mDash,
+            int[] xx, int[] z) {
+        long carry = 0;
+        for(int i = 0;i < len;++i) {
+            long u = (xx[i] * mDash) & M;
+            long c = 0;
+            for(int j = 0;j < len;++j) {
+                c += u * (p[j] & M) + (xx[i + j] & M);
+                xx[i + j] = (int) c;
+                c >>>= 32;
+            }
+            c += (xx[i + len] & M) + carry;
+            xx[i + len] = (int) c;
+            carry = c >>> 32;
+        }
+
+        System.arraycopy(xx, len, z, 0, len);
+        if( carry != 0 || gte(len, z, p) ) {
+            subFrom(len, p, z);
+        }
+    }
+
+
+    /**
+     * Get the inverse of an odd word modulo 2^32, by Newton's iteration.
+     *
+     * @param d
+     *            the odd value
+     * @return <code>d^-1 mod 2^32</code>
+     */
+    public static int inverse32(int d) {
+        // d is its own inverse modulo 8, and each step doubles the bits
+        int x = d;
+        x *= 2 - d * x;
+        x *= 2 - d * x;
+        x *= 2 - d * x;
+        x *= 2 - d * x;
+        return x;
+    }
+
+
+    public static int shiftDownBit(int len, int[] x, int c, int[] z) {
+        int i = len;
+        while( --i >= 0 ) {
+            int next = x[i];
+            z[i] = (next >>> 1) | (c << 31);
+            c = next;
+        }
+        return c << 31;
+    }
+
+
     public static int shiftDownBit(int len, int[] z, int c) {
         int i = len;
         while( --i >= 0 ) {
@@ -124,6 +301,66 @@ public abstract class Nat {
     }
 
 
+    public static int shiftUpBit(int len, int[] x, int c, int[] z) {
+        for(int i = 0;i < len;++i) {
+            int next = x[i];
+            z[i] = (next << 1) | (c >>> 31);
+            c = next;
+        }
+        return c >>> 31;
+    }
+
+
+    /**
+     * Squares a <code>len</code> word value into a <code>2 * len</code> word
+     * result. The cross products are accumulated once and doubled, so this
+     * costs roughly half the word multiplications of {@link #mul}. The result
+     * array must not overlap the input.
+     */
+    public static void square(int len, int[] x, int[] zz) {
+        int extLen = len << 1;
+        for(int i = 0;i < extLen;++i) {
+            zz[i] = 0;
+        }
+
+        for(int i = 1;i < len;++i) {
+            long x_i = x[i] & M;
+            long c = 0;
+            for(int j = 0;j < i;++j) {
+                c += x_i * (x[j] & M) + (zz[i + j] & M);
+                zz[i + j] = (int) c;
+                c >>>= 32;
+            }
+            zz[i + i] = (int) c;
+        }
+
+        shiftUpBit(extLen, zz, 0, zz);
+
+        long c = 0;
+        for(int i = 0;i < len;++i) {
+            long x_i = x[i] & M;
+            long p = x_i * x_i;
+            c += (p & M) + (zz[i << 1] & M);
+            zz[i << 1] = (int) c;
+            c >>>= 32;
+            c += (p >>> 32) + (zz[(i << 1) + 1] & M);
+            zz[(i << 1) + 1] = (int) c;
+            c >>>= 32;
+        }
+    }
+
+
+    public static int sub(int len, int[] x, int[] y, int[] z) {
+        long c = 0;
+        for(int i = 0;i < len;++i) {
+            c += (x[i] & M) - (y[i] & M);
+            z[i] = (int) c;
+            c >>= 32;
+        }
+        return (int) c;
+    }
+
+
     public static int subFrom(int len, int[] x, int[] z) {
         long c = 0;
         for(int i = 0;i < len;++i) {
@@ -147,6 +384,13 @@ public abstract class Nat {
     }
 
 
+    public static void zero(int len, int[] z) {
+        for(int i = 0;i < len;++i) {
+            z[i] = 0;
+        }
+    }
+
+
     public static void intToBigEndian(int n, byte[] bs, int off) {
         bs[off] = (byte) (n >>> 24);
         bs[++off] = (byte) (n >>> 16);
@@ -0,0 +1,223 @@
+package tlsv12.math.raw;
+
+import java.math.BigInteger;
+
+/**
+ * Fixed width arithmetic on 256 bit values held as eight little-endian 32 bit
+ * words. Double-width ("ext") values are sixteen words.
+ */
+public abstract class Nat256 {
+    private static final long M = 0xFFFFFFFFL;
+
+
+    public static int add(int[] x, int[] y, int[] z) {
+        long c = 0;
+        for(int i = 0;i < 8;++i) {
+            c += (x[i] & M) + (y[i] & M);
+            z[i] = (int) c;
+            c >>>= 32;
+        }
+        return (int) c;
+    }
+
+
+    public static void copy(int[] x, int[] z) {
+        System.arraycopy(x, 0, z, 0, 8);
+    }
+
+
+    public static int[] create() {
+        return new int[8];
+    }
+
+
+    public static int[] createExt() {
+        return new int[16];
+    }
+
+
+    public static boolean eq(int[] x, int[] y) {
+        for(int i = 7;i >= 0;--i) {
+            if( x[i] != y[i] ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    public static int[] fromBigInteger(BigInteger x) {
+        if( x.signum() < 0 || x.bitLength() > 256 ) {
+            throw new IllegalArgumentException();
+        }
+
+        int[] z = create();
+        int i = 0;
+        while( x.signum() != 0 ) {
+            z[i++] = x.intValue();
+            x = x.shiftRight(32);
+        }
+        return z;
+    }
+
+
+    public static int getBit(int[] x, int bit) {
+        if( bit == 0 ) {
+            return x[0] & 1;
+        }
+        int w = bit >> 5;
+        if( w < 0 || w >= 8 ) {
+            return 0;
+        }
+        int b = bit & 31;
+        return (x[w] >>> b) & 1;
+    }
+
+
+    public static boolean gte(int[] x, int[] y) {
+        for(int i = 7;i >= 0;--i) {
+            int x_i = x[i] ^ Integer.MIN_VALUE;
+            int y_i = y[i] ^ Integer.MIN_VALUE;
+            if( x_i < y_i ) return false;
+            if( x_i > y_i ) return true;
+        }
+        return true;
+    }
+
+
+    public static boolean isOne(int[] x) {
+        if( x[0] != 1 ) {
+            return false;
+        }
+        for(int i = 1;i < 8;++i) {
+            if( x[i] != 0 ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    public static boolean isZero(int[] x) {
+        for(int i = 0;i < 8;++i) {
+            if( x[i] != 0 ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Multiply two 256 bit values into a 512 bit result. The multiplicand
+     * words are held in locals so each row of the product is a straight run
+     * of multiply-accumulates. The result must not overlap either input.
+     */
+    public static void mul(int[] x, int[] y, int[] zz) {
+        long y_0 = y[0] & M;
+        long y_1 = y[1] & M;
+        long y_2 = y[2] & M;
+        long y_3 = y[3] & M;
+        long y_4 = y[4] & M;
+        long y_5 = y[5] & M;
+        long y_6 = y[6] & M;
+        long y_7 = y[7] & M;
+
+        {
+            long c = 0, x_0 = x[0] & M;
+            c += x_0 * y_0;
+            zz[0] = (int) c;
+            c >>>= 32;
+            c += x_0 * y_1;
+            zz[1] = (int) c;
+            c >>>= 32;
+            c += x_0 * y_2;
+            zz[2] = (int) c;
+            c >>>= 32;
+            c += x_0 * y_3;
+            zz[3] = (int) c;
+            c >>>= 32;
+            c += x_0 * y_4;
+            zz[4] = (int) c;
+            c >>>= 32;
+            c += x_0 * y_5;
+            zz[5] = (int) c;
+            c >>>= 32;
+            c += x_0 * y_6;
+            zz[6] = (int) c;
+            c >>>= 32;
+            c += x_0 * y_7;
+            zz[7] = (int) c;
+            c >>>= 32;
+            zz[8] = (int) c;
+        }
+
+        for(int i = 1;i < 8;++i) {
+            long c = 0, x_i = x[i] & M;
+            c += x_i * y_0 + (zz[i + 0] & M);
+            zz[i + 0] = (int) c;
+            c >>>= 32;
+            c += x_i * y_1 + (zz[i + 1] & M);
+            zz[i + 1] = (int) c;
+            c >>>= 32;
+            c += x_i * y_2 + (zz[i + 2] & M);
+            zz[i + 2] = (int) c;
+            c >>>= 32;
+            c += x_i * y_3 + (zz[i + 3] & M);
+            zz[i + 3] = (int) c;
+            c >>>= 32;
+            c += x_i * y_4 + (zz[i + 4] & M);
+            zz[i + 4] = (int) c;
+            c >>>= 32;
+            c += x_i * y_5 + (zz[i + 5] & M);
+            zz[i + 5] = (int) c;
+            c >>>= 32;
+            c += x_i * y_6 + (zz[i + 6] & M);
+            zz[i + 6] = (int) c;
+            c >>>= 32;
+            c += x_i * y_7 + (zz[i + 7] & M);
+            zz[i + 7] = (int) c;
+            c >>>= 32;
+            zz[i + 8] = (int) c;
+        }
+    }
+
+
+    public static void square(int[] x, int[] zz) {
+        Nat.square(8, x, zz);
+    }
+
+
+    public static int sub(int[] x, int[] y, int[] z) {
+        long c = 0;
+        for(int i = 0;i < 8;++i) {
+            c += (x[i] & M) - (y[i] & M);
+            z[i] = (int) c;
+            c >>= 32;
+        }
+        return (int) c;
+    }
+
+
+    public static int subFrom(int[] x, int[] z) {
+        long c = 0;
+        for(int i = 0;i < 8;++i) {
+            c += (z[i] & M) - (x[i] & M);
+            z[i] = (int) c;
+            c >>= 32;
+        }
+        return (int) c;
+    }
+
+
+    public static BigInteger toBigInteger(int[] x) {
+        return Nat.toBigInteger(8, x);
+    }
+
+
+    public static void zero(int[] z) {
+        for(int i = 0;i < 8;++i) {
+            z[i] = 0;
+        }
+    }
+}
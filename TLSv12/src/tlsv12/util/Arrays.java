@@ -78,6 +78,29 @@ public final class Arrays {
     }
 
 
+    public static boolean areEqual(long[] a, long[] b) {
+        if( a == b ) {
+            return true;
+        }
+
+        if( a == null || b == null ) {
+            return false;
+        }
+
+        if( a.length != b.length ) {
+            return false;
+        }
+
+        for(int i = 0;i != a.length;i++) {
+            if( a[i] != b[i] ) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
     public static int hashCode(byte[] data) {
         if( data == null ) {
             return 0;
@@ -129,6 +152,26 @@ public final class Arrays {
     }
 
 
+    public static int hashCode(long[] data) {
+        if( data == null ) {
+            return 0;
+        }
+
+        int i = data.length;
+        int hc = i + 1;
+
+        while( --i >= 0 ) {
+            long di = data[i];
+            hc *= 257;
+            hc ^= (int) di;
+            hc *= 257;
+            hc ^= (int) (di >>> 32);
+        }
+
+        return hc;
+    }
+
+
     public static byte[] clone(byte[] data) {
         if( data == null ) {
             return null;
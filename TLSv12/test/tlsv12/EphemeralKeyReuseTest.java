@@ -0,0 +1,149 @@
+/*
+ * @test
+ * @summary Ephemeral ECDHE key reuse limits on Tls12Context
+ * @run main tlsv12.EphemeralKeyReuseTest
+ */
+package tlsv12;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EphemeralKeyReuseTest {
+
+    // secp256r1 and secp384r1
+    private static final String P256 = "1.2.840.10045.3.1.7";
+
+    private static final String P384 = "1.3.132.0.34";
+
+
+    public static void main(String[] args) throws Exception {
+        testDefault();
+        testOneConnection();
+        testZeroAge();
+        testConnectionLimit();
+        testCurvesSeparate();
+        testConcurrent();
+        System.out.println("Test passed.");
+    }
+
+
+    private static void testDefault() {
+        Tls12Context c = new Tls12Context();
+        check(!c.isEphemeralKeyReuseEnabled(), "reuse enabled by default");
+        checkFresh(c);
+    }
+
+
+    // a key used for one connection only is not reused
+    private static void testOneConnection() {
+        Tls12Context c = new Tls12Context();
+        c.setEphemeralKeyReuse(60000, 1);
+        check(!c.isEphemeralKeyReuseEnabled(),
+                "reuse enabled for maxConnections == 1");
+        checkFresh(c);
+        check(c.getEphemeralKeyRotations() == 0, "rotations counted");
+        check(c.getEphemeralKeyReuses() == 0, "reuses counted");
+    }
+
+
+    private static void testZeroAge() {
+        Tls12Context c = new Tls12Context();
+        c.setEphemeralKeyReuse(0, 10);
+        check(!c.isEphemeralKeyReuseEnabled(), "reuse enabled for age 0");
+        checkFresh(c);
+    }
+
+
+    private static void testConnectionLimit() {
+        Tls12Context c = new Tls12Context();
+        c.setEphemeralKeyReuse(60000, 2);
+        check(c.isEphemeralKeyReuseEnabled(), "reuse not enabled");
+
+        SSLContextImpl impl = c.getImpl();
+        ECDHCrypt k1 = impl.getEphemeralECDHCrypt(P256);
+        ECDHCrypt k2 = impl.getEphemeralECDHCrypt(P256);
+        ECDHCrypt k3 = impl.getEphemeralECDHCrypt(P256);
+        check(k1 == k2, "key not reused");
+        check(k3 != k1, "key used beyond the connection limit");
+        check(c.getEphemeralKeyRotations() == 2, "rotations "
+                + c.getEphemeralKeyRotations());
+        check(c.getEphemeralKeyReuses() == 1, "reuses "
+                + c.getEphemeralKeyReuses());
+
+        c.setEphemeralKeyReuse(60000, 0);
+        check(!c.isEphemeralKeyReuseEnabled(), "reuse not disabled");
+        checkFresh(c);
+    }
+
+
+    private static void testCurvesSeparate() {
+        Tls12Context c = new Tls12Context();
+        c.setEphemeralKeyReuse(60000, 10);
+        SSLContextImpl impl = c.getImpl();
+        ECDHCrypt a = impl.getEphemeralECDHCrypt(P256);
+        ECDHCrypt b = impl.getEphemeralECDHCrypt(P384);
+        check(a != b, "curves share a key");
+        check(impl.getEphemeralECDHCrypt(P256) == a, "P-256 key not reused");
+        check(impl.getEphemeralECDHCrypt(P384) == b, "P-384 key not reused");
+    }
+
+
+    // no key is handed out more often than the limit, under contention
+    private static void testConcurrent() throws Exception {
+        final int threads = 8;
+        final int perThread = 50;
+        final int maxUses = 10;
+
+        Tls12Context c = new Tls12Context();
+        c.setEphemeralKeyReuse(60000, maxUses);
+        final SSLContextImpl impl = c.getImpl();
+        final Map<ECDHCrypt, AtomicInteger> uses = Collections.synchronizedMap(new IdentityHashMap<ECDHCrypt, AtomicInteger>());
+
+        Thread[] t = new Thread[threads];
+        for(int i = 0;i < threads;i++) {
+            t[i] = new Thread() {
+                public void run() {
+                    for(int j = 0;j < perThread;j++) {
+                        ECDHCrypt k = impl.getEphemeralECDHCrypt(P256);
+                        synchronized (uses) {
+                            AtomicInteger n = uses.get(k);
+                            if( n == null ) {
+                                uses.put(k, n = new AtomicInteger());
+                            }
+                            n.incrementAndGet();
+                        }
+                    }
+                }
+            };
+            t[i].start();
+        }
+        for(int i = 0;i < threads;i++) {
+            t[i].join();
+        }
+
+        for(AtomicInteger n:uses.values()) {
+            check(n.get() <= maxUses, "key used " + n.get() + " times");
+        }
+        check(c.getEphemeralKeyRotations() == uses.size(), "rotations "
+                + c.getEphemeralKeyRotations() + ", keys " + uses.size());
+        check(c.getEphemeralKeyRotations() + c.getEphemeralKeyReuses() == threads
+                * perThread, "uses not counted");
+    }
+
+
+    private static void checkFresh(Tls12Context c) {
+        SSLContextImpl impl = c.getImpl();
+        ECDHCrypt k1 = impl.getEphemeralECDHCrypt(P256);
+        ECDHCrypt k2 = impl.getEphemeralECDHCrypt(P256);
+        check(k1 != k2, "key reused");
+    }
+
+
+    private static void check(boolean ok, String message) {
+        if( !ok ) {
+            throw new RuntimeException("Failed: " + message);
+        }
+    }
+}
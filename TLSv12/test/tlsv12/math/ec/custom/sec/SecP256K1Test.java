@@ -0,0 +1,261 @@
+/*
+ * @test
+ * @summary secp256k1 GLV endomorphism constants, scalar splitting and
+ *          multiplication against reference results and fixed vectors
+ * @run main tlsv12.math.ec.custom.sec.SecP256K1Test
+ */
+package tlsv12.math.ec.custom.sec;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+import tlsv12.crypto.agreement.ECDHBasicAgreement;
+import tlsv12.crypto.params.ECDomainParameters;
+import tlsv12.crypto.params.ECPrivateKeyParameters;
+import tlsv12.crypto.params.ECPublicKeyParameters;
+import tlsv12.crypto.signers.ECDSASigner;
+import tlsv12.math.ec.ECAlgorithms;
+import tlsv12.math.ec.ECCurve;
+import tlsv12.math.ec.ECPoint;
+import tlsv12.math.ec.GLVMultiplier;
+import tlsv12.math.ec.endo.GLVEndomorphism;
+import tlsv12.util.encoders.Hex;
+
+public class SecP256K1Test {
+
+    // the generator and order, from SEC 2
+    private static final BigInteger GX = hex("79BE667EF9DCBBAC55A06295CE870B07029BFCDB2DCE28D959F2815B16F81798");
+
+    private static final BigInteger GY = hex("483ADA7726A3C4655DA4FBFC0E1108A8FD17B448A68554199C47D08FFB10D4B8");
+
+    private static final BigInteger N = hex("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEBAAEDCE6AF48A03BBFD25E8CD0364141");
+
+    // the cube roots of unity the curve's endomorphism should use
+    private static final BigInteger BETA = hex("7AE96A2B657C07106E64479EAC3434E99CF0497512F58995C1396C28719501EE");
+
+    private static final BigInteger LAMBDA = hex("5363AD4CC05C30E0A5261C028812645A122E22EA20816678DF02967C1B23BD72");
+
+    // 2G and 3G
+    private static final String[][] MULTIPLES = {
+            { "2",
+                    "C6047F9441ED7D6D3045406E95C07CD85C778E4B8CEF3CA7ABAC09B95C709EE5",
+                    "1AE168FEA63DC339A3C58419466CEAEEF7F632653266D0E1236431A950CFE52A" },
+            { "3",
+                    "F9308A019258C31049344F85F89D5229B531C845836F99B08601F113BCE036F9",
+                    "388F7B0F632DE8140FE337E62A37F3566500A99934C2231B6CB9FD7584B8E672" } };
+
+    // private key, peer's uncompressed public key, shared secret; from OpenSSL
+    private static final String[][] ECDH = {
+            { "e4dd20c2b3247d7af97ba7917b26cca12a59de5c0f04f0468bced471faace4bb",
+                    "04e3183e608c9151a4707274dd602356dee433a8a7ecd74525dd14289491c43840"
+                            + "39aabe123666180429bbce6a059cbd8951fc703a4997f4afb8a69131ecfc9dce",
+                    "bd676246ddb7cf6f301ef263925b9c98a2df0d01b45610c22f181b1836365ed1" },
+            { "284196bb4d60d28ff560c60667092bd536c3e8e8c4772b241056fbfc22156354",
+                    "04f5a7e027504ce40efc06abb9b0ae5dcd390a147a82025a076a37af1f37ecab18"
+                            + "eb1ca83c4343ed6bbb98669b0ce8aba76610bba7afb73991e114d11db0b7edd7",
+                    "81e062383d474589bd1a88a6a704706eebb8af70690fb5980e01c1993731967d" },
+            { "35257ec17991edfb0322d6d718577b721e5b351a6227d3c8cb132ad91b5cc92a",
+                    "047aa1451eb546293a1d303ffde331fd07db8ee5263a714e9e5bc51cedf19a88d1"
+                            + "e6d801cc9e69d5b04e35cc0f29807cf2266d77dfc3a2b2a2a971131fc7449f16",
+                    "a7e3b785cdbf104e1265c2945a410d177f57871c6bf25f1fefc3298ae0f6a26a" } };
+
+    // public key, SHA-256 digest, r, s; signed by OpenSSL
+    private static final String[][] ECDSA = {
+            { "04298c425312f35c97cb2da1185d835844b30c6eaeba68346a984e542bacec8a93"
+                    + "5c93bfdfea3a95457c2722be7e5a7ddf36021fdb5b80dc6a747dffb7cbcb7241",
+                    "ef5a90ad35c3e407c9b9455242be0fa7ad8d9cfbddbacd61851b42236d8d1518",
+                    "0DA9E424962FE1F43B67098AF137F6706ECC17FFC03E76C11ED1277440022F99",
+                    "F8E8BF68BB31D82F68C1761FF96C816CE4E8A0942DBD0A7D0AF9B72ED6F734A5" },
+            { "042e610d85f4b022fdb6a9b9a9664b3ecf683c6b193736c307ac4906b0f575caf5"
+                    + "94abc32a7c398b0894f21b9d601ddc18dcd91b8289ef365d2fa4685d9325b62a",
+                    "b1cae528e72eb51eaaac2216a3ca84667079e59c7b10fb81d39891cb52d4e9df",
+                    "D1D7E4E49C7F3FA5AC565806FB292EAD332E54228761A0F903BCF2BBECC86759",
+                    "5C24830BA9623BCD3F68DC4B9FAC2F69FFC6C5F623722EB1EA50CEE0D2C3E685" } };
+
+    private static final SecureRandom random = new SecureRandom();
+
+    private static final ECCurve curve = new SecP256K1Curve();
+
+    private static final ECPoint G = curve.createPoint(GX, GY);
+
+    private static final ECDomainParameters domain = new ECDomainParameters(
+            curve, G, N, BigInteger.ONE);
+
+
+    public static void main(String[] args) throws Exception {
+        testEndomorphism();
+        testDecomposition();
+        testMultiply();
+        testSumOfTwoMultiplies();
+        testMultiples();
+        testECDH();
+        testECDSA();
+        System.out.println("Test passed.");
+    }
+
+
+    // lambda * G == (beta * Gx, Gy)
+    private static void testEndomorphism() {
+        BigInteger p = curve.getField().getCharacteristic();
+        check(BETA.modPow(BigInteger.valueOf(3), p).equals(BigInteger.ONE),
+                "beta is not a cube root of unity");
+        check(LAMBDA.modPow(BigInteger.valueOf(3), N).equals(BigInteger.ONE),
+                "lambda is not a cube root of unity");
+
+        check(curve.getOrder().equals(N), "order");
+        check(curve.getEndomorphism() instanceof GLVEndomorphism,
+                "no GLV endomorphism");
+
+        ECPoint expected = curve.createPoint(GX.multiply(BETA).mod(p), GY);
+        check(ECAlgorithms.referenceMultiply(G, LAMBDA).equals(expected),
+                "lambda * G != (beta * Gx, Gy)");
+        check(getEndomorphism().getPointMap().map(G).equals(expected),
+                "point map is not (beta * x, y)");
+    }
+
+
+    // k == a + b * lambda, with a and b at most 128 bits
+    private static void testDecomposition() {
+        BigInteger half = N.shiftRight(1);
+        BigInteger[] edges = { BigInteger.ZERO, BigInteger.ONE,
+                BigInteger.valueOf(2), N.subtract(BigInteger.ONE),
+                N.subtract(BigInteger.valueOf(2)), half.subtract(BigInteger.ONE),
+                half, half.add(BigInteger.ONE), half.add(BigInteger.valueOf(2)),
+                LAMBDA, N.subtract(LAMBDA), BigInteger.ONE.shiftLeft(128),
+                BigInteger.ONE.shiftLeft(128).subtract(BigInteger.ONE),
+                BigInteger.ONE.shiftLeft(255) };
+        for(int i = 0;i < edges.length;i++) {
+            checkDecomposition(edges[i]);
+        }
+        for(int i = 0;i < 2000;i++) {
+            checkDecomposition(randomScalar());
+        }
+    }
+
+
+    private static void checkDecomposition(BigInteger k) {
+        BigInteger[] ab = getEndomorphism().decomposeScalar(k);
+        BigInteger a = ab[0], b = ab[1];
+        check(a.add(b.multiply(LAMBDA)).subtract(k).mod(N).signum() == 0,
+                "a + b * lambda != k for k = " + k.toString(16));
+        check(a.abs().bitLength() <= 128 && b.abs().bitLength() <= 128,
+                "halves too long for k = " + k.toString(16) + ": "
+                        + a.toString(16) + ", " + b.toString(16));
+    }
+
+
+    private static void testMultiply() {
+        check(curve.getMultiplier() instanceof GLVMultiplier,
+                "default multiplier is not GLV");
+        GLVMultiplier glv = new GLVMultiplier(curve, getEndomorphism());
+
+        ECPoint P = ECAlgorithms.referenceMultiply(G, randomScalar());
+        BigInteger[] edges = { BigInteger.ONE, BigInteger.valueOf(2),
+                N.subtract(BigInteger.ONE), N.shiftRight(1), LAMBDA };
+        for(int i = 0;i < edges.length;i++) {
+            checkMultiply(glv, G, edges[i]);
+            checkMultiply(glv, P, edges[i]);
+        }
+        for(int i = 0;i < 50;i++) {
+            checkMultiply(glv, G, randomScalar());
+            checkMultiply(glv, P, randomScalar());
+        }
+        check(glv.multiply(G, N).isInfinity(), "n * G is not infinity");
+    }
+
+
+    private static void checkMultiply(GLVMultiplier glv, ECPoint P,
+            BigInteger k) {
+        ECPoint expected = ECAlgorithms.referenceMultiply(P, k);
+        check(glv.multiply(P, k).equals(expected), "GLVMultiplier, k = "
+                + k.toString(16));
+        check(P.multiply(k).equals(expected), "ECPoint.multiply, k = "
+                + k.toString(16));
+    }
+
+
+    private static void testSumOfTwoMultiplies() {
+        ECPoint Q = ECAlgorithms.referenceMultiply(G, randomScalar());
+        for(int i = 0;i < 50;i++) {
+            BigInteger a = randomScalar(), b = randomScalar();
+            checkSum(a, Q, b);
+        }
+        checkSum(BigInteger.ONE, Q, N.subtract(BigInteger.ONE));
+        checkSum(N.subtract(BigInteger.ONE), Q, BigInteger.ONE);
+        checkSum(LAMBDA, Q, N.shiftRight(1));
+    }
+
+
+    private static void checkSum(BigInteger a, ECPoint Q, BigInteger b) {
+        ECPoint expected = ECAlgorithms.referenceMultiply(G, a).add(
+                ECAlgorithms.referenceMultiply(Q, b));
+        check(ECAlgorithms.sumOfTwoMultiplies(G, a, Q, b).equals(expected),
+                "sumOfTwoMultiplies, a = " + a.toString(16) + ", b = "
+                        + b.toString(16));
+    }
+
+
+    private static void testMultiples() {
+        for(int i = 0;i < MULTIPLES.length;i++) {
+            BigInteger k = new BigInteger(MULTIPLES[i][0]);
+            ECPoint expected = curve.createPoint(hex(MULTIPLES[i][1]),
+                    hex(MULTIPLES[i][2]));
+            check(G.multiply(k).equals(expected), k + " * G");
+        }
+    }
+
+
+    private static void testECDH() {
+        for(int i = 0;i < ECDH.length;i++) {
+            ECPoint Q = curve.decodePoint(Hex.decode(ECDH[i][1]));
+            ECDHBasicAgreement agreement = new ECDHBasicAgreement();
+            agreement.init(new ECPrivateKeyParameters(hex(ECDH[i][0]), domain));
+            BigInteger z = agreement.calculateAgreement(new ECPublicKeyParameters(
+                    Q, domain));
+            check(z.equals(hex(ECDH[i][2])), "ECDH vector " + i);
+        }
+    }
+
+
+    private static void testECDSA() {
+        for(int i = 0;i < ECDSA.length;i++) {
+            ECPoint Q = curve.decodePoint(Hex.decode(ECDSA[i][0]));
+            byte[] digest = Hex.decode(ECDSA[i][1]);
+            BigInteger r = hex(ECDSA[i][2]), s = hex(ECDSA[i][3]);
+
+            ECDSASigner signer = new ECDSASigner(null);
+            signer.init(false, new ECPublicKeyParameters(Q, domain));
+            check(signer.verifySignature(digest, r, s), "ECDSA vector " + i);
+
+            digest[0] ^= 1;
+            check(!signer.verifySignature(digest, r, s), "ECDSA vector " + i
+                    + " verified a changed digest");
+        }
+    }
+
+
+    private static GLVEndomorphism getEndomorphism() {
+        return (GLVEndomorphism) curve.getEndomorphism();
+    }
+
+
+    private static BigInteger randomScalar() {
+        BigInteger k;
+        do {
+            k = new BigInteger(N.bitLength(), random);
+        } while( k.signum() == 0 || k.compareTo(N) >= 0 );
+        return k;
+    }
+
+
+    private static BigInteger hex(String s) {
+        return new BigInteger(s, 16);
+    }
+
+
+    private static void check(boolean ok, String message) {
+        if( !ok ) {
+            throw new RuntimeException("Failed: " + message);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package tlsv12;
+
+import tlsv12.ec.ECNamedCurveRegistry;
+import tlsv12.ec.ECParameterSpec;
+import tlsv12.math.ec.ECPoint;
+import tlsv12.math.ec.FixedPointTables;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Build step which computes the fixed-point comb tables for the curves this
+ * library offers by default, and writes them to the resource read by
+ * {@link FixedPointTables}. It lives outside the library sources, so it is
+ * not part of the runtime classes. Run it against the compiled library
+ * whenever the default curves or the comb width change:
+ *
+ * <pre>
+ * javac -cp classes -d tools-classes tools/tlsv12/CurveTableGenerator.java
+ * java -cp classes:tools-classes tlsv12.CurveTableGenerator src/tlsv12/math/ec/fixed_point_tables.dat
+ * </pre>
+ */
+final class CurveTableGenerator {
+
+    private CurveTableGenerator() {
+        // no instantiation of this class
+    }
+
+
+    public static void main(String[] args) throws IOException {
+        if( args.length != 1 ) {
+            System.err.println("Usage: java " + CurveTableGenerator.class.getName()
+                    + " <output file>");
+            System.exit(1);
+        }
+
+        List<ECPoint> generators = new ArrayList<ECPoint>();
+        for(int curveId:SupportedEllipticCurvesExtension.DEFAULT.curveIds()) {
+            String oid = SupportedEllipticCurvesExtension.getCurveOid(curveId);
+            ECParameterSpec spec = ECNamedCurveRegistry.getParameterSpec(oid);
+            if( spec != null ) {
+                generators.add(spec.getG());
+            }
+        }
+
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(
+                args[0]));
+        try {
+            FixedPointTables.write(out,
+                    generators.toArray(new ECPoint[generators.size()]));
+        } finally {
+            out.close();
+        }
+
+        System.out.println("Wrote tables for " + generators.size()
+                + " curves to " + args[0]);
+    }
+}